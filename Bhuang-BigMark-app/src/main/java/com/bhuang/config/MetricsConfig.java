@@ -0,0 +1,30 @@
+package com.bhuang.config;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 指标配置：限制 Key 归类标签的取值个数，指标由 micrometer-registry-prometheus 经 /actuator/prometheus 导出
+ * @author bhuang
+ */
+@Slf4j
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Key 归类已把可变片段替换为 {}，这里再按指标限制取值个数，新格式的 Key 过多时超出部分不再注册
+     */
+    @Bean
+    public MeterFilter redisKeyFamilyLimitFilter(@Value("${strategy.metrics.max-key-families:100}") int maxKeyFamilies) {
+        return MeterFilter.maximumAllowableTags("redis.command", "family", maxKeyFamilies, MeterFilter.deny());
+    }
+
+    @Bean
+    public MeterFilter repositoryKeyFamilyLimitFilter(@Value("${strategy.metrics.max-key-families:100}") int maxKeyFamilies) {
+        return MeterFilter.maximumAllowableTags("strategy.repository", "family", maxKeyFamilies, MeterFilter.deny());
+    }
+
+}
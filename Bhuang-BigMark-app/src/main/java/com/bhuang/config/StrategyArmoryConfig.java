@@ -0,0 +1,21 @@
+package com.bhuang.config;
+
+import com.bhuang.domain.strategy.service.armory.StrategyArmoryProperties;
+import com.bhuang.domain.strategy.service.counter.UserRaffleCounterProperties;
+import com.bhuang.domain.strategy.service.limit.RaffleRateLimitProperties;
+import com.bhuang.domain.strategy.service.stock.StrategyStockProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 策略装配配置，注册 strategy.armory、strategy.stock、strategy.user-counter、strategy.rate-limit 配置项，并开启库存回写、抽奖次数回写、限流同步等定时任务
+ * @author bhuang
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties({StrategyArmoryProperties.class, StrategyStockProperties.class, UserRaffleCounterProperties.class,
+        RaffleRateLimitProperties.class})
+public class StrategyArmoryConfig {
+
+}
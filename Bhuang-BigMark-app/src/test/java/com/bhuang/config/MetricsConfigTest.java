@@ -0,0 +1,73 @@
+package com.bhuang.config;
+
+import com.bhuang.domain.strategy.service.armory.StrategyDispatchService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.prometheus.PrometheusMetricsExportAutoConfiguration;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.TextOutputFormat;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bhuang
+ * @description 指标配置测试 - 验证 actuator 装配 Prometheus 注册表与 /actuator/prometheus 抓取端点，直方图按 le 导出，以及 Key 归类标签超过上限后不再注册
+ * @create 2025-06-14
+ */
+@Slf4j
+public class MetricsConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(MetricsAutoConfiguration.class,
+                    CompositeMeterRegistryAutoConfiguration.class,
+                    PrometheusMetricsExportAutoConfiguration.class))
+            .withUserConfiguration(MetricsConfig.class)
+            .withPropertyValues("management.endpoints.web.exposure.include=prometheus",
+                    "strategy.metrics.max-key-families=2");
+
+    @Test
+    public void testPrometheusScrape() {
+        contextRunner.run(context -> {
+            assertEquals(1, context.getBeansOfType(PrometheusScrapeEndpoint.class).size());
+            MeterRegistry meterRegistry = context.getBean(PrometheusMeterRegistry.class);
+
+            Timer timer = Timer.builder("strategy.draw")
+                    .tag("method", "single")
+                    .publishPercentileHistogram()
+                    .serviceLevelObjectives(StrategyDispatchService.DRAW_LATENCY_BUCKETS)
+                    .register(meterRegistry);
+            for (int i = 1; i <= 100; i++) {
+                timer.record(i, TimeUnit.MILLISECONDS);
+            }
+            meterRegistry.counter("strategy.repository.cache", "family", "strategy#{}", "result", "db").increment(3);
+
+            String text = context.getBean(PrometheusScrapeEndpoint.class).scrape(TextOutputFormat.CONTENT_TYPE_004, null).getBody();
+            log.info("抓取结果：\n{}", text);
+            assertTrue(text.contains("# TYPE strategy_draw_seconds histogram\n"));
+            assertTrue(text.contains("strategy_draw_seconds_bucket{method=\"single\",le=\"0.01\",} 10.0\n"));
+            assertTrue(text.contains("strategy_draw_seconds_count{method=\"single\",} 100.0\n"));
+            assertTrue(text.contains("strategy_repository_cache_total{family=\"strategy#{}\",result=\"db\",} 3.0\n"));
+        });
+    }
+
+    @Test
+    public void testKeyFamilyLimit() {
+        contextRunner.run(context -> {
+            MeterRegistry meterRegistry = context.getBean(PrometheusMeterRegistry.class);
+            for (int i = 0; i < 5; i++) {
+                meterRegistry.timer("redis.command", "operation", "get", "family", "family" + i).record(1, TimeUnit.MILLISECONDS);
+            }
+            assertEquals(2, meterRegistry.find("redis.command").timers().size());
+        });
+    }
+
+}
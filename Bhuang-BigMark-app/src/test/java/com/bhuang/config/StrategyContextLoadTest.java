@@ -0,0 +1,81 @@
+package com.bhuang.config;
+
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.armory.IStrategyDispatch;
+import com.bhuang.domain.strategy.service.armory.StrategyDispatchService;
+import com.bhuang.domain.strategy.service.raffle.StrategyRaffleService;
+import com.bhuang.domain.strategy.service.rule.chain.StrategyRuleChainEngine;
+import com.bhuang.trigger.http.RaffleController;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.annotation.Resource;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bhuang
+ * @description 策略领域上下文装配测试 - 仓储以 MockBean 替代，不依赖 Redis 与数据库，校验领域服务与抽奖接口可完成注入
+ * StrategyArmory 与 StrategyDispatchService 均实现 IStrategyDispatch，按接口注入的位置须得到带耗时统计的调度服务
+ * @create 2025-06-14
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {StrategyArmoryConfig.class, StrategyContextLoadTest.ContextConfig.class})
+public class StrategyContextLoadTest {
+
+    @MockBean
+    private IStrategyRepository strategyRepository;
+
+    @MockBean
+    private IDrawJournalRepository drawJournalRepository;
+
+    @Resource
+    private IStrategyDispatch strategyDispatch;
+
+    @Resource
+    private StrategyRaffleService strategyRaffleService;
+
+    @Resource
+    private StrategyRuleChainEngine strategyRuleChainEngine;
+
+    @Resource
+    private RaffleController raffleController;
+
+    @Test
+    public void testDispatchResolvesToDispatchService() {
+        assertTrue(strategyDispatch instanceof StrategyDispatchService);
+        assertSame(strategyDispatch, ReflectionTestUtils.getField(strategyRaffleService, "strategyDispatch"));
+        assertSame(strategyDispatch, ReflectionTestUtils.getField(strategyRuleChainEngine, "strategyDispatch"));
+        assertSame(strategyRaffleService, ReflectionTestUtils.getField(raffleController, "strategyRaffle"));
+    }
+
+    @Configuration
+    @ComponentScan({"com.bhuang.domain.strategy", "com.bhuang.trigger.http"})
+    static class ContextConfig {
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        public ThreadPoolExecutor threadPoolExecutor() {
+            return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        }
+
+    }
+
+}
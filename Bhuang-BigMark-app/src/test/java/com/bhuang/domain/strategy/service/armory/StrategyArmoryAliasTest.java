@@ -0,0 +1,216 @@
+package com.bhuang.domain.strategy.service.armory;
+
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardAliasTableVO;
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.rule.IStrategyBlacklist;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 别名表调度引擎测试 - 验证装配结果，并用卡方检验对比别名表与查找表的抽奖分布
+ * @create 2025-06-13
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyArmoryAliasTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    private static final int[] AWARD_IDS = {101, 102, 103, 104, 105, 106};
+    private static final String[] AWARD_RATES = {"0.01", "0.04", "0.10", "0.15", "0.30", "0.40"};
+
+    /** 抽样次数 */
+    private static final int SAMPLE_TIMES = 200_000;
+
+    /** 自由度5、显著性水平0.001的卡方临界值 */
+    private static final double CHI_SQUARE_CRITICAL = 20.515;
+
+    @Mock
+    private IStrategyRepository strategyRepository;
+
+    @Mock
+    private IStrategyBlacklist strategyBlacklist;
+
+    @Spy
+    private StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private IDrawJournalRepository drawJournalRepository = IDrawJournalRepository.NONE;
+
+    @InjectMocks
+    private StrategyArmory strategyArmory;
+
+    private List<StrategyAwardEntity> strategyAwardList;
+
+    @Before
+    public void setUp() {
+        strategyAwardList = new ArrayList<>();
+        for (int i = 0; i < AWARD_IDS.length; i++) {
+            strategyAwardList.add(StrategyAwardEntity.builder()
+                    .strategyId(TEST_STRATEGY_ID)
+                    .awardId(AWARD_IDS[i])
+                    .awardRate(new BigDecimal(AWARD_RATES[i]))
+                    .build());
+        }
+    }
+
+    @Test
+    public void testAssembleAliasStrategy() {
+        armoryProperties.setDispatchEngines(Collections.singletonMap(TEST_STRATEGY_ID, "alias"));
+        StrategyRuleEntity ruleEntity = StrategyRuleEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .ruleModel("rule_weight")
+                .ruleValue("4000:102,103 6000:104,105,106")
+                .build();
+        when(strategyRepository.queryStrategyAwardList(TEST_STRATEGY_ID)).thenReturn(strategyAwardList);
+        when(strategyRepository.queryStrategyRule(TEST_STRATEGY_ID, "rule_weight")).thenReturn(ruleEntity);
+
+        assertTrue("别名表装配应该成功", strategyArmory.assembleLotteryStrategy(TEST_STRATEGY_ID));
+
+        ArgumentCaptor<StrategyAwardAliasTableVO> captor = ArgumentCaptor.forClass(StrategyAwardAliasTableVO.class);
+        verify(strategyRepository).storeStrategyAwardAliasTable(eq(TEST_STRATEGY_ID), captor.capture());
+        assertEquals("别名表列数应等于奖品数量", AWARD_IDS.length, captor.getValue().columns());
+
+        ArgumentCaptor<StrategyAwardAliasTableVO> weightCaptor = ArgumentCaptor.forClass(StrategyAwardAliasTableVO.class);
+        verify(strategyRepository).storeStrategyAwardAliasTableByWeight(eq(TEST_STRATEGY_ID), eq("4000"), weightCaptor.capture());
+        assertEquals(2, weightCaptor.getValue().columns());
+        verify(strategyRepository).storeStrategyAwardAliasTableByWeight(eq(TEST_STRATEGY_ID), eq("6000"), any());
+
+        // 别名表引擎不再生成概率查找表
+        verify(strategyRepository, never()).storeStrategyAwardSearchRateTable(anyLong(), any(int[].class));
+        verify(strategyRepository, never()).storeStrategyAwardSearchRateTableByWeight(anyLong(), anyString(), any(int[].class));
+    }
+
+    @Test
+    public void testDrawFromAliasTable() {
+        armoryProperties.setDispatchEngine("alias");
+        armoryProperties.setLocalTableCheckInterval(60_000L);
+        when(strategyRepository.queryStrategyArmoryVersion(TEST_STRATEGY_ID)).thenReturn(1L);
+        when(strategyRepository.queryStrategyAwardAliasTable(TEST_STRATEGY_ID))
+                .thenReturn(StrategyAwardAliasTableVO.create(new int[]{101, 102}, new double[]{1, 3}));
+
+        for (int i = 0; i < 1000; i++) {
+            Integer awardId = strategyArmory.getRandomAwardId(TEST_STRATEGY_ID);
+            assertTrue("奖品ID应来自别名表", awardId == 101 || awardId == 102);
+        }
+
+        verify(strategyRepository, times(1)).queryStrategyAwardAliasTable(TEST_STRATEGY_ID);
+        verify(strategyRepository, never()).queryStrategyAwardSearchRateTable(anyLong());
+        verify(strategyRepository, never()).queryStrategyRateTableSnapshot(anyLong(), isNull());
+    }
+
+    @Test
+    public void testAliasDistributionChiSquare() {
+        StrategyAwardAliasTableVO aliasTable = assembleAliasTable();
+
+        Random random = new Random(20250613L);
+        Map<Integer, Integer> observed = new HashMap<>();
+        for (int i = 0; i < SAMPLE_TIMES; i++) {
+            observed.merge(aliasTable.sample(random.nextInt(aliasTable.columns()), random.nextDouble()), 1, Integer::sum);
+        }
+
+        double chiSquare = chiSquareGoodnessOfFit(observed);
+        log.info("别名表卡方统计量：{}，临界值：{}", chiSquare, CHI_SQUARE_CRITICAL);
+        assertTrue("别名表抽奖分布应符合配置概率", chiSquare < CHI_SQUARE_CRITICAL);
+    }
+
+    @Test
+    public void testTableDistributionChiSquare() {
+        int[] searchRateTable = assembleSearchRateTable();
+
+        Random random = new Random(20250613L);
+        Map<Integer, Integer> observed = new HashMap<>();
+        for (int i = 0; i < SAMPLE_TIMES; i++) {
+            observed.merge(searchRateTable[random.nextInt(searchRateTable.length)], 1, Integer::sum);
+        }
+
+        double chiSquare = chiSquareGoodnessOfFit(observed);
+        log.info("查找表卡方统计量：{}，临界值：{}", chiSquare, CHI_SQUARE_CRITICAL);
+        assertTrue("查找表抽奖分布应符合配置概率", chiSquare < CHI_SQUARE_CRITICAL);
+    }
+
+    @Test
+    public void testAliasAndTableDistributionHomogeneity() {
+        StrategyAwardAliasTableVO aliasTable = assembleAliasTable();
+        int[] searchRateTable = assembleSearchRateTable();
+
+        Random random = new Random(42L);
+        Map<Integer, Integer> aliasObserved = new HashMap<>();
+        Map<Integer, Integer> tableObserved = new HashMap<>();
+        for (int i = 0; i < SAMPLE_TIMES; i++) {
+            aliasObserved.merge(aliasTable.sample(random.nextInt(aliasTable.columns()), random.nextDouble()), 1, Integer::sum);
+            tableObserved.merge(searchRateTable[random.nextInt(searchRateTable.length)], 1, Integer::sum);
+        }
+
+        // 两样本卡方齐性检验：样本量相同时，统计量为 Σ(a-b)²/(a+b)
+        double chiSquare = 0;
+        for (int awardId : AWARD_IDS) {
+            int a = aliasObserved.getOrDefault(awardId, 0);
+            int b = tableObserved.getOrDefault(awardId, 0);
+            chiSquare += Math.pow(a - b, 2) / (a + b);
+        }
+        log.info("别名表与查找表齐性检验卡方统计量：{}，临界值：{}", chiSquare, CHI_SQUARE_CRITICAL);
+        assertTrue("两种调度引擎的抽奖分布应一致", chiSquare < CHI_SQUARE_CRITICAL);
+    }
+
+    /**
+     * 以别名表引擎装配策略，返回写入仓储的别名表
+     */
+    private StrategyAwardAliasTableVO assembleAliasTable() {
+        armoryProperties.setDispatchEngine("alias");
+        when(strategyRepository.queryStrategyAwardList(TEST_STRATEGY_ID)).thenReturn(strategyAwardList);
+        strategyArmory.assembleLotteryStrategy(TEST_STRATEGY_ID);
+
+        ArgumentCaptor<StrategyAwardAliasTableVO> captor = ArgumentCaptor.forClass(StrategyAwardAliasTableVO.class);
+        verify(strategyRepository).storeStrategyAwardAliasTable(eq(TEST_STRATEGY_ID), captor.capture());
+        return captor.getValue();
+    }
+
+    /**
+     * 以查找表引擎装配策略，返回写入仓储的查找表
+     */
+    private int[] assembleSearchRateTable() {
+        armoryProperties.setDispatchEngine("table");
+        when(strategyRepository.queryStrategyAwardList(TEST_STRATEGY_ID)).thenReturn(strategyAwardList);
+        strategyArmory.assembleLotteryStrategy(TEST_STRATEGY_ID);
+
+        ArgumentCaptor<int[]> captor = ArgumentCaptor.forClass(int[].class);
+        verify(strategyRepository).storeStrategyAwardSearchRateTable(eq(TEST_STRATEGY_ID), captor.capture());
+        return captor.getValue();
+    }
+
+    /**
+     * 卡方拟合优度检验统计量
+     */
+    private double chiSquareGoodnessOfFit(Map<Integer, Integer> observed) {
+        double chiSquare = 0;
+        for (int i = 0; i < AWARD_IDS.length; i++) {
+            double expected = SAMPLE_TIMES * Double.parseDouble(AWARD_RATES[i]);
+            chiSquare += Math.pow(observed.getOrDefault(AWARD_IDS[i], 0) - expected, 2) / expected;
+        }
+        return chiSquare;
+    }
+}
@@ -0,0 +1,174 @@
+package com.bhuang.domain.strategy.service.armory;
+
+import com.bhuang.domain.strategy.model.valobj.StrategyRateTableSnapshotVO;
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.types.exception.AppException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 批量抽奖测试 - 验证多连抽只查询一次概率范围、一次批量查询槽位
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyArmoryBatchDrawTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    private static final int RATE_RANGE = 100;
+
+    @Mock
+    private IStrategyRepository strategyRepository;
+
+    @Spy
+    private StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private IDrawJournalRepository drawJournalRepository = IDrawJournalRepository.NONE;
+
+    @InjectMocks
+    private StrategyArmory strategyArmory;
+
+    @Before
+    public void setUp() {
+        // 关闭本地查找表，验证 Redis 批量查询路径
+        armoryProperties.setLocalTableEnabled(false);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBatchDrawWithSingleRoundTrip() {
+        when(strategyRepository.queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, null)).thenReturn(snapshot(TEST_STRATEGY_ID, null, RATE_RANGE));
+        when(strategyRepository.getStrategyAwardAssembleBatch(snapshotOf(TEST_STRATEGY_ID, null), anySet()))
+                .thenAnswer(invocation -> slotsOf(invocation.getArgument(1)));
+
+        List<Integer> awardIds = strategyArmory.getRandomAwardIds(TEST_STRATEGY_ID, 100);
+
+        assertEquals(100, awardIds.size());
+        for (Integer awardId : awardIds) {
+            assertTrue("奖品ID应来自查找表", awardId >= 101 && awardId <= 109);
+        }
+        verify(strategyRepository, times(1)).queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, null);
+        verify(strategyRepository, times(1)).getStrategyAwardAssembleBatch(snapshotOf(TEST_STRATEGY_ID, null), anySet());
+        verify(strategyRepository, never()).getStrategyAwardAssemble(any(StrategyRateTableSnapshotVO.class), anyInt());
+
+        ArgumentCaptor<Set<Integer>> captor = ArgumentCaptor.forClass(Set.class);
+        verify(strategyRepository).getStrategyAwardAssembleBatch(snapshotOf(TEST_STRATEGY_ID, null), captor.capture());
+        for (Integer rateKey : captor.getValue()) {
+            assertTrue("概率值应在 [1, rateRange] 范围内", rateKey >= 1 && rateKey <= RATE_RANGE);
+        }
+    }
+
+    @Test
+    public void testBatchDrawByWeight() {
+        when(strategyRepository.queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, "4000")).thenReturn(snapshot(TEST_STRATEGY_ID, "4000", RATE_RANGE));
+        when(strategyRepository.getStrategyAwardAssembleBatch(snapshotOf(TEST_STRATEGY_ID, "4000"), anySet()))
+                .thenAnswer(invocation -> slotsOf(invocation.getArgument(1)));
+
+        List<Integer> awardIds = strategyArmory.getRandomAwardIds(TEST_STRATEGY_ID, "4000", 10);
+
+        assertEquals(10, awardIds.size());
+        verify(strategyRepository, times(1)).getStrategyAwardAssembleBatch(snapshotOf(TEST_STRATEGY_ID, "4000"), anySet());
+        verify(strategyRepository, never()).getStrategyAwardAssembleBatch(snapshotOf(TEST_STRATEGY_ID, null), anySet());
+    }
+
+    @Test
+    public void testBatchDrawByWeightFallback() {
+        when(strategyRepository.queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, "9000")).thenReturn(null);
+        when(strategyRepository.queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, null)).thenReturn(snapshot(TEST_STRATEGY_ID, null, RATE_RANGE));
+        when(strategyRepository.getStrategyAwardAssembleBatch(snapshotOf(TEST_STRATEGY_ID, null), anySet()))
+                .thenAnswer(invocation -> slotsOf(invocation.getArgument(1)));
+
+        List<Integer> awardIds = strategyArmory.getRandomAwardIds(TEST_STRATEGY_ID, "9000", 10);
+
+        assertEquals("权重档位未装配时使用普通策略", 10, awardIds.size());
+    }
+
+    @Test
+    public void testBatchDrawFromLocalTable() {
+        armoryProperties.setLocalTableEnabled(true);
+        when(strategyRepository.queryStrategyArmoryVersion(TEST_STRATEGY_ID)).thenReturn(1L);
+        when(strategyRepository.queryStrategyAwardSearchRateTable(TEST_STRATEGY_ID)).thenReturn(new int[]{101, 102, 103});
+
+        List<Integer> awardIds = strategyArmory.getRandomAwardIds(TEST_STRATEGY_ID, 100);
+
+        assertEquals(100, awardIds.size());
+        verify(strategyRepository, never()).queryStrategyRateTableSnapshot(anyLong(), isNull());
+        verify(strategyRepository, never()).getStrategyAwardAssembleBatch(any(StrategyRateTableSnapshotVO.class), anySet());
+    }
+
+    @Test
+    public void testBatchDrawNotAssembled() {
+        when(strategyRepository.queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, null)).thenReturn(null);
+
+        assertTrue(strategyArmory.getRandomAwardIds(TEST_STRATEGY_ID, 10).isEmpty());
+    }
+
+    @Test(expected = AppException.class)
+    public void testBatchDrawIllegalCount() {
+        strategyArmory.getRandomAwardIds(TEST_STRATEGY_ID, 0);
+    }
+
+    @Test(expected = AppException.class)
+    public void testBatchDrawExceedMaxCount() {
+        strategyArmory.getRandomAwardIds(TEST_STRATEGY_ID, armoryProperties.getBatchDrawMaxCount() + 1);
+    }
+
+    /**
+     * 模拟查找表：概率值 rateKey 对应奖品 101 + rateKey % 9
+     */
+    private static Map<Integer, Integer> slotsOf(Set<Integer> rateKeys) {
+        Map<Integer, Integer> awardIds = new HashMap<>();
+        for (Integer rateKey : rateKeys) {
+            awardIds.put(rateKey, 101 + rateKey % 9);
+        }
+        return awardIds;
+    }
+
+    /**
+     * 构造当前版本的查找表快照
+     */
+    private static StrategyRateTableSnapshotVO snapshot(Long strategyId, String ruleWeightValue, int rateRange) {
+        return StrategyRateTableSnapshotVO.builder()
+                .strategyId(strategyId)
+                .ruleWeightValue(ruleWeightValue)
+                .version(1L)
+                .rateRange(rateRange)
+                .build();
+    }
+
+    /**
+     * 匹配指定策略与权重值的查找表快照
+     */
+    private static StrategyRateTableSnapshotVO snapshotOf(Long strategyId, String ruleWeightValue) {
+        return argThat(snapshot -> snapshot != null
+                && strategyId.equals(snapshot.getStrategyId())
+                && Objects.equals(ruleWeightValue, snapshot.getRuleWeightValue()));
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.bhuang.domain.strategy.service.armory;
+
+import com.bhuang.domain.strategy.model.valobj.StrategyRateTableSnapshotVO;
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 本地查找表测试 - 验证抽奖在内存中完成、版本号变化后的重新装载，以及抽奖流水记录抽中的下标
+ * @create 2025-06-13
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyArmoryLocalTableTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    @Mock
+    private IStrategyRepository strategyRepository;
+
+    @Mock
+    private IDrawJournalRepository drawJournalRepository;
+
+    @Spy
+    private StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private StrategyArmory strategyArmory;
+
+    @Before
+    public void setUp() {
+        armoryProperties.setLocalTableEnabled(true);
+        armoryProperties.setLocalTableCheckInterval(60_000L);
+    }
+
+    @Test
+    public void testDrawFromLocalTable() {
+        when(strategyRepository.queryStrategyArmoryVersion(TEST_STRATEGY_ID)).thenReturn(1L);
+        when(strategyRepository.queryStrategyAwardSearchRateTable(TEST_STRATEGY_ID)).thenReturn(new int[]{101, 102, 102, 103});
+
+        for (int i = 0; i < 1000; i++) {
+            Integer awardId = strategyArmory.getRandomAwardId(TEST_STRATEGY_ID);
+            assertTrue("奖品ID应来自本地查找表", awardId >= 101 && awardId <= 103);
+        }
+
+        // 校验间隔内只装载一次，之后不再访问 Redis
+        verify(strategyRepository, times(1)).queryStrategyArmoryVersion(TEST_STRATEGY_ID);
+        verify(strategyRepository, times(1)).queryStrategyAwardSearchRateTable(TEST_STRATEGY_ID);
+        verify(strategyRepository, never()).queryStrategyRateTableSnapshot(anyLong(), isNull());
+        verify(strategyRepository, never()).getStrategyAwardAssemble(any(StrategyRateTableSnapshotVO.class), anyInt());
+    }
+
+    @Test
+    public void testDrawJournaledWithSlot() {
+        int[] table = {101, 102, 102, 103};
+        when(strategyRepository.queryStrategyArmoryVersion(TEST_STRATEGY_ID)).thenReturn(1L);
+        when(strategyRepository.queryStrategyAwardSearchRateTable(TEST_STRATEGY_ID)).thenReturn(table);
+
+        for (int i = 0; i < 50; i++) {
+            strategyArmory.getRandomAwardId(TEST_STRATEGY_ID);
+        }
+        List<Integer> awardIds = strategyArmory.getRandomAwardIds(TEST_STRATEGY_ID, 50);
+
+        // 单次与批量抽奖每次抽中各一条流水，流水中的下标指向抽中的奖品
+        ArgumentCaptor<Integer> slots = ArgumentCaptor.forClass(Integer.class);
+        ArgumentCaptor<Integer> journaled = ArgumentCaptor.forClass(Integer.class);
+        verify(drawJournalRepository, times(100)).appendDraw(eq(TEST_STRATEGY_ID), isNull(), slots.capture(), journaled.capture(), isNull());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(table[slots.getAllValues().get(i)]), journaled.getAllValues().get(i));
+        }
+        assertEquals(awardIds, journaled.getAllValues().subList(50, 100));
+    }
+
+    @Test
+    public void testReloadWhenVersionChanged() {
+        armoryProperties.setLocalTableCheckInterval(0L);
+        when(strategyRepository.queryStrategyArmoryVersion(TEST_STRATEGY_ID)).thenReturn(1L, 1L, 2L);
+        when(strategyRepository.queryStrategyAwardSearchRateTable(TEST_STRATEGY_ID))
+                .thenReturn(new int[]{101, 101})
+                .thenReturn(new int[]{109, 109, 109});
+
+        assertEquals(Integer.valueOf(101), strategyArmory.getRandomAwardId(TEST_STRATEGY_ID));
+        // 版本号未变化，沿用本地查找表
+        assertEquals(Integer.valueOf(101), strategyArmory.getRandomAwardId(TEST_STRATEGY_ID));
+        // 策略重新装配，版本号变化后重新装载
+        assertEquals(Integer.valueOf(109), strategyArmory.getRandomAwardId(TEST_STRATEGY_ID));
+
+        verify(strategyRepository, times(2)).queryStrategyAwardSearchRateTable(TEST_STRATEGY_ID);
+    }
+
+    @Test
+    public void testFallbackToRedisWhenLocalTableAbsent() {
+        when(strategyRepository.queryStrategyArmoryVersion(TEST_STRATEGY_ID)).thenReturn(0L);
+        when(strategyRepository.queryStrategyAwardSearchRateTable(TEST_STRATEGY_ID)).thenReturn(null);
+        when(strategyRepository.queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, null)).thenReturn(snapshot(TEST_STRATEGY_ID, null, 100));
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(TEST_STRATEGY_ID, null), anyInt())).thenReturn(105);
+
+        assertEquals(Integer.valueOf(105), strategyArmory.getRandomAwardId(TEST_STRATEGY_ID));
+        assertEquals(Integer.valueOf(105), strategyArmory.getRandomAwardId(TEST_STRATEGY_ID));
+
+        // 未装配的查找表同样缓存在本地，校验间隔内不重复回源
+        verify(strategyRepository, times(1)).queryStrategyAwardSearchRateTable(TEST_STRATEGY_ID);
+        verify(strategyRepository, times(2)).getStrategyAwardAssemble(snapshotOf(TEST_STRATEGY_ID, null), anyInt());
+    }
+
+    @Test
+    public void testDrawFromLocalWeightTable() {
+        when(strategyRepository.queryStrategyArmoryVersion(TEST_STRATEGY_ID)).thenReturn(1L);
+        when(strategyRepository.queryStrategyAwardSearchRateTableByWeight(TEST_STRATEGY_ID, "4000")).thenReturn(new int[]{102, 103});
+
+        Integer awardId = strategyArmory.getRandomAwardId(TEST_STRATEGY_ID, "4000");
+
+        assertTrue("奖品ID应来自权重档位", awardId == 102 || awardId == 103);
+        verify(strategyRepository, never()).queryStrategyRateTableSnapshot(anyLong(), anyString());
+    }
+
+    /**
+     * 构造当前版本的查找表快照
+     */
+    private static StrategyRateTableSnapshotVO snapshot(Long strategyId, String ruleWeightValue, int rateRange) {
+        return StrategyRateTableSnapshotVO.builder()
+                .strategyId(strategyId)
+                .ruleWeightValue(ruleWeightValue)
+                .version(1L)
+                .rateRange(rateRange)
+                .build();
+    }
+
+    /**
+     * 匹配指定策略与权重值的查找表快照
+     */
+    private static StrategyRateTableSnapshotVO snapshotOf(Long strategyId, String ruleWeightValue) {
+        return argThat(snapshot -> snapshot != null
+                && strategyId.equals(snapshot.getStrategyId())
+                && Objects.equals(ruleWeightValue, snapshot.getRuleWeightValue()));
+    }
+
+}
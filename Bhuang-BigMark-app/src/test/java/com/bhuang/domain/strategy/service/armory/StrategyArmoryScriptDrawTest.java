@@ -0,0 +1,161 @@
+package com.bhuang.domain.strategy.service.armory;
+
+import com.bhuang.domain.strategy.model.valobj.DispatchEngineVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyDrawResultVO;
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 脚本调度引擎测试 - 验证未命中本地查找表时一次脚本调用完成抽奖（含用户抽奖次数累加与异步抽奖），不再分别读取快照与槽位，以及非单节点 Redis 下拒绝脚本引擎
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyArmoryScriptDrawTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    @Mock
+    private IStrategyRepository strategyRepository;
+
+    @Spy
+    private StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private IDrawJournalRepository drawJournalRepository = IDrawJournalRepository.NONE;
+
+    @InjectMocks
+    private StrategyArmory strategyArmory;
+
+    @Before
+    public void setUp() {
+        armoryProperties.setDispatchEngine(DispatchEngineVO.SCRIPT.getCode());
+        armoryProperties.setLocalTableEnabled(false);
+    }
+
+    @Test
+    public void testScriptEngineRequiresSingleNodeRedis() {
+        strategyArmory.init();
+
+        // 脚本内拼接的查找表Key未在 KEYS 中声明，Redis Cluster 下不能使用脚本引擎
+        armoryProperties.setRedisSingleNode(false);
+        assertThrows(IllegalStateException.class, () -> strategyArmory.init());
+
+        armoryProperties.setDispatchEngine(DispatchEngineVO.TABLE.getCode());
+        strategyArmory.init();
+        armoryProperties.getDispatchEngines().put(100002L, DispatchEngineVO.SCRIPT.getCode());
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> strategyArmory.init());
+        assertTrue(e.getMessage().contains("100002"));
+    }
+
+    @Test
+    public void testDrawByScript() {
+        when(strategyRepository.drawStrategyAward(eq(TEST_STRATEGY_ID), isNull(), anyDouble())).thenReturn(105);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(105), strategyArmory.getRandomAwardId(TEST_STRATEGY_ID));
+        }
+
+        // 随机数由调用方随机源生成，范围 [0, 1)
+        ArgumentCaptor<Double> captor = ArgumentCaptor.forClass(Double.class);
+        verify(strategyRepository, times(100)).drawStrategyAward(eq(TEST_STRATEGY_ID), isNull(), captor.capture());
+        for (Double random : captor.getAllValues()) {
+            assertTrue(random >= 0 && random < 1);
+        }
+        verify(strategyRepository, never()).queryStrategyRateTableSnapshot(anyLong(), any());
+    }
+
+    @Test
+    public void testWeightDrawByScript() {
+        // 权重档位回退普通策略在脚本内完成，领域层只调用一次
+        when(strategyRepository.drawStrategyAward(eq(TEST_STRATEGY_ID), eq("4000"), anyDouble())).thenReturn(102);
+
+        assertEquals(Integer.valueOf(102), strategyArmory.getRandomAwardId(TEST_STRATEGY_ID, "4000"));
+        verify(strategyRepository, times(1)).drawStrategyAward(anyLong(), any(), anyDouble());
+        verify(strategyRepository, never()).queryStrategyRateTableSnapshot(anyLong(), any());
+    }
+
+    @Test
+    public void testDrawAndCountByScript() {
+        StrategyDrawResultVO drawResult = StrategyDrawResultVO.builder().awardId(107).raffleCount(2L).build();
+        when(strategyRepository.drawStrategyAwardAndCount(eq(TEST_STRATEGY_ID), eq("4000"), anyDouble(), eq("user001"))).thenReturn(drawResult);
+
+        assertSame(drawResult, strategyArmory.getRandomAwardIdAndCount(TEST_STRATEGY_ID, "4000", "user001"));
+        verify(strategyRepository, never()).drawStrategyAward(anyLong(), any(), anyDouble());
+        verify(strategyRepository, never()).increaseUserRaffleCount(anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    public void testDrawAndCountWithLocalTable() {
+        // 命中本地查找表时本地抽奖，计数单独一次 INCR
+        armoryProperties.setLocalTableEnabled(true);
+        when(strategyRepository.queryStrategyArmoryVersion(TEST_STRATEGY_ID)).thenReturn(1L);
+        when(strategyRepository.queryStrategyAwardSearchRateTable(TEST_STRATEGY_ID)).thenReturn(new int[]{107, 107});
+        when(strategyRepository.increaseUserRaffleCount(TEST_STRATEGY_ID, "user001", 1)).thenReturn(5L);
+
+        StrategyDrawResultVO drawResult = strategyArmory.getRandomAwardIdAndCount(TEST_STRATEGY_ID, null, "user001");
+
+        assertEquals(Integer.valueOf(107), drawResult.getAwardId());
+        assertEquals(5L, drawResult.getRaffleCount());
+        verify(strategyRepository, never()).drawStrategyAwardAndCount(anyLong(), any(), anyDouble(), anyString());
+    }
+
+    @Test
+    public void testAsyncDrawByScript() {
+        CompletableFuture<Integer> pending = new CompletableFuture<>();
+        when(strategyRepository.drawStrategyAwardAsync(eq(TEST_STRATEGY_ID), eq("4000"), anyDouble())).thenReturn(pending);
+
+        // 返回的 future 即脚本调用的 future，调用线程不等待 Redis 响应
+        CompletableFuture<Integer> future = strategyArmory.getRandomAwardIdAsync(TEST_STRATEGY_ID, "4000");
+        assertFalse(future.isDone());
+        pending.complete(102);
+        assertEquals(Integer.valueOf(102), future.join());
+        verify(strategyRepository, never()).drawStrategyAward(anyLong(), any(), anyDouble());
+    }
+
+    @Test
+    public void testAsyncDrawWithLocalTableCompletesImmediately() {
+        armoryProperties.setLocalTableEnabled(true);
+        when(strategyRepository.queryStrategyArmoryVersion(TEST_STRATEGY_ID)).thenReturn(1L);
+        when(strategyRepository.queryStrategyAwardSearchRateTable(TEST_STRATEGY_ID)).thenReturn(new int[]{101, 101});
+
+        CompletableFuture<List<Integer>> future = strategyArmory.getRandomAwardIdsAsync(TEST_STRATEGY_ID, null, 3);
+        assertTrue(future.isDone());
+        assertEquals(Arrays.asList(101, 101, 101), future.join());
+        verify(strategyRepository, never()).drawStrategyAwardAsync(anyLong(), any(), anyDouble());
+    }
+
+    @Test
+    public void testLocalTableBeforeScript() {
+        armoryProperties.setLocalTableEnabled(true);
+        when(strategyRepository.queryStrategyArmoryVersion(TEST_STRATEGY_ID)).thenReturn(1L);
+        when(strategyRepository.queryStrategyAwardSearchRateTable(TEST_STRATEGY_ID)).thenReturn(new int[]{101, 101});
+
+        assertEquals(Integer.valueOf(101), strategyArmory.getRandomAwardId(TEST_STRATEGY_ID));
+        verify(strategyRepository, never()).drawStrategyAward(anyLong(), any(), anyDouble());
+    }
+
+}
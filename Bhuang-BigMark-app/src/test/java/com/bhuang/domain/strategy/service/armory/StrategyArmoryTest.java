@@ -1,13 +1,20 @@
 package com.bhuang.domain.strategy.service.armory;
 
 import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyRateTableSnapshotVO;
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
 import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.rule.IStrategyBlacklist;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.math.BigDecimal;
@@ -30,6 +37,18 @@ public class StrategyArmoryTest {
     @Mock
     private IStrategyRepository strategyRepository;
 
+    @Mock
+    private IStrategyBlacklist strategyBlacklist;
+
+    @Spy
+    private StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private IDrawJournalRepository drawJournalRepository = IDrawJournalRepository.NONE;
+
     @InjectMocks
     private StrategyArmory strategyArmory;
 
@@ -68,7 +87,7 @@ public class StrategyArmoryTest {
         // 验证调用行为
         verify(strategyRepository, times(1)).queryStrategyAwardList(TEST_STRATEGY_ID);
         verify(strategyRepository, times(1)).storeStrategyAwardSearchRateTable(
-                eq(TEST_STRATEGY_ID), anyInt(), anyMap());
+                eq(TEST_STRATEGY_ID), any(int[].class));
         
         log.info("✓ 策略装配成功，验证了正确的调用行为");
     }
@@ -89,7 +108,7 @@ public class StrategyArmoryTest {
         
         // 验证调用行为
         verify(strategyRepository, times(1)).queryStrategyAwardList(TEST_STRATEGY_ID);
-        verify(strategyRepository, never()).storeStrategyAwardSearchRateTable(anyLong(), anyInt(), anyMap());
+        verify(strategyRepository, never()).storeStrategyAwardSearchRateTable(anyLong(), any(int[].class));
         
         log.info("✓ 空策略列表处理正确");
     }
@@ -110,7 +129,7 @@ public class StrategyArmoryTest {
         
         // 验证调用行为
         verify(strategyRepository, times(1)).queryStrategyAwardList(TEST_STRATEGY_ID);
-        verify(strategyRepository, never()).storeStrategyAwardSearchRateTable(anyLong(), anyInt(), anyMap());
+        verify(strategyRepository, never()).storeStrategyAwardSearchRateTable(anyLong(), any(int[].class));
         
         log.info("✓ null策略列表处理正确");
     }
@@ -121,12 +140,12 @@ public class StrategyArmoryTest {
         
         // 模拟策略已装配，概率范围为1000
         int mockRateRange = 1000;
-        when(strategyRepository.getRateRange(TEST_STRATEGY_ID))
-                .thenReturn(mockRateRange);
+        when(strategyRepository.queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, null))
+                .thenReturn(snapshot(TEST_STRATEGY_ID, null, mockRateRange));
         
         // 模拟概率查找表返回奖品ID
         Integer expectedAwardId = 101;
-        when(strategyRepository.getStrategyAwardAssemble(eq(TEST_STRATEGY_ID), anyInt()))
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(TEST_STRATEGY_ID, null), anyInt()))
                 .thenReturn(expectedAwardId);
         
         // 执行随机抽奖
@@ -137,8 +156,8 @@ public class StrategyArmoryTest {
         assertEquals("应该返回期望的奖品ID", expectedAwardId, awardId);
         
         // 验证调用行为
-        verify(strategyRepository, times(1)).getRateRange(TEST_STRATEGY_ID);
-        verify(strategyRepository, times(1)).getStrategyAwardAssemble(eq(TEST_STRATEGY_ID), anyInt());
+        verify(strategyRepository, times(1)).queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, null);
+        verify(strategyRepository, times(1)).getStrategyAwardAssemble(snapshotOf(TEST_STRATEGY_ID, null), anyInt());
         
         log.info("✓ 随机抽奖行为验证通过，奖品ID：{}", awardId);
     }
@@ -150,8 +169,8 @@ public class StrategyArmoryTest {
         Long unassembledStrategyId = 999999L;
         
         // 模拟未装配策略，概率范围为0
-        when(strategyRepository.getRateRange(unassembledStrategyId))
-                .thenReturn(0);
+        when(strategyRepository.queryStrategyRateTableSnapshot(unassembledStrategyId, null))
+                .thenReturn(null);
         
         // 执行随机抽奖
         Integer awardId = strategyArmory.getRandomAwardId(unassembledStrategyId);
@@ -160,8 +179,8 @@ public class StrategyArmoryTest {
         assertNull("未装配的策略应该返回null", awardId);
         
         // 验证调用行为
-        verify(strategyRepository, times(1)).getRateRange(unassembledStrategyId);
-        verify(strategyRepository, never()).getStrategyAwardAssemble(anyLong(), anyInt());
+        verify(strategyRepository, times(1)).queryStrategyRateTableSnapshot(unassembledStrategyId, null);
+        verify(strategyRepository, never()).getStrategyAwardAssemble(any(StrategyRateTableSnapshotVO.class), anyInt());
         
         log.info("✓ 未装配策略处理正确");
     }
@@ -173,9 +192,9 @@ public class StrategyArmoryTest {
         String ruleWeightValue = "6000,102,103,104";
         
         // 模拟策略已装配
-        when(strategyRepository.getRateRange(TEST_STRATEGY_ID))
-                .thenReturn(1000);
-        when(strategyRepository.getStrategyAwardAssemble(eq(TEST_STRATEGY_ID), anyInt()))
+        when(strategyRepository.queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, null))
+                .thenReturn(snapshot(TEST_STRATEGY_ID, null, 1000));
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(TEST_STRATEGY_ID, null), anyInt()))
                 .thenReturn(102);
         
         // 执行带权重规则的随机抽奖
@@ -185,8 +204,8 @@ public class StrategyArmoryTest {
         assertNotNull("带权重规则的随机抽奖结果不应该为null", awardId);
         
         // 验证调用行为
-        verify(strategyRepository, times(1)).getRateRange(TEST_STRATEGY_ID);
-        verify(strategyRepository, times(1)).getStrategyAwardAssemble(eq(TEST_STRATEGY_ID), anyInt());
+        verify(strategyRepository, times(1)).queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, null);
+        verify(strategyRepository, times(1)).getStrategyAwardAssemble(snapshotOf(TEST_STRATEGY_ID, null), anyInt());
         
         log.info("✓ 带权重规则的随机抽奖行为验证通过");
     }
@@ -219,21 +238,24 @@ public class StrategyArmoryTest {
         assertTrue("装配应该成功", assembleResult);
         
         // 模拟装配后的查询
-        when(strategyRepository.getRateRange(TEST_STRATEGY_ID))
-                .thenReturn(166); // 基于新公式计算的概率范围
-        when(strategyRepository.getStrategyAwardAssemble(eq(TEST_STRATEGY_ID), anyInt()))
+        when(strategyRepository.queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, null))
+                .thenReturn(snapshot(TEST_STRATEGY_ID, null, 166)); // 基于新公式计算的概率范围
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(TEST_STRATEGY_ID, null), anyInt()))
                 .thenReturn(101);
         
         // 执行随机抽奖
         Integer awardId = strategyArmory.getRandomAwardId(TEST_STRATEGY_ID);
         assertNotNull("抽奖结果不应该为null", awardId);
         
-        // 验证完整的调用流程
+        // 验证完整的调用流程，装配前先清除策略缓存
+        InOrder inOrder = inOrder(strategyRepository);
+        inOrder.verify(strategyRepository).evictStrategyCache(TEST_STRATEGY_ID);
+        inOrder.verify(strategyRepository).queryStrategyAwardList(TEST_STRATEGY_ID);
         verify(strategyRepository, times(1)).queryStrategyAwardList(TEST_STRATEGY_ID);
         verify(strategyRepository, times(1)).storeStrategyAwardSearchRateTable(
-                eq(TEST_STRATEGY_ID), anyInt(), anyMap());
-        verify(strategyRepository, times(1)).getRateRange(TEST_STRATEGY_ID);
-        verify(strategyRepository, times(1)).getStrategyAwardAssemble(eq(TEST_STRATEGY_ID), anyInt());
+                eq(TEST_STRATEGY_ID), any(int[].class));
+        verify(strategyRepository, times(1)).queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, null);
+        verify(strategyRepository, times(1)).getStrategyAwardAssemble(snapshotOf(TEST_STRATEGY_ID, null), anyInt());
         
         log.info("✓ 仓储交互流程验证通过");
     }
@@ -257,15 +279,14 @@ public class StrategyArmoryTest {
         boolean result = strategyArmory.assembleLotteryStrategy(TEST_STRATEGY_ID);
         assertTrue("策略装配应该成功", result);
         
-        // 验证调用行为，捕获传递的概率范围参数
-        ArgumentCaptor<Integer> rateRangeCaptor = ArgumentCaptor.forClass(Integer.class);
+        // 验证调用行为，捕获传递的查找表，其长度即概率范围
+        ArgumentCaptor<int[]> tableCaptor = ArgumentCaptor.forClass(int[].class);
         verify(strategyRepository).storeStrategyAwardSearchRateTable(
                 eq(TEST_STRATEGY_ID), 
-                rateRangeCaptor.capture(), 
-                anyMap());
+                tableCaptor.capture());
         
         // 获取捕获的概率范围参数
-        Integer capturedRateRange = rateRangeCaptor.getValue();
+        Integer capturedRateRange = tableCaptor.getValue().length;
         
         // 预期的概率范围：总概率100% / 最小概率1% = 100
         int expectedRateRange = 100;
@@ -274,6 +295,16 @@ public class StrategyArmoryTest {
         // 100% / 1% = 100，预期范围是100
         assertEquals("使用新公式计算的概率范围应该是100", expectedRateRange, capturedRateRange.intValue());
         
+        // 乱序后每个奖品的占位数量不变
+        Map<Integer, Integer> rateCounts = new HashMap<>();
+        for (int awardId : tableCaptor.getValue()) {
+            rateCounts.merge(awardId, 1, Integer::sum);
+        }
+        assertEquals(Integer.valueOf(1), rateCounts.get(101));
+        assertEquals(Integer.valueOf(4), rateCounts.get(102));
+        assertEquals(Integer.valueOf(15), rateCounts.get(103));
+        assertEquals(Integer.valueOf(80), rateCounts.get(104));
+        
         log.info("✓ 新公式计算概率范围验证通过，总概率100% / 最小概率1% = {}", capturedRateRange);
     }
 
@@ -311,4 +342,26 @@ public class StrategyArmoryTest {
         award.setSort(awardId);
         return award;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 构造当前版本的查找表快照
+     */
+    private static StrategyRateTableSnapshotVO snapshot(Long strategyId, String ruleWeightValue, int rateRange) {
+        return StrategyRateTableSnapshotVO.builder()
+                .strategyId(strategyId)
+                .ruleWeightValue(ruleWeightValue)
+                .version(1L)
+                .rateRange(rateRange)
+                .build();
+    }
+
+    /**
+     * 匹配指定策略与权重值的查找表快照
+     */
+    private static StrategyRateTableSnapshotVO snapshotOf(Long strategyId, String ruleWeightValue) {
+        return argThat(snapshot -> snapshot != null
+                && strategyId.equals(snapshot.getStrategyId())
+                && Objects.equals(ruleWeightValue, snapshot.getRuleWeightValue()));
+    }
+
+}
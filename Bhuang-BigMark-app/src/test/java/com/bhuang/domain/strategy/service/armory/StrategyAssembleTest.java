@@ -2,13 +2,18 @@ package com.bhuang.domain.strategy.service.armory;
 
 import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
 import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
 import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.rule.IStrategyBlacklist;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.math.BigDecimal;
@@ -30,6 +35,18 @@ public class StrategyAssembleTest {
     @Mock
     private IStrategyRepository strategyRepository;
 
+    @Mock
+    private IStrategyBlacklist strategyBlacklist;
+
+    @Spy
+    private StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private IDrawJournalRepository drawJournalRepository = IDrawJournalRepository.NONE;
+
     @InjectMocks
     private StrategyArmory strategyAssemble;
 
@@ -77,7 +94,11 @@ public class StrategyAssembleTest {
 
         // 那么
         assertTrue("策略装配应该成功", result);
-        verify(strategyRepository).storeStrategyAwardSearchRateTable(eq(strategyId), anyInt(), anyMap());
+        verify(strategyRepository).storeStrategyAwardSearchRateTable(eq(strategyId), any(int[].class));
+        // 各装配阶段分别计时
+        for (String phase : Arrays.asList("min_rate", "total_rate", "table", "shuffle", "store")) {
+            assertEquals(phase, 1L, meterRegistry.get("strategy.armory.assemble").tag("phase", phase).timer().count());
+        }
         log.info("测试通过 - 策略装配成功");
     }
 
@@ -126,11 +147,46 @@ public class StrategyAssembleTest {
 
         // 那么
         assertTrue("带权重的策略装配应该成功", result);
-        verify(strategyRepository).storeStrategyAwardSearchRateTable(eq(strategyId), anyInt(), anyMap());
-        verify(strategyRepository, atLeast(1)).storeStrategyAwardSearchRateTableByWeight(eq(strategyId), anyString(), anyInt(), anyMap());
+        verify(strategyRepository).storeStrategyAwardSearchRateTable(eq(strategyId), any(int[].class));
+        verify(strategyRepository, atLeast(1)).storeStrategyAwardSearchRateTableByWeight(eq(strategyId), anyString(), any(int[].class));
         log.info("测试通过 - 带权重的策略装配成功");
     }
 
+    @Test
+    public void testAssembleWithMalformedLuckAwardRule() {
+        // 给定
+        Long strategyId = 100001L;
+        List<StrategyAwardEntity> strategyAwardList = Arrays.asList(
+                StrategyAwardEntity.builder()
+                        .strategyId(strategyId)
+                        .awardId(101)
+                        .awardRate(new BigDecimal("0.20"))
+                        .ruleModels("rule_random,rule_luck_award")
+                        .build(),
+                StrategyAwardEntity.builder()
+                        .strategyId(strategyId)
+                        .awardId(102)
+                        .awardRate(new BigDecimal("0.80"))
+                        .build()
+        );
+        when(strategyRepository.queryStrategyAwardList(strategyId)).thenReturn(strategyAwardList);
+        when(strategyRepository.queryStrategyAwardRule(strategyId, 101, "rule_luck_award")).thenReturn(StrategyRuleEntity.builder()
+                .strategyId(strategyId)
+                .awardId(101)
+                .ruleModel("rule_luck_award")
+                .ruleValue("abc:1,100")
+                .build());
+
+        // 当
+        boolean result = strategyAssemble.assembleLotteryStrategy(strategyId);
+
+        // 那么：兜底奖品ID配置错误只告警，抽奖时使用默认兜底奖品，不阻止装配
+        assertTrue(result);
+        verify(strategyRepository).queryStrategyAwardRule(strategyId, 101, "rule_luck_award");
+        verify(strategyRepository, never()).queryStrategyAwardRule(eq(strategyId), eq(102), anyString());
+        verify(strategyRepository).increaseStrategyArmoryVersion(strategyId);
+    }
+
     @Test
     public void testAssembleLotteryStrategyWithEmptyList() {
         // 给定
@@ -142,7 +198,7 @@ public class StrategyAssembleTest {
 
         // 那么
         assertFalse("空策略列表装配应该失败", result);
-        verify(strategyRepository, never()).storeStrategyAwardSearchRateTable(anyLong(), anyInt(), anyMap());
+        verify(strategyRepository, never()).storeStrategyAwardSearchRateTable(anyLong(), any(int[].class));
         log.info("测试通过 - 空策略列表装配失败");
     }
 
@@ -157,7 +213,7 @@ public class StrategyAssembleTest {
 
         // 那么
         assertFalse("空策略列表装配应该失败", result);
-        verify(strategyRepository, never()).storeStrategyAwardSearchRateTable(anyLong(), anyInt(), anyMap());
+        verify(strategyRepository, never()).storeStrategyAwardSearchRateTable(anyLong(), any(int[].class));
         log.info("测试通过 - null策略列表装配失败");
     }
 
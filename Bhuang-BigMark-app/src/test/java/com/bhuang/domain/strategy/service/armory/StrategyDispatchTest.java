@@ -1,14 +1,23 @@
 package com.bhuang.domain.strategy.service.armory;
 
+import com.bhuang.domain.strategy.model.valobj.StrategyRateTableSnapshotVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyRuleWeightVO;
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
 import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.rule.IStrategyRuleWeight;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.Objects;
+
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +34,18 @@ public class StrategyDispatchTest {
     @Mock
     private IStrategyRepository strategyRepository;
 
+    @Mock
+    private IStrategyRuleWeight strategyRuleWeight;
+
+    @Spy
+    private StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private IDrawJournalRepository drawJournalRepository = IDrawJournalRepository.NONE;
+
     @InjectMocks
     private StrategyArmory strategyDispatch;
 
@@ -40,8 +61,8 @@ public class StrategyDispatchTest {
         int rateRange = 10000;
         Integer expectedAwardId = 101;
 
-        when(strategyRepository.getRateRange(strategyId)).thenReturn(rateRange);
-        when(strategyRepository.getStrategyAwardAssemble(eq(strategyId), anyInt())).thenReturn(expectedAwardId);
+        when(strategyRepository.queryStrategyRateTableSnapshot(strategyId, null)).thenReturn(snapshot(strategyId, null, rateRange));
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(strategyId, null), anyInt())).thenReturn(expectedAwardId);
 
         // 当
         Integer result = strategyDispatch.getRandomAwardId(strategyId);
@@ -49,8 +70,8 @@ public class StrategyDispatchTest {
         // 那么
         assertNotNull("应该返回奖品ID", result);
         assertEquals("应该返回预期的奖品ID", expectedAwardId, result);
-        verify(strategyRepository).getRateRange(strategyId);
-        verify(strategyRepository).getStrategyAwardAssemble(eq(strategyId), anyInt());
+        verify(strategyRepository).queryStrategyRateTableSnapshot(strategyId, null);
+        verify(strategyRepository).getStrategyAwardAssemble(snapshotOf(strategyId, null), anyInt());
         log.info("测试通过 - 随机获取奖品ID成功，奖品ID：{}", result);
     }
 
@@ -62,8 +83,8 @@ public class StrategyDispatchTest {
         int rateRange = 5000;
         Integer expectedAwardId = 102;
 
-        when(strategyRepository.getRateRangeByWeight(strategyId, ruleWeightValue)).thenReturn(rateRange);
-        when(strategyRepository.getStrategyAwardAssembleByWeight(eq(strategyId), eq(ruleWeightValue), anyInt())).thenReturn(expectedAwardId);
+        when(strategyRepository.queryStrategyRateTableSnapshot(strategyId, ruleWeightValue)).thenReturn(snapshot(strategyId, ruleWeightValue, rateRange));
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(strategyId, ruleWeightValue), anyInt())).thenReturn(expectedAwardId);
 
         // 当
         Integer result = strategyDispatch.getRandomAwardId(strategyId, ruleWeightValue);
@@ -71,8 +92,8 @@ public class StrategyDispatchTest {
         // 那么
         assertNotNull("应该返回奖品ID", result);
         assertEquals("应该返回预期的奖品ID", expectedAwardId, result);
-        verify(strategyRepository).getRateRangeByWeight(strategyId, ruleWeightValue);
-        verify(strategyRepository).getStrategyAwardAssembleByWeight(eq(strategyId), eq(ruleWeightValue), anyInt());
+        verify(strategyRepository).queryStrategyRateTableSnapshot(strategyId, ruleWeightValue);
+        verify(strategyRepository).getStrategyAwardAssemble(snapshotOf(strategyId, ruleWeightValue), anyInt());
         log.info("测试通过 - 权重随机获取奖品ID成功，奖品ID：{}", result);
     }
 
@@ -81,15 +102,15 @@ public class StrategyDispatchTest {
         // 给定
         Long strategyId = 100001L;
 
-        when(strategyRepository.getRateRange(strategyId)).thenReturn(0);
+        when(strategyRepository.queryStrategyRateTableSnapshot(strategyId, null)).thenReturn(null);
 
         // 当
         Integer result = strategyDispatch.getRandomAwardId(strategyId);
 
         // 那么
         assertNull("未装配的策略应该返回null", result);
-        verify(strategyRepository).getRateRange(strategyId);
-        verify(strategyRepository, never()).getStrategyAwardAssemble(anyLong(), anyInt());
+        verify(strategyRepository).queryStrategyRateTableSnapshot(strategyId, null);
+        verify(strategyRepository, never()).getStrategyAwardAssemble(any(StrategyRateTableSnapshotVO.class), anyInt());
         log.info("测试通过 - 未装配策略返回null");
     }
 
@@ -102,9 +123,9 @@ public class StrategyDispatchTest {
         Integer expectedAwardId = 103;
 
         // 权重策略未装配，回退到普通策略
-        when(strategyRepository.getRateRangeByWeight(strategyId, ruleWeightValue)).thenReturn(0);
-        when(strategyRepository.getRateRange(strategyId)).thenReturn(normalRateRange);
-        when(strategyRepository.getStrategyAwardAssemble(eq(strategyId), anyInt())).thenReturn(expectedAwardId);
+        when(strategyRepository.queryStrategyRateTableSnapshot(strategyId, ruleWeightValue)).thenReturn(null);
+        when(strategyRepository.queryStrategyRateTableSnapshot(strategyId, null)).thenReturn(snapshot(strategyId, null, normalRateRange));
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(strategyId, null), anyInt())).thenReturn(expectedAwardId);
 
         // 当
         Integer result = strategyDispatch.getRandomAwardId(strategyId, ruleWeightValue);
@@ -112,10 +133,10 @@ public class StrategyDispatchTest {
         // 那么
         assertNotNull("应该回退到普通策略并返回奖品ID", result);
         assertEquals("应该返回预期的奖品ID", expectedAwardId, result);
-        verify(strategyRepository).getRateRangeByWeight(strategyId, ruleWeightValue);
-        verify(strategyRepository).getRateRange(strategyId);
-        verify(strategyRepository).getStrategyAwardAssemble(eq(strategyId), anyInt());
-        verify(strategyRepository, never()).getStrategyAwardAssembleByWeight(anyLong(), anyString(), anyInt());
+        verify(strategyRepository).queryStrategyRateTableSnapshot(strategyId, ruleWeightValue);
+        verify(strategyRepository).queryStrategyRateTableSnapshot(strategyId, null);
+        verify(strategyRepository).getStrategyAwardAssemble(snapshotOf(strategyId, null), anyInt());
+        verify(strategyRepository, never()).getStrategyAwardAssemble(snapshotOf(strategyId, ruleWeightValue), anyInt());
         log.info("测试通过 - 权重策略回退到普通策略成功，奖品ID：{}", result);
     }
 
@@ -125,27 +146,45 @@ public class StrategyDispatchTest {
         Long strategyId = 100001L;
         int rateRange = 10000;
 
-        when(strategyRepository.getRateRange(strategyId)).thenReturn(rateRange);
-        when(strategyRepository.getStrategyAwardAssemble(eq(strategyId), anyInt())).thenReturn(null);
+        when(strategyRepository.queryStrategyRateTableSnapshot(strategyId, null)).thenReturn(snapshot(strategyId, null, rateRange));
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(strategyId, null), anyInt())).thenReturn(null);
 
         // 当
         Integer result = strategyDispatch.getRandomAwardId(strategyId);
 
         // 那么
         assertNull("策略查找表可能有问题，应该返回null", result);
-        verify(strategyRepository).getRateRange(strategyId);
-        verify(strategyRepository).getStrategyAwardAssemble(eq(strategyId), anyInt());
+        verify(strategyRepository).queryStrategyRateTableSnapshot(strategyId, null);
+        verify(strategyRepository).getStrategyAwardAssemble(snapshotOf(strategyId, null), anyInt());
         log.info("测试通过 - 策略查找表异常返回null");
     }
 
+    @Test
+    public void testGetRandomAwardIdByScore() {
+        // 给定 - 积分5500落在5000档位
+        Long strategyId = 100001L;
+        StrategyRuleWeightVO ruleWeight = StrategyRuleWeightVO.parse("4000:102,103 5000:102,103,104");
+        when(strategyRuleWeight.resolveRuleWeight(strategyId, 5500L)).thenReturn(ruleWeight.resolve(5500L));
+        when(strategyRuleWeight.resolveRuleWeight(strategyId, 100L)).thenReturn(ruleWeight.resolve(100L));
+        when(strategyRepository.queryStrategyRateTableSnapshot(strategyId, "5000")).thenReturn(snapshot(strategyId, "5000", 100));
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(strategyId, "5000"), anyInt())).thenReturn(104);
+        when(strategyRepository.queryStrategyRateTableSnapshot(strategyId, null)).thenReturn(snapshot(strategyId, null, 100));
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(strategyId, null), anyInt())).thenReturn(101);
+
+        // 当 / 那么 - 调用方只传积分，不再传档位字符串；未达到最低档位时按普通策略抽奖
+        assertEquals(Integer.valueOf(104), strategyDispatch.getRandomAwardIdByScore(strategyId, 5500L));
+        assertEquals(Integer.valueOf(101), strategyDispatch.getRandomAwardIdByScore(strategyId, 100L));
+        verify(strategyRepository, never()).queryStrategyRateTableSnapshot(strategyId, "4000");
+    }
+
     @Test
     public void testMultipleRandomCalls() {
         // 给定
         Long strategyId = 100001L;
         int rateRange = 10000;
 
-        when(strategyRepository.getRateRange(strategyId)).thenReturn(rateRange);
-        when(strategyRepository.getStrategyAwardAssemble(eq(strategyId), anyInt()))
+        when(strategyRepository.queryStrategyRateTableSnapshot(strategyId, null)).thenReturn(snapshot(strategyId, null, rateRange));
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(strategyId, null), anyInt()))
                 .thenReturn(101, 102, 103, 101, 102); // 模拟多次返回不同奖品
 
         // 当 - 执行多次抽奖
@@ -156,8 +195,30 @@ public class StrategyDispatchTest {
         }
 
         // 那么
-        verify(strategyRepository, times(5)).getRateRange(strategyId);
-        verify(strategyRepository, times(5)).getStrategyAwardAssemble(eq(strategyId), anyInt());
+        verify(strategyRepository, times(5)).queryStrategyRateTableSnapshot(strategyId, null);
+        verify(strategyRepository, times(5)).getStrategyAwardAssemble(snapshotOf(strategyId, null), anyInt());
         log.info("测试通过 - 多次随机抽奖成功");
     }
-} 
\ No newline at end of file
+
+    /**
+     * 构造当前版本的查找表快照
+     */
+    private static StrategyRateTableSnapshotVO snapshot(Long strategyId, String ruleWeightValue, int rateRange) {
+        return StrategyRateTableSnapshotVO.builder()
+                .strategyId(strategyId)
+                .ruleWeightValue(ruleWeightValue)
+                .version(1L)
+                .rateRange(rateRange)
+                .build();
+    }
+
+    /**
+     * 匹配指定策略与权重值的查找表快照
+     */
+    private static StrategyRateTableSnapshotVO snapshotOf(Long strategyId, String ruleWeightValue) {
+        return argThat(snapshot -> snapshot != null
+                && strategyId.equals(snapshot.getStrategyId())
+                && Objects.equals(ruleWeightValue, snapshot.getRuleWeightValue()));
+    }
+
+}
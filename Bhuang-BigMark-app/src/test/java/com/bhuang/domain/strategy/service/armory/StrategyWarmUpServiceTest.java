@@ -0,0 +1,126 @@
+package com.bhuang.domain.strategy.service.armory;
+
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyWarmUpProgressEntity;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 策略预热测试 - 验证一次查询全部策略、有界并发装配以及进度统计
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyWarmUpServiceTest {
+
+    private static final int STRATEGY_COUNT = 50;
+
+    @Mock
+    private StrategyArmory strategyArmory;
+
+    @Mock
+    private IStrategyRepository strategyRepository;
+
+    @Spy
+    private StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+
+    @InjectMocks
+    private StrategyWarmUpService strategyWarmUpService;
+
+    private ThreadPoolExecutor threadPoolExecutor;
+
+    @Before
+    public void setUp() {
+        threadPoolExecutor = new ThreadPoolExecutor(16, 16, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        ReflectionTestUtils.setField(strategyWarmUpService, "threadPoolExecutor", threadPoolExecutor);
+        armoryProperties.setWarmUpConcurrency(4);
+
+        Map<Long, List<StrategyAwardEntity>> strategyAwardMap = new TreeMap<>();
+        for (long strategyId = 1; strategyId <= STRATEGY_COUNT; strategyId++) {
+            strategyAwardMap.put(strategyId, Collections.singletonList(StrategyAwardEntity.builder()
+                    .strategyId(strategyId)
+                    .awardId(101)
+                    .awardRate(BigDecimal.ONE)
+                    .build()));
+        }
+        when(strategyRepository.queryAllStrategyAwardList()).thenReturn(strategyAwardMap);
+    }
+
+    @After
+    public void tearDown() {
+        threadPoolExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testWarmUpWithBoundedConcurrency() {
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        when(strategyArmory.assembleLotteryStrategy(anyLong(), anyList())).thenAnswer(invocation -> {
+            int current = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(current, Math::max);
+            Thread.sleep(5);
+            concurrent.decrementAndGet();
+            return true;
+        });
+
+        StrategyWarmUpProgressEntity progress = strategyWarmUpService.warmUp();
+
+        assertFalse(progress.isRunning());
+        assertEquals(STRATEGY_COUNT, progress.getTotal());
+        assertEquals(STRATEGY_COUNT, progress.getCompleted());
+        assertEquals(STRATEGY_COUNT, progress.getSucceeded());
+        assertEquals(0, progress.getFailed());
+        assertEquals("每个策略都应记录装配耗时", STRATEGY_COUNT, progress.getStrategyCostMillis().size());
+        assertTrue("并发装配数不应超过配置：" + maxConcurrent.get(), maxConcurrent.get() <= 4);
+        assertTrue("应并行装配", maxConcurrent.get() > 1);
+
+        // 奖品列表只查询一次，不再逐个策略查询
+        verify(strategyRepository, times(1)).queryAllStrategyAwardList();
+        verify(strategyRepository, never()).queryStrategyAwardList(anyLong());
+        log.info("预热完成，耗时：{}ms，最大并发：{}", progress.getCostMillis(), maxConcurrent.get());
+    }
+
+    @Test
+    public void testWarmUpRecordsFailures() {
+        when(strategyArmory.assembleLotteryStrategy(anyLong(), anyList())).thenAnswer(invocation -> {
+            Long strategyId = invocation.getArgument(0);
+            if (strategyId == 7L) {
+                throw new IllegalStateException("装配异常");
+            }
+            return strategyId != 3L;
+        });
+
+        StrategyWarmUpProgressEntity progress = strategyWarmUpService.warmUp();
+
+        assertEquals(STRATEGY_COUNT, progress.getCompleted());
+        assertEquals(STRATEGY_COUNT - 2, progress.getSucceeded());
+        assertEquals(2, progress.getFailed());
+        assertTrue(progress.getFailedStrategyIds().containsAll(Arrays.asList(3L, 7L)));
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.bhuang.domain.strategy.service.armory.random;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bhuang
+ * @description 抽奖随机源测试
+ * @create 2025-06-14
+ */
+@Slf4j
+public class RandomSourceTest {
+
+    private static final int RATE_RANGE = 100;
+
+    private final List<IRandomSource> randomSources = Arrays.asList(
+            new ThreadLocalRandomSource(), new SplittableRandomSource(), new SecureRandomSource());
+
+    @Test
+    public void testNextIntWithinBound() {
+        for (IRandomSource random : randomSources) {
+            Set<Integer> values = new HashSet<>();
+            for (int i = 0; i < 10_000; i++) {
+                int value = random.nextInt(RATE_RANGE);
+                assertTrue(random.getClass().getSimpleName() + " 越界：" + value, value >= 0 && value < RATE_RANGE);
+                values.add(value);
+            }
+            assertEquals(random.getClass().getSimpleName() + " 应覆盖全部取值", RATE_RANGE, values.size());
+
+            double coin = random.nextDouble();
+            assertTrue(coin >= 0 && coin < 1);
+        }
+    }
+
+    @Test
+    public void testShuffleKeepsElements() {
+        for (IRandomSource random : randomSources) {
+            List<Integer> table = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                table.add(i % 9 + 101);
+            }
+            List<Integer> shuffled = new ArrayList<>(table);
+            random.shuffle(shuffled);
+
+            assertNotEquals(table, shuffled);
+            shuffled.sort(null);
+            table.sort(null);
+            assertEquals(table, shuffled);
+        }
+    }
+
+    @Test
+    public void testShuffleArrayInPlace() {
+        for (IRandomSource random : randomSources) {
+            int[] table = new int[1000];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = i % 9 + 101;
+            }
+            int[] shuffled = table.clone();
+            random.shuffle(shuffled);
+
+            assertFalse(Arrays.equals(table, shuffled));
+            Arrays.sort(shuffled);
+            Arrays.sort(table);
+            assertArrayEquals(table, shuffled);
+        }
+    }
+
+    @Test
+    public void testSecureRandomSourceReseed() {
+        IRandomSource random = new SecureRandomSource();
+        // 跨过补充种子的边界后仍可正常生成
+        for (int i = 0; i < SecureRandomSource.RESEED_INTERVAL * 2 + 1; i++) {
+            int value = random.nextInt(RATE_RANGE);
+            assertTrue(value >= 0 && value < RATE_RANGE);
+        }
+    }
+
+    @Test
+    public void testSplittableRandomSourcePerThread() throws InterruptedException {
+        IRandomSource random = new SplittableRandomSource();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        Set<String> sequences = ConcurrentHashMap.newKeySet();
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                StringBuilder sequence = new StringBuilder();
+                for (int i = 0; i < 16; i++) {
+                    sequence.append(random.nextInt(Integer.MAX_VALUE)).append(',');
+                }
+                sequences.add(sequence.toString());
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        // 各线程持有独立拆分的实例，序列互不相同
+        assertEquals(threads, sequences.size());
+    }
+
+}
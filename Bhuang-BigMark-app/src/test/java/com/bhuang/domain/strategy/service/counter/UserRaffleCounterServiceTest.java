@@ -0,0 +1,205 @@
+package com.bhuang.domain.strategy.service.counter;
+
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 用户抽奖次数计数测试 - 验证热点用户判定后本地累加、批量回写合并其他节点的次数、回写失败重试、非热点用户移出跟踪、批量查询，以及回写与累加并发时次数不漏计、不重复
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class UserRaffleCounterServiceTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    private static final int HOT_THRESHOLD = 3;
+
+    @Mock
+    private IStrategyRepository strategyRepository;
+
+    @Spy
+    private UserRaffleCounterProperties counterProperties = new UserRaffleCounterProperties();
+
+    @InjectMocks
+    private UserRaffleCounterService userRaffleCounterService;
+
+    @Before
+    public void setUp() {
+        counterProperties.setLocalAccumulateEnabled(true);
+        counterProperties.setHotThreshold(HOT_THRESHOLD);
+    }
+
+    @Test
+    public void testLocalAccumulateDisabled() {
+        counterProperties.setLocalAccumulateEnabled(false);
+        for (int i = 1; i <= 10; i++) {
+            userRaffleCounterService.recordRemoteCount(TEST_STRATEGY_ID, "user001", i);
+        }
+
+        assertNull(userRaffleCounterService.tryIncreaseLocally(TEST_STRATEGY_ID, "user001"));
+        assertEquals(0, userRaffleCounterService.flush());
+        verifyNoInteractions(strategyRepository);
+    }
+
+    @Test
+    public void testHotUserAccumulatesLocallyThenFlushes() {
+        // 未达到阈值前仍在 Redis 累加
+        userRaffleCounterService.recordRemoteCount(TEST_STRATEGY_ID, "user001", 8);
+        userRaffleCounterService.recordRemoteCount(TEST_STRATEGY_ID, "user001", 9);
+        assertNull(userRaffleCounterService.tryIncreaseLocally(TEST_STRATEGY_ID, "user001"));
+
+        userRaffleCounterService.recordRemoteCount(TEST_STRATEGY_ID, "user001", 10);
+        assertEquals(Long.valueOf(11), userRaffleCounterService.tryIncreaseLocally(TEST_STRATEGY_ID, "user001"));
+        assertEquals(Long.valueOf(12), userRaffleCounterService.tryIncreaseLocally(TEST_STRATEGY_ID, "user001"));
+        assertEquals(12L, userRaffleCounterService.queryRaffleCount(TEST_STRATEGY_ID, "user001"));
+
+        // 回写两次本地累加，其他节点同期累加了5次，回写后以 Redis 中的次数为准
+        when(strategyRepository.increaseUserRaffleCounts(TEST_STRATEGY_ID, Collections.singletonMap("user001", 2L)))
+                .thenReturn(Collections.singletonMap("user001", 17L));
+        assertEquals(1, userRaffleCounterService.flush());
+        verify(strategyRepository, never()).increaseUserRaffleCount(anyLong(), anyString(), anyLong());
+
+        // 本周期抽奖次数达到阈值，仍为热点用户
+        assertEquals(Long.valueOf(18), userRaffleCounterService.tryIncreaseLocally(TEST_STRATEGY_ID, "user001"));
+    }
+
+    @Test
+    public void testFlushFailureKeepsPending() {
+        promote("user001", 10);
+        userRaffleCounterService.tryIncreaseLocally(TEST_STRATEGY_ID, "user001");
+        userRaffleCounterService.tryIncreaseLocally(TEST_STRATEGY_ID, "user001");
+
+        Map<String, Long> deltas = Collections.singletonMap("user001", 2L);
+        when(strategyRepository.increaseUserRaffleCounts(TEST_STRATEGY_ID, deltas))
+                .thenThrow(new IllegalStateException("redis down"))
+                .thenReturn(Collections.singletonMap("user001", 12L));
+
+        assertEquals(0, userRaffleCounterService.flush());
+        // 回写失败的次数仍保留在本地，用户不因本周期抽奖次数不足被移出
+        assertEquals(1, userRaffleCounterService.flush());
+        verify(strategyRepository, times(2)).increaseUserRaffleCounts(TEST_STRATEGY_ID, deltas);
+    }
+
+    @Test
+    public void testIdleUserDemoted() {
+        promote("user001", 10);
+        // 本周期抽奖次数未达到阈值且没有待回写次数，移出后回到 Redis 累加
+        assertEquals(0, userRaffleCounterService.flush());
+        assertEquals(0, userRaffleCounterService.flush());
+        assertNull(userRaffleCounterService.tryIncreaseLocally(TEST_STRATEGY_ID, "user001"));
+        verify(strategyRepository, never()).increaseUserRaffleCounts(anyLong(), anyMap());
+    }
+
+    @Test
+    public void testHotMaxUsers() {
+        counterProperties.setHotMaxUsers(1);
+        promote("user001", 10);
+        promote("user002", 10);
+
+        assertNotNull(userRaffleCounterService.tryIncreaseLocally(TEST_STRATEGY_ID, "user001"));
+        assertNull(userRaffleCounterService.tryIncreaseLocally(TEST_STRATEGY_ID, "user002"));
+    }
+
+    @Test
+    public void testQueryRaffleCountsIncludesPending() {
+        promote("user001", 10);
+        userRaffleCounterService.tryIncreaseLocally(TEST_STRATEGY_ID, "user001");
+
+        Map<String, Long> remote = new HashMap<>();
+        remote.put("user001", 10L);
+        remote.put("user002", 0L);
+        when(strategyRepository.queryUserRaffleCounts(TEST_STRATEGY_ID, Arrays.asList("user001", "user002"))).thenReturn(remote);
+
+        Map<String, Long> raffleCounts = userRaffleCounterService.queryRaffleCounts(TEST_STRATEGY_ID, Arrays.asList("user001", "user002"));
+        assertEquals(Long.valueOf(11), raffleCounts.get("user001"));
+        assertEquals(Long.valueOf(0), raffleCounts.get("user002"));
+    }
+
+    @Test
+    public void testConcurrentFlushAndIncrease() throws Exception {
+        // 模拟 Redis 中的次数，回写时放慢以放大回写期间的并发窗口
+        AtomicLong remoteCount = new AtomicLong(10);
+        when(strategyRepository.increaseUserRaffleCounts(eq(TEST_STRATEGY_ID), anyMap())).thenAnswer(invocation -> {
+            Map<String, Long> deltas = invocation.getArgument(1);
+            Thread.sleep(1);
+            return Collections.singletonMap("user001", remoteCount.addAndGet(deltas.get("user001")));
+        });
+        lenient().when(strategyRepository.increaseUserRaffleCount(eq(TEST_STRATEGY_ID), eq("user001"), anyLong()))
+                .thenAnswer(invocation -> remoteCount.addAndGet(invocation.getArgument(2)));
+        // 阈值为0，回写时不会移出，并发累加期间用户始终为热点用户
+        counterProperties.setHotThreshold(0);
+        userRaffleCounterService.recordRemoteCount(TEST_STRATEGY_ID, "user001", 10);
+
+        int threads = 8;
+        int increasesPerThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Set<Long> raffleCounts = ConcurrentHashMap.newKeySet();
+        try {
+            Future<?> flusher = executor.submit(() -> {
+                while (running.get()) {
+                    userRaffleCounterService.flush();
+                }
+            });
+            List<Future<?>> increasers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                increasers.add(executor.submit(() -> {
+                    // 交替使用两个累加入口，热点用户的次数都应来自同一个本地计数
+                    for (int i = 0; i < increasesPerThread; i++) {
+                        raffleCounts.add(i % 2 == 0
+                                ? userRaffleCounterService.increase(TEST_STRATEGY_ID, "user001", 1)
+                                : userRaffleCounterService.tryIncreaseLocally(TEST_STRATEGY_ID, "user001"));
+                    }
+                }));
+            }
+            for (Future<?> increaser : increasers) {
+                increaser.get(30, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            flusher.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        userRaffleCounterService.flush();
+
+        int total = threads * increasesPerThread;
+        assertEquals("每次累加返回的次数各不相同", total, raffleCounts.size());
+        assertEquals(Long.valueOf(10 + total), Collections.max(raffleCounts));
+        assertEquals("全部次数都已回写", 10 + total, remoteCount.get());
+    }
+
+    private void promote(String userId, long raffleCount) {
+        for (int i = 0; i < HOT_THRESHOLD; i++) {
+            userRaffleCounterService.recordRemoteCount(TEST_STRATEGY_ID, userId, raffleCount);
+        }
+    }
+
+}
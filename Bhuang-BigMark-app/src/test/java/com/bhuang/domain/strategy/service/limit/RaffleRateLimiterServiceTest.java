@@ -0,0 +1,180 @@
+package com.bhuang.domain.strategy.service.limit;
+
+import com.bhuang.domain.strategy.model.entity.RaffleRateLimitStatEntity;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 抽奖限流测试 - 验证用户与策略令牌桶拒绝、策略拒绝时归还用户令牌、同步时批量累加集群窗口、窗口超限后拒绝与恢复，以及同步失败时只按本节点令牌桶限流
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class RaffleRateLimiterServiceTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    @Mock
+    private IStrategyRepository strategyRepository;
+
+    @Spy
+    private RaffleRateLimitProperties rateLimitProperties = new RaffleRateLimitProperties();
+
+    @InjectMocks
+    private RaffleRateLimiterService raffleRateLimiterService;
+
+    @Before
+    public void setUp() {
+        // 补充速率极低，测试期间只消耗初始令牌
+        rateLimitProperties.setUserPermitsPerSecond(0.001D);
+        rateLimitProperties.setUserBurst(3D);
+        rateLimitProperties.setStrategyPermitsPerSecond(0.001D);
+        rateLimitProperties.setStrategyBurst(100D);
+        raffleRateLimiterService.init();
+    }
+
+    @Test
+    public void testDisabled() {
+        rateLimitProperties.setEnabled(false);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, "user001"));
+        }
+        assertEquals(0, raffleRateLimiterService.sync());
+        verifyNoInteractions(strategyRepository);
+    }
+
+    @Test
+    public void testUserBucket() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, "user001"));
+        }
+        assertFalse(raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, "user001"));
+        // 其他用户与不带用户的请求不受影响
+        assertTrue(raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, "user002"));
+        assertTrue(raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, null));
+
+        RaffleRateLimitStatEntity stat = raffleRateLimiterService.queryRateLimitStat(TEST_STRATEGY_ID);
+        assertEquals(5L, stat.getAllowed());
+        assertEquals(1L, stat.getRejectedByUser());
+        assertEquals(0L, stat.getRejectedByStrategy());
+    }
+
+    @Test
+    public void testStrategyBucket() {
+        rateLimitProperties.setStrategyBurst(16D);
+        rateLimitProperties.setStripes(4);
+
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            if (raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, null)) {
+                allowed++;
+            }
+        }
+        // 所在分段令牌用尽后依次尝试其余分段，总容量与单个令牌桶一致
+        assertEquals(16, allowed);
+        assertEquals(4L, raffleRateLimiterService.queryRateLimitStat(TEST_STRATEGY_ID).getRejectedByStrategy());
+    }
+
+    @Test
+    public void testStrategyRejectionReleasesUserToken() {
+        rateLimitProperties.setStrategyBurst(1D);
+        rateLimitProperties.setStripes(1);
+
+        assertTrue(raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, "user002"));
+        // 策略令牌用尽后被拒绝的请求不消耗用户令牌
+        for (int i = 0; i < 5; i++) {
+            assertFalse(raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, "user001"));
+        }
+        RaffleRateLimitStatEntity stat = raffleRateLimiterService.queryRateLimitStat(TEST_STRATEGY_ID);
+        assertEquals(5L, stat.getRejectedByStrategy());
+        assertEquals(0L, stat.getRejectedByUser());
+
+        // 策略恢复后用户仍有完整的突发配额
+        rateLimitProperties.setStrategyBurst(100D);
+        ReflectionTestUtils.setField(raffleRateLimiterService, "strategyBuckets", new ConcurrentHashMap<>());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, "user001"));
+        }
+        assertFalse(raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, "user001"));
+    }
+
+    @Test
+    public void testSyncBlocksAndReleases() {
+        rateLimitProperties.setUserWindowLimit(2L);
+        raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, "user001");
+        raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, "user001");
+
+        // 其他节点同期也放行了该用户的请求，集群窗口超限
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put("strategy#100001", 2L);
+        deltas.put("user#100001#user001", 2L);
+        Map<String, Long> windowCounts = new HashMap<>();
+        windowCounts.put("strategy#100001", 5L);
+        windowCounts.put("user#100001#user001", 5L);
+        when(strategyRepository.increaseRateLimitWindow(deltas, 1000L, 10)).thenReturn(windowCounts);
+        assertEquals(2, raffleRateLimiterService.sync());
+
+        // 本节点令牌桶仍有令牌，但集群窗口超限，直接拒绝
+        assertFalse(raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, "user001"));
+        assertTrue(raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, "user002"));
+        assertEquals(1L, raffleRateLimiterService.queryRateLimitStat(TEST_STRATEGY_ID).getRejectedByWindow());
+
+        // 超限对象没有新请求时仍以0参与同步，窗口滑过后解除
+        Map<String, Long> nextDeltas = new HashMap<>();
+        nextDeltas.put("strategy#100001", 1L);
+        nextDeltas.put("user#100001#user002", 1L);
+        nextDeltas.put("user#100001#user001", 0L);
+        Map<String, Long> nextCounts = new HashMap<>();
+        nextCounts.put("strategy#100001", 1L);
+        nextCounts.put("user#100001#user002", 1L);
+        nextCounts.put("user#100001#user001", 0L);
+        when(strategyRepository.increaseRateLimitWindow(nextDeltas, 1000L, 10)).thenReturn(nextCounts);
+        assertEquals(3, raffleRateLimiterService.sync());
+        assertTrue(raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, "user001"));
+    }
+
+    @Test
+    public void testSyncFailureFailsOpen() {
+        // 超限标记保持一个分片（100ms）
+        rateLimitProperties.setSyncInterval(0L);
+        raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, null);
+        when(strategyRepository.increaseRateLimitWindow(anyMap(), eq(1000L), eq(10)))
+                .thenReturn(Collections.singletonMap("strategy#100001", 100000L))
+                .thenThrow(new IllegalStateException("redis down"));
+        raffleRateLimiterService.sync();
+        assertFalse(raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, null));
+
+        try {
+            raffleRateLimiterService.sync();
+            fail();
+        } catch (IllegalStateException e) {
+            log.info("同步失败：{}", e.getMessage());
+        }
+        // 同步失败后超限标记到期解除，只按本节点令牌桶限流
+        long deadline = System.currentTimeMillis() + 2000L;
+        boolean allowed = false;
+        while (!allowed && System.currentTimeMillis() < deadline) {
+            allowed = raffleRateLimiterService.tryAcquire(TEST_STRATEGY_ID, null);
+        }
+        assertTrue(allowed);
+    }
+
+}
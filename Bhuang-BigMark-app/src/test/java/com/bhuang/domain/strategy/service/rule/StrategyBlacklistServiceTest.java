@@ -0,0 +1,126 @@
+package com.bhuang.domain.strategy.service.rule;
+
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyBlacklistSnapshotVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyBlacklistVO;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 黑名单规则测试 - 验证规则值解析、按规则重建黑名单，命中时返回黑名单奖品，以及按快照过滤时不再读取规则与版本号
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyBlacklistServiceTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    @Mock
+    private IStrategyRepository strategyRepository;
+
+    @InjectMocks
+    private StrategyBlacklistService strategyBlacklistService;
+
+    @Test
+    public void testParse() {
+        StrategyBlacklistVO blacklist = StrategyBlacklistVO.parse("101: user001, user002,,");
+        assertEquals(Integer.valueOf(101), blacklist.getAwardId());
+        assertEquals(Arrays.asList("user001", "user002"), blacklist.getUserIds());
+
+        // 只有奖品ID时规则值中不含用户，用户来自黑名单用户表
+        assertEquals(Collections.emptyList(), StrategyBlacklistVO.parse("1").getUserIds());
+        assertNull(StrategyBlacklistVO.parse(null));
+        assertNull(StrategyBlacklistVO.parseAwardId("abc:user001"));
+    }
+
+    @Test
+    public void testAssembleBlacklist() {
+        givenRuleValue("101:user001,user002");
+
+        assertTrue(strategyBlacklistService.assembleBlacklist(TEST_STRATEGY_ID));
+        verify(strategyRepository).storeStrategyBlacklist(TEST_STRATEGY_ID, Arrays.asList("user001", "user002"));
+    }
+
+    @Test
+    public void testAssembleAwardOnlyRule() {
+        // 初始数据的规则值只配置奖品ID，黑名单用户由仓储从黑名单用户表读取
+        givenRuleValue("1");
+        when(strategyRepository.storeStrategyBlacklist(TEST_STRATEGY_ID, Collections.emptyList())).thenReturn(3L);
+
+        assertTrue(strategyBlacklistService.assembleBlacklist(TEST_STRATEGY_ID));
+        verify(strategyRepository).storeStrategyBlacklist(TEST_STRATEGY_ID, Collections.emptyList());
+    }
+
+    @Test
+    public void testAssembleWithoutRule() {
+        assertFalse(strategyBlacklistService.assembleBlacklist(TEST_STRATEGY_ID));
+        verify(strategyRepository, never()).storeStrategyBlacklist(anyLong(), any());
+    }
+
+    @Test
+    public void testFilterBlacklist() {
+        givenRuleValue("101:user001,user002");
+        when(strategyRepository.isStrategyBlacklisted(TEST_STRATEGY_ID, "user001")).thenReturn(true);
+        when(strategyRepository.isStrategyBlacklisted(TEST_STRATEGY_ID, "user003")).thenReturn(false);
+
+        assertEquals(Integer.valueOf(101), strategyBlacklistService.filterBlacklist(TEST_STRATEGY_ID, "user001"));
+        assertNull(strategyBlacklistService.filterBlacklist(TEST_STRATEGY_ID, "user003"));
+    }
+
+    @Test
+    public void testFilterWithoutRuleSkipsCheck() {
+        assertNull(strategyBlacklistService.filterBlacklist(TEST_STRATEGY_ID, "user001"));
+        verify(strategyRepository, never()).isStrategyBlacklisted(anyLong(), anyString());
+    }
+
+    @Test
+    public void testFilterBySnapshot() {
+        givenRuleValue("101:user001,user002");
+        when(strategyRepository.queryStrategyBlacklistVersion(TEST_STRATEGY_ID)).thenReturn(3L);
+        when(strategyRepository.isStrategyBlacklisted(TEST_STRATEGY_ID, 3L, "user001")).thenReturn(true);
+        when(strategyRepository.isStrategyBlacklisted(TEST_STRATEGY_ID, 3L, "user003")).thenReturn(false);
+
+        StrategyBlacklistSnapshotVO snapshot = strategyBlacklistService.queryBlacklistSnapshot(TEST_STRATEGY_ID);
+        assertEquals(Integer.valueOf(101), strategyBlacklistService.filterBlacklist(snapshot, "user001"));
+        assertNull(strategyBlacklistService.filterBlacklist(snapshot, "user003"));
+
+        verify(strategyRepository, times(1)).queryStrategyRule(TEST_STRATEGY_ID, StrategyBlacklistService.RULE_BLACKLIST);
+        verify(strategyRepository, times(1)).queryStrategyBlacklistVersion(TEST_STRATEGY_ID);
+    }
+
+    @Test
+    public void testSnapshotWithoutAssembledBlacklist() {
+        givenRuleValue("101:user001");
+        when(strategyRepository.queryStrategyBlacklistVersion(TEST_STRATEGY_ID)).thenReturn(null);
+
+        StrategyBlacklistSnapshotVO snapshot = strategyBlacklistService.queryBlacklistSnapshot(TEST_STRATEGY_ID);
+
+        assertNull(snapshot);
+        assertNull(strategyBlacklistService.filterBlacklist(snapshot, "user001"));
+        verify(strategyRepository, never()).isStrategyBlacklisted(anyLong(), anyLong(), anyString());
+    }
+
+    private void givenRuleValue(String ruleValue) {
+        when(strategyRepository.queryStrategyRule(TEST_STRATEGY_ID, StrategyBlacklistService.RULE_BLACKLIST))
+                .thenReturn(StrategyRuleEntity.builder()
+                        .strategyId(TEST_STRATEGY_ID)
+                        .ruleModel(StrategyBlacklistService.RULE_BLACKLIST)
+                        .ruleValue(ruleValue)
+                        .build());
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.bhuang.domain.strategy.service.rule;
+
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyRuleWeightVO;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 权重规则测试 - 验证规则值解析、按积分定位最高档位，以及规则值未变化时复用已解析的规则
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyRuleWeightTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    private static final String RULE_WEIGHT_VALUE = "4000:102,103,104,105 5000:102,103,104,105,106,107 6000:102,103,104,105,106,107,108,109";
+
+    @Mock
+    private IStrategyRepository strategyRepository;
+
+    @InjectMocks
+    private StrategyRuleWeightService strategyRuleWeightService;
+
+    @Test
+    public void testParse() {
+        StrategyRuleWeightVO ruleWeight = StrategyRuleWeightVO.parse(RULE_WEIGHT_VALUE);
+
+        List<String> ruleWeightValues = new ArrayList<>();
+        for (StrategyRuleWeightVO.Tier tier : ruleWeight.tiers()) {
+            ruleWeightValues.add(tier.getRuleWeightValue());
+        }
+        assertEquals("档位按阈值升序", Arrays.asList("4000", "5000", "6000"), ruleWeightValues);
+
+        StrategyRuleWeightVO.Tier tier = ruleWeight.tierOf("5000");
+        assertArrayEquals(new int[]{102, 103, 104, 105, 106, 107}, tier.getAwardIds());
+        assertTrue(tier.contains(107));
+        assertFalse(tier.contains(108));
+        assertFalse(tier.contains(null));
+    }
+
+    @Test
+    public void testParseSkipsMalformedGroups() {
+        StrategyRuleWeightVO ruleWeight = StrategyRuleWeightVO.parse(" 6000:109,108  abc:101 5000: 4000 3000:x ");
+
+        assertEquals(1, ruleWeight.tiers().size());
+        assertArrayEquals("奖品ID排序", new int[]{108, 109}, ruleWeight.tierOf("6000").getAwardIds());
+        assertTrue(StrategyRuleWeightVO.parse(null).isEmpty());
+        assertTrue(StrategyRuleWeightVO.parse("  ").isEmpty());
+    }
+
+    @Test
+    public void testResolveHighestQualifiedTier() {
+        StrategyRuleWeightVO ruleWeight = StrategyRuleWeightVO.parse(RULE_WEIGHT_VALUE);
+
+        assertNull("未达到最低档位", ruleWeight.resolve(3999));
+        assertEquals("4000", ruleWeight.resolve(4000).getRuleWeightValue());
+        assertEquals("4000", ruleWeight.resolve(4999).getRuleWeightValue());
+        assertEquals("5000", ruleWeight.resolve(5500).getRuleWeightValue());
+        assertEquals("6000", ruleWeight.resolve(Long.MAX_VALUE).getRuleWeightValue());
+        assertNull(ruleWeight.resolve(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testCachedUntilRuleValueChanges() {
+        when(strategyRepository.queryStrategyRule(TEST_STRATEGY_ID, "rule_weight"))
+                .thenReturn(ruleWeight(RULE_WEIGHT_VALUE), ruleWeight(RULE_WEIGHT_VALUE), ruleWeight("4500:101,102"));
+
+        StrategyRuleWeightVO first = strategyRuleWeightService.queryStrategyRuleWeight(TEST_STRATEGY_ID);
+        StrategyRuleWeightVO second = strategyRuleWeightService.queryStrategyRuleWeight(TEST_STRATEGY_ID);
+        assertSame("规则值未变化时复用已解析的规则", first, second);
+
+        StrategyRuleWeightVO.Tier tier = strategyRuleWeightService.resolveRuleWeight(TEST_STRATEGY_ID, 5000);
+        assertEquals("规则值变更后重新解析", "4500", tier.getRuleWeightValue());
+    }
+
+    @Test
+    public void testNoRuleWeight() {
+        when(strategyRepository.queryStrategyRule(TEST_STRATEGY_ID, "rule_weight")).thenReturn(null);
+
+        assertNull(strategyRuleWeightService.resolveRuleWeight(TEST_STRATEGY_ID, 6000));
+    }
+
+    private StrategyRuleEntity ruleWeight(String ruleValue) {
+        return StrategyRuleEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .ruleType(1)
+                .ruleModel("rule_weight")
+                .ruleValue(ruleValue)
+                .build();
+    }
+
+}
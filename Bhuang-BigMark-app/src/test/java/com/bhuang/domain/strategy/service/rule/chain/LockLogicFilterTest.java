@@ -0,0 +1,113 @@
+package com.bhuang.domain.strategy.service.rule.chain;
+
+import com.bhuang.domain.strategy.model.entity.RaffleAwardEntity;
+import com.bhuang.domain.strategy.model.entity.RuleActionEntity;
+import com.bhuang.domain.strategy.model.entity.RuleMatterEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.RuleModelVO;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.armory.StrategyArmoryProperties;
+import com.bhuang.domain.strategy.service.rule.chain.impl.LockLogicFilter;
+import com.bhuang.domain.strategy.service.stock.IStrategyStock;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 解锁规则测试 - 验证抽奖次数达到规则值时放行，未达到时发放兜底奖品，以及编译时绑定解锁次数后抽奖不再查询规则
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class LockLogicFilterTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    @Mock
+    private IStrategyRepository strategyRepository;
+
+    @Mock
+    private IStrategyStock strategyStock;
+
+    @Spy
+    private StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+
+    @InjectMocks
+    private LockLogicFilter lockLogicFilter;
+
+    @Test
+    public void testUnlocked() {
+        givenUnlockCount(108, "2");
+
+        assertFalse(lockLogicFilter.filter(matter(108, 2)).isTakeOver());
+        verifyNoInteractions(strategyStock);
+    }
+
+    @Test
+    public void testLockedGivesLuckAward() {
+        givenUnlockCount(109, "6");
+        when(strategyStock.queryLuckAward(TEST_STRATEGY_ID, 109)).thenReturn(RaffleAwardEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .awardId(101)
+                .awardConfig("1,100")
+                .luckAward(true)
+                .build());
+
+        RuleActionEntity action = lockLogicFilter.filter(matter(109, 5));
+
+        assertTrue(action.isTakeOver());
+        assertEquals(Integer.valueOf(101), action.getRaffleAward().getAwardId());
+        assertEquals("rule_lock", action.getRaffleAward().getRuleModel());
+    }
+
+    @Test
+    public void testLockedWithoutLuckRuleGivesDefaultAward() {
+        givenUnlockCount(107, "1");
+
+        RuleActionEntity action = lockLogicFilter.filter(matter(107, 0));
+
+        assertTrue(action.isTakeOver());
+        assertEquals(armoryProperties.getDefaultLuckAwardId(), action.getRaffleAward().getAwardId());
+        assertTrue(action.getRaffleAward().isLuckAward());
+    }
+
+    @Test
+    public void testBoundFilterResolvesUnlockCountOnce() {
+        givenUnlockCount(108, "2");
+
+        ILogicFilter bound = lockLogicFilter.bind(TEST_STRATEGY_ID, 108);
+        for (long raffleCount = 2; raffleCount < 12; raffleCount++) {
+            assertFalse(bound.filter(matter(108, raffleCount)).isTakeOver());
+        }
+
+        assertEquals(RuleModelVO.RULE_LOCK, bound.ruleModel());
+        verify(strategyRepository, times(1)).queryStrategyAwardRule(TEST_STRATEGY_ID, 108, "rule_lock");
+        assertTrue(bound.filter(matter(108, 1)).isTakeOver());
+    }
+
+    private void givenUnlockCount(Integer awardId, String ruleValue) {
+        when(strategyRepository.queryStrategyAwardRule(TEST_STRATEGY_ID, awardId, "rule_lock")).thenReturn(StrategyRuleEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .awardId(awardId)
+                .ruleModel("rule_lock")
+                .ruleValue(ruleValue)
+                .build());
+    }
+
+    private RuleMatterEntity matter(Integer awardId, long raffleCount) {
+        return RuleMatterEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .awardId(awardId)
+                .raffleCount(raffleCount)
+                .build();
+    }
+
+}
@@ -0,0 +1,302 @@
+package com.bhuang.domain.strategy.service.rule.chain;
+
+import com.bhuang.domain.strategy.model.entity.RaffleAwardEntity;
+import com.bhuang.domain.strategy.model.entity.RaffleFactorEntity;
+import com.bhuang.domain.strategy.model.entity.RuleActionEntity;
+import com.bhuang.domain.strategy.model.entity.RuleMatterEntity;
+import com.bhuang.domain.strategy.model.entity.RuleStageStatEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyEntity;
+import com.bhuang.domain.strategy.model.valobj.RuleModelVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyDrawResultVO;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.armory.IStrategyDispatch;
+import com.bhuang.domain.strategy.service.armory.StrategyArmoryProperties;
+import com.bhuang.domain.strategy.service.counter.IUserRaffleCounter;
+import com.bhuang.domain.strategy.service.stock.IStrategyStock;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 规则链引擎测试 - 验证规则模型按阶段与固定顺序编译、接管后短路、未配置规则的奖品直接扣减库存、按装配版本号重新编译、阶段耗时统计、配置 rule_lock 时随抽奖累加用户抽奖次数，以及异步抽奖全程不等待 Redis 响应
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyRuleChainEngineTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    @Mock
+    private IStrategyRepository strategyRepository;
+
+    @Mock
+    private IStrategyDispatch strategyDispatch;
+
+    @Mock
+    private IStrategyStock strategyStock;
+
+    @Mock
+    private IUserRaffleCounter userRaffleCounter;
+
+    @Spy
+    private StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+
+    @Mock
+    private ILogicFilter blacklistFilter;
+
+    @Mock
+    private ILogicFilter weightFilter;
+
+    @Mock
+    private ILogicFilter lockFilter;
+
+    @Mock
+    private ILogicFilter luckAwardFilter;
+
+    @InjectMocks
+    private StrategyRuleChainEngine strategyRuleChainEngine;
+
+    @Before
+    public void setUp() {
+        when(blacklistFilter.ruleModel()).thenReturn(RuleModelVO.RULE_BLACKLIST);
+        when(weightFilter.ruleModel()).thenReturn(RuleModelVO.RULE_WEIGHT);
+        when(lockFilter.ruleModel()).thenReturn(RuleModelVO.RULE_LOCK);
+        when(luckAwardFilter.ruleModel()).thenReturn(RuleModelVO.RULE_LUCK_AWARD);
+        // 抽奖前规则绑定到策略，抽奖后规则绑定到奖品
+        when(blacklistFilter.bind(TEST_STRATEGY_ID, null)).thenReturn(blacklistFilter);
+        when(weightFilter.bind(TEST_STRATEGY_ID, null)).thenReturn(weightFilter);
+        when(lockFilter.bind(TEST_STRATEGY_ID, 107)).thenReturn(lockFilter);
+        when(luckAwardFilter.bind(eq(TEST_STRATEGY_ID), anyInt())).thenReturn(luckAwardFilter);
+        ReflectionTestUtils.setField(strategyRuleChainEngine, "logicFilters", Arrays.asList(luckAwardFilter, lockFilter, weightFilter, blacklistFilter));
+        strategyRuleChainEngine.init();
+
+        // 与库表初始化数据一致：策略规则书写顺序为 rule_weight,rule_blacklist
+        when(strategyRepository.queryStrategyEntity(TEST_STRATEGY_ID)).thenReturn(StrategyEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .ruleModels("rule_weight,rule_blacklist")
+                .build());
+        when(strategyRepository.queryStrategyAwardList(TEST_STRATEGY_ID)).thenReturn(Arrays.asList(
+                strategyAward(101, "rule_random,rule_luck_award"),
+                strategyAward(107, "rule_lock,rule_luck_award"),
+                strategyAward(110, null)));
+    }
+
+    @Test
+    public void testCompileOrdersStagesAndSkipsUnknownRules() {
+        StrategyRuleChain ruleChain = strategyRuleChainEngine.queryRuleChain(TEST_STRATEGY_ID);
+
+        // 黑名单总在权重之前，与书写顺序无关
+        assertEquals("[rule_blacklist, rule_weight]", Arrays.toString(ruleChain.preDrawStages()));
+        // rule_random 没有过滤器，编译时跳过
+        assertEquals("[rule_luck_award]", Arrays.toString(ruleChain.postDrawStages(101)));
+        assertEquals("[rule_lock, rule_luck_award]", Arrays.toString(ruleChain.postDrawStages(107)));
+        // 未配置规则的奖品不进入映射，抽奖后阶段为空
+        assertEquals(0, ruleChain.postDrawStages(110).length);
+        assertFalse(ruleChain.postDrawStages().containsKey(110));
+        verify(luckAwardFilter).bind(TEST_STRATEGY_ID, 101);
+        verify(luckAwardFilter).bind(TEST_STRATEGY_ID, 107);
+    }
+
+    @Test
+    public void testBlacklistTakeOverSkipsDraw() {
+        RaffleAwardEntity blacklistAward = RaffleAwardEntity.builder().awardId(1).ruleModel("rule_blacklist").build();
+        when(blacklistFilter.filter(any())).thenReturn(RuleActionEntity.takeOver(blacklistAward));
+
+        assertSame(blacklistAward, strategyRuleChainEngine.performRaffle(factor("user001", 5000L)));
+        verify(weightFilter, never()).filter(any());
+        verifyNoInteractions(strategyDispatch, strategyStock);
+    }
+
+    @Test
+    public void testWeightDrawThenDeductWithoutPostRules() {
+        when(blacklistFilter.filter(any())).thenReturn(RuleActionEntity.allow());
+        when(weightFilter.filter(any())).thenAnswer(invocation -> {
+            RuleMatterEntity matter = invocation.getArgument(0);
+            matter.setRuleWeightValue("4000");
+            return RuleActionEntity.allow();
+        });
+        when(userRaffleCounter.tryIncreaseLocally(TEST_STRATEGY_ID, "user002")).thenReturn(null);
+        when(strategyDispatch.getRandomAwardIdAndCount(TEST_STRATEGY_ID, "4000", "user002")).thenReturn(drawResult(110, 1L));
+        RaffleAwardEntity award = RaffleAwardEntity.builder().strategyId(TEST_STRATEGY_ID).awardId(110).build();
+        when(strategyStock.deductAwardStock(TEST_STRATEGY_ID, 110)).thenReturn(award);
+
+        assertSame(award, strategyRuleChainEngine.performRaffle(factor("user002", 4500L)));
+        verify(strategyDispatch, never()).getRandomAwardId(TEST_STRATEGY_ID);
+        verify(lockFilter, never()).filter(any());
+        verify(luckAwardFilter, never()).filter(any());
+
+        List<RuleStageStatEntity> stats = strategyRuleChainEngine.queryRuleChainStat(TEST_STRATEGY_ID);
+        log.info("规则阶段耗时：{}", stats);
+        assertEquals(Arrays.asList("rule_blacklist", "rule_weight", "draw", "rule_lock", "rule_luck_award", "stock"),
+                stats.stream().map(RuleStageStatEntity::getStage).collect(Collectors.toList()));
+        for (RuleStageStatEntity stat : stats) {
+            boolean executed = !stat.getStage().equals("rule_lock") && !stat.getStage().equals("rule_luck_award");
+            assertEquals(stat.getStage(), executed ? 1L : 0L, stat.getInvocations());
+        }
+    }
+
+    @Test
+    public void testLockTakeOverSkipsLuckAward() {
+        when(blacklistFilter.filter(any())).thenReturn(RuleActionEntity.allow());
+        when(weightFilter.filter(any())).thenReturn(RuleActionEntity.allow());
+        when(userRaffleCounter.tryIncreaseLocally(TEST_STRATEGY_ID, "user003")).thenReturn(null);
+        when(strategyDispatch.getRandomAwardIdAndCount(TEST_STRATEGY_ID, null, "user003")).thenReturn(drawResult(107, 1L));
+        RaffleAwardEntity luckAward = RaffleAwardEntity.builder().awardId(101).luckAward(true).ruleModel("rule_lock").build();
+        // 首次抽奖，此前已完成的次数为0
+        when(lockFilter.filter(argThat(matter -> matter.getAwardId() == 107 && matter.getRaffleCount() == 0)))
+                .thenReturn(RuleActionEntity.takeOver(luckAward));
+
+        assertSame(luckAward, strategyRuleChainEngine.performRaffle(factor("user003", null)));
+        verify(userRaffleCounter).recordRemoteCount(TEST_STRATEGY_ID, "user003", 1L);
+        verify(luckAwardFilter, never()).filter(any());
+        verifyNoInteractions(strategyStock);
+
+        RuleStageStatEntity lockStat = strategyRuleChainEngine.queryRuleChainStat(TEST_STRATEGY_ID).stream()
+                .filter(stat -> stat.getStage().equals("rule_lock"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        assertEquals(1L, lockStat.getTakeOvers());
+    }
+
+    @Test
+    public void testHotUserCountsLocally() {
+        when(blacklistFilter.filter(any())).thenReturn(RuleActionEntity.allow());
+        when(weightFilter.filter(any())).thenReturn(RuleActionEntity.allow());
+        when(userRaffleCounter.tryIncreaseLocally(TEST_STRATEGY_ID, "user004")).thenReturn(7L);
+        when(strategyDispatch.getRandomAwardId(TEST_STRATEGY_ID)).thenReturn(107);
+        when(lockFilter.filter(argThat(matter -> matter.getRaffleCount() == 6))).thenReturn(RuleActionEntity.allow());
+        when(luckAwardFilter.filter(any())).thenReturn(RuleActionEntity.allow());
+        RaffleAwardEntity award = RaffleAwardEntity.builder().strategyId(TEST_STRATEGY_ID).awardId(107).build();
+        when(strategyStock.deductAwardStock(TEST_STRATEGY_ID, 107)).thenReturn(award);
+
+        // 热点用户在本节点累加，抽奖不再携带计数
+        assertSame(award, strategyRuleChainEngine.performRaffle(factor("user004", null)));
+        verify(strategyDispatch, never()).getRandomAwardIdAndCount(anyLong(), any(), anyString());
+        verify(userRaffleCounter, never()).recordRemoteCount(anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    public void testProvidedRaffleCountSkipsCounting() {
+        when(blacklistFilter.filter(any())).thenReturn(RuleActionEntity.allow());
+        when(weightFilter.filter(any())).thenReturn(RuleActionEntity.allow());
+        when(strategyDispatch.getRandomAwardId(TEST_STRATEGY_ID)).thenReturn(107);
+        when(lockFilter.filter(argThat(matter -> matter.getRaffleCount() == 3))).thenReturn(RuleActionEntity.allow());
+        when(luckAwardFilter.filter(any())).thenReturn(RuleActionEntity.allow());
+
+        RaffleFactorEntity raffleFactor = factor("user005", null);
+        raffleFactor.setRaffleCount(3L);
+        strategyRuleChainEngine.performRaffle(raffleFactor);
+
+        verifyNoInteractions(userRaffleCounter);
+        verify(strategyDispatch, never()).getRandomAwardIdAndCount(anyLong(), any(), anyString());
+    }
+
+    @Test
+    public void testAsyncRaffleDoesNotWaitForRedis() {
+        when(blacklistFilter.filterAsync(any())).thenReturn(CompletableFuture.completedFuture(RuleActionEntity.allow()));
+        when(weightFilter.filterAsync(any())).thenReturn(CompletableFuture.completedFuture(RuleActionEntity.allow()));
+        when(userRaffleCounter.tryIncreaseLocally(TEST_STRATEGY_ID, "user006")).thenReturn(null);
+        CompletableFuture<StrategyDrawResultVO> draw = new CompletableFuture<>();
+        when(strategyDispatch.getRandomAwardIdAndCountAsync(TEST_STRATEGY_ID, null, "user006")).thenReturn(draw);
+        when(lockFilter.filterAsync(argThat(matter -> matter.getRaffleCount() == 4)))
+                .thenReturn(CompletableFuture.completedFuture(RuleActionEntity.allow()));
+        CompletableFuture<RuleActionEntity> stock = new CompletableFuture<>();
+        when(luckAwardFilter.filterAsync(any())).thenReturn(stock);
+
+        // 抽奖与库存扣减的 Redis 应答到达前，调用线程已返回
+        CompletableFuture<RaffleAwardEntity> raffle = strategyRuleChainEngine.performRaffleAsync(factor("user006", null));
+        assertFalse(raffle.isDone());
+        draw.complete(drawResult(107, 5L));
+        assertFalse(raffle.isDone());
+        RaffleAwardEntity award = RaffleAwardEntity.builder().strategyId(TEST_STRATEGY_ID).awardId(107).build();
+        stock.complete(RuleActionEntity.takeOver(award));
+
+        assertSame(award, raffle.join());
+        verify(userRaffleCounter).recordRemoteCount(TEST_STRATEGY_ID, "user006", 5L);
+        verify(strategyDispatch, never()).getRandomAwardIdAndCount(anyLong(), any(), anyString());
+        verify(blacklistFilter, never()).filter(any());
+        verify(luckAwardFilter, never()).filter(any());
+    }
+
+    @Test
+    public void testAsyncRaffleDeductsStockWithoutPostRules() {
+        when(blacklistFilter.filterAsync(any())).thenReturn(CompletableFuture.completedFuture(RuleActionEntity.allow()));
+        when(weightFilter.filterAsync(any())).thenReturn(CompletableFuture.completedFuture(RuleActionEntity.allow()));
+        when(userRaffleCounter.tryIncreaseLocally(TEST_STRATEGY_ID, "user007")).thenReturn(null);
+        when(strategyDispatch.getRandomAwardIdAndCountAsync(TEST_STRATEGY_ID, null, "user007"))
+                .thenReturn(CompletableFuture.completedFuture(drawResult(110, 1L)));
+        RaffleAwardEntity award = RaffleAwardEntity.builder().strategyId(TEST_STRATEGY_ID).awardId(110).build();
+        when(strategyStock.deductAwardStockAsync(TEST_STRATEGY_ID, 110)).thenReturn(CompletableFuture.completedFuture(award));
+
+        assertSame(award, strategyRuleChainEngine.performRaffleAsync(factor("user007", null)).join());
+        verify(strategyStock, never()).deductAwardStock(anyLong(), anyInt());
+        RuleStageStatEntity stockStat = strategyRuleChainEngine.queryRuleChainStat(TEST_STRATEGY_ID).stream()
+                .filter(stat -> stat.getStage().equals("stock"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        assertEquals(1L, stockStat.getInvocations());
+    }
+
+    @Test
+    public void testCountsUserRaffleOnlyWithLockRule() {
+        assertTrue(strategyRuleChainEngine.queryRuleChain(TEST_STRATEGY_ID).countsUserRaffle());
+
+        Map<Integer, StrategyRuleChain.Stage[]> postDrawStages = new HashMap<>();
+        postDrawStages.put(101, new StrategyRuleChain.Stage[]{new StrategyRuleChain.Stage(luckAwardFilter, new RuleStageCounter())});
+        StrategyRuleChain ruleChain = new StrategyRuleChain(TEST_STRATEGY_ID, new StrategyRuleChain.Stage[0], postDrawStages,
+                new RuleStageCounter(), new RuleStageCounter());
+        assertFalse(ruleChain.countsUserRaffle());
+    }
+
+    @Test
+    public void testRecompileOnlyAfterReassembly() {
+        armoryProperties.setLocalTableCheckInterval(0L);
+        when(strategyRepository.queryStrategyArmoryVersion(TEST_STRATEGY_ID)).thenReturn(1L, 1L, 2L);
+
+        StrategyRuleChain first = strategyRuleChainEngine.queryRuleChain(TEST_STRATEGY_ID);
+        assertSame(first, strategyRuleChainEngine.queryRuleChain(TEST_STRATEGY_ID));
+        assertNotSame(first, strategyRuleChainEngine.queryRuleChain(TEST_STRATEGY_ID));
+        verify(strategyRepository, times(2)).queryStrategyEntity(TEST_STRATEGY_ID);
+    }
+
+    private RaffleFactorEntity factor(String userId, Long score) {
+        return RaffleFactorEntity.builder()
+                .userId(userId)
+                .strategyId(TEST_STRATEGY_ID)
+                .score(score)
+                .build();
+    }
+
+    private StrategyDrawResultVO drawResult(Integer awardId, long raffleCount) {
+        return StrategyDrawResultVO.builder().awardId(awardId).raffleCount(raffleCount).build();
+    }
+
+    private StrategyAwardEntity strategyAward(Integer awardId, String ruleModels) {
+        return StrategyAwardEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .awardId(awardId)
+                .ruleModels(ruleModels)
+                .build();
+    }
+
+}
@@ -0,0 +1,259 @@
+package com.bhuang.domain.strategy.service.stock;
+
+import com.bhuang.domain.strategy.model.entity.RaffleAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyAwardStockFlushLagEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardStockDeductionVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardStockFlushBatchVO;
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.armory.StrategyArmoryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 奖品库存扣减测试 - 验证库存充足时发放抽中奖品，售罄时按 rule_luck_award 发放兜底奖品，未配置默认兜底奖品时不发放奖品，异步扣减结果一致，扣减结果记入流水，以及扣减记录合并后批量回写、已回写过的批次不重复扣减
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyStockServiceTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    @Mock
+    private IStrategyRepository strategyRepository;
+
+    @Mock
+    private IDrawJournalRepository drawJournalRepository;
+
+    @Spy
+    private StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+
+    @Spy
+    private StrategyStockProperties stockProperties = new StrategyStockProperties();
+
+    @InjectMocks
+    private StrategyStockService strategyStockService;
+
+    @Test
+    public void testDeductInStock() {
+        when(strategyRepository.subtractStrategyAwardStock(TEST_STRATEGY_ID, 105)).thenReturn(3L);
+
+        RaffleAwardEntity raffleAward = strategyStockService.deductAwardStock(TEST_STRATEGY_ID, 105);
+
+        assertEquals(Integer.valueOf(105), raffleAward.getAwardId());
+        assertFalse(raffleAward.isLuckAward());
+        verify(strategyRepository, never()).queryStrategyAwardRule(anyLong(), anyInt(), anyString());
+        verify(drawJournalRepository).appendStockDeduction(TEST_STRATEGY_ID, 105, true);
+    }
+
+    @Test
+    public void testSoldOutFallsBackToLuckAward() {
+        when(strategyRepository.subtractStrategyAwardStock(TEST_STRATEGY_ID, 109)).thenReturn(-1L);
+        when(strategyRepository.queryStrategyAwardRule(TEST_STRATEGY_ID, 109, "rule_luck_award")).thenReturn(luckAwardRule(109, "1,100"));
+
+        RaffleAwardEntity raffleAward = strategyStockService.deductAwardStock(TEST_STRATEGY_ID, 109);
+
+        // 规则值未指定奖品ID时使用默认兜底奖品
+        assertEquals(armoryProperties.getDefaultLuckAwardId(), raffleAward.getAwardId());
+        assertEquals("1,100", raffleAward.getAwardConfig());
+        assertTrue(raffleAward.isLuckAward());
+        // 流水记录的是抽中奖品的售罄，兜底奖品不占库存
+        verify(drawJournalRepository).appendStockDeduction(TEST_STRATEGY_ID, 109, false);
+    }
+
+    @Test
+    public void testSoldOutWithLuckAwardId() {
+        when(strategyRepository.subtractStrategyAwardStock(TEST_STRATEGY_ID, 108)).thenReturn(-1L);
+        when(strategyRepository.queryStrategyAwardRule(TEST_STRATEGY_ID, 108, "rule_luck_award")).thenReturn(luckAwardRule(108, "102:10,50"));
+
+        RaffleAwardEntity raffleAward = strategyStockService.deductAwardStock(TEST_STRATEGY_ID, 108);
+
+        assertEquals(Integer.valueOf(102), raffleAward.getAwardId());
+        assertEquals("10,50", raffleAward.getAwardConfig());
+        assertTrue(raffleAward.isLuckAward());
+    }
+
+    @Test
+    public void testMalformedLuckAwardIdFallsBackToDefault() {
+        when(strategyRepository.subtractStrategyAwardStock(TEST_STRATEGY_ID, 108)).thenReturn(-1L);
+        when(strategyRepository.queryStrategyAwardRule(TEST_STRATEGY_ID, 108, "rule_luck_award")).thenReturn(luckAwardRule(108, "abc:1,100"));
+
+        // 奖品ID无法解析时不影响抽奖，发放默认兜底奖品
+        RaffleAwardEntity raffleAward = strategyStockService.deductAwardStock(TEST_STRATEGY_ID, 108);
+
+        assertEquals(armoryProperties.getDefaultLuckAwardId(), raffleAward.getAwardId());
+        assertEquals("1,100", raffleAward.getAwardConfig());
+        assertTrue(raffleAward.isLuckAward());
+    }
+
+    @Test
+    public void testSoldOutWithoutLuckAwardRule() {
+        when(strategyRepository.subtractStrategyAwardStock(TEST_STRATEGY_ID, 107)).thenReturn(-1L);
+
+        RaffleAwardEntity raffleAward = strategyStockService.deductAwardStock(TEST_STRATEGY_ID, 107);
+
+        // 与未解锁时一致，发放默认兜底奖品
+        assertEquals(armoryProperties.getDefaultLuckAwardId(), raffleAward.getAwardId());
+        assertTrue(raffleAward.isLuckAward());
+        assertEquals("rule_luck_award", raffleAward.getRuleModel());
+    }
+
+    @Test
+    public void testSoldOutWithoutDefaultLuckAward() {
+        armoryProperties.setDefaultLuckAwardId(null);
+        when(strategyRepository.subtractStrategyAwardStock(TEST_STRATEGY_ID, 107)).thenReturn(-1L);
+
+        // 默认兜底奖品置空时售罄不发放奖品，由接口给出售罄应答
+        RaffleAwardEntity raffleAward = strategyStockService.deductAwardStock(TEST_STRATEGY_ID, 107);
+
+        assertNull(raffleAward.getAwardId());
+        assertTrue(raffleAward.isLuckAward());
+    }
+
+    @Test
+    public void testDeductAsync() {
+        CompletableFuture<Long> surplus = new CompletableFuture<>();
+        when(strategyRepository.subtractStrategyAwardStockAsync(TEST_STRATEGY_ID, 108)).thenReturn(surplus);
+        when(strategyRepository.queryStrategyAwardRule(TEST_STRATEGY_ID, 108, "rule_luck_award")).thenReturn(luckAwardRule(108, "102:10,50"));
+
+        CompletableFuture<RaffleAwardEntity> raffleAward = strategyStockService.deductAwardStockAsync(TEST_STRATEGY_ID, 108);
+        assertFalse(raffleAward.isDone());
+        surplus.complete(-1L);
+
+        assertEquals(Integer.valueOf(102), raffleAward.join().getAwardId());
+        verify(strategyRepository, never()).subtractStrategyAwardStock(anyLong(), anyInt());
+        verify(drawJournalRepository).appendStockDeduction(TEST_STRATEGY_ID, 108, false);
+    }
+
+    @Test
+    public void testFlushCoalescesPerAward() {
+        when(strategyRepository.tryLockStrategyAwardStockFlush()).thenReturn(true);
+        when(strategyRepository.takeStrategyAwardStockDeductions(stockProperties.getFlushBatchSize())).thenReturn(flushBatch("flush-1",
+                deduction(109, 3000L), deduction(105, 1000L), deduction(109, 2000L), deduction(105, 4000L), deduction(105, 5000L)));
+        when(strategyRepository.updateStrategyAwardStockSurplus(eq("flush-1"), anyList())).thenReturn(true);
+
+        assertEquals(5, strategyStockService.flushAwardStockDeductions());
+
+        // 同一奖品的扣减合并为一条，数量累加，扣减时间取最早
+        ArgumentCaptor<List<StrategyAwardStockDeductionVO>> captor = ArgumentCaptor.forClass(List.class);
+        InOrder inOrder = inOrder(strategyRepository);
+        inOrder.verify(strategyRepository).updateStrategyAwardStockSurplus(eq("flush-1"), captor.capture());
+        inOrder.verify(strategyRepository).ackStrategyAwardStockDeductions();
+        inOrder.verify(strategyRepository).unlockStrategyAwardStockFlush();
+        List<StrategyAwardStockDeductionVO> coalesced = captor.getValue();
+        assertEquals(2, coalesced.size());
+        assertEquals(Integer.valueOf(109), coalesced.get(0).getAwardId());
+        assertEquals(2, coalesced.get(0).getQuantity());
+        assertEquals(2000L, coalesced.get(0).getDeductTime());
+        assertEquals(3, coalesced.get(1).getQuantity());
+        assertEquals(1000L, coalesced.get(1).getDeductTime());
+    }
+
+    @Test
+    public void testFlushDrainsBacklogInBatches() {
+        stockProperties.setFlushBatchSize(2);
+        when(strategyRepository.tryLockStrategyAwardStockFlush()).thenReturn(true);
+        when(strategyRepository.takeStrategyAwardStockDeductions(2)).thenReturn(
+                flushBatch("flush-1", deduction(101, 1000L), deduction(101, 1001L)),
+                flushBatch("flush-2", deduction(102, 1002L), deduction(103, 1003L)),
+                flushBatch("flush-3", deduction(101, 1004L)));
+        when(strategyRepository.updateStrategyAwardStockSurplus(anyString(), anyList())).thenReturn(true);
+
+        assertEquals(5, strategyStockService.flushAwardStockDeductions());
+        verify(strategyRepository).updateStrategyAwardStockSurplus(eq("flush-1"), anyList());
+        verify(strategyRepository).updateStrategyAwardStockSurplus(eq("flush-2"), anyList());
+        verify(strategyRepository).updateStrategyAwardStockSurplus(eq("flush-3"), anyList());
+        verify(strategyRepository, times(3)).ackStrategyAwardStockDeductions();
+        // 最后一批不足一批时停止领取
+        verify(strategyRepository, times(3)).takeStrategyAwardStockDeductions(2);
+
+        when(strategyRepository.queryStrategyAwardStockFlushLag()).thenReturn(new StrategyAwardStockFlushLagEntity());
+        StrategyAwardStockFlushLagEntity lag = strategyStockService.queryAwardStockFlushLag();
+        assertEquals(5L, lag.getLastFlushCount());
+        assertEquals(5L, lag.getTotalFlushCount());
+        assertTrue(lag.getLastFlushTime() > 0);
+    }
+
+    @Test
+    public void testFlushFailureKeepsBatch() {
+        when(strategyRepository.tryLockStrategyAwardStockFlush()).thenReturn(true);
+        when(strategyRepository.takeStrategyAwardStockDeductions(anyInt())).thenReturn(flushBatch("flush-1", deduction(109, 1000L)));
+        doThrow(new RuntimeException("数据库不可用")).when(strategyRepository).updateStrategyAwardStockSurplus(anyString(), anyList());
+
+        try {
+            strategyStockService.flushAwardStockDeductions();
+            fail();
+        } catch (RuntimeException e) {
+            // 回写失败时不确认，下次重新领取同一批
+            verify(strategyRepository, never()).ackStrategyAwardStockDeductions();
+            verify(strategyRepository).unlockStrategyAwardStockFlush();
+        }
+    }
+
+    @Test
+    public void testRedeliveredBatchAckedWithoutDeduct() {
+        when(strategyRepository.tryLockStrategyAwardStockFlush()).thenReturn(true);
+        when(strategyRepository.takeStrategyAwardStockDeductions(anyInt())).thenReturn(flushBatch("flush-1", deduction(109, 1000L)));
+        // 上次回写已提交、确认前中断，重新领取的同一批次不再扣减
+        when(strategyRepository.updateStrategyAwardStockSurplus(eq("flush-1"), anyList())).thenReturn(false);
+
+        assertEquals(1, strategyStockService.flushAwardStockDeductions());
+        InOrder inOrder = inOrder(strategyRepository);
+        inOrder.verify(strategyRepository).updateStrategyAwardStockSurplus(eq("flush-1"), anyList());
+        inOrder.verify(strategyRepository).ackStrategyAwardStockDeductions();
+        inOrder.verify(strategyRepository).unlockStrategyAwardStockFlush();
+    }
+
+    @Test
+    public void testFlushSkippedWhenLocked() {
+        when(strategyRepository.tryLockStrategyAwardStockFlush()).thenReturn(false);
+
+        assertEquals(0, strategyStockService.flushAwardStockDeductions());
+        verify(strategyRepository, never()).takeStrategyAwardStockDeductions(anyInt());
+        verify(strategyRepository, never()).unlockStrategyAwardStockFlush();
+    }
+
+    private StrategyAwardStockFlushBatchVO flushBatch(String flushId, StrategyAwardStockDeductionVO... deductions) {
+        return StrategyAwardStockFlushBatchVO.builder()
+                .flushId(flushId)
+                .deductions(Arrays.asList(deductions))
+                .build();
+    }
+
+    private StrategyAwardStockDeductionVO deduction(Integer awardId, long deductTime) {
+        return StrategyAwardStockDeductionVO.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .awardId(awardId)
+                .quantity(1)
+                .deductTime(deductTime)
+                .build();
+    }
+
+    private StrategyRuleEntity luckAwardRule(Integer awardId, String ruleValue) {
+        StrategyRuleEntity strategyRule = new StrategyRuleEntity();
+        strategyRule.setStrategyId(TEST_STRATEGY_ID);
+        strategyRule.setAwardId(awardId);
+        strategyRule.setRuleModel("rule_luck_award");
+        strategyRule.setRuleValue(ruleValue);
+        return strategyRule;
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.bhuang.infrastructure.persistent.cache;
+
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bhuang
+ * @description 策略近端缓存测试 - 验证命中跳过回源、只读副本、按策略失效、容量淘汰、过期以及命中统计
+ * @create 2025-06-14
+ */
+@Slf4j
+public class StrategyNearCacheTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private StrategyNearCache strategyNearCache;
+
+    @Before
+    public void setUp() {
+        strategyNearCache = new StrategyNearCache();
+        ReflectionTestUtils.setField(strategyNearCache, "enabled", true);
+        ReflectionTestUtils.setField(strategyNearCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(strategyNearCache, "maximumSize", 2L);
+        ReflectionTestUtils.setField(strategyNearCache, "expireAfterWrite", 1000L);
+        ReflectionTestUtils.setField(strategyNearCache, "ticker", new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        });
+        strategyNearCache.init();
+    }
+
+    @Test
+    public void testStrategyAwardListHit() {
+        List<StrategyAwardEntity> first = strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+        List<StrategyAwardEntity> second = strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+
+        assertEquals(first, second);
+        assertEquals(1, loads.get());
+
+        CacheStats stats = strategyNearCache.stats().get(StrategyNearCache.STRATEGY_AWARD_LIST);
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testStrategyAwardListReadOnly() {
+        strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList).clear();
+    }
+
+    @Test
+    public void testReturnsCopies() {
+        List<StrategyAwardEntity> loaded = loadStrategyAwardList();
+        List<StrategyAwardEntity> first = strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, () -> loaded);
+        first.get(0).setAwardCountSurplus(0);
+        loaded.get(0).setAwardRate(BigDecimal.ZERO);
+
+        StrategyAwardEntity cached = strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList).get(0);
+        assertNotSame(first.get(0), cached);
+        assertEquals("修改返回的副本不影响缓存", Integer.valueOf(100), cached.getAwardCountSurplus());
+        assertEquals("修改回源结果不影响缓存", BigDecimal.ONE, cached.getAwardRate());
+
+        strategyNearCache.getStrategyRule(TEST_STRATEGY_ID, "rule_weight", this::loadWeightRule).setRuleValue("1:101");
+        assertEquals("4000:102,103", strategyNearCache.getStrategyRule(TEST_STRATEGY_ID, "rule_weight", this::loadWeightRule).getRuleValue());
+    }
+
+    @Test
+    public void testInvalidateStrategy() {
+        strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+        strategyNearCache.getStrategyAwardList(100002L, this::loadStrategyAwardList);
+        strategyNearCache.getStrategyRule(TEST_STRATEGY_ID, "rule_weight", this::loadWeightRule);
+        strategyNearCache.getStrategyAwardRule(TEST_STRATEGY_ID, 101, "rule_luck_award", this::loadAbsentRule);
+
+        strategyNearCache.invalidateStrategy(TEST_STRATEGY_ID);
+        strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+        strategyNearCache.getStrategyAwardList(100002L, this::loadStrategyAwardList);
+        strategyNearCache.getStrategyRule(TEST_STRATEGY_ID, "rule_weight", this::loadWeightRule);
+        strategyNearCache.getStrategyAwardRule(TEST_STRATEGY_ID, 101, "rule_luck_award", this::loadAbsentRule);
+
+        assertEquals("只有失效策略的条目重新回源", 7, loads.get());
+    }
+
+    @Test
+    public void testExpireAndEvict() {
+        strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+        strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+        assertEquals("过期后应重新回源", 2, loads.get());
+
+        for (long strategyId = 1; strategyId <= 10; strategyId++) {
+            strategyNearCache.getStrategyAwardList(strategyId, this::loadStrategyAwardList);
+        }
+        assertTrue(strategyNearCache.stats().get(StrategyNearCache.STRATEGY_AWARD_LIST).evictionCount() > 0);
+    }
+
+    @Test
+    public void testNullStrategyAwardListNotCached() {
+        assertNull(strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, () -> null));
+        List<StrategyAwardEntity> strategyAwardList = strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+        assertEquals(1, strategyAwardList.size());
+    }
+
+    @Test
+    public void testStrategyRuleAbsentCached() {
+        assertNull(strategyNearCache.getStrategyRule(TEST_STRATEGY_ID, "rule_weight", this::loadAbsentRule));
+        assertNull(strategyNearCache.getStrategyRule(TEST_STRATEGY_ID, "rule_weight", this::loadAbsentRule));
+        assertEquals("规则不存在同样缓存，不重复回源", 1, loads.get());
+
+        strategyNearCache.invalidateStrategy(TEST_STRATEGY_ID);
+        StrategyRuleEntity strategyRule = strategyNearCache.getStrategyRule(TEST_STRATEGY_ID, "rule_weight", this::loadWeightRule);
+        assertEquals("4000:102,103", strategyRule.getRuleValue());
+    }
+
+    @Test
+    public void testDisabled() {
+        ReflectionTestUtils.setField(strategyNearCache, "enabled", false);
+        strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+        strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+        assertEquals(2, loads.get());
+    }
+
+    private List<StrategyAwardEntity> loadStrategyAwardList() {
+        loads.incrementAndGet();
+        List<StrategyAwardEntity> strategyAwardList = new ArrayList<>();
+        strategyAwardList.add(StrategyAwardEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .awardId(101)
+                .awardCountSurplus(100)
+                .awardRate(BigDecimal.ONE)
+                .build());
+        return strategyAwardList;
+    }
+
+    private StrategyRuleEntity loadWeightRule() {
+        loads.incrementAndGet();
+        return StrategyRuleEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .ruleModel("rule_weight")
+                .ruleValue("4000:102,103")
+                .build();
+    }
+
+    private StrategyRuleEntity loadAbsentRule() {
+        loads.incrementAndGet();
+        return null;
+    }
+
+}
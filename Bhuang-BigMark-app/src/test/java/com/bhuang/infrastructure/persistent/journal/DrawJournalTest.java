@@ -0,0 +1,164 @@
+package com.bhuang.infrastructure.persistent.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bhuang
+ * @description 抽奖流水测试 - 验证多线程并发追加后按序号完整落盘、分段滚动与保留数、记录字段编解码，以及按流水回放奖品分布与库存消耗
+ * @create 2025-06-14
+ */
+@Slf4j
+public class DrawJournalTest {
+
+    private static final long TEST_STRATEGY_ID = 100001L;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testConcurrentAppend() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+        int threads = 8;
+        int perThread = 20_000;
+        DrawJournal drawJournal = new DrawJournal(directory, 64L * 1024 * 1024, 1024, 0, 1000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            String userId = "user" + t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    // 缓冲区已满时自旋重试，保证每条记录都写入
+                    while (!drawJournal.appendDraw(TEST_STRATEGY_ID, 4000, i, 101 + i % 3, userId)) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        drawJournal.close();
+
+        assertEquals((long) threads * perThread, drawJournal.written());
+        Map<String, Integer> perUser = new HashMap<>();
+        long read = DrawJournalReader.read(directory, record -> {
+            assertTrue(record.isDraw());
+            assertEquals(TEST_STRATEGY_ID, record.getStrategyId());
+            assertEquals(4000, record.getTier());
+            assertEquals(101 + record.getSlot() % 3, record.getAwardId());
+            perUser.merge(record.getUserId(), 1, Integer::sum);
+        });
+        assertEquals((long) threads * perThread, read);
+        for (int t = 0; t < threads; t++) {
+            assertEquals(Integer.valueOf(perThread), perUser.get("user" + t));
+        }
+    }
+
+    @Test
+    public void testSegmentRollAndRetention() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+        // 每段10条记录，保留2段
+        DrawJournal drawJournal = new DrawJournal(directory, 11L * DrawJournalRecord.SIZE, 64, 2, 1000);
+        for (int i = 0; i < 25; i++) {
+            assertTrue(drawJournal.appendDraw(TEST_STRATEGY_ID, 0, i, 101, null));
+            // 缓冲区容量大于记录数，逐条等待只为让滚动发生在确定的位置
+            while (drawJournal.backlog() > 0) {
+                Thread.yield();
+            }
+        }
+        drawJournal.close();
+
+        List<Path> segments = DrawJournalReader.listSegments(directory);
+        assertEquals(2, segments.size());
+        assertTrue(segments.get(0).getFileName().toString().endsWith("000000000002.dat"));
+
+        List<Integer> slots = new ArrayList<>();
+        DrawJournalReader.read(directory, record -> slots.add(record.getSlot()));
+        assertEquals(15, slots.size());
+        assertEquals(Integer.valueOf(10), slots.get(0));
+        assertEquals(Integer.valueOf(24), slots.get(14));
+
+        // 重启后从新的分段开始
+        new DrawJournal(directory, 11L * DrawJournalRecord.SIZE, 64, 0, 1000).close();
+        assertTrue(DrawJournalReader.listSegments(directory).get(2).getFileName().toString().endsWith("000000000004.dat"));
+    }
+
+    @Test
+    public void testRecordEncoding() {
+        long[] words = new long[DrawJournalRecord.LONGS];
+        DrawJournalRecord.encode(words, 0, 1718323200000L, DrawJournalRecord.TYPE_DRAW, TEST_STRATEGY_ID, 6000, -1, 107,
+                (byte) 0, "user-0123456789-0123456789-0123456789");
+        ByteBuffer buffer = ByteBuffer.allocate(DrawJournalRecord.SIZE);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+
+        DrawJournalRecord record = DrawJournalRecord.decode(buffer, 0);
+        assertEquals(1718323200000L, record.getTimestamp());
+        assertEquals(6000, record.getTier());
+        assertEquals(-1, record.getSlot());
+        assertEquals(107, record.getAwardId());
+        // 用户ID只保留前32个字符
+        assertEquals("user-0123456789-0123456789-01234", record.getUserId());
+        assertNull(DrawJournalRecord.decode(ByteBuffer.allocate(DrawJournalRecord.SIZE), 0));
+
+        assertEquals(4000, DrawJournalRecord.tierOf("4000:102,103"));
+        assertEquals(5000, DrawJournalRecord.tierOf("5000"));
+        assertEquals(0, DrawJournalRecord.tierOf(null));
+        assertEquals(0, DrawJournalRecord.tierOf("abc:102"));
+        assertEquals(0, DrawJournalRecord.tierOf("99999999999"));
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+        DrawJournal drawJournal = new DrawJournal(directory, 1024L * 1024, 1024, 0, 1000);
+        for (int i = 0; i < 30; i++) {
+            drawJournal.appendDraw(TEST_STRATEGY_ID, 0, i, i < 20 ? 101 : 102, "user001");
+        }
+        for (int i = 0; i < 10; i++) {
+            drawJournal.appendDraw(TEST_STRATEGY_ID, 4000, i, 105, "user002");
+        }
+        drawJournal.appendDraw(100002L, 0, 0, 201, null);
+        for (int i = 0; i < 5; i++) {
+            drawJournal.appendStock(TEST_STRATEGY_ID, 101, i < 3);
+        }
+        drawJournal.close();
+
+        DrawJournalReplay replay = DrawJournalReplay.replay(directory, TEST_STRATEGY_ID);
+        assertEquals(45, replay.records());
+        assertEquals(20, replay.drawCount(TEST_STRATEGY_ID, 0, 101));
+        assertEquals(10, replay.drawCount(TEST_STRATEGY_ID, 0, 102));
+        assertEquals(10, replay.drawCount(TEST_STRATEGY_ID, 4000, 105));
+        assertEquals(0, replay.drawCount(100002L, 0, 201));
+        assertEquals(3, replay.deductedCount(TEST_STRATEGY_ID, 101));
+        assertEquals(2, replay.soldOutCount(TEST_STRATEGY_ID, 101));
+
+        replay.print(System.out);
+        assertEquals(46, DrawJournalReplay.replay(directory, null).records());
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.bhuang.infrastructure.persistent.redis;
+
+import com.bhuang.infrastructure.persistent.constants.Constants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bhuang
+ * @description Redis Key 归类测试 - 验证策略ID、概率值、权重值、用户ID、版本号被替换，不同策略与用户的 Key 归为同一类，Key 归类哈希与归类字符串一致，以及同类命令复用同一个 Timer
+ * @create 2025-06-14
+ */
+@Slf4j
+public class RedisKeyFamilyTest {
+
+    @Test
+    public void testVariableSegmentsReplaced() {
+        assertEquals("strategy#{}#assemble#{}#{}",
+                RedisKeyFamily.of(Constants.Redis.getStrategyAwardAssembleKey(100001L, null, 3, 9999)));
+        assertEquals("strategy#{}#assemble#weight#{}:{}#{}#{}",
+                RedisKeyFamily.of(Constants.Redis.getStrategyAwardAssembleKey(100001L, "4000:102,103", 3, 9999)));
+        assertEquals("strategy:award:assemble:{}", RedisKeyFamily.of("strategy:award:assemble:100001_9999"));
+        assertEquals("strategy#{}#user#{}#raffle_count", RedisKeyFamily.of(Constants.Redis.getUserRaffleCountKey(100001L, "alice")));
+        assertEquals("strategy#{}#rule#rule_lock", RedisKeyFamily.of(Constants.Redis.getStrategyRuleKey(100001L, "rule_lock")));
+        assertEquals("none", RedisKeyFamily.of(null));
+    }
+
+    @Test
+    public void testFamiliesBounded() {
+        Set<String> families = new HashSet<>();
+        for (long strategyId = 100001L; strategyId < 100100L; strategyId++) {
+            for (int rateKey = 1; rateKey <= 100; rateKey++) {
+                families.add(RedisKeyFamily.of(Constants.Redis.getStrategyAwardAssembleKey(strategyId, rateKey)));
+                families.add(RedisKeyFamily.of(Constants.Redis.getUserRaffleCountKey(strategyId, "user" + rateKey)));
+                families.add(RedisKeyFamily.of(Constants.Redis.getRateLimitWindowKey("user#" + strategyId + "#u" + rateKey, rateKey)));
+            }
+        }
+        assertEquals(3, families.size());
+
+        // 异常长的 Key 截断后合并
+        assertEquals("{}#{}#{}#{}#{}#{}#{}#{}#{}", RedisKeyFamily.of("a1#b2#c3#d4#e5#f6#g7#h8#i9#j10#k11"));
+    }
+
+    @Test
+    public void testShapeMatchesFamily() {
+        String[] keys = {
+                Constants.Redis.getStrategyAwardAssembleKey(100001L, null, 3, 9999),
+                Constants.Redis.getStrategyAwardAssembleKey(100001L, "4000:102,103", 3, 9999),
+                "strategy:award:assemble:100001_9999",
+                Constants.Redis.getUserRaffleCountKey(100001L, "alice"),
+                Constants.Redis.getStrategyRuleKey(100001L, "rule_lock"),
+                "a1#b2#c3#d4#e5#f6#g7#h8#i9#j10#k11",
+                "strategy##100001#",
+                null};
+        Set<Long> shapes = new HashSet<>();
+        for (String key : keys) {
+            assertEquals(RedisKeyFamily.hash(RedisKeyFamily.of(key)), RedisKeyFamily.shapeOf(key));
+            shapes.add(RedisKeyFamily.shapeOf(key));
+        }
+        assertEquals(keys.length, shapes.size());
+        assertEquals(RedisKeyFamily.shapeOf(Constants.Redis.getStrategyKey(100001L)), RedisKeyFamily.shapeOf(Constants.Redis.getStrategyKey(100002L)));
+    }
+
+    @Test
+    public void testCommandMetricsReuseTimer() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RedisCommandMetrics commandMetrics = new RedisCommandMetrics();
+        ReflectionTestUtils.setField(commandMetrics, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(commandMetrics, "latencyRecorder", new RedisLatencyRecorder());
+
+        for (long strategyId = 100001L; strategyId <= 100010L; strategyId++) {
+            commandMetrics.record("get", Constants.Redis.getStrategyKey(strategyId), System.nanoTime());
+        }
+        commandMetrics.record("set", Constants.Redis.getStrategyKey(100001L), System.nanoTime());
+
+        assertEquals(10L, meterRegistry.get(RedisCommandMetrics.METER_NAME).tag("operation", "get").tag("family", "strategy#{}").timer().count());
+        assertEquals(2, meterRegistry.find(RedisCommandMetrics.METER_NAME).timers().size());
+    }
+
+}
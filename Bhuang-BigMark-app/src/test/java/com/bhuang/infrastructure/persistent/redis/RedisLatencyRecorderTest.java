@@ -0,0 +1,96 @@
+package com.bhuang.infrastructure.persistent.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bhuang
+ * @description Redis 命令耗时记录测试 - 验证按操作类型统计分位值与慢命令数、快照后区间重置，以及慢命令日志中的载荷大小
+ * @create 2025-06-14
+ */
+@Slf4j
+public class RedisLatencyRecorderTest {
+
+    private RedisLatencyRecorder latencyRecorder;
+
+    @Before
+    public void setUp() {
+        latencyRecorder = new RedisLatencyRecorder();
+        ReflectionTestUtils.setField(latencyRecorder, "slowThresholdMillis", 20L);
+    }
+
+    @Test
+    public void testSnapshotPercentilesAndSlowCount() {
+        // 99 次 1ms，1 次 50ms 慢命令
+        for (int i = 0; i < 99; i++) {
+            latencyRecorder.record("get", "strategy#{}", TimeUnit.MILLISECONDS.toNanos(1), null);
+        }
+        latencyRecorder.record("get", "strategy#{}", TimeUnit.MILLISECONDS.toNanos(50), null);
+        latencyRecorder.record("set", "strategy#{}", TimeUnit.MICROSECONDS.toNanos(300), "value");
+
+        List<RedisLatencySnapshot> snapshots = latencyRecorder.snapshot();
+        assertEquals(2, snapshots.size());
+
+        RedisLatencySnapshot get = snapshots.get(0);
+        assertEquals("get", get.getOperation());
+        assertEquals(100, get.getCount());
+        assertEquals(1, get.getSlowCount());
+        // 两位有效数字，误差不超过1%
+        assertEquals(1000, get.getP50Micros(), 10);
+        assertEquals(1000, get.getP99Micros(), 10);
+        assertEquals(50000, get.getMaxMicros(), 500);
+
+        RedisLatencySnapshot set = snapshots.get(1);
+        assertEquals("set", set.getOperation());
+        assertEquals(0, set.getSlowCount());
+        assertEquals(300, set.getMaxMicros(), 3);
+    }
+
+    @Test
+    public void testSnapshotResetsInterval() {
+        latencyRecorder.record("hGet", "strategy_rate_table#{}", TimeUnit.MILLISECONDS.toNanos(30), null);
+        assertEquals(1, latencyRecorder.snapshot().get(0).getSlowCount());
+
+        // 区间内没有命令的操作不返回
+        assertTrue(latencyRecorder.snapshot().isEmpty());
+
+        latencyRecorder.record("hGet", "strategy_rate_table#{}", TimeUnit.MILLISECONDS.toNanos(2), null);
+        List<RedisLatencySnapshot> snapshots = latencyRecorder.snapshot();
+        assertEquals(1, snapshots.get(0).getCount());
+        assertEquals(0, snapshots.get(0).getSlowCount());
+        assertEquals(2000, snapshots.get(0).getMaxMicros(), 20);
+    }
+
+    @Test
+    public void testSlowThresholdDisabledAndOverflow() {
+        ReflectionTestUtils.setField(latencyRecorder, "slowThresholdMillis", 0L);
+        // 超出可记录范围按最大值记录，不抛出异常
+        latencyRecorder.record("evalSha", "none", TimeUnit.MINUTES.toNanos(5), null);
+        latencyRecorder.record("evalSha", "none", -1L, null);
+
+        RedisLatencySnapshot snapshot = latencyRecorder.snapshot().get(0);
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getSlowCount());
+        assertEquals(TimeUnit.MINUTES.toMicros(1), snapshot.getMaxMicros(), TimeUnit.MINUTES.toMicros(1) / 100);
+    }
+
+    @Test
+    public void testPayloadSize() {
+        assertEquals(-1, RedisLatencyRecorder.payloadSize(null));
+        assertEquals(5, RedisLatencyRecorder.payloadSize("value"));
+        assertEquals(3, RedisLatencyRecorder.payloadSize(Arrays.asList(1, 2, 3)));
+        assertEquals(1, RedisLatencyRecorder.payloadSize(Collections.singletonMap("k", "v")));
+        assertEquals(2, RedisLatencyRecorder.payloadSize(new Object[]{1, 2}));
+        assertEquals(1, RedisLatencyRecorder.payloadSize(100L));
+    }
+
+}
@@ -0,0 +1,261 @@
+package com.bhuang.infrastructure.persistent.redis.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.infrastructure.persistent.po.StrategyAward;
+import io.netty.buffer.ByteBuf;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.redisson.client.codec.Codec;
+import org.redisson.codec.JsonJacksonCodec;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bhuang
+ * @description 策略数据编解码测试 - 验证奖品列表与规则的二进制编码往返一致、旧的 JSON 数据与更高版本的数据按未命中处理、
+ * 新增字段前后版本互相兼容，并对比策略100001的数据在 JSON 编码与新编码下的字节数
+ * @create 2025-06-14
+ */
+@Slf4j
+public class StrategyRedisCodecTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    /** 策略100001最小概率0.0001，查找表10000个槽位 */
+    private static final int RATE_RANGE = 10000;
+
+    private final Codec jsonCodec = new JsonJacksonCodec();
+
+    @Test
+    public void testAwardListRoundTrip() throws Exception {
+        List<StrategyAward> strategyAwards = strategyAwardList();
+
+        List<StrategyAward> decoded = decode(RedisCodecs.STRATEGY_AWARD_LIST, encode(RedisCodecs.STRATEGY_AWARD_LIST, strategyAwards));
+
+        assertEquals(strategyAwards, decoded);
+        assertNull(decoded.get(0).getAwardSubtitle());
+        assertEquals(new BigDecimal("0.0001"), decoded.get(8).getAwardRate());
+        assertEquals(Collections.emptyList(), decode(RedisCodecs.STRATEGY_AWARD_LIST, encode(RedisCodecs.STRATEGY_AWARD_LIST, Collections.emptyList())));
+    }
+
+    @Test
+    public void testRuleRoundTrip() throws Exception {
+        StrategyRuleEntity strategyRule = StrategyRuleEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .ruleType(1)
+                .ruleModel("rule_weight")
+                .ruleValue("4000:102,103,104,105 5000:102,103,104,105,106,107 6000:102,103,104,105,106,107,108,109")
+                .ruleDesc("消耗6000分，必中奖范围")
+                .build();
+
+        StrategyRuleEntity decoded = decode(RedisCodecs.STRATEGY_RULE, encode(RedisCodecs.STRATEGY_RULE, strategyRule));
+
+        assertEquals(strategyRule, decoded);
+        assertNull(decoded.getAwardId());
+        assertEquals(3, decoded.getRuleWeightValues().size());
+    }
+
+    @Test
+    public void testOtherFormatDecodesAsMiss() throws Exception {
+        // 编码调整前按 JSON 写入的数据
+        assertNull(decode(RedisCodecs.STRATEGY_AWARD_LIST, encode(jsonCodec, JSON.toJSONString(strategyAwardList()))));
+        assertNull(decode(RedisCodecs.STRATEGY_RULE, encode(jsonCodec, luckAwardRule(107, "1,100"))));
+
+        // 类型不同的数据互不解码
+        assertNull(decode(RedisCodecs.STRATEGY_AWARD_LIST, encode(RedisCodecs.STRATEGY_RULE, luckAwardRule(107, "1,100"))));
+
+        // 更高版本写入的数据
+        ByteBuf newer = encode(RedisCodecs.STRATEGY_RULE, luckAwardRule(107, "1,100"));
+        newer.setByte(2, StrategyRuleCodec.VERSION + 1);
+        assertNull(decode(RedisCodecs.STRATEGY_RULE, newer));
+    }
+
+    @Test
+    public void testAppendedFieldIsCompatible() throws Exception {
+        StrategyRuleEntity strategyRule = luckAwardRule(108, "1,100");
+
+        // 新版本在末尾追加字段，旧版本读取时跳过
+        StrategyRuleEntity decoded = decode(RedisCodecs.STRATEGY_RULE, encode(new AppendedFieldRuleCodec(), strategyRule));
+        assertEquals(strategyRule, decoded);
+
+        // 旧版本写入的数据缺少新字段，新版本读取时为null
+        List<Object> fields = decode(new AppendedFieldRuleCodec(), encode(RedisCodecs.STRATEGY_RULE, strategyRule));
+        assertEquals("兜底奖品100以内随机积分", fields.get(0));
+        assertNull(fields.get(1));
+    }
+
+    @Test
+    public void testEncodedSizeOfStrategy100001() throws Exception {
+        // 奖品列表：原先为 fastjson 字符串再按 JSON 编码一次
+        int awardListJson = size(jsonCodec, JSON.toJSONString(strategyAwardList()));
+        int awardListBinary = size(RedisCodecs.STRATEGY_AWARD_LIST, strategyAwardList());
+
+        // 规则：原先 JSON 中带类型信息与派生的权重映射
+        int ruleJson = 0;
+        int ruleBinary = 0;
+        for (StrategyRuleEntity strategyRule : strategyRuleList()) {
+            ruleJson += size(jsonCodec, strategyRule);
+            ruleBinary += size(RedisCodecs.STRATEGY_RULE, strategyRule);
+        }
+
+        // 查找表：Hash field 原先为带引号的 JSON 字符串，奖品ID两种编码相同
+        int tableJson = 0;
+        int tableRaw = 0;
+        for (int rateKey = 1; rateKey <= RATE_RANGE; rateKey++) {
+            Integer awardId = 101 + rateKey % 9;
+            tableJson += size(jsonCodec.getMapKeyEncoder().encode(String.valueOf(rateKey))) + size(jsonCodec.getMapValueEncoder().encode(awardId));
+            tableRaw += size(RedisCodecs.RATE_TABLE.getMapKeyEncoder().encode(String.valueOf(rateKey))) + size(RedisCodecs.RATE_TABLE.getMapValueEncoder().encode(awardId));
+        }
+
+        log.info("策略100001编码字节数，奖品列表：{} -> {}，规则（{}条）：{} -> {}，查找表field+value（{}槽位）：{} -> {}",
+                awardListJson, awardListBinary, strategyRuleList().size(), ruleJson, ruleBinary, RATE_RANGE, tableJson, tableRaw);
+        assertTrue(awardListBinary * 2 < awardListJson);
+        assertTrue(ruleBinary * 2 < ruleJson);
+        assertTrue(tableRaw < tableJson);
+    }
+
+    private ByteBuf encode(Codec codec, Object value) throws IOException {
+        return codec.getValueEncoder().encode(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T decode(Codec codec, ByteBuf buf) throws IOException {
+        try {
+            return (T) codec.getValueDecoder().decode(buf, null);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private int size(Codec codec, Object value) throws IOException {
+        return size(encode(codec, value));
+    }
+
+    private int size(ByteBuf buf) {
+        try {
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * 与 docs/dev-ops/mysql/sql/big-market.sql 中策略100001的奖品一致
+     */
+    private List<StrategyAward> strategyAwardList() throws ParseException {
+        Object[][] rows = {
+                {101, "随机积分", null, 80000, "80.0000", "rule_random,rule_luck_award"},
+                {102, "5次使用", null, 10000, "10.0000", "rule_luck_award"},
+                {103, "10次使用", null, 5000, "5.0000", "rule_luck_award"},
+                {104, "20次使用", null, 4000, "4.0000", "rule_luck_award"},
+                {105, "增加gpt-4对话模型", null, 600, "0.6000", "rule_luck_award"},
+                {106, "增加dall-e-2画图模型", null, 200, "0.2000", "rule_luck_award"},
+                {107, "增加dall-e-3画图模型", "抽奖1次后解锁", 100, "0.1000", "rule_lock,rule_luck_award"},
+                {108, "增加100次使用", "抽奖2次后解锁", 99, "0.0999", "rule_lock,rule_luck_award"},
+                {109, "解锁全部模型", "抽奖6次后解锁", 1, "0.0001", "rule_lock,rule_luck_award"}};
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        List<StrategyAward> strategyAwards = new ArrayList<>(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            StrategyAward strategyAward = new StrategyAward();
+            strategyAward.setId((long) i + 1);
+            strategyAward.setStrategyId(TEST_STRATEGY_ID);
+            strategyAward.setAwardId((Integer) rows[i][0]);
+            strategyAward.setAwardTitle((String) rows[i][1]);
+            strategyAward.setAwardSubtitle((String) rows[i][2]);
+            strategyAward.setAwardCount((Integer) rows[i][3]);
+            strategyAward.setAwardCountSurplus((Integer) rows[i][3]);
+            strategyAward.setAwardRate(new BigDecimal((String) rows[i][4]));
+            strategyAward.setRuleModels((String) rows[i][5]);
+            strategyAward.setSort(i + 1);
+            strategyAward.setCreateTime(format.parse("2023-12-09 09:38:31"));
+            strategyAward.setUpdateTime(format.parse("2023-12-09 10:58:06"));
+            strategyAwards.add(strategyAward);
+        }
+        return strategyAwards;
+    }
+
+    /**
+     * 与 docs/dev-ops/mysql/sql/big-market.sql 中策略100001的规则一致
+     */
+    private List<StrategyRuleEntity> strategyRuleList() {
+        List<StrategyRuleEntity> strategyRules = new ArrayList<>();
+        strategyRules.add(StrategyRuleEntity.builder().strategyId(TEST_STRATEGY_ID).awardId(101).ruleType(2)
+                .ruleModel("rule_random").ruleValue("1,1000").ruleDesc("随机积分策略").build());
+        int[][] locks = {{107, 1}, {108, 2}, {109, 6}};
+        for (int[] lock : locks) {
+            strategyRules.add(StrategyRuleEntity.builder().strategyId(TEST_STRATEGY_ID).awardId(lock[0]).ruleType(2)
+                    .ruleModel("rule_lock").ruleValue(String.valueOf(lock[1])).ruleDesc("抽奖" + lock[1] + "次后解锁").build());
+        }
+        int[][] luckAwards = {{107, 100}, {108, 100}, {101, 10}, {102, 20}, {103, 30}, {104, 40}, {105, 50}, {106, 60}};
+        for (int[] luckAward : luckAwards) {
+            strategyRules.add(StrategyRuleEntity.builder().strategyId(TEST_STRATEGY_ID).awardId(luckAward[0]).ruleType(2)
+                    .ruleModel("rule_luck_award").ruleValue("1," + luckAward[1]).ruleDesc("兜底奖品" + luckAward[1] + "以内随机积分").build());
+        }
+        strategyRules.add(StrategyRuleEntity.builder().strategyId(TEST_STRATEGY_ID).ruleType(1).ruleModel("rule_weight")
+                .ruleValue("4000:102,103 6000:102,103,104,105,106,107,108,109").ruleDesc("权重规则，不同积分对应不同奖品范围").build());
+        strategyRules.add(StrategyRuleEntity.builder().strategyId(TEST_STRATEGY_ID).ruleType(1).ruleModel("rule_blacklist")
+                .ruleValue("1").ruleDesc("黑名单抽奖，积分兜底").build());
+        return strategyRules;
+    }
+
+    private StrategyRuleEntity luckAwardRule(Integer awardId, String ruleValue) {
+        return StrategyRuleEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .awardId(awardId)
+                .ruleType(2)
+                .ruleModel("rule_luck_award")
+                .ruleValue(ruleValue)
+                .ruleDesc("兜底奖品100以内随机积分")
+                .build();
+    }
+
+    /**
+     * 模拟新版本：规则记录末尾追加字段6，读取时只返回描述与新字段
+     */
+    private static class AppendedFieldRuleCodec extends VersionedBinaryCodec<Object> {
+
+        AppendedFieldRuleCodec() {
+            super(StrategyRuleCodec.TYPE, StrategyRuleCodec.VERSION);
+        }
+
+        @Override
+        protected void write(ByteBuf out, Object value) {
+            StrategyRuleEntity strategyRule = (StrategyRuleEntity) value;
+            int start = beginRecord(out);
+            int mask = writeLong(out, 0, strategyRule.getStrategyId());
+            mask |= writeInt(out, 1, strategyRule.getAwardId());
+            mask |= writeInt(out, 2, strategyRule.getRuleType());
+            mask |= writeString(out, 3, strategyRule.getRuleModel());
+            mask |= writeString(out, 4, strategyRule.getRuleValue());
+            mask |= writeString(out, 5, strategyRule.getRuleDesc());
+            mask |= writeString(out, 6, "新增字段");
+            endRecord(out, start, mask);
+        }
+
+        @Override
+        protected Object read(ByteBuf in, int version) {
+            int end = readRecordEnd(in);
+            int mask = in.readInt();
+            readLong(in, mask, 0);
+            readInt(in, mask, 1);
+            readInt(in, mask, 2);
+            readString(in, mask, 3);
+            readString(in, mask, 4);
+            List<Object> fields = new ArrayList<>();
+            fields.add(readString(in, mask, 5));
+            fields.add(readString(in, mask, 6));
+            in.readerIndex(end);
+            return fields;
+        }
+    }
+
+}
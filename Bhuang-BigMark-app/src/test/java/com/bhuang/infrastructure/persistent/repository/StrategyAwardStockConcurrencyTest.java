@@ -0,0 +1,116 @@
+package com.bhuang.infrastructure.persistent.repository;
+
+import com.bhuang.Application;
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.infrastructure.persistent.constants.Constants;
+import com.bhuang.infrastructure.persistent.redis.IRedisService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 奖品库存并发扣减测试
+ * 数千个并发抽奖扣减同一奖品，验证扣减成功数与库存一致，不超卖且计数不为负
+ * @author bhuang
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+@ActiveProfiles("dev")
+public class StrategyAwardStockConcurrencyTest {
+
+    /**
+     * 测试专用策略ID，避免覆盖真实库存
+     */
+    private static final Long TEST_STRATEGY_ID = 900002L;
+
+    private static final Integer TEST_AWARD_ID = 109;
+
+    private static final int STOCK = 100;
+
+    private static final int THREADS = 64;
+
+    private static final int DRAWS = 5000;
+
+    @Resource
+    private StrategyRepository strategyRepository;
+
+    @Resource
+    private IRedisService redisService;
+
+    @After
+    public void tearDown() {
+        redisService.delete(Constants.Redis.getStrategyAwardStockKey(TEST_STRATEGY_ID, TEST_AWARD_ID));
+    }
+
+    @Test
+    public void testConcurrentDeductNoOversell() throws InterruptedException {
+        strategyRepository.storeStrategyAwardStock(TEST_STRATEGY_ID, Collections.singletonList(StrategyAwardEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .awardId(TEST_AWARD_ID)
+                .awardCountSurplus(STOCK)
+                .build()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(DRAWS);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        for (int i = 0; i < DRAWS; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    if (strategyRepository.subtractStrategyAwardStock(TEST_STRATEGY_ID, TEST_AWARD_ID) >= 0) {
+                        succeeded.incrementAndGet();
+                    } else {
+                        soldOut.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long startTime = System.currentTimeMillis();
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        log.info("并发扣减完成，抽奖次数：{}，扣减成功：{}，售罄：{}，耗时：{}ms",
+                DRAWS, succeeded.get(), soldOut.get(), System.currentTimeMillis() - startTime);
+        assertEquals(STOCK, succeeded.get());
+        assertEquals(DRAWS - STOCK, soldOut.get());
+        assertEquals(0L, strategyRepository.queryStrategyAwardStock(TEST_STRATEGY_ID, TEST_AWARD_ID));
+    }
+
+    @Test
+    public void testReassembleKeepsDeductedStock() {
+        StrategyAwardEntity strategyAward = StrategyAwardEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .awardId(TEST_AWARD_ID)
+                .awardCountSurplus(STOCK)
+                .build();
+        strategyRepository.storeStrategyAwardStock(TEST_STRATEGY_ID, Collections.singletonList(strategyAward));
+        strategyRepository.subtractStrategyAwardStock(TEST_STRATEGY_ID, TEST_AWARD_ID);
+
+        strategyRepository.storeStrategyAwardStock(TEST_STRATEGY_ID, Collections.singletonList(strategyAward));
+
+        assertEquals(STOCK - 1, strategyRepository.queryStrategyAwardStock(TEST_STRATEGY_ID, TEST_AWARD_ID));
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.bhuang.infrastructure.persistent.repository;
+
+import com.bhuang.Application;
+import com.bhuang.domain.strategy.model.entity.StrategyBlacklistStatEntity;
+import com.bhuang.infrastructure.persistent.constants.Constants;
+import com.bhuang.infrastructure.persistent.redis.IRedisService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 黑名单布隆过滤器测试
+ * 写入十万黑名单用户后分别检查名单内外的用户，验证没有漏判，并输出实测误判率与单次检查耗时
+ * @author bhuang
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+@ActiveProfiles("dev")
+public class StrategyBlacklistBloomFilterTest {
+
+    /**
+     * 测试专用策略ID，避免覆盖真实黑名单
+     */
+    private static final Long TEST_STRATEGY_ID = 900003L;
+
+    private static final int BLACKLIST_SIZE = 100_000;
+
+    private static final int MEMBER_CHECKS = 1_000;
+
+    private static final int NON_MEMBER_CHECKS = 20_000;
+
+    @Resource
+    private StrategyRepository strategyRepository;
+
+    @Resource
+    private IRedisService redisService;
+
+    @After
+    public void tearDown() {
+        Number version = redisService.get(Constants.Redis.getStrategyBlacklistVersionKey(TEST_STRATEGY_ID));
+        if (version != null) {
+            strategyRepository.collectBlacklist(TEST_STRATEGY_ID, version.longValue());
+        }
+        redisService.delete(Constants.Redis.getStrategyBlacklistVersionKey(TEST_STRATEGY_ID));
+        redisService.delete(Constants.Redis.getStrategyBlacklistSeqKey(TEST_STRATEGY_ID));
+    }
+
+    @Test
+    public void testFalsePositiveRateAndLatency() {
+        List<String> userIds = new ArrayList<>(BLACKLIST_SIZE);
+        for (int i = 0; i < BLACKLIST_SIZE; i++) {
+            userIds.add("black" + i);
+        }
+        strategyRepository.storeStrategyBlacklist(TEST_STRATEGY_ID, userIds);
+
+        // 名单内的用户必须全部命中，布隆过滤器不允许漏判
+        for (int i = 0; i < MEMBER_CHECKS; i++) {
+            assertTrue(strategyRepository.isStrategyBlacklisted(TEST_STRATEGY_ID, "black" + (i * (BLACKLIST_SIZE / MEMBER_CHECKS))));
+        }
+        for (int i = 0; i < NON_MEMBER_CHECKS; i++) {
+            assertFalse(strategyRepository.isStrategyBlacklisted(TEST_STRATEGY_ID, "white" + i));
+        }
+
+        StrategyBlacklistStatEntity stat = strategyRepository.queryStrategyBlacklistStat(TEST_STRATEGY_ID);
+        log.info("黑名单布隆过滤器，预期元素数：{}，位数：{}，哈希次数：{}，预期误判率：{}，实测误判率：{}，检查次数：{}，平均耗时：{}us",
+                stat.getExpectedInsertions(), stat.getSize(), stat.getHashIterations(), stat.getFalseProbability(),
+                stat.getObservedFalsePositiveRate(), stat.getChecks(), stat.getAverageCheckMicros());
+
+        assertEquals(MEMBER_CHECKS, stat.getConfirmedPositives());
+        // 误判率按预期值的数倍放宽，避免抽样波动导致测试不稳定
+        assertTrue(stat.getObservedFalsePositiveRate() < stat.getFalseProbability() * 5);
+    }
+
+}
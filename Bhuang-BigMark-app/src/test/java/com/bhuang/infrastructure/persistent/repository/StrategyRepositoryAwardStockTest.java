@@ -0,0 +1,217 @@
+package com.bhuang.infrastructure.persistent.repository;
+
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyAwardStockFlushLagEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardStockDeductionVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardStockFlushBatchVO;
+import com.bhuang.infrastructure.persistent.constants.Constants;
+import com.bhuang.infrastructure.persistent.dao.StrategyAwardDao;
+import com.bhuang.infrastructure.persistent.dao.StrategyAwardStockFlushDao;
+import com.bhuang.infrastructure.persistent.po.StrategyAwardStockDeduct;
+import com.bhuang.infrastructure.persistent.po.StrategyAwardStockFlush;
+import com.bhuang.infrastructure.persistent.redis.IRedisService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.redisson.api.RScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 奖品库存计数测试 - 验证装配时按剩余库存 SET NX 预热、扣减脚本的返回值映射，以及回写队列按批次领取、批次ID与扣减同一事务写入、已回写批次不重复扣减
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyRepositoryAwardStockTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    @Mock
+    private IRedisService redisService;
+
+    @Mock
+    private StrategyAwardDao strategyAwardDao;
+
+    @Mock
+    private StrategyAwardStockFlushDao strategyAwardStockFlushDao;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private StrategyRepository strategyRepository;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(strategyRepository, "stockQueueCapacity", 100000L);
+        when(redisService.scriptLoad(anyString())).thenReturn("draw-sha", "stock-sha", "take-sha", "lag-sha");
+        strategyRepository.init();
+    }
+
+    @Test
+    public void testPreloadSurplusOnlyIfAbsent() {
+        strategyRepository.storeStrategyAwardStock(TEST_STRATEGY_ID, Arrays.asList(
+                strategyAward(101, 80000),
+                strategyAward(109, 1),
+                strategyAward(110, null)));
+
+        // 计数已存在时 SET NX 不覆盖，重新装配不会重置已扣减的库存
+        verify(redisService).setIfAbsent(Constants.Redis.getStrategyAwardStockKey(TEST_STRATEGY_ID, 101), 80000);
+        verify(redisService).setIfAbsent(Constants.Redis.getStrategyAwardStockKey(TEST_STRATEGY_ID, 109), 1);
+        verify(redisService, never()).setIfAbsent(eq(Constants.Redis.getStrategyAwardStockKey(TEST_STRATEGY_ID, 110)), any());
+        verify(redisService, never()).set(anyString(), any());
+    }
+
+    @Test
+    public void testSubtractInOneScriptCall() {
+        when(redisService.evalSha(eq("stock-sha"), eq(RScript.ReturnType.INTEGER), eq(stockKeys(109)), anyString(), eq("100000"))).thenReturn(0L, -1L);
+
+        assertEquals(0L, strategyRepository.subtractStrategyAwardStock(TEST_STRATEGY_ID, 109));
+        assertEquals(-1L, strategyRepository.subtractStrategyAwardStock(TEST_STRATEGY_ID, 109));
+        verify(redisService, never()).get(anyString());
+    }
+
+    @Test
+    public void testSubtractEnqueuesDeduction() {
+        when(redisService.evalSha(eq("stock-sha"), eq(RScript.ReturnType.INTEGER), eq(stockKeys(109)), anyString(), anyString())).thenReturn(0L);
+        long startTime = System.currentTimeMillis();
+
+        strategyRepository.subtractStrategyAwardStock(TEST_STRATEGY_ID, 109);
+
+        // 扣减记录 {strategyId}#{awardId}#{扣减时间} 与扣减在同一脚本内入队
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(redisService).evalSha(eq("stock-sha"), eq(RScript.ReturnType.INTEGER), eq(stockKeys(109)), captor.capture(), eq("100000"));
+        String[] deduction = String.valueOf(captor.getValue()).split("#");
+        assertEquals("100001", deduction[0]);
+        assertEquals("109", deduction[1]);
+        assertTrue(Long.parseLong(deduction[2]) >= startTime);
+    }
+
+    @Test
+    public void testMissingCounterTreatedAsSoldOut() {
+        when(redisService.evalSha(eq("stock-sha"), eq(RScript.ReturnType.INTEGER), eq(stockKeys(105)), anyString(), anyString())).thenReturn(-2L);
+
+        assertEquals(-1L, strategyRepository.subtractStrategyAwardStock(TEST_STRATEGY_ID, 105));
+    }
+
+    @Test
+    public void testQueueFullRejectsDeduct() {
+        when(redisService.evalSha(eq("stock-sha"), eq(RScript.ReturnType.INTEGER), eq(stockKeys(105)), anyString(), anyString())).thenReturn(-3L);
+
+        assertEquals(-1L, strategyRepository.subtractStrategyAwardStock(TEST_STRATEGY_ID, 105));
+    }
+
+    @Test
+    public void testTakeAndFlushDeductions() {
+        List<Object> queueKeys = Arrays.asList(Constants.Redis.STRATEGY_AWARD_STOCK_QUEUE_KEY, Constants.Redis.STRATEGY_AWARD_STOCK_PROCESSING_KEY,
+                Constants.Redis.STRATEGY_AWARD_STOCK_FLUSH_ID_KEY);
+        when(redisService.evalSha(eq("take-sha"), eq(RScript.ReturnType.MULTI), eq(queueKeys), eq("500"), anyString()))
+                .thenReturn(Arrays.asList("flush-1", "100001#109#1000", "100001#105#2000"));
+
+        StrategyAwardStockFlushBatchVO flushBatch = strategyRepository.takeStrategyAwardStockDeductions(500);
+        assertEquals("flush-1", flushBatch.getFlushId());
+        List<StrategyAwardStockDeductionVO> deductions = flushBatch.getDeductions();
+        assertEquals(2, deductions.size());
+        assertEquals(Integer.valueOf(109), deductions.get(0).getAwardId());
+        assertEquals(1000L, deductions.get(0).getDeductTime());
+        assertEquals(1, deductions.get(1).getQuantity());
+
+        inTransaction();
+        when(strategyAwardStockFlushDao.insertIgnore(any(StrategyAwardStockFlush.class))).thenReturn(1);
+        when(strategyAwardDao.updateAwardCountSurplusDeductBatch(anyList())).thenReturn(1);
+        assertTrue(strategyRepository.updateStrategyAwardStockSurplus("flush-1",
+                Collections.singletonList(deductions.get(0).toBuilder().quantity(3).build())));
+
+        ArgumentCaptor<StrategyAwardStockFlush> flushCaptor = ArgumentCaptor.forClass(StrategyAwardStockFlush.class);
+        verify(strategyAwardStockFlushDao).insertIgnore(flushCaptor.capture());
+        assertEquals("flush-1", flushCaptor.getValue().getFlushId());
+        ArgumentCaptor<List<StrategyAwardStockDeduct>> captor = ArgumentCaptor.forClass(List.class);
+        verify(strategyAwardDao).updateAwardCountSurplusDeductBatch(captor.capture());
+        assertEquals(Integer.valueOf(3), captor.getValue().get(0).getQuantity());
+        assertEquals(Integer.valueOf(109), captor.getValue().get(0).getAwardId());
+    }
+
+    @Test
+    public void testTakeEmptyQueue() {
+        when(redisService.evalSha(eq("take-sha"), eq(RScript.ReturnType.MULTI), anyList(), eq("500"), anyString())).thenReturn(Collections.emptyList());
+
+        StrategyAwardStockFlushBatchVO flushBatch = strategyRepository.takeStrategyAwardStockDeductions(500);
+        assertNull(flushBatch.getFlushId());
+        assertTrue(flushBatch.getDeductions().isEmpty());
+    }
+
+    @Test
+    public void testAppliedBatchNotDeductedTwice() {
+        inTransaction();
+        // 批次ID已存在：上次回写已提交，只是未确认
+        when(strategyAwardStockFlushDao.insertIgnore(any(StrategyAwardStockFlush.class))).thenReturn(0);
+
+        assertFalse(strategyRepository.updateStrategyAwardStockSurplus("flush-1", Collections.singletonList(StrategyAwardStockDeductionVO.builder()
+                .strategyId(TEST_STRATEGY_ID).awardId(109).quantity(3).deductTime(1000L).build())));
+        verify(strategyAwardDao, never()).updateAwardCountSurplusDeductBatch(anyList());
+    }
+
+    @Test
+    public void testAckClearsBatch() {
+        strategyRepository.ackStrategyAwardStockDeductions();
+
+        verify(redisService).delete(Constants.Redis.STRATEGY_AWARD_STOCK_PROCESSING_KEY);
+        verify(redisService).delete(Constants.Redis.STRATEGY_AWARD_STOCK_FLUSH_ID_KEY);
+    }
+
+    @Test
+    public void testQueryFlushLag() {
+        when(redisService.evalSha(eq("lag-sha"), eq(RScript.ReturnType.MULTI), anyList()))
+                .thenReturn(Arrays.asList(12L, 3L, "100001#109#1000"), Arrays.asList(0L, 0L, ""));
+
+        StrategyAwardStockFlushLagEntity lag = strategyRepository.queryStrategyAwardStockFlushLag();
+        assertEquals(12L, lag.getPendingCount());
+        assertEquals(3L, lag.getInFlightCount());
+        assertEquals(1000L, lag.getOldestDeductTime());
+        assertTrue(lag.getLagMillis() > 0);
+
+        assertEquals(0L, strategyRepository.queryStrategyAwardStockFlushLag().getLagMillis());
+    }
+
+    private List<Object> stockKeys(Integer awardId) {
+        return Arrays.asList(Constants.Redis.getStrategyAwardStockKey(TEST_STRATEGY_ID, awardId), Constants.Redis.STRATEGY_AWARD_STOCK_QUEUE_KEY);
+    }
+
+    private StrategyAwardEntity strategyAward(Integer awardId, Integer awardCountSurplus) {
+        return StrategyAwardEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .awardId(awardId)
+                .awardCountSurplus(awardCountSurplus)
+                .build();
+    }
+
+    /**
+     * 事务模板直接执行回调
+     */
+    private void inTransaction() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+}
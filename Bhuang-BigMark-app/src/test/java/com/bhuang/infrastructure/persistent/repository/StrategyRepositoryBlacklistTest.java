@@ -0,0 +1,195 @@
+package com.bhuang.infrastructure.persistent.repository;
+
+import com.bhuang.domain.strategy.model.entity.StrategyBlacklistStatEntity;
+import com.bhuang.infrastructure.persistent.constants.Constants;
+import com.bhuang.infrastructure.persistent.dao.StrategyBlacklistDao;
+import com.bhuang.infrastructure.persistent.po.StrategyBlacklist;
+import com.bhuang.infrastructure.persistent.redis.IRedisService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.redisson.api.RBloomFilter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 黑名单布隆过滤器测试 - 验证未命中时不访问精确集合、命中后精确确认、误判计入统计、按已知版本检查时不读取版本号，以及新版本分批写入后切换、黑名单用户表按主键分页写入
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyRepositoryBlacklistTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    @Mock
+    private IRedisService redisService;
+
+    @Mock
+    private RBloomFilter<String> bloomFilter;
+
+    @Mock
+    private StrategyBlacklistDao strategyBlacklistDao;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private StrategyRepository strategyRepository;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(strategyRepository, "blacklistFalseProbability", 0.001);
+        ReflectionTestUtils.setField(strategyRepository, "blacklistExpectedInsertionsMin", 10000L);
+        ReflectionTestUtils.setField(strategyRepository, "blacklistStoreChunkSize", 2);
+        ReflectionTestUtils.setField(strategyRepository, "tableGcDelay", 0L);
+    }
+
+    @After
+    public void tearDown() {
+        strategyRepository.destroy();
+    }
+
+    @Test
+    public void testBloomNegativeSkipsExactCheck() {
+        givenVersion(2L);
+        when(bloomFilter.contains("user001")).thenReturn(false);
+
+        assertFalse(strategyRepository.isStrategyBlacklisted(TEST_STRATEGY_ID, "user001"));
+        verify(redisService, never()).sIsMember(anyString(), any());
+    }
+
+    @Test
+    public void testBloomPositiveConfirmedExactly() {
+        givenVersion(2L);
+        when(bloomFilter.contains(anyString())).thenReturn(true);
+        String blacklistKey = Constants.Redis.getStrategyBlacklistKey(TEST_STRATEGY_ID, 2L);
+        when(redisService.sIsMember(blacklistKey, "user001")).thenReturn(true);
+        when(redisService.sIsMember(blacklistKey, "user002")).thenReturn(false);
+
+        assertTrue(strategyRepository.isStrategyBlacklisted(TEST_STRATEGY_ID, "user001"));
+        // 布隆过滤器误判，精确集合中不存在，不视为黑名单
+        assertFalse(strategyRepository.isStrategyBlacklisted(TEST_STRATEGY_ID, "user002"));
+
+        // 同一版本的过滤器对象只获取一次，参数缓存在对象中
+        verify(redisService, times(1)).getBloomFilter(anyString());
+    }
+
+    @Test
+    public void testCheckByVersionSkipsVersionRead() {
+        when(redisService.<String>getBloomFilter(Constants.Redis.getStrategyBlacklistBloomKey(TEST_STRATEGY_ID, 2L))).thenReturn(bloomFilter);
+        when(bloomFilter.contains("user001")).thenReturn(false);
+
+        assertFalse(strategyRepository.isStrategyBlacklisted(TEST_STRATEGY_ID, 2L, "user001"));
+        verify(redisService, never()).get(Constants.Redis.getStrategyBlacklistVersionKey(TEST_STRATEGY_ID));
+    }
+
+    @Test
+    public void testNotAssembled() {
+        assertFalse(strategyRepository.isStrategyBlacklisted(TEST_STRATEGY_ID, "user001"));
+        verify(redisService, never()).getBloomFilter(anyString());
+    }
+
+    @Test
+    public void testStatReportsObservedFalsePositiveRate() {
+        givenVersion(2L);
+        when(bloomFilter.contains(anyString())).thenReturn(false, true, true, false);
+        when(redisService.sIsMember(anyString(), any())).thenReturn(true, false);
+        when(bloomFilter.getExpectedInsertions()).thenReturn(10000L);
+        when(bloomFilter.getFalseProbability()).thenReturn(0.001);
+
+        for (int i = 0; i < 4; i++) {
+            strategyRepository.isStrategyBlacklisted(TEST_STRATEGY_ID, "user00" + i);
+        }
+
+        StrategyBlacklistStatEntity stat = strategyRepository.queryStrategyBlacklistStat(TEST_STRATEGY_ID);
+        assertEquals(2L, stat.getVersion());
+        assertEquals(4L, stat.getChecks());
+        assertEquals(2L, stat.getBloomPositives());
+        assertEquals(1L, stat.getConfirmedPositives());
+        // 3 次不在黑名单的检查中 1 次误判
+        assertEquals(1.0 / 3, stat.getObservedFalsePositiveRate(), 1e-9);
+        assertTrue(stat.getAverageCheckMicros() > 0);
+        log.info("黑名单统计：{}，实测误判率：{}，平均耗时：{}us", stat, stat.getObservedFalsePositiveRate(), stat.getAverageCheckMicros());
+    }
+
+    @Test
+    public void testStoreWritesNewVersionThenSwaps() {
+        String versionKey = Constants.Redis.getStrategyBlacklistVersionKey(TEST_STRATEGY_ID);
+        String blacklistKey = Constants.Redis.getStrategyBlacklistKey(TEST_STRATEGY_ID, 3L);
+        String oldBloomKey = Constants.Redis.getStrategyBlacklistBloomKey(TEST_STRATEGY_ID, 2L);
+        when(redisService.increment(Constants.Redis.getStrategyBlacklistSeqKey(TEST_STRATEGY_ID))).thenReturn(3L);
+        when(redisService.<String>getBloomFilter(anyString())).thenReturn(bloomFilter);
+        when(redisService.getAndSet(versionKey, 3L)).thenReturn(2);
+
+        strategyRepository.storeStrategyBlacklist(TEST_STRATEGY_ID, Arrays.asList("user001", "user002", "user003"));
+
+        // 3 个用户按每批 2 个分 2 批写入过滤器与集合，写完后才切换版本
+        InOrder inOrder = inOrder(redisService, bloomFilter);
+        inOrder.verify(bloomFilter).tryInit(10000L, 0.001);
+        inOrder.verify(bloomFilter).add(Arrays.asList("user001", "user002"));
+        inOrder.verify(redisService).sAdd(blacklistKey, "user001", "user002");
+        inOrder.verify(bloomFilter).add(Arrays.asList("user003"));
+        inOrder.verify(redisService).sAdd(blacklistKey, "user003");
+        inOrder.verify(redisService).getAndSet(versionKey, 3L);
+
+        // 上一版本延迟回收
+        verify(redisService, timeout(5000)).unlink(Constants.Redis.getStrategyBlacklistKey(TEST_STRATEGY_ID, 2L));
+        verify(redisService).getBloomFilter(oldBloomKey);
+    }
+
+    @Test
+    public void testStoreMergesTableUsersByPage() {
+        String blacklistKey = Constants.Redis.getStrategyBlacklistKey(TEST_STRATEGY_ID, 1L);
+        when(redisService.increment(Constants.Redis.getStrategyBlacklistSeqKey(TEST_STRATEGY_ID))).thenReturn(1L);
+        when(redisService.<String>getBloomFilter(anyString())).thenReturn(bloomFilter);
+        when(strategyBlacklistDao.countByStrategyId(TEST_STRATEGY_ID)).thenReturn(20000L);
+        when(strategyBlacklistDao.queryPageByStrategyId(TEST_STRATEGY_ID, 0L, 2))
+                .thenReturn(Arrays.asList(blacklistUser(5L, "user005"), blacklistUser(9L, "user009")));
+        when(strategyBlacklistDao.queryPageByStrategyId(TEST_STRATEGY_ID, 9L, 2))
+                .thenReturn(Collections.singletonList(blacklistUser(12L, "user012")));
+
+        // 规则值只配置奖品ID时没有传入的用户，名单全部来自黑名单用户表
+        assertEquals(3L, strategyRepository.storeStrategyBlacklist(TEST_STRATEGY_ID, Collections.emptyList()));
+
+        // 预期元素数按表中的用户数初始化，每页作为一批写入，不足一页时不再查询下一页
+        InOrder inOrder = inOrder(redisService, bloomFilter);
+        inOrder.verify(bloomFilter).tryInit(20000L, 0.001);
+        inOrder.verify(bloomFilter).add(Arrays.asList("user005", "user009"));
+        inOrder.verify(redisService).sAdd(blacklistKey, "user005", "user009");
+        inOrder.verify(bloomFilter).add(Collections.singletonList("user012"));
+        inOrder.verify(redisService).sAdd(blacklistKey, "user012");
+        inOrder.verify(redisService).getAndSet(Constants.Redis.getStrategyBlacklistVersionKey(TEST_STRATEGY_ID), 1L);
+        verify(strategyBlacklistDao, times(2)).queryPageByStrategyId(eq(TEST_STRATEGY_ID), anyLong(), anyInt());
+    }
+
+    private static StrategyBlacklist blacklistUser(Long id, String userId) {
+        StrategyBlacklist strategyBlacklist = new StrategyBlacklist();
+        strategyBlacklist.setId(id);
+        strategyBlacklist.setStrategyId(TEST_STRATEGY_ID);
+        strategyBlacklist.setUserId(userId);
+        return strategyBlacklist;
+    }
+
+    private void givenVersion(long version) {
+        when(redisService.get(Constants.Redis.getStrategyBlacklistVersionKey(TEST_STRATEGY_ID))).thenReturn(version);
+        when(redisService.<String>getBloomFilter(Constants.Redis.getStrategyBlacklistBloomKey(TEST_STRATEGY_ID, version))).thenReturn(bloomFilter);
+    }
+
+}
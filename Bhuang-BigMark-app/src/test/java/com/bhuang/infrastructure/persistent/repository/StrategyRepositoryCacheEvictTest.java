@@ -0,0 +1,114 @@
+package com.bhuang.infrastructure.persistent.repository;
+
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.infrastructure.persistent.cache.StrategyNearCache;
+import com.bhuang.infrastructure.persistent.constants.Constants;
+import com.bhuang.infrastructure.persistent.redis.IRedisService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.redisson.api.RTopic;
+import org.redisson.api.listener.MessageListener;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 策略缓存清除测试 - 验证装配前清除 Redis 缓存与本节点近端缓存并发布通知，以及收到其它节点的通知后清除近端缓存
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyRepositoryCacheEvictTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    @Mock
+    private IRedisService redisService;
+
+    @Mock
+    private RTopic topic;
+
+    @InjectMocks
+    private StrategyRepository strategyRepository;
+
+    private StrategyNearCache strategyNearCache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        strategyNearCache = new StrategyNearCache();
+        ReflectionTestUtils.setField(strategyNearCache, "enabled", true);
+        ReflectionTestUtils.setField(strategyNearCache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(strategyNearCache, "expireAfterWrite", 60000L);
+        ReflectionTestUtils.setField(strategyNearCache, "meterRegistry", new SimpleMeterRegistry());
+        strategyNearCache.init();
+        ReflectionTestUtils.setField(strategyRepository, "strategyNearCache", strategyNearCache);
+        when(redisService.getTopic(Constants.Redis.STRATEGY_NEAR_CACHE_EVICT_TOPIC)).thenReturn(topic);
+    }
+
+    @Test
+    public void testEvictStrategyCache() {
+        when(topic.publish(String.valueOf(TEST_STRATEGY_ID))).thenReturn(2L);
+        strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+
+        strategyRepository.evictStrategyCache(TEST_STRATEGY_ID);
+
+        verify(redisService).delete(Constants.Redis.getStrategyAwardListKey(TEST_STRATEGY_ID));
+        verify(topic).publish(String.valueOf(TEST_STRATEGY_ID));
+        strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+        assertEquals("清除后重新回源", 2, loads.get());
+    }
+
+    @Test
+    public void testEvictStrategyCacheWhenPublishFails() {
+        when(topic.publish(anyString())).thenThrow(new IllegalStateException("Redis 不可用"));
+        strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+
+        strategyRepository.evictStrategyCache(TEST_STRATEGY_ID);
+
+        strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+        assertEquals("通知失败不影响本节点清除", 2, loads.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvictOnMessageFromOtherNode() {
+        strategyRepository.init();
+        ArgumentCaptor<MessageListener<String>> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(topic).addListener(eq(String.class), listener.capture());
+
+        strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+        strategyNearCache.getStrategyAwardList(100002L, this::loadStrategyAwardList);
+        listener.getValue().onMessage(Constants.Redis.STRATEGY_NEAR_CACHE_EVICT_TOPIC, String.valueOf(TEST_STRATEGY_ID));
+
+        strategyNearCache.getStrategyAwardList(TEST_STRATEGY_ID, this::loadStrategyAwardList);
+        strategyNearCache.getStrategyAwardList(100002L, this::loadStrategyAwardList);
+        assertEquals("只有通知的策略重新回源", 3, loads.get());
+    }
+
+    private List<StrategyAwardEntity> loadStrategyAwardList() {
+        loads.incrementAndGet();
+        return Collections.singletonList(StrategyAwardEntity.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .awardId(101)
+                .awardRate(BigDecimal.ONE)
+                .build());
+    }
+
+}
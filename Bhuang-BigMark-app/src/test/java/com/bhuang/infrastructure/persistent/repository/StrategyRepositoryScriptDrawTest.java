@@ -0,0 +1,161 @@
+package com.bhuang.infrastructure.persistent.repository;
+
+import com.bhuang.domain.strategy.model.valobj.StrategyDrawResultVO;
+import com.bhuang.infrastructure.persistent.constants.Constants;
+import com.bhuang.infrastructure.persistent.redis.IRedisService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.redisson.api.RScript;
+import org.redisson.client.RedisException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 服务端抽奖脚本测试 - 验证启动加载一次、按档位组装脚本的Key与参数、同一次调用累加用户抽奖次数，以及同步与异步调用遇到 NOSCRIPT 后重新加载
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyRepositoryScriptDrawTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    @Mock
+    private IRedisService redisService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private StrategyRepository strategyRepository;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(strategyRepository, "tableLayout", Constants.Redis.TableLayout.HASH);
+        ReflectionTestUtils.setField(strategyRepository, "tableLayoutFallback", true);
+        when(redisService.scriptLoad(anyString())).thenReturn("sha1");
+        // 启动时加载抽奖与库存扣减两个脚本，下面只校验抽奖脚本的加载次数
+        strategyRepository.init();
+    }
+
+    @Test
+    public void testDrawWeightFallsBackInOneCall() {
+        when(redisService.evalSha(eq("sha1"), eq(RScript.ReturnType.INTEGER), anyList(), any())).thenReturn(102L);
+
+        assertEquals(Integer.valueOf(102), strategyRepository.drawStrategyAward(TEST_STRATEGY_ID, "4000", 0.25));
+
+        // 权重档位在前、普通策略在后，脚本内依次尝试
+        verify(redisService, times(1)).evalSha("sha1", RScript.ReturnType.INTEGER,
+                Arrays.asList(
+                        Constants.Redis.getStrategyRateTablePointerKey(TEST_STRATEGY_ID, "4000"),
+                        Constants.Redis.getStrategyRateRangeKeyByWeight(TEST_STRATEGY_ID, "4000"),
+                        Constants.Redis.getStrategyRateTablePointerKey(TEST_STRATEGY_ID, null),
+                        Constants.Redis.getStrategyRateRangeKey(TEST_STRATEGY_ID)),
+                "0.25", "HASH", "1",
+                Constants.Redis.getStrategyAwardAssembleTableKeyByWeight(TEST_STRATEGY_ID, "4000"),
+                "strategy#100001#assemble#weight#4000#",
+                Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID),
+                "strategy#100001#assemble#");
+        verify(redisService, times(1)).scriptLoad(contains("cjson.decode"));
+        verify(redisService, never()).get(anyString());
+    }
+
+    @Test
+    public void testDrawAndCountInOneCall() {
+        String countKey = Constants.Redis.getUserRaffleCountKey(TEST_STRATEGY_ID, "user001");
+        when(redisService.evalSha(eq("sha1"), eq(RScript.ReturnType.MULTI), anyList(), any())).thenReturn(Arrays.asList(107L, 3L));
+
+        StrategyDrawResultVO result = strategyRepository.drawStrategyAwardAndCount(TEST_STRATEGY_ID, null, 0.5, "user001");
+
+        assertEquals(Integer.valueOf(107), result.getAwardId());
+        assertEquals(3L, result.getRaffleCount());
+        // 用户抽奖次数Key追加在最后，Key个数为奇数，脚本据此在抽中后 INCR
+        verify(redisService, times(1)).evalSha("sha1", RScript.ReturnType.MULTI,
+                Arrays.asList(
+                        Constants.Redis.getStrategyRateTablePointerKey(TEST_STRATEGY_ID, null),
+                        Constants.Redis.getStrategyRateRangeKey(TEST_STRATEGY_ID),
+                        countKey),
+                "0.5", "HASH", "1",
+                Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID),
+                "strategy#100001#assemble#");
+        verify(redisService, times(1)).scriptLoad(contains("INCR"));
+        verify(redisService, never()).increment(anyString());
+    }
+
+    @Test
+    public void testDrawAndCountNotAssembled() {
+        when(redisService.evalSha(eq("sha1"), eq(RScript.ReturnType.MULTI), anyList(), any())).thenReturn(Collections.emptyList());
+
+        StrategyDrawResultVO result = strategyRepository.drawStrategyAwardAndCount(TEST_STRATEGY_ID, "4000", 0.5, "user001");
+
+        assertNull(result.getAwardId());
+        assertEquals(0L, result.getRaffleCount());
+    }
+
+    @Test
+    public void testSlotKeyPrefixMatchesSlotKey() {
+        String prefix = Constants.Redis.getStrategyAwardAssembleKeyPrefix(TEST_STRATEGY_ID, "4000");
+        assertEquals(Constants.Redis.getStrategyAwardAssembleKeyByWeight(TEST_STRATEGY_ID, "4000", 7), prefix + 7);
+        assertEquals(Constants.Redis.getStrategyAwardAssembleKey(TEST_STRATEGY_ID, "4000", 3L, 7), prefix + "v3#" + 7);
+        assertEquals(Constants.Redis.getStrategyAwardAssembleKey(TEST_STRATEGY_ID, null, 3L, 7),
+                Constants.Redis.getStrategyAwardAssembleKeyPrefix(TEST_STRATEGY_ID, null) + "v3#" + 7);
+    }
+
+    @Test
+    public void testReloadOnNoScript() {
+        when(redisService.evalSha(eq("sha1"), eq(RScript.ReturnType.INTEGER), anyList(), any()))
+                .thenThrow(new RedisException("NOSCRIPT No matching script. Please use EVAL."))
+                .thenReturn(null);
+
+        assertNull("未装配的策略返回null", strategyRepository.drawStrategyAward(TEST_STRATEGY_ID, null, 0.5));
+        verify(redisService, times(2)).scriptLoad(contains("cjson.decode"));
+        verify(redisService, times(2)).evalSha(eq("sha1"), eq(RScript.ReturnType.INTEGER), anyList(), any());
+    }
+
+    @Test
+    public void testAsyncReloadOnNoScript() {
+        CompletableFuture<Long> noScript = new CompletableFuture<>();
+        noScript.completeExceptionally(new RedisException("NOSCRIPT No matching script. Please use EVAL."));
+        when(redisService.<Long>evalShaAsync(eq("sha1"), eq(RScript.ReturnType.INTEGER), anyList(), any()))
+                .thenReturn(noScript)
+                .thenReturn(CompletableFuture.completedFuture(104L));
+
+        assertEquals(Integer.valueOf(104), strategyRepository.drawStrategyAwardAsync(TEST_STRATEGY_ID, null, 0.5).join());
+        verify(redisService, times(2)).scriptLoad(contains("cjson.decode"));
+        verify(redisService, never()).evalSha(anyString(), any(), anyList(), any());
+    }
+
+    @Test
+    public void testAsyncFailurePropagates() {
+        CompletableFuture<Long> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RedisException("connection reset"));
+        when(redisService.<Long>evalShaAsync(eq("sha1"), eq(RScript.ReturnType.INTEGER), anyList(), any())).thenReturn(failed);
+
+        CompletableFuture<Integer> future = strategyRepository.drawStrategyAwardAsync(TEST_STRATEGY_ID, null, 0.5);
+        try {
+            future.join();
+            fail("非 NOSCRIPT 异常应原样传递");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof RedisException);
+        }
+        verify(redisService, times(1)).scriptLoad(contains("cjson.decode"));
+    }
+
+}
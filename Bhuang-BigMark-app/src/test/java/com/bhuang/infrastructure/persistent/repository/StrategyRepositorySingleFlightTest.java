@@ -0,0 +1,189 @@
+package com.bhuang.infrastructure.persistent.repository;
+
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.infrastructure.persistent.cache.StrategyNearCache;
+import com.bhuang.infrastructure.persistent.constants.Constants;
+import com.bhuang.infrastructure.persistent.dao.StrategyAwardDao;
+import com.bhuang.infrastructure.persistent.dao.StrategyRuleDao;
+import com.bhuang.infrastructure.persistent.po.StrategyAward;
+import com.bhuang.infrastructure.persistent.po.StrategyRule;
+import com.bhuang.infrastructure.persistent.redis.IRedisService;
+import com.bhuang.infrastructure.persistent.redis.codec.RedisCodecs;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.redisson.api.RLock;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 缓存回源合并测试 - 验证 N 个并发未命中只触发一次数据库查询，以及跨节点回源锁的双重检查
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyRepositorySingleFlightTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    private static final int THREADS = 32;
+
+    @Mock
+    private StrategyAwardDao strategyAwardDao;
+
+    @Mock
+    private StrategyRuleDao strategyRuleDao;
+
+    @Mock
+    private IRedisService redisService;
+
+    @Mock
+    private RLock lock;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private StrategyRepository strategyRepository;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        // 关闭近端缓存，使每个请求都进入回源路径
+        StrategyNearCache strategyNearCache = new StrategyNearCache();
+        ReflectionTestUtils.setField(strategyNearCache, "enabled", false);
+        ReflectionTestUtils.setField(strategyNearCache, "meterRegistry", meterRegistry);
+        strategyNearCache.init();
+        ReflectionTestUtils.setField(strategyRepository, "strategyNearCache", strategyNearCache);
+        ReflectionTestUtils.setField(strategyRepository, "loadLockWait", 3000L);
+        ReflectionTestUtils.setField(strategyRepository, "loadLockLease", 10000L);
+
+        when(redisService.getLock(anyString())).thenReturn(lock);
+        when(lock.tryLock(anyLong(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+        when(lock.isHeldByCurrentThread()).thenReturn(true);
+
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentAwardListMissesLoadOnce() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        when(strategyAwardDao.queryStrategyAwardListByStrategyId(TEST_STRATEGY_ID)).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            Thread.sleep(200);
+            return Collections.singletonList(strategyAward(101));
+        });
+
+        List<List<StrategyAwardEntity>> results = runConcurrently(() -> strategyRepository.queryStrategyAwardList(TEST_STRATEGY_ID));
+
+        assertEquals("并发未命中只应查询一次数据库", 1, queries.get());
+        for (List<StrategyAwardEntity> strategyAwardList : results) {
+            assertEquals(Integer.valueOf(101), strategyAwardList.get(0).getAwardId());
+        }
+        verify(redisService, times(1)).set(eq(Constants.Redis.getStrategyAwardListKey(TEST_STRATEGY_ID)), anyList(), any(Duration.class), eq(RedisCodecs.STRATEGY_AWARD_LIST));
+        verify(lock, times(1)).unlock();
+    }
+
+    @Test
+    public void testConcurrentRuleMissesLoadOnce() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        StrategyRule strategyRule = new StrategyRule();
+        strategyRule.setStrategyId(TEST_STRATEGY_ID.intValue());
+        strategyRule.setRuleModel("rule_weight");
+        strategyRule.setRuleValue("4000:102,103");
+        when(strategyRuleDao.selectByStrategyIdAndRuleModel(TEST_STRATEGY_ID, "rule_weight")).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            Thread.sleep(200);
+            return strategyRule;
+        });
+
+        List<StrategyRuleEntity> results = runConcurrently(() -> strategyRepository.queryStrategyRule(TEST_STRATEGY_ID, "rule_weight"));
+
+        assertEquals("并发未命中只应查询一次数据库", 1, queries.get());
+        for (StrategyRuleEntity strategyRuleEntity : results) {
+            assertEquals("4000:102,103", strategyRuleEntity.getRuleValue());
+        }
+    }
+
+    @Test
+    public void testDoubleCheckAfterLockWait() {
+        // 本节点等锁期间，持锁节点已回写 Redis
+        String cacheKey = Constants.Redis.getStrategyAwardListKey(TEST_STRATEGY_ID);
+        when(redisService.<List<StrategyAward>>get(cacheKey, RedisCodecs.STRATEGY_AWARD_LIST)).thenReturn(null, Collections.singletonList(strategyAward(102)));
+
+        List<StrategyAwardEntity> strategyAwardList = strategyRepository.queryStrategyAwardList(TEST_STRATEGY_ID);
+
+        assertEquals(Integer.valueOf(102), strategyAwardList.get(0).getAwardId());
+        verify(strategyAwardDao, never()).queryStrategyAwardListByStrategyId(anyLong());
+    }
+
+    @Test
+    public void testLoadFromDatabaseWhenLockTimeout() throws InterruptedException {
+        when(lock.tryLock(anyLong(), anyLong(), any(TimeUnit.class))).thenReturn(false);
+        when(strategyAwardDao.queryStrategyAwardListByStrategyId(TEST_STRATEGY_ID)).thenReturn(Collections.singletonList(strategyAward(103)));
+
+        List<StrategyAwardEntity> strategyAwardList = strategyRepository.queryStrategyAwardList(TEST_STRATEGY_ID);
+
+        assertEquals(Integer.valueOf(103), strategyAwardList.get(0).getAwardId());
+        verify(lock, never()).unlock();
+    }
+
+    private <T> List<T> runConcurrently(Callable<T> task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private StrategyAward strategyAward(Integer awardId) {
+        StrategyAward strategyAward = new StrategyAward();
+        strategyAward.setStrategyId(TEST_STRATEGY_ID);
+        strategyAward.setAwardId(awardId);
+        strategyAward.setAwardRate(BigDecimal.ONE);
+        return strategyAward;
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.bhuang.infrastructure.persistent.repository;
+
+import com.bhuang.domain.strategy.model.valobj.StrategyRateTableSnapshotVO;
+import com.bhuang.infrastructure.persistent.constants.Constants;
+import com.bhuang.infrastructure.persistent.redis.IRedisService;
+import com.bhuang.infrastructure.persistent.redis.codec.RedisCodecs;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.redisson.client.codec.Codec;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author bhuang
+ * @description 查找表版本化切换测试 - 验证新表写入新版本Key、GETSET 原子切换指针、旧快照读取一致、旧版本分批回收、首次按版本装配后回收旧Key，以及编码调整前写入的查找表仍可读取与回收
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class StrategyRepositoryVersionedTableTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    private static final int CHUNK_SIZE = 4;
+
+    @Mock
+    private IRedisService redisService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private StrategyRepository strategyRepository;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(strategyRepository, "tableLayout", Constants.Redis.TableLayout.HASH);
+        ReflectionTestUtils.setField(strategyRepository, "storeChunkSize", CHUNK_SIZE);
+        ReflectionTestUtils.setField(strategyRepository, "tableGcDelay", 0L);
+    }
+
+    @After
+    public void tearDown() {
+        strategyRepository.destroy();
+    }
+
+    @Test
+    public void testStoreWritesNewVersionThenSwapsPointer() {
+        String pointerKey = Constants.Redis.getStrategyRateTablePointerKey(TEST_STRATEGY_ID, null);
+        when(redisService.increment(Constants.Redis.getStrategyRateTableSeqKey(TEST_STRATEGY_ID))).thenReturn(2L);
+        when(redisService.getAndSet(eq(pointerKey), any())).thenReturn(snapshot(1L, 10));
+
+        int[] table = new int[10];
+        Arrays.fill(table, 101);
+        strategyRepository.storeStrategyAwardSearchRateTable(TEST_STRATEGY_ID, table);
+
+        // 新表全部写入版本2的Key，写完后才切换指针，旧Key不被修改
+        String newTableKey = Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID, null, 2L);
+        ArgumentCaptor<StrategyRateTableSnapshotVO> captor = ArgumentCaptor.forClass(StrategyRateTableSnapshotVO.class);
+        InOrder inOrder = inOrder(redisService);
+        inOrder.verify(redisService, times(3)).hSetAll(eq(newTableKey), anyMap(), eq(RedisCodecs.RATE_TABLE));
+        inOrder.verify(redisService).getAndSet(eq(pointerKey), captor.capture());
+        assertEquals(2L, captor.getValue().getVersion());
+        assertEquals(10, captor.getValue().getRateRange());
+        verify(redisService, never()).hSetAll(eq(Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID, null, 1L)), anyMap(), any());
+        verify(redisService, never()).set(eq(Constants.Redis.getStrategyRateRangeKey(TEST_STRATEGY_ID)), any());
+    }
+
+    @Test
+    public void testReadOldSnapshotIsConsistent() {
+        StrategyRateTableSnapshotVO oldSnapshot = snapshot(1L, 10);
+        when(redisService.<Integer>hGet(Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID, null, 1L), "5", RedisCodecs.RATE_TABLE)).thenReturn(101);
+
+        // 读取快照后指针已切换到新版本，按旧快照读取的槽位仍属于旧版本
+        assertEquals(Integer.valueOf(101), strategyRepository.getStrategyAwardAssemble(oldSnapshot, 5));
+        verify(redisService, never()).get(Constants.Redis.getStrategyRateTablePointerKey(TEST_STRATEGY_ID, null));
+        verify(redisService, never()).hGet(anyString(), anyString());
+    }
+
+    @Test
+    public void testReadTableWrittenBeforeCodecChange() {
+        String tableKey = Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID, null, 1L);
+        when(redisService.<Integer>hGet(tableKey, "5")).thenReturn(102);
+        Map<String, Object> legacyFields = new HashMap<>();
+        legacyFields.put("1", 101);
+        legacyFields.put("2", 102);
+        when(redisService.hGetAll(tableKey, RedisCodecs.RATE_TABLE)).thenReturn(Collections.singletonMap("\"1\"", 101));
+        when(redisService.hGetAll(tableKey)).thenReturn(legacyFields);
+
+        // field 为带引号的 JSON 字符串，按槽位号未命中后按旧编码读取
+        assertEquals(Integer.valueOf(102), strategyRepository.getStrategyAwardAssemble(snapshot(1L, 2), 5));
+        when(redisService.<StrategyRateTableSnapshotVO>get(Constants.Redis.getStrategyRateTablePointerKey(TEST_STRATEGY_ID, null))).thenReturn(snapshot(1L, 2));
+        assertArrayEquals(new int[]{101, 102}, strategyRepository.queryStrategyAwardSearchRateTable(TEST_STRATEGY_ID));
+    }
+
+    @Test
+    public void testQueryLegacySnapshot() {
+        when(redisService.<Integer>get(Constants.Redis.getStrategyRateRangeKey(TEST_STRATEGY_ID), RedisCodecs.RATE_SLOT)).thenReturn(10000);
+
+        StrategyRateTableSnapshotVO snapshot = strategyRepository.queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, null);
+
+        assertEquals(StrategyRateTableSnapshotVO.LEGACY_VERSION, snapshot.getVersion());
+        assertEquals(10000, snapshot.getRateRange());
+        assertEquals(Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID),
+                Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID, null, snapshot.getVersion()));
+    }
+
+    @Test
+    public void testCollectOldVersionInChunks() {
+        String oldTableKey = Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID, null, 1L);
+        when(redisService.exists(oldTableKey)).thenReturn(true);
+        when(redisService.exists(Constants.Redis.getStrategyAwardAssembleKey(TEST_STRATEGY_ID, null, 1L, 1))).thenReturn(false);
+        when(redisService.hDelete(eq(oldTableKey), eq(RedisCodecs.RATE_TABLE), (String) any())).thenReturn(4L, 4L, 2L);
+
+        strategyRepository.collectRateTable(snapshot(1L, 10));
+
+        // 10 个槽位按每批 4 个分 3 批删除，不产生大Key删除阻塞
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(redisService, times(3)).hDelete(eq(oldTableKey), eq(RedisCodecs.RATE_TABLE), captor.capture());
+        assertEquals(10, captor.getAllValues().size());
+        verify(redisService, never()).hDelete(anyString(), (String) any());
+        verify(redisService, never()).unlink(any(String[].class));
+    }
+
+    @Test
+    public void testCollectTableWrittenBeforeCodecChange() {
+        String oldTableKey = Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID, null, 1L);
+        when(redisService.exists(oldTableKey)).thenReturn(true);
+
+        strategyRepository.collectRateTable(snapshot(1L, 3));
+
+        // 按槽位号未删除到的 field 再按旧编码删除
+        verify(redisService).hDelete(oldTableKey, RedisCodecs.RATE_TABLE, "1", "2", "3");
+        verify(redisService).hDelete(oldTableKey, "1", "2", "3");
+    }
+
+    @Test
+    public void testCollectLegacyVersionDeletesRangeKey() {
+        String legacySlotKey = Constants.Redis.getStrategyAwardAssembleKey(TEST_STRATEGY_ID, 1);
+        when(redisService.exists(Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID))).thenReturn(false);
+        when(redisService.exists(legacySlotKey)).thenReturn(true);
+
+        strategyRepository.collectRateTable(snapshot(StrategyRateTableSnapshotVO.LEGACY_VERSION, 6));
+
+        verify(redisService).unlink(legacySlotKey,
+                Constants.Redis.getStrategyAwardAssembleKey(TEST_STRATEGY_ID, 2),
+                Constants.Redis.getStrategyAwardAssembleKey(TEST_STRATEGY_ID, 3),
+                Constants.Redis.getStrategyAwardAssembleKey(TEST_STRATEGY_ID, 4));
+        verify(redisService).unlink(Constants.Redis.getStrategyAwardAssembleKey(TEST_STRATEGY_ID, 5),
+                Constants.Redis.getStrategyAwardAssembleKey(TEST_STRATEGY_ID, 6));
+        verify(redisService).unlink(Constants.Redis.getStrategyRateRangeKey(TEST_STRATEGY_ID));
+        verify(redisService, never()).hDelete(anyString(), any(String[].class));
+        verify(redisService, never()).hDelete(anyString(), any(Codec.class), (String) any());
+    }
+
+    @Test
+    public void testSwapSchedulesCollectOfPreviousVersion() throws InterruptedException {
+        String pointerKey = Constants.Redis.getStrategyRateTablePointerKey(TEST_STRATEGY_ID, "4000");
+        String oldTableKey = Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID, "4000", 3L);
+        when(redisService.increment(Constants.Redis.getStrategyRateTableSeqKey(TEST_STRATEGY_ID))).thenReturn(4L);
+        when(redisService.getAndSet(eq(pointerKey), any())).thenReturn(StrategyRateTableSnapshotVO.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .ruleWeightValue("4000")
+                .version(3L)
+                .rateRange(2)
+                .build());
+        when(redisService.exists(oldTableKey)).thenReturn(true);
+        when(redisService.hDelete(oldTableKey, RedisCodecs.RATE_TABLE, "1", "2")).thenReturn(2L);
+
+        strategyRepository.storeStrategyAwardSearchRateTableByWeight(TEST_STRATEGY_ID, "4000", new int[]{102, 103});
+
+        verify(redisService).hSetAll(eq(Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID, "4000", 4L)), anyMap(), eq(RedisCodecs.RATE_TABLE));
+        verify(redisService, timeout(5000)).hDelete(oldTableKey, RedisCodecs.RATE_TABLE, "1", "2");
+    }
+
+    @Test
+    public void testFirstVersionedAssembleCollectsLegacyKeys() {
+        String pointerKey = Constants.Redis.getStrategyRateTablePointerKey(TEST_STRATEGY_ID, null);
+        String legacySlotKey = Constants.Redis.getStrategyAwardAssembleKey(TEST_STRATEGY_ID, 1);
+        when(redisService.increment(Constants.Redis.getStrategyRateTableSeqKey(TEST_STRATEGY_ID))).thenReturn(1L);
+        when(redisService.getAndSet(eq(pointerKey), any())).thenReturn(null);
+        // 切换后指针已指向新版本，旧Key中的查找表只能从旧的概率范围Key定位
+        lenient().when(redisService.<StrategyRateTableSnapshotVO>get(pointerKey)).thenReturn(snapshot(1L, 2));
+        when(redisService.<Integer>get(Constants.Redis.getStrategyRateRangeKey(TEST_STRATEGY_ID), RedisCodecs.RATE_SLOT)).thenReturn(2);
+        when(redisService.exists(legacySlotKey)).thenReturn(true);
+
+        strategyRepository.storeStrategyAwardSearchRateTable(TEST_STRATEGY_ID, new int[]{101, 102});
+
+        verify(redisService, timeout(5000)).unlink(legacySlotKey, Constants.Redis.getStrategyAwardAssembleKey(TEST_STRATEGY_ID, 2));
+        verify(redisService, timeout(5000)).unlink(Constants.Redis.getStrategyRateRangeKey(TEST_STRATEGY_ID));
+    }
+
+    private StrategyRateTableSnapshotVO snapshot(long version, int rateRange) {
+        return StrategyRateTableSnapshotVO.builder()
+                .strategyId(TEST_STRATEGY_ID)
+                .version(version)
+                .rateRange(rateRange)
+                .build();
+    }
+
+}
@@ -0,0 +1,209 @@
+package com.bhuang.infrastructure.persistent.repository;
+
+import com.bhuang.Application;
+import com.bhuang.domain.strategy.model.valobj.StrategyRateTableSnapshotVO;
+import com.bhuang.infrastructure.persistent.constants.Constants;
+import com.bhuang.infrastructure.persistent.redis.IRedisService;
+import com.bhuang.infrastructure.persistent.redis.codec.RedisCodecs;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 查找表存储布局对比测试
+ * 对比 KEY（每槽位一个Key）与 HASH（每张表一个Hash）两种布局的 Redis 内存占用与单槽位查询延迟
+ * @author bhuang
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+@ActiveProfiles("dev")
+public class StrategyTableLayoutBenchmarkTest {
+
+    /**
+     * 测试专用策略ID，避免覆盖真实策略数据
+     */
+    private static final Long TEST_STRATEGY_ID = 900001L;
+
+    /**
+     * 与策略100001（最小概率0.0001）相同量级的查找表大小
+     */
+    private static final int TABLE_SIZE = 10000;
+
+    private static final int LOOKUP_TIMES = 2000;
+
+    @Resource
+    private StrategyRepository strategyRepository;
+
+    @Resource
+    private IRedisService redisService;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    /**
+     * 测试中写入过的查找表版本，结束后统一清理
+     */
+    private final List<StrategyRateTableSnapshotVO> snapshots = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (StrategyRateTableSnapshotVO snapshot : snapshots) {
+            for (int rateKey = 1; rateKey <= snapshot.getRateRange(); rateKey++) {
+                redisService.delete(slotKey(snapshot, rateKey));
+            }
+            redisService.delete(tableKey(snapshot));
+        }
+        redisService.delete(Constants.Redis.getStrategyRateTablePointerKey(TEST_STRATEGY_ID, null));
+        redisService.delete(Constants.Redis.getStrategyRateTableSeqKey(TEST_STRATEGY_ID));
+    }
+
+    @Test
+    public void testCompareTableLayout() {
+        int[] table = new int[TABLE_SIZE];
+        for (int rateKey = 1; rateKey <= TABLE_SIZE; rateKey++) {
+            table[rateKey - 1] = 101 + rateKey % 9;
+        }
+
+        // 1. 旧布局：每个槽位一个Key
+        switchLayout(Constants.Redis.TableLayout.KEY);
+        StrategyRateTableSnapshotVO keyLayoutSnapshot = store(table);
+        long keyLayoutMemory = 0;
+        for (int rateKey = 1; rateKey <= TABLE_SIZE; rateKey++) {
+            keyLayoutMemory += redissonClient.getBucket(slotKey(keyLayoutSnapshot, rateKey)).sizeInMemory();
+        }
+        long keyLayoutLatency = lookup(table);
+
+        // 2. 新布局：整张表一个Hash
+        switchLayout(Constants.Redis.TableLayout.HASH);
+        StrategyRateTableSnapshotVO hashLayoutSnapshot = store(table);
+        long hashLayoutMemory = redissonClient.getMap(tableKey(hashLayoutSnapshot)).sizeInMemory();
+        long hashLayoutLatency = lookup(table);
+
+        log.info("查找表布局对比，槽位数：{}，KEY布局内存：{}字节，HASH布局内存：{}字节，节省：{}%",
+                TABLE_SIZE, keyLayoutMemory, hashLayoutMemory, 100 - hashLayoutMemory * 100 / keyLayoutMemory);
+        log.info("查找表布局对比，查询{}次，KEY布局平均延迟：{}us，HASH布局平均延迟：{}us",
+                LOOKUP_TIMES, keyLayoutLatency / LOOKUP_TIMES / 1000, hashLayoutLatency / LOOKUP_TIMES / 1000);
+
+        assertTrue("HASH布局内存占用应小于KEY布局", hashLayoutMemory < keyLayoutMemory);
+    }
+
+    @Test
+    public void testCompareTableCodec() {
+        int[] table = new int[TABLE_SIZE];
+        for (int rateKey = 1; rateKey <= TABLE_SIZE; rateKey++) {
+            table[rateKey - 1] = 101 + rateKey % 9;
+        }
+
+        // 1. 当前编码：field 为不带引号的槽位号，value 为整数
+        switchLayout(Constants.Redis.TableLayout.HASH);
+        StrategyRateTableSnapshotVO snapshot = store(table);
+        long rawMemory = redissonClient.getMap(tableKey(snapshot), RedisCodecs.RATE_TABLE).sizeInMemory();
+
+        // 2. 全局 JSON 编码写入同样的表
+        String jsonTableKey = tableKey(snapshot) + "_json";
+        Map<String, Integer> jsonTable = new HashMap<>(TABLE_SIZE * 2);
+        for (int rateKey = 1; rateKey <= TABLE_SIZE; rateKey++) {
+            jsonTable.put(String.valueOf(rateKey), table[rateKey - 1]);
+        }
+        try {
+            redissonClient.<String, Integer>getMap(jsonTableKey).putAll(jsonTable);
+            long jsonMemory = redissonClient.getMap(jsonTableKey).sizeInMemory();
+
+            log.info("查找表编码对比，槽位数：{}，JSON编码内存：{}字节，整数编码内存：{}字节，节省：{}%",
+                    TABLE_SIZE, jsonMemory, rawMemory, 100 - rawMemory * 100 / jsonMemory);
+            assertTrue("整数编码内存占用应小于JSON编码", rawMemory < jsonMemory);
+        } finally {
+            redisService.delete(jsonTableKey);
+        }
+    }
+
+    @Test
+    public void testHashLayoutFallbackToKeyLayout() {
+        int[] table = new int[100];
+        Arrays.fill(table, 101);
+
+        // 旧布局装配的数据，切换到HASH布局后仍可读取
+        switchLayout(Constants.Redis.TableLayout.KEY);
+        store(table);
+        switchLayout(Constants.Redis.TableLayout.HASH);
+        assertEquals(Integer.valueOf(101), strategyRepository.getStrategyAwardAssemble(TEST_STRATEGY_ID, 50));
+
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(strategyRepository), "tableLayoutFallback", false);
+        try {
+            assertNull(strategyRepository.getStrategyAwardAssemble(TEST_STRATEGY_ID, 50));
+        } finally {
+            ReflectionTestUtils.setField(AopTestUtils.getTargetObject(strategyRepository), "tableLayoutFallback", true);
+        }
+    }
+
+    @Test
+    public void testReadOldSnapshotDuringSwap() {
+        int[] oldTable = new int[100];
+        Arrays.fill(oldTable, 101);
+        int[] newTable = new int[200];
+        Arrays.fill(newTable, 102);
+
+        // 抽奖已读取旧快照，此时重新装配并切换版本
+        StrategyRateTableSnapshotVO oldSnapshot = store(oldTable);
+        StrategyRateTableSnapshotVO newSnapshot = store(newTable);
+
+        assertTrue(newSnapshot.getVersion() > oldSnapshot.getVersion());
+        assertEquals("回收前按旧快照仍读取旧版本", Integer.valueOf(101), strategyRepository.getStrategyAwardAssemble(oldSnapshot, 50));
+        assertEquals(Integer.valueOf(102), strategyRepository.getStrategyAwardAssemble(TEST_STRATEGY_ID, 150));
+        assertEquals(200, strategyRepository.getRateRange(TEST_STRATEGY_ID));
+    }
+
+    /**
+     * 装配查找表并返回切换后的当前版本快照
+     */
+    private StrategyRateTableSnapshotVO store(int[] table) {
+        strategyRepository.storeStrategyAwardSearchRateTable(TEST_STRATEGY_ID, table);
+        StrategyRateTableSnapshotVO snapshot = strategyRepository.queryStrategyRateTableSnapshot(TEST_STRATEGY_ID, null);
+        snapshots.add(snapshot);
+        return snapshot;
+    }
+
+    private static String tableKey(StrategyRateTableSnapshotVO snapshot) {
+        return Constants.Redis.getStrategyAwardAssembleTableKey(TEST_STRATEGY_ID, null, snapshot.getVersion());
+    }
+
+    private static String slotKey(StrategyRateTableSnapshotVO snapshot, int rateKey) {
+        return Constants.Redis.getStrategyAwardAssembleKey(TEST_STRATEGY_ID, null, snapshot.getVersion(), rateKey);
+    }
+
+    private void switchLayout(Constants.Redis.TableLayout tableLayout) {
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(strategyRepository), "tableLayout", tableLayout);
+    }
+
+    /**
+     * 随机查询槽位并校验结果
+     * @return 总耗时（纳秒）
+     */
+    private long lookup(int[] table) {
+        Random random = new Random(42);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < LOOKUP_TIMES; i++) {
+            int rateKey = random.nextInt(TABLE_SIZE) + 1;
+            assertEquals(Integer.valueOf(table[rateKey - 1]), strategyRepository.getStrategyAwardAssemble(TEST_STRATEGY_ID, rateKey));
+        }
+        return System.nanoTime() - startTime;
+    }
+}
@@ -0,0 +1,168 @@
+package com.bhuang.trigger.http;
+
+import com.bhuang.domain.strategy.model.entity.RaffleAwardEntity;
+import com.bhuang.domain.strategy.model.entity.RaffleFactorEntity;
+import com.bhuang.domain.strategy.service.limit.IRaffleRateLimiter;
+import com.bhuang.domain.strategy.service.raffle.IStrategyRaffle;
+import com.bhuang.types.enums.ResponseCode;
+import com.bhuang.types.exception.AppException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * @author bhuang
+ * @description 抽奖接口测试 - 验证规则链抽奖以异步方式处理、Redis 应答前 Servlet 线程已返回，以及未装配、售罄无奖品、参数非法（含缺少用户ID）与限流拒绝的应答
+ * @create 2025-06-14
+ */
+@Slf4j
+@RunWith(MockitoJUnitRunner.class)
+public class RaffleControllerTest {
+
+    private static final Long TEST_STRATEGY_ID = 100001L;
+
+    @Mock
+    private IStrategyRaffle strategyRaffle;
+
+    @Mock
+    private IRaffleRateLimiter raffleRateLimiter;
+
+    @InjectMocks
+    private RaffleController raffleController;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(raffleController).build();
+        lenient().when(raffleRateLimiter.tryAcquire(eq(TEST_STRATEGY_ID), any())).thenReturn(true);
+    }
+
+    @Test
+    public void testPerformIsAsync() throws Exception {
+        CompletableFuture<RaffleAwardEntity> pending = new CompletableFuture<>();
+        when(strategyRaffle.performRaffleAsync(argThat((RaffleFactorEntity factor) -> "user001".equals(factor.getUserId())))).thenReturn(pending);
+
+        // Redis 尚未应答时请求已进入异步处理，Servlet 线程已返回
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/raffle/perform")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"strategyId\":100001,\"userId\":\"user001\",\"score\":4500}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertFalse(pending.isDone());
+
+        pending.complete(RaffleAwardEntity.builder().strategyId(TEST_STRATEGY_ID).awardId(101).luckAward(true).ruleModel("rule_lock").build());
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(ResponseCode.SUCCESS.getCode()))
+                .andExpect(jsonPath("$.data.awardId").value(101))
+                .andExpect(jsonPath("$.data.ruleModel").value("rule_lock"));
+        verify(strategyRaffle, never()).performRaffle(any(RaffleFactorEntity.class));
+    }
+
+    @Test
+    public void testPerformNotAssembled() throws Exception {
+        when(strategyRaffle.performRaffleAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/raffle/perform")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"strategyId\":100001,\"userId\":\"user001\"}"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(jsonPath("$.code").value(ResponseCode.STRATEGY_NOT_ASSEMBLED.getCode()));
+    }
+
+    @Test
+    public void testPerformSoldOutWithoutAward() throws Exception {
+        // 售罄且未配置默认兜底奖品时不发放奖品，与策略未装配区分
+        when(strategyRaffle.performRaffleAsync(any())).thenReturn(CompletableFuture.completedFuture(
+                RaffleAwardEntity.builder().strategyId(TEST_STRATEGY_ID).luckAward(true).ruleModel("rule_luck_award").build()));
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/raffle/perform")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"strategyId\":100001,\"userId\":\"user001\"}"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(jsonPath("$.code").value(ResponseCode.AWARD_SOLD_OUT.getCode()));
+    }
+
+    @Test
+    public void testPerformFailure() throws Exception {
+        CompletableFuture<RaffleAwardEntity> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new AppException(ResponseCode.ILLEGAL_PARAMETER.getCode(), "策略奖品查找表过大：10000001"));
+        when(strategyRaffle.performRaffleAsync(any())).thenReturn(failed);
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/raffle/perform")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"strategyId\":100001,\"userId\":\"user001\"}"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(jsonPath("$.code").value(ResponseCode.ILLEGAL_PARAMETER.getCode()))
+                .andExpect(jsonPath("$.info").value("策略奖品查找表过大：10000001"));
+    }
+
+    @Test
+    public void testPerformWithoutStrategyId() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/raffle/perform")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":\"user001\"}"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(jsonPath("$.code").value(ResponseCode.ILLEGAL_PARAMETER.getCode()));
+        verifyNoInteractions(strategyRaffle);
+    }
+
+    @Test
+    public void testPerformWithoutUserId() throws Exception {
+        // 不带用户ID的请求会绕过用户限流，直接拒绝
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/raffle/perform")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"strategyId\":100001,\"userId\":\" \"}"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(jsonPath("$.code").value(ResponseCode.ILLEGAL_PARAMETER.getCode()));
+        verifyNoInteractions(strategyRaffle, raffleRateLimiter);
+    }
+
+    @Test
+    public void testRateLimitedBeforeRaffle() throws Exception {
+        when(raffleRateLimiter.tryAcquire(TEST_STRATEGY_ID, "user001")).thenReturn(false);
+
+        // 被拒绝的请求直接应答，不进入规则链
+        MvcResult mvcResult = mockMvc.perform(post("/api/v1/raffle/perform")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"strategyId\":100001,\"userId\":\"user001\"}"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(jsonPath("$.code").value(ResponseCode.RATE_LIMITED.getCode()));
+
+        verifyNoInteractions(strategyRaffle);
+    }
+
+    @Test
+    public void testDrawEndpointsRemoved() throws Exception {
+        // 只执行抽奖调度的接口会绕过库存、黑名单、rule_lock 与用户计数，不再对外暴露
+        mockMvc.perform(get("/api/v1/raffle/draw").param("strategyId", String.valueOf(TEST_STRATEGY_ID)))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/raffle/draw_batch").param("strategyId", String.valueOf(TEST_STRATEGY_ID)).param("count", "3"))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(strategyRaffle, raffleRateLimiter);
+    }
+
+}
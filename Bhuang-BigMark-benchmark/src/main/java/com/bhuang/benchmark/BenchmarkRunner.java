@@ -0,0 +1,27 @@
+package com.bhuang.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * @author bhuang
+ * @description 基准测试入口，在 JMH 命令行参数基础上默认开启 GC 分析器，输出分配速率（gc.alloc.rate.norm）
+ * 运行：
+ * mvn -pl Bhuang-BigMark-benchmark -am package -DskipTests
+ * java -jar Bhuang-BigMark-benchmark/target/benchmarks.jar [JMH参数，如 StrategyDispatchBenchmark -p localTableEnabled=true]
+ * @create 2025-06-14
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+}
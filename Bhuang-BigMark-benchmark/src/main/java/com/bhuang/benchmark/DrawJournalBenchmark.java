@@ -0,0 +1,65 @@
+package com.bhuang.benchmark;
+
+import com.bhuang.infrastructure.persistent.journal.DrawJournal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * @author bhuang
+ * @description 抽奖流水追加耗时，单线程与8线程竞争领取序号；抽奖路径只写环形缓冲区，落盘由写线程完成
+ * 结束时输出写入与丢弃的记录数，丢弃数不为0说明写线程跟不上，需要增大 buffer-size 或检查磁盘
+ * 运行：java -jar Bhuang-BigMark-benchmark/target/benchmarks.jar DrawJournalBenchmark
+ * @create 2025-06-14
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrawJournalBenchmark {
+
+    private static final long STRATEGY_ID = 100001L;
+
+    @Param({"65536"})
+    private int bufferSize;
+
+    private Path directory;
+
+    private DrawJournal drawJournal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("draw-journal-benchmark");
+        // 保留4个256MB分段，限制压测占用的磁盘空间
+        drawJournal = new DrawJournal(directory, 256L * 1024 * 1024, bufferSize, 4, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        drawJournal.close();
+        System.out.println("写入记录数：" + drawJournal.written() + "，丢弃记录数：" + drawJournal.dropped());
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean appendDraw() {
+        return drawJournal.appendDraw(STRATEGY_ID, 4000, 1234, 102, "user001");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean appendDrawContended() {
+        return drawJournal.appendDraw(STRATEGY_ID, 4000, 1234, 102, "user001");
+    }
+
+}
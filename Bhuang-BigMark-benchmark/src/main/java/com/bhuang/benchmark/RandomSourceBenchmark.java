@@ -0,0 +1,87 @@
+package com.bhuang.benchmark;
+
+import com.bhuang.domain.strategy.service.armory.random.IRandomSource;
+import com.bhuang.domain.strategy.service.armory.random.SecureRandomSource;
+import com.bhuang.domain.strategy.service.armory.random.SplittableRandomSource;
+import com.bhuang.domain.strategy.service.armory.random.ThreadLocalRandomSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author bhuang
+ * @description 抽奖随机源对比，shared-secure 为改造前所有线程共享一个 SecureRandom 的基线
+ * 运行：java -jar Bhuang-BigMark-benchmark/target/benchmarks.jar RandomSourceBenchmark
+ * @create 2025-06-14
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomSourceBenchmark {
+
+    /** 与策略100001（最小概率0.0001）相同量级的概率范围 */
+    private static final int RATE_RANGE = 10000;
+
+    @Param({"thread-local", "splittable", "secure", "shared-secure"})
+    private String randomSource;
+
+    private IRandomSource random;
+
+    @Setup
+    public void setUp() {
+        switch (randomSource) {
+            case "thread-local":
+                random = new ThreadLocalRandomSource();
+                break;
+            case "splittable":
+                random = new SplittableRandomSource();
+                break;
+            case "secure":
+                random = new SecureRandomSource();
+                break;
+            default:
+                random = new SharedSecureRandomSource();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int nextInt() {
+        return random.nextInt(RATE_RANGE);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int nextIntContended() {
+        return random.nextInt(RATE_RANGE);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public double nextDoubleContended() {
+        return random.nextDouble();
+    }
+
+    /**
+     * 改造前的实现：所有线程共享一个 SecureRandom
+     */
+    private static class SharedSecureRandomSource implements IRandomSource {
+
+        private final SecureRandom secureRandom = new SecureRandom();
+
+        @Override
+        public int nextInt(int bound) {
+            return secureRandom.nextInt(bound);
+        }
+
+        @Override
+        public double nextDouble() {
+            return secureRandom.nextDouble();
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.bhuang.benchmark;
+
+import com.bhuang.benchmark.support.InMemoryStrategyRepository;
+import com.bhuang.benchmark.support.StrategyBenchmarkData;
+import com.bhuang.domain.strategy.service.armory.StrategyArmory;
+import com.bhuang.domain.strategy.service.armory.StrategyArmoryProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author bhuang
+ * @description 策略装配基准测试，策略100001最小概率0.0001，概率查找表为100万个槽位
+ * @create 2025-06-14
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class StrategyArmoryBenchmark {
+
+    @Param({"table", "alias"})
+    private String dispatchEngine;
+
+    private InMemoryStrategyRepository strategyRepository;
+
+    private StrategyArmory strategyArmory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+        armoryProperties.setDispatchEngine(dispatchEngine);
+        strategyRepository = new InMemoryStrategyRepository();
+        strategyRepository.putStrategyRule(StrategyBenchmarkData.ruleWeight());
+        strategyArmory = StrategyBenchmarkData.strategyArmory(strategyRepository, armoryProperties);
+    }
+
+    /**
+     * 装配会修改奖品概率，每次调用前重置奖品列表
+     */
+    @Setup(Level.Invocation)
+    public void resetStrategyAwardList() {
+        strategyRepository.putStrategyAwardList(StrategyBenchmarkData.STRATEGY_ID, StrategyBenchmarkData.strategyAwardList());
+    }
+
+    @Benchmark
+    public boolean assembleLotteryStrategy() {
+        return strategyArmory.assembleLotteryStrategy(StrategyBenchmarkData.STRATEGY_ID);
+    }
+
+}
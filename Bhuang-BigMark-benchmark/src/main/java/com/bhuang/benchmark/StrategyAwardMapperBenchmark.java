@@ -0,0 +1,45 @@
+package com.bhuang.benchmark;
+
+import com.bhuang.benchmark.support.StrategyBenchmarkData;
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.infrastructure.persistent.po.StrategyAward;
+import com.bhuang.infrastructure.persistent.utils.StrategyAwardMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author bhuang
+ * @description 策略奖品 PO 与领域实体互转基准测试
+ * @create 2025-06-14
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyAwardMapperBenchmark {
+
+    private List<StrategyAwardEntity> entityList;
+
+    private List<StrategyAward> poList;
+
+    @Setup
+    public void setUp() {
+        entityList = StrategyBenchmarkData.strategyAwardList();
+        poList = StrategyAwardMapper.toPOList(entityList);
+    }
+
+    @Benchmark
+    public List<StrategyAwardEntity> toEntityList() {
+        return StrategyAwardMapper.toEntityList(poList);
+    }
+
+    @Benchmark
+    public List<StrategyAward> toPOList() {
+        return StrategyAwardMapper.toPOList(entityList);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.bhuang.benchmark;
+
+import com.bhuang.benchmark.support.InMemoryStrategyRepository;
+import com.bhuang.benchmark.support.StrategyBenchmarkData;
+import com.bhuang.domain.strategy.service.armory.StrategyArmory;
+import com.bhuang.domain.strategy.service.armory.StrategyArmoryProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author bhuang
+ * @description 抽奖调度基准测试，localTableEnabled=false 时每次抽奖经由仓储按槽位查询
+ * @create 2025-06-14
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class StrategyDispatchBenchmark {
+
+    @Param({"table", "alias"})
+    private String dispatchEngine;
+
+    @Param({"true", "false"})
+    private boolean localTableEnabled;
+
+    @Param({"thread-local"})
+    private String randomSource;
+
+    private StrategyArmory strategyArmory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+        armoryProperties.setDispatchEngine(dispatchEngine);
+        armoryProperties.setLocalTableEnabled(localTableEnabled);
+        armoryProperties.setLocalTableCheckInterval(Long.MAX_VALUE);
+        armoryProperties.setRandomSource(randomSource);
+
+        InMemoryStrategyRepository strategyRepository = new InMemoryStrategyRepository();
+        strategyRepository.putStrategyAwardList(StrategyBenchmarkData.STRATEGY_ID, StrategyBenchmarkData.strategyAwardList());
+        strategyRepository.putStrategyRule(StrategyBenchmarkData.ruleWeight());
+        strategyArmory = StrategyBenchmarkData.strategyArmory(strategyRepository, armoryProperties);
+        strategyArmory.assembleLotteryStrategy(StrategyBenchmarkData.STRATEGY_ID);
+    }
+
+    @Benchmark
+    public Integer getRandomAwardId() {
+        return strategyArmory.getRandomAwardId(StrategyBenchmarkData.STRATEGY_ID);
+    }
+
+    @Benchmark
+    public Integer getRandomAwardIdByWeight() {
+        return strategyArmory.getRandomAwardId(StrategyBenchmarkData.STRATEGY_ID, "6000");
+    }
+
+    /**
+     * 百连抽，与100次单抽对比
+     */
+    @Benchmark
+    public List<Integer> getRandomAwardIds100() {
+        return strategyArmory.getRandomAwardIds(StrategyBenchmarkData.STRATEGY_ID, 100);
+    }
+
+}
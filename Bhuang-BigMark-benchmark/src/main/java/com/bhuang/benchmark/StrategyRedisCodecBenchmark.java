@@ -0,0 +1,134 @@
+package com.bhuang.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.bhuang.benchmark.support.StrategyBenchmarkData;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.infrastructure.persistent.po.StrategyAward;
+import com.bhuang.infrastructure.persistent.redis.codec.RedisCodecs;
+import com.bhuang.infrastructure.persistent.utils.StrategyAwardMapper;
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.*;
+import org.redisson.client.codec.Codec;
+import org.redisson.codec.JsonJacksonCodec;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author bhuang
+ * @description 策略缓存编解码基准测试 - 对比全局 JsonJacksonCodec 与按 Key 归类的编解码器
+ * 奖品列表原先为 fastjson 字符串再按 JSON 编码一次，规则原先按 JSON 编码并带类型信息，查找表槽位原先按 JSON 解析整数
+ * 启动时输出策略100001的数据在两种编码下的字节数
+ * 运行：java -jar Bhuang-BigMark-benchmark/target/benchmarks.jar StrategyRedisCodecBenchmark
+ * @create 2025-06-14
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyRedisCodecBenchmark {
+
+    private final Codec jsonCodec = new JsonJacksonCodec();
+
+    private List<StrategyAward> strategyAwardList;
+
+    private StrategyRuleEntity ruleWeight;
+
+    private ByteBuf awardListJson;
+    private ByteBuf awardListBinary;
+    private ByteBuf ruleJson;
+    private ByteBuf ruleBinary;
+    private ByteBuf slotJson;
+    private ByteBuf slotRaw;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        strategyAwardList = StrategyAwardMapper.toPOList(StrategyBenchmarkData.strategyAwardList());
+        ruleWeight = StrategyBenchmarkData.ruleWeight();
+
+        awardListJson = jsonCodec.getValueEncoder().encode(JSON.toJSONString(strategyAwardList));
+        awardListBinary = RedisCodecs.STRATEGY_AWARD_LIST.getValueEncoder().encode(strategyAwardList);
+        ruleJson = jsonCodec.getValueEncoder().encode(ruleWeight);
+        ruleBinary = RedisCodecs.STRATEGY_RULE.getValueEncoder().encode(ruleWeight);
+        slotJson = jsonCodec.getMapValueEncoder().encode(105);
+        slotRaw = RedisCodecs.RATE_TABLE.getMapValueEncoder().encode(105);
+
+        System.out.println("策略100001编码字节数，奖品列表：" + awardListJson.readableBytes() + " -> " + awardListBinary.readableBytes()
+                + "，权重规则：" + ruleJson.readableBytes() + " -> " + ruleBinary.readableBytes()
+                + "，查找表field：" + size(jsonCodec.getMapKeyEncoder().encode("9999")) + " -> " + size(RedisCodecs.RATE_TABLE.getMapKeyEncoder().encode("9999")));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        awardListJson.release();
+        awardListBinary.release();
+        ruleJson.release();
+        ruleBinary.release();
+        slotJson.release();
+        slotRaw.release();
+    }
+
+    @Benchmark
+    public int encodeAwardListJson() throws IOException {
+        return size(jsonCodec.getValueEncoder().encode(JSON.toJSONString(strategyAwardList)));
+    }
+
+    @Benchmark
+    public int encodeAwardListBinary() throws IOException {
+        return size(RedisCodecs.STRATEGY_AWARD_LIST.getValueEncoder().encode(strategyAwardList));
+    }
+
+    @Benchmark
+    public List<StrategyAward> decodeAwardListJson() throws IOException {
+        String cacheData = (String) jsonCodec.getValueDecoder().decode(awardListJson.readerIndex(0), null);
+        return JSON.parseArray(cacheData, StrategyAward.class);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<StrategyAward> decodeAwardListBinary() throws IOException {
+        return (List<StrategyAward>) RedisCodecs.STRATEGY_AWARD_LIST.getValueDecoder().decode(awardListBinary.readerIndex(0), null);
+    }
+
+    @Benchmark
+    public int encodeRuleJson() throws IOException {
+        return size(jsonCodec.getValueEncoder().encode(ruleWeight));
+    }
+
+    @Benchmark
+    public int encodeRuleBinary() throws IOException {
+        return size(RedisCodecs.STRATEGY_RULE.getValueEncoder().encode(ruleWeight));
+    }
+
+    @Benchmark
+    public Object decodeRuleJson() throws IOException {
+        return jsonCodec.getValueDecoder().decode(ruleJson.readerIndex(0), null);
+    }
+
+    @Benchmark
+    public Object decodeRuleBinary() throws IOException {
+        return RedisCodecs.STRATEGY_RULE.getValueDecoder().decode(ruleBinary.readerIndex(0), null);
+    }
+
+    @Benchmark
+    public Object decodeSlotJson() throws IOException {
+        return jsonCodec.getMapValueDecoder().decode(slotJson.readerIndex(0), null);
+    }
+
+    @Benchmark
+    public Object decodeSlotRaw() throws IOException {
+        return RedisCodecs.RATE_TABLE.getMapValueDecoder().decode(slotRaw.readerIndex(0), null);
+    }
+
+    private static int size(ByteBuf buf) {
+        try {
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.bhuang.benchmark;
+
+import com.bhuang.benchmark.support.StrategyBenchmarkData;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyRuleWeightVO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author bhuang
+ * @description 权重规则解析基准测试 - 对比每次解析规则值与预编译后按积分定位档位
+ * @create 2025-06-14
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyRuleEntityBenchmark {
+
+    private StrategyRuleEntity ruleWeight;
+
+    private StrategyRuleWeightVO parsedRuleWeight;
+
+    private long score;
+
+    @Setup
+    public void setUp() {
+        ruleWeight = StrategyBenchmarkData.ruleWeight();
+        parsedRuleWeight = StrategyRuleWeightVO.parse(ruleWeight.getRuleValue());
+    }
+
+    @Benchmark
+    public Map<String, String[]> getRuleWeightValues() {
+        return ruleWeight.getRuleWeightValues();
+    }
+
+    @Benchmark
+    public StrategyRuleWeightVO parseRuleWeight() {
+        return StrategyRuleWeightVO.parse(ruleWeight.getRuleValue());
+    }
+
+    /**
+     * 预编译后按积分定位档位，只有一次有序索引查找
+     */
+    @Benchmark
+    public StrategyRuleWeightVO.Tier resolveRuleWeight() {
+        score = (score + 997) % 8000;
+        return parsedRuleWeight.resolve(score);
+    }
+
+}
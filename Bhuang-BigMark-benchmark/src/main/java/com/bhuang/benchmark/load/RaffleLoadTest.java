@@ -0,0 +1,181 @@
+package com.bhuang.benchmark.load;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author bhuang
+ * @description 抽奖接口压测，按并发线程数逐级施压，以 POST 请求按规则链抽奖，输出每一级的吞吐量、平均耗时、P99 耗时与失败数
+ * 运行：
+ * 1. 以压测配置启动应用：java -jar Bhuang-BigMark-app.jar --spring.profiles.active=dev,loadtest
+ * 2. mvn -pl Bhuang-BigMark-benchmark -am package -DskipTests
+ * 3. java -cp Bhuang-BigMark-benchmark/target/benchmarks.jar com.bhuang.benchmark.load.RaffleLoadTest
+ *    [url=http://127.0.0.1:8091/api/v1/raffle/perform] [body={"strategyId":100001,"userId":"loadtest"}]
+ *    [threads=1,4,16,32,64,128,256] [duration=10] [warmup=3]
+ * 异步接口下并发线程数超过 Servlet 线程数（loadtest 配置为16）后吞吐量应继续上升，直到 Redis 或网络成为瓶颈
+ * @create 2025-06-14
+ */
+public class RaffleLoadTest {
+
+    private static final String SUCCESS = "\"code\":\"0000\"";
+
+    /** 耗时直方图桶宽（微秒）与桶数，超出部分计入最后一个桶 */
+    private static final int BUCKET_MICROS = 100;
+    private static final int BUCKETS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        String url = option(args, "url", "http://127.0.0.1:8091/api/v1/raffle/perform");
+        byte[] body = option(args, "body", "{\"strategyId\":100001,\"userId\":\"loadtest\"}").getBytes(StandardCharsets.UTF_8);
+        int[] threadCounts = Arrays.stream(option(args, "threads", "1,4,16,32,64,128,256").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        long duration = Long.parseLong(option(args, "duration", "10"));
+        long warmup = Long.parseLong(option(args, "warmup", "3"));
+
+        System.out.println("压测地址：" + url + "，每级持续：" + duration + "s，预热：" + warmup + "s");
+        System.out.printf("%8s %14s %12s %12s %10s%n", "threads", "throughput/s", "avg(ms)", "p99(ms)", "errors");
+        for (int threads : threadCounts) {
+            run(url, body, threads, warmup);
+            Result result = run(url, body, threads, duration);
+            System.out.printf("%8d %14.1f %12.2f %12.2f %10d%n", threads,
+                    result.requests / (double) duration,
+                    result.requests == 0 ? 0 : result.totalMicros / 1000.0 / result.requests,
+                    result.percentileMicros(0.99) / 1000.0,
+                    result.errors);
+        }
+    }
+
+    private static Result run(String url, byte[] body, int threads, long seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        LongAdder requests = new LongAdder();
+        LongAdder errors = new LongAdder();
+        LongAdder totalMicros = new LongAdder();
+        List<long[]> histograms = new ArrayList<>(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+            long[] histogram = new long[BUCKETS];
+            histograms.add(histogram);
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long startTime = System.nanoTime();
+                        boolean success = request(url, body);
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime);
+                        if (success) {
+                            requests.increment();
+                            totalMicros.add(micros);
+                            histogram[(int) Math.min(micros / BUCKET_MICROS, BUCKETS - 1)]++;
+                        } else {
+                            errors.increment();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "raffle-load-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+
+        long[] merged = new long[BUCKETS];
+        for (long[] histogram : histograms) {
+            for (int i = 0; i < BUCKETS; i++) {
+                merged[i] += histogram[i];
+            }
+        }
+        return new Result(requests.sum(), errors.sum(), totalMicros.sum(), merged);
+    }
+
+    /**
+     * 发送一次请求并读完应答，连接由 HttpURLConnection 复用（keep-alive）
+     */
+    private static boolean request(String url, byte[] body) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(3000);
+            connection.setReadTimeout(5000);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            if (connection.getResponseCode() != 200) {
+                drain(connection.getErrorStream());
+                return false;
+            }
+            return drain(connection.getInputStream()).contains(SUCCESS);
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return false;
+        }
+    }
+
+    private static String drain(InputStream inputStream) throws IOException {
+        if (inputStream == null) {
+            return "";
+        }
+        try (InputStream in = inputStream) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return defaultValue;
+    }
+
+    private static final class Result {
+
+        private final long requests;
+        private final long errors;
+        private final long totalMicros;
+        private final long[] histogram;
+
+        private Result(long requests, long errors, long totalMicros, long[] histogram) {
+            this.requests = requests;
+            this.errors = errors;
+            this.totalMicros = totalMicros;
+            this.histogram = histogram;
+        }
+
+        private long percentileMicros(double percentile) {
+            long threshold = (long) Math.ceil(requests * percentile);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= threshold && seen > 0) {
+                    return (long) (i + 1) * BUCKET_MICROS;
+                }
+            }
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,380 @@
+package com.bhuang.benchmark.support;
+
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyAwardStockFlushLagEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyBlacklistStatEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardAliasTableVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardStockDeductionVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardStockFlushBatchVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyDrawResultVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyRateTableSnapshotVO;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author bhuang
+ * @description 内存版策略仓储，替代 MySQL 与 Redis，使基准测试结果只反映领域层开销且可离线复现
+ * @create 2025-06-14
+ */
+public class InMemoryStrategyRepository implements IStrategyRepository {
+
+    private final Map<Long, StrategyEntity> strategies = new ConcurrentHashMap<>();
+    private final Map<Long, List<StrategyAwardEntity>> strategyAwards = new ConcurrentHashMap<>();
+    private final Map<String, StrategyRuleEntity> strategyRules = new ConcurrentHashMap<>();
+    /** key-策略ID或策略ID#权重值，value-当前版本的查找表快照 */
+    private final Map<String, StrategyRateTableSnapshotVO> searchRateTableSnapshots = new ConcurrentHashMap<>();
+    /** key-快照表Key#版本，value-查找表，下标 i 对应概率值 i + 1；切换版本后上一版本立即移除 */
+    private final Map<String, int[]> searchRateTables = new ConcurrentHashMap<>();
+    private final AtomicLong searchRateTableSeq = new AtomicLong();
+    private final Map<String, StrategyAwardAliasTableVO> aliasTables = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    /** key-策略ID#奖品ID，value-剩余库存 */
+    private final Map<String, AtomicLong> awardStocks = new ConcurrentHashMap<>();
+    /** key-策略ID，value-黑名单用户 */
+    private final Map<Long, Set<String>> blacklists = new ConcurrentHashMap<>();
+    /** key-策略ID#用户ID，value-抽奖次数 */
+    private final Map<String, AtomicLong> userRaffleCounts = new ConcurrentHashMap<>();
+    /** key-限流对象，value-请求数 */
+    private final Map<String, AtomicLong> rateLimitWindows = new ConcurrentHashMap<>();
+
+    public void putStrategyAwardList(Long strategyId, List<StrategyAwardEntity> strategyAwardList) {
+        strategyAwards.put(strategyId, strategyAwardList);
+    }
+
+    public void putStrategy(StrategyEntity strategy) {
+        strategies.put(strategy.getStrategyId(), strategy);
+    }
+
+    public void putStrategyRule(StrategyRuleEntity strategyRule) {
+        strategyRules.put(strategyRule.getStrategyId() + "#" + strategyRule.getRuleModel(), strategyRule);
+    }
+
+    @Override
+    public List<StrategyAwardEntity> queryStrategyAwardList(Long strategyId) {
+        return strategyAwards.get(strategyId);
+    }
+
+    @Override
+    public void evictStrategyCache(Long strategyId) {
+        // 数据只在内存中，没有需要清除的缓存
+    }
+
+    @Override
+    public Map<Long, List<StrategyAwardEntity>> queryAllStrategyAwardList() {
+        return new TreeMap<>(strategyAwards);
+    }
+
+    @Override
+    public StrategyEntity queryStrategyEntity(Long strategyId) {
+        return strategies.get(strategyId);
+    }
+
+    @Override
+    public StrategyRuleEntity queryStrategyRule(Long strategyId, String ruleModel) {
+        return strategyRules.get(strategyId + "#" + ruleModel);
+    }
+
+    @Override
+    public void storeStrategyAwardSearchRateTable(Long strategyId, int[] strategyAwardSearchRateTable) {
+        storeSearchRateTable(strategyId, null, strategyAwardSearchRateTable);
+    }
+
+    @Override
+    public void storeStrategyAwardSearchRateTableByWeight(Long strategyId, String ruleWeightValue, int[] strategyAwardSearchRateTable) {
+        storeSearchRateTable(strategyId, ruleWeightValue, strategyAwardSearchRateTable);
+    }
+
+    @Override
+    public Integer getStrategyAwardAssemble(Long strategyId, Integer rateKey) {
+        return slot(searchRateTable(strategyId, null), rateKey);
+    }
+
+    @Override
+    public Integer getStrategyAwardAssembleByWeight(Long strategyId, String ruleWeightValue, Integer rateKey) {
+        return slot(searchRateTable(strategyId, ruleWeightValue), rateKey);
+    }
+
+    @Override
+    public StrategyRateTableSnapshotVO queryStrategyRateTableSnapshot(Long strategyId, String ruleWeightValue) {
+        return searchRateTableSnapshots.get(tableKey(strategyId, ruleWeightValue));
+    }
+
+    @Override
+    public Integer getStrategyAwardAssemble(StrategyRateTableSnapshotVO snapshot, Integer rateKey) {
+        return slot(searchRateTables.get(versionedTableKey(snapshot)), rateKey);
+    }
+
+    @Override
+    public Map<Integer, Integer> getStrategyAwardAssembleBatch(StrategyRateTableSnapshotVO snapshot, Set<Integer> rateKeys) {
+        return slots(searchRateTables.get(versionedTableKey(snapshot)), rateKeys);
+    }
+
+    @Override
+    public Integer drawStrategyAward(Long strategyId, String ruleWeightValue, double random) {
+        int[] table = null == ruleWeightValue ? null : searchRateTable(strategyId, ruleWeightValue);
+        if (table == null) {
+            table = searchRateTable(strategyId, null);
+        }
+        return table == null ? null : table[(int) (random * table.length)];
+    }
+
+    @Override
+    public CompletableFuture<Integer> drawStrategyAwardAsync(Long strategyId, String ruleWeightValue, double random) {
+        return CompletableFuture.completedFuture(drawStrategyAward(strategyId, ruleWeightValue, random));
+    }
+
+    @Override
+    public StrategyDrawResultVO drawStrategyAwardAndCount(Long strategyId, String ruleWeightValue, double random, String userId) {
+        Integer awardId = drawStrategyAward(strategyId, ruleWeightValue, random);
+        if (awardId == null) {
+            return StrategyDrawResultVO.builder().build();
+        }
+        return StrategyDrawResultVO.builder()
+                .awardId(awardId)
+                .raffleCount(increaseUserRaffleCount(strategyId, userId, 1))
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<StrategyDrawResultVO> drawStrategyAwardAndCountAsync(Long strategyId, String ruleWeightValue, double random, String userId) {
+        return CompletableFuture.completedFuture(drawStrategyAwardAndCount(strategyId, ruleWeightValue, random, userId));
+    }
+
+    @Override
+    public int getRateRange(Long strategyId) {
+        StrategyRateTableSnapshotVO snapshot = queryStrategyRateTableSnapshot(strategyId, null);
+        return snapshot == null ? 0 : snapshot.getRateRange();
+    }
+
+    @Override
+    public int getRateRangeByWeight(Long strategyId, String ruleWeightValue) {
+        StrategyRateTableSnapshotVO snapshot = queryStrategyRateTableSnapshot(strategyId, ruleWeightValue);
+        return snapshot == null ? 0 : snapshot.getRateRange();
+    }
+
+    @Override
+    public int[] queryStrategyAwardSearchRateTable(Long strategyId) {
+        return searchRateTable(strategyId, null);
+    }
+
+    @Override
+    public int[] queryStrategyAwardSearchRateTableByWeight(Long strategyId, String ruleWeightValue) {
+        return searchRateTable(strategyId, ruleWeightValue);
+    }
+
+    @Override
+    public long queryStrategyArmoryVersion(Long strategyId) {
+        AtomicLong version = versions.get(strategyId);
+        return version == null ? 0 : version.get();
+    }
+
+    @Override
+    public long increaseStrategyArmoryVersion(Long strategyId) {
+        return versions.computeIfAbsent(strategyId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    @Override
+    public void storeStrategyAwardAliasTable(Long strategyId, StrategyAwardAliasTableVO aliasTable) {
+        aliasTables.put(tableKey(strategyId, null), aliasTable);
+    }
+
+    @Override
+    public void storeStrategyAwardAliasTableByWeight(Long strategyId, String ruleWeightValue, StrategyAwardAliasTableVO aliasTable) {
+        aliasTables.put(tableKey(strategyId, ruleWeightValue), aliasTable);
+    }
+
+    @Override
+    public StrategyAwardAliasTableVO queryStrategyAwardAliasTable(Long strategyId) {
+        return aliasTables.get(tableKey(strategyId, null));
+    }
+
+    @Override
+    public StrategyAwardAliasTableVO queryStrategyAwardAliasTableByWeight(Long strategyId, String ruleWeightValue) {
+        return aliasTables.get(tableKey(strategyId, ruleWeightValue));
+    }
+
+    @Override
+    public StrategyRuleEntity queryStrategyAwardRule(Long strategyId, Integer awardId, String ruleModel) {
+        return strategyRules.get(strategyId + "#" + awardId + "#" + ruleModel);
+    }
+
+    @Override
+    public void storeStrategyAwardStock(Long strategyId, List<StrategyAwardEntity> strategyAwardEntities) {
+        for (StrategyAwardEntity strategyAward : strategyAwardEntities) {
+            if (strategyAward.getAwardCountSurplus() != null) {
+                awardStocks.putIfAbsent(strategyId + "#" + strategyAward.getAwardId(), new AtomicLong(Math.max(0, strategyAward.getAwardCountSurplus())));
+            }
+        }
+    }
+
+    @Override
+    public long subtractStrategyAwardStock(Long strategyId, Integer awardId) {
+        AtomicLong stock = awardStocks.get(strategyId + "#" + awardId);
+        if (stock == null) {
+            return -1L;
+        }
+        long current;
+        do {
+            current = stock.get();
+            if (current <= 0) {
+                return -1L;
+            }
+        } while (!stock.compareAndSet(current, current - 1));
+        return current - 1;
+    }
+
+    @Override
+    public CompletableFuture<Long> subtractStrategyAwardStockAsync(Long strategyId, Integer awardId) {
+        return CompletableFuture.completedFuture(subtractStrategyAwardStock(strategyId, awardId));
+    }
+
+    @Override
+    public long queryStrategyAwardStock(Long strategyId, Integer awardId) {
+        AtomicLong stock = awardStocks.get(strategyId + "#" + awardId);
+        return stock == null ? -1L : stock.get();
+    }
+
+    @Override
+    public boolean tryLockStrategyAwardStockFlush() {
+        return true;
+    }
+
+    @Override
+    public void unlockStrategyAwardStockFlush() {
+    }
+
+    /** 基准测试不回写数据库，扣减不入队 */
+    @Override
+    public StrategyAwardStockFlushBatchVO takeStrategyAwardStockDeductions(int maxCount) {
+        return StrategyAwardStockFlushBatchVO.builder().deductions(Collections.emptyList()).build();
+    }
+
+    @Override
+    public boolean updateStrategyAwardStockSurplus(String flushId, List<StrategyAwardStockDeductionVO> deductions) {
+        return true;
+    }
+
+    @Override
+    public void ackStrategyAwardStockDeductions() {
+    }
+
+    @Override
+    public StrategyAwardStockFlushLagEntity queryStrategyAwardStockFlushLag() {
+        return new StrategyAwardStockFlushLagEntity();
+    }
+
+    /** 内存中直接用集合精确判断，不经过布隆过滤器 */
+    @Override
+    public long storeStrategyBlacklist(Long strategyId, Collection<String> userIds) {
+        blacklists.put(strategyId, new HashSet<>(userIds));
+        return userIds.size();
+    }
+
+    @Override
+    public boolean isStrategyBlacklisted(Long strategyId, String userId) {
+        Set<String> blacklist = blacklists.get(strategyId);
+        return blacklist != null && blacklist.contains(userId);
+    }
+
+    /** 内存中只保留一个版本 */
+    @Override
+    public Long queryStrategyBlacklistVersion(Long strategyId) {
+        return blacklists.containsKey(strategyId) ? 1L : null;
+    }
+
+    @Override
+    public boolean isStrategyBlacklisted(Long strategyId, long version, String userId) {
+        return isStrategyBlacklisted(strategyId, userId);
+    }
+
+    @Override
+    public StrategyBlacklistStatEntity queryStrategyBlacklistStat(Long strategyId) {
+        return StrategyBlacklistStatEntity.builder().strategyId(strategyId).build();
+    }
+
+    @Override
+    public long increaseUserRaffleCount(Long strategyId, String userId, long delta) {
+        return userRaffleCounts.computeIfAbsent(strategyId + "#" + userId, key -> new AtomicLong()).addAndGet(delta);
+    }
+
+    @Override
+    public Map<String, Long> increaseUserRaffleCounts(Long strategyId, Map<String, Long> deltas) {
+        Map<String, Long> raffleCounts = new HashMap<>();
+        deltas.forEach((userId, delta) -> raffleCounts.put(userId, increaseUserRaffleCount(strategyId, userId, delta)));
+        return raffleCounts;
+    }
+
+    @Override
+    public Map<String, Long> increaseRateLimitWindow(Map<String, Long> deltas, long windowMillis, int windowSlots) {
+        // 单节点内存仓储：窗口总数即本节点累计，不按时间滑动
+        Map<String, Long> windowCounts = new HashMap<>();
+        deltas.forEach((limiterKey, delta) -> windowCounts.put(limiterKey,
+                rateLimitWindows.computeIfAbsent(limiterKey, key -> new AtomicLong()).addAndGet(delta)));
+        return windowCounts;
+    }
+
+    @Override
+    public Map<String, Long> queryUserRaffleCounts(Long strategyId, List<String> userIds) {
+        Map<String, Long> raffleCounts = new HashMap<>();
+        for (String userId : userIds) {
+            AtomicLong raffleCount = userRaffleCounts.get(strategyId + "#" + userId);
+            raffleCounts.put(userId, raffleCount == null ? 0L : raffleCount.get());
+        }
+        return raffleCounts;
+    }
+
+    private static String tableKey(Long strategyId, String ruleWeightValue) {
+        return null == ruleWeightValue ? String.valueOf(strategyId) : strategyId + "#" + ruleWeightValue;
+    }
+
+    private static String versionedTableKey(StrategyRateTableSnapshotVO snapshot) {
+        return tableKey(snapshot.getStrategyId(), snapshot.getRuleWeightValue()) + "#" + snapshot.getVersion();
+    }
+
+    private void storeSearchRateTable(Long strategyId, String ruleWeightValue, int[] strategyAwardSearchRateTable) {
+        StrategyRateTableSnapshotVO snapshot = StrategyRateTableSnapshotVO.builder()
+                .strategyId(strategyId)
+                .ruleWeightValue(ruleWeightValue)
+                .version(searchRateTableSeq.incrementAndGet())
+                .rateRange(strategyAwardSearchRateTable.length)
+                .build();
+        searchRateTables.put(versionedTableKey(snapshot), strategyAwardSearchRateTable);
+        StrategyRateTableSnapshotVO previous = searchRateTableSnapshots.put(tableKey(strategyId, ruleWeightValue), snapshot);
+        if (previous != null) {
+            searchRateTables.remove(versionedTableKey(previous));
+        }
+    }
+
+    private int[] searchRateTable(Long strategyId, String ruleWeightValue) {
+        StrategyRateTableSnapshotVO snapshot = queryStrategyRateTableSnapshot(strategyId, ruleWeightValue);
+        return snapshot == null ? null : searchRateTables.get(versionedTableKey(snapshot));
+    }
+
+    private Integer slot(int[] table, Integer rateKey) {
+        return table == null ? null : table[rateKey - 1];
+    }
+
+    private Map<Integer, Integer> slots(int[] table, Set<Integer> rateKeys) {
+        Map<Integer, Integer> awardIds = new HashMap<>(rateKeys.size() * 4 / 3 + 1);
+        if (table != null) {
+            for (Integer rateKey : rateKeys) {
+                awardIds.put(rateKey, table[rateKey - 1]);
+            }
+        }
+        return awardIds;
+    }
+
+}
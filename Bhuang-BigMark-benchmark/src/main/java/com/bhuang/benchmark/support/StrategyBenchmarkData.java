@@ -0,0 +1,87 @@
+package com.bhuang.benchmark.support;
+
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.armory.StrategyArmory;
+import com.bhuang.domain.strategy.service.armory.StrategyArmoryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author bhuang
+ * @description 基准测试数据，与 docs/dev-ops/mysql/sql/big-market.sql 中策略100001的配置一致
+ * @create 2025-06-14
+ */
+public class StrategyBenchmarkData {
+
+    public static final Long STRATEGY_ID = 100001L;
+
+    public static final String RULE_WEIGHT_VALUE = "4000:102,103 6000:102,103,104,105,106,107,108,109";
+
+    private static final int[] AWARD_IDS = {101, 102, 103, 104, 105, 106, 107, 108, 109};
+    private static final String[] AWARD_RATES = {"80.0000", "10.0000", "5.0000", "4.0000", "0.6000", "0.2000", "0.1000", "0.0999", "0.0001"};
+    private static final String[] RULE_MODELS = {"rule_random,rule_luck_award", "rule_luck_award", "rule_luck_award", "rule_luck_award",
+            "rule_luck_award", "rule_luck_award", "rule_lock,rule_luck_award", "rule_lock,rule_luck_award", "rule_lock,rule_luck_award"};
+
+    private StrategyBenchmarkData() {
+    }
+
+    /**
+     * 策略奖品列表，每次返回新实例，避免装配过程修改概率影响下一次装配
+     */
+    public static List<StrategyAwardEntity> strategyAwardList() {
+        List<StrategyAwardEntity> strategyAwardList = new ArrayList<>(AWARD_IDS.length);
+        for (int i = 0; i < AWARD_IDS.length; i++) {
+            strategyAwardList.add(StrategyAwardEntity.builder()
+                    .strategyId(STRATEGY_ID)
+                    .awardId(AWARD_IDS[i])
+                    .awardTitle("奖品" + AWARD_IDS[i])
+                    .awardCount(10000)
+                    .awardCountSurplus(10000)
+                    .awardRate(new BigDecimal(AWARD_RATES[i]))
+                    .ruleModels(RULE_MODELS[i])
+                    .sort(i + 1)
+                    .build());
+        }
+        return strategyAwardList;
+    }
+
+    public static StrategyRuleEntity ruleWeight() {
+        return StrategyRuleEntity.builder()
+                .strategyId(STRATEGY_ID)
+                .ruleType(1)
+                .ruleModel("rule_weight")
+                .ruleValue(RULE_WEIGHT_VALUE)
+                .ruleDesc("权重规则，不同积分对应不同奖品范围")
+                .build();
+    }
+
+    /**
+     * 构建策略装配库，按 Spring 注入方式设置依赖
+     */
+    public static StrategyArmory strategyArmory(IStrategyRepository strategyRepository, StrategyArmoryProperties armoryProperties) {
+        StrategyArmory strategyArmory = new StrategyArmory();
+        inject(strategyArmory, "strategyRepository", strategyRepository);
+        inject(strategyArmory, "armoryProperties", armoryProperties);
+        inject(strategyArmory, "meterRegistry", new SimpleMeterRegistry());
+        inject(strategyArmory, "drawJournalRepository", IDrawJournalRepository.NONE);
+        return strategyArmory;
+    }
+
+    private static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("注入依赖失败：" + fieldName, e);
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.bhuang.domain.strategy.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 抽奖结果实体
+ * @author bhuang
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RaffleAwardEntity {
+
+    /** 策略ID */
+    private Long strategyId;
+    /** 奖品ID */
+    private Integer awardId;
+    /** 奖品配置，兜底奖品为 rule_luck_award 的配置值（如积分范围 1,100） */
+    private String awardConfig;
+    /** 是否为抽中奖品售罄后发放的兜底奖品 */
+    private boolean luckAward;
+    /** 接管本次抽奖结果的规则模型，如 rule_blacklist、rule_luck_award；正常抽中时为null */
+    private String ruleModel;
+}
@@ -0,0 +1,26 @@
+package com.bhuang.domain.strategy.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 抽奖因子实体
+ * @author bhuang
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RaffleFactorEntity {
+
+    /** 用户ID */
+    private String userId;
+    /** 策略ID */
+    private Long strategyId;
+    /** 用户累计积分，用于定位权重档位；为null时按普通策略抽奖 */
+    private Long score;
+    /** 用户已完成的抽奖次数，用于 rule_lock 解锁判断；为null时由引擎在抽奖时累加并读取，未提供用户ID时按0处理 */
+    private Long raffleCount;
+}
@@ -0,0 +1,28 @@
+package com.bhuang.domain.strategy.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 抽奖限流统计实体，本节点启动以来的累计值
+ * @author bhuang
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RaffleRateLimitStatEntity {
+
+    /** 策略ID */
+    private Long strategyId;
+    /** 放行的请求数 */
+    private long allowed;
+    /** 被用户令牌桶拒绝的请求数 */
+    private long rejectedByUser;
+    /** 被策略令牌桶拒绝的请求数 */
+    private long rejectedByStrategy;
+    /** 集群窗口超限被拒绝的请求数 */
+    private long rejectedByWindow;
+}
@@ -0,0 +1,34 @@
+package com.bhuang.domain.strategy.model.entity;
+
+import com.bhuang.domain.strategy.model.valobj.RuleLogicCheckTypeVO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 规则过滤结果实体
+ * @author bhuang
+ */
+@Getter
+@AllArgsConstructor
+public class RuleActionEntity {
+
+    /** 放行结果不携带数据，共用同一实例 */
+    private static final RuleActionEntity ALLOW = new RuleActionEntity(RuleLogicCheckTypeVO.ALLOW, null);
+
+    /** 过滤结果 */
+    private final RuleLogicCheckTypeVO action;
+    /** 接管时的抽奖结果，为null表示抽奖失败 */
+    private final RaffleAwardEntity raffleAward;
+
+    public static RuleActionEntity allow() {
+        return ALLOW;
+    }
+
+    public static RuleActionEntity takeOver(RaffleAwardEntity raffleAward) {
+        return new RuleActionEntity(RuleLogicCheckTypeVO.TAKE_OVER, raffleAward);
+    }
+
+    public boolean isTakeOver() {
+        return RuleLogicCheckTypeVO.TAKE_OVER == action;
+    }
+}
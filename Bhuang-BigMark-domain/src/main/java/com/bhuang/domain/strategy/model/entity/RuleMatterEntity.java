@@ -0,0 +1,30 @@
+package com.bhuang.domain.strategy.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 规则过滤物料，在一次抽奖的各规则阶段间传递；前置规则可调整抽奖参数，抽奖后填入抽中的奖品
+ * @author bhuang
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleMatterEntity {
+
+    /** 用户ID */
+    private String userId;
+    /** 策略ID */
+    private Long strategyId;
+    /** 用户累计积分，为null时不按权重抽奖 */
+    private Long score;
+    /** 用户已完成的抽奖次数，用于 rule_lock 解锁判断 */
+    private long raffleCount;
+    /** 权重规则值，由 rule_weight 按积分定位后填入 */
+    private String ruleWeightValue;
+    /** 抽中的奖品ID，抽奖后填入 */
+    private Integer awardId;
+}
@@ -0,0 +1,35 @@
+package com.bhuang.domain.strategy.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 规则阶段耗时统计实体
+ * @author bhuang
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleStageStatEntity {
+
+    /** 策略ID */
+    private Long strategyId;
+    /** 阶段：规则模型编码，或 draw（抽奖）、stock（无 rule_luck_award 奖品的库存扣减） */
+    private String stage;
+    /** 本节点执行次数 */
+    private long invocations;
+    /** 本节点接管次数 */
+    private long takeOvers;
+    /** 本节点累计耗时（纳秒） */
+    private long totalNanos;
+
+    /**
+     * @return 单次执行平均耗时（微秒）
+     */
+    public double getAverageMicros() {
+        return invocations == 0 ? 0 : totalNanos / 1000.0 / invocations;
+    }
+}
@@ -13,7 +13,7 @@ import java.util.Date;
  * @author bhuang
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class StrategyAwardEntity {
@@ -0,0 +1,40 @@
+package com.bhuang.domain.strategy.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 奖品库存回写延迟实体
+ * @author bhuang
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrategyAwardStockFlushLagEntity {
+
+    /** 回写队列中等待回写的扣减记录数 */
+    private long pendingCount;
+    /** 已领取、尚未确认回写成功的扣减记录数 */
+    private long inFlightCount;
+    /** 最早一条未回写扣减记录的扣减时间（毫秒时间戳），没有未回写记录时为0 */
+    private long oldestDeductTime;
+    /** 本节点最近一次回写时间（毫秒时间戳），未回写过时为0 */
+    private long lastFlushTime;
+    /** 本节点最近一次回写的扣减记录数 */
+    private long lastFlushCount;
+    /** 本节点累计回写的扣减记录数 */
+    private long totalFlushCount;
+
+    /**
+     * @return 回写延迟（毫秒），即最早一条未回写扣减记录距今的时间，没有未回写记录时为0
+     */
+    public long getLagMillis() {
+        if (oldestDeductTime == 0) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - oldestDeductTime);
+    }
+}
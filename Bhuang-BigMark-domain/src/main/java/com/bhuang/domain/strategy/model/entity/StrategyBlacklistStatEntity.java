@@ -0,0 +1,53 @@
+package com.bhuang.domain.strategy.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 黑名单过滤统计实体
+ * @author bhuang
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrategyBlacklistStatEntity {
+
+    /** 策略ID */
+    private Long strategyId;
+    /** 当前生效的黑名单版本，未装配时为0 */
+    private long version;
+    /** 布隆过滤器预期元素数 */
+    private long expectedInsertions;
+    /** 布隆过滤器预期误判率 */
+    private double falseProbability;
+    /** 布隆过滤器位数 */
+    private long size;
+    /** 布隆过滤器哈希次数 */
+    private int hashIterations;
+    /** 本节点检查次数 */
+    private long checks;
+    /** 本节点布隆过滤器命中次数 */
+    private long bloomPositives;
+    /** 本节点精确确认命中次数 */
+    private long confirmedPositives;
+    /** 本节点检查累计耗时（纳秒） */
+    private long checkNanos;
+
+    /**
+     * @return 实测误判率：布隆过滤器命中但精确确认不在黑名单的次数 / 不在黑名单的检查次数
+     */
+    public double getObservedFalsePositiveRate() {
+        long negatives = checks - confirmedPositives;
+        return negatives <= 0 ? 0 : (double) (bloomPositives - confirmedPositives) / negatives;
+    }
+
+    /**
+     * @return 单次检查平均耗时（微秒）
+     */
+    public double getAverageCheckMicros() {
+        return checks == 0 ? 0 : checkNanos / 1000.0 / checks;
+    }
+}
@@ -0,0 +1,47 @@
+package com.bhuang.domain.strategy.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 抽奖策略实体
+ * @author bhuang
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrategyEntity {
+
+    /** 抽奖策略ID */
+    private Long strategyId;
+    /** 抽奖策略描述 */
+    private String strategyDesc;
+    /** 规则模型，多个以逗号分隔，如 rule_weight,rule_blacklist */
+    private String ruleModels;
+
+    /**
+     * @return 规则模型列表，未配置时返回空数组
+     */
+    public String[] ruleModels() {
+        return splitRuleModels(ruleModels);
+    }
+
+    /**
+     * 拆分逗号分隔的规则模型
+     * @param ruleModels 规则模型
+     * @return 规则模型列表，未配置时返回空数组
+     */
+    public static String[] splitRuleModels(String ruleModels) {
+        if (ruleModels == null || ruleModels.trim().isEmpty()) {
+            return new String[0];
+        }
+        String[] split = ruleModels.split(",");
+        for (int i = 0; i < split.length; i++) {
+            split[i] = split[i].trim();
+        }
+        return split;
+    }
+}
@@ -14,7 +14,7 @@ import java.util.Map;
  * @create 2025-06-13
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 public class StrategyRuleEntity {
@@ -36,6 +36,7 @@ public class StrategyRuleEntity {
      * 获取权重值配置映射
      * 将权重规则值解析为权重值和奖品ID列表的映射
      * 例如：6000:102,103,104,105 -> {6000: [102,103,104,105]}
+     * 每次调用都重新解析，装配与抽奖请使用 StrategyRuleWeightVO
      * @return 权重值配置映射
      */
     public Map<String, String[]> getRuleWeightValues() {
@@ -71,4 +72,18 @@ public class StrategyRuleEntity {
         Map<String, String[]> ruleWeightValues = getRuleWeightValues();
         return ruleWeightValues.get(weightValue);
     }
+
+    /**
+     * 解析兜底奖品规则值中的奖品ID
+     * 格式：{awardId}:{awardConfig}，如 101:1,100；只有配置（如 1,100）时未指定奖品ID
+     * @return 兜底奖品ID，未指定时返回null
+     * @throws NumberFormatException 奖品ID不是整数，如 abc:1,100
+     */
+    public Integer parseLuckAwardId() {
+        int separator = ruleValue == null ? -1 : ruleValue.indexOf(':');
+        if (separator <= 0) {
+            return null;
+        }
+        return Integer.valueOf(ruleValue.substring(0, separator).trim());
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.bhuang.domain.strategy.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 策略预热装配进度实体
+ * @author bhuang
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrategyWarmUpProgressEntity {
+
+    /** 是否正在预热 */
+    private boolean running;
+    /** 策略总数 */
+    private int total;
+    /** 已完成数 */
+    private int completed;
+    /** 装配成功数 */
+    private int succeeded;
+    /** 装配失败数 */
+    private int failed;
+    /** 开始时间（毫秒时间戳） */
+    private long startTime;
+    /** 结束时间（毫秒时间戳），未结束时为0 */
+    private long endTime;
+    /** 每个策略的装配耗时（毫秒），key-策略ID */
+    private Map<Long, Long> strategyCostMillis;
+    /** 装配失败的策略ID */
+    private List<Long> failedStrategyIds;
+
+    /**
+     * @return 预热耗时（毫秒），未结束时为已用时间
+     */
+    public long getCostMillis() {
+        if (startTime == 0) {
+            return 0;
+        }
+        return (endTime == 0 ? System.currentTimeMillis() : endTime) - startTime;
+    }
+}
@@ -0,0 +1,36 @@
+package com.bhuang.domain.strategy.model.valobj;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * @author bhuang
+ * @description 抽奖调度引擎
+ * @create 2025-06-13
+ */
+@Getter
+@AllArgsConstructor
+public enum DispatchEngineVO {
+
+    TABLE("table", "概率查找表，按最小概率展开为 总概率/最小概率 个槽位"),
+    ALIAS("alias", "Vose别名表，大小与奖品数量一致，与概率精度无关"),
+    SCRIPT("script", "概率查找表，由 Redis Lua 脚本在服务端一次往返完成抽奖，适用于不保留本地查找表的节点；要求 Redis 单节点部署"),
+    ;
+
+    private final String code;
+    private final String info;
+
+    /**
+     * 按编码获取调度引擎，未知编码返回概率查找表
+     * @param code 编码
+     * @return 调度引擎
+     */
+    public static DispatchEngineVO of(String code) {
+        for (DispatchEngineVO engine : values()) {
+            if (engine.code.equalsIgnoreCase(code)) {
+                return engine;
+            }
+        }
+        return TABLE;
+    }
+}
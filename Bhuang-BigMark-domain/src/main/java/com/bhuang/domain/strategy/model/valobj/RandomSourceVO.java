@@ -0,0 +1,36 @@
+package com.bhuang.domain.strategy.model.valobj;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * @author bhuang
+ * @description 抽奖随机源
+ * @create 2025-06-14
+ */
+@Getter
+@AllArgsConstructor
+public enum RandomSourceVO {
+
+    THREAD_LOCAL("thread-local", "ThreadLocalRandom，开销最低"),
+    SPLITTABLE("splittable", "线程私有 SplittableRandom，统计质量更好"),
+    SECURE("secure", "线程私有并定期补充种子的 SecureRandom，适用于需要审计的活动"),
+    ;
+
+    private final String code;
+    private final String info;
+
+    /**
+     * 按编码获取随机源，未知编码返回 ThreadLocalRandom
+     * @param code 编码
+     * @return 随机源
+     */
+    public static RandomSourceVO of(String code) {
+        for (RandomSourceVO randomSource : values()) {
+            if (randomSource.code.equalsIgnoreCase(code)) {
+                return randomSource;
+            }
+        }
+        return THREAD_LOCAL;
+    }
+}
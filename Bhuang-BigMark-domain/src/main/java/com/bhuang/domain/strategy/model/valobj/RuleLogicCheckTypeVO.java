@@ -0,0 +1,21 @@
+package com.bhuang.domain.strategy.model.valobj;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * @author bhuang
+ * @description 规则过滤结果
+ * @create 2025-06-14
+ */
+@Getter
+@AllArgsConstructor
+public enum RuleLogicCheckTypeVO {
+
+    ALLOW("0000", "放行，继续执行后续规则"),
+    TAKE_OVER("0001", "接管，后续规则不再执行，以规则给出的奖品作为抽奖结果"),
+    ;
+
+    private final String code;
+    private final String info;
+}
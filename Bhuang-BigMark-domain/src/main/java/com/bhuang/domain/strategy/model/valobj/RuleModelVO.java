@@ -0,0 +1,38 @@
+package com.bhuang.domain.strategy.model.valobj;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * @author bhuang
+ * @description 规则模型，同一阶段内按枚举声明顺序执行，与库表中规则模型的书写顺序无关
+ * @create 2025-06-14
+ */
+@Getter
+@AllArgsConstructor
+public enum RuleModelVO {
+
+    RULE_BLACKLIST("rule_blacklist", RuleStageVO.PRE_DRAW, "黑名单用户直接发放黑名单奖品"),
+    RULE_WEIGHT("rule_weight", RuleStageVO.PRE_DRAW, "按用户累计积分定位权重档位，在档位内抽奖"),
+    RULE_LOCK("rule_lock", RuleStageVO.POST_DRAW, "抽奖次数未达到规则值时奖品未解锁，发放兜底奖品"),
+    RULE_LUCK_AWARD("rule_luck_award", RuleStageVO.POST_DRAW, "扣减奖品库存，售罄时发放兜底奖品"),
+    ;
+
+    private final String code;
+    private final RuleStageVO stage;
+    private final String info;
+
+    /**
+     * 按编码获取规则模型
+     * @param code 编码
+     * @return 规则模型，引擎不处理的编码（如 rule_random）返回null
+     */
+    public static RuleModelVO of(String code) {
+        for (RuleModelVO ruleModel : values()) {
+            if (ruleModel.code.equals(code)) {
+                return ruleModel;
+            }
+        }
+        return null;
+    }
+}
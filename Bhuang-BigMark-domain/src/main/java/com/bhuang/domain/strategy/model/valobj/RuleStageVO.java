@@ -0,0 +1,21 @@
+package com.bhuang.domain.strategy.model.valobj;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * @author bhuang
+ * @description 规则执行阶段
+ * @create 2025-06-14
+ */
+@Getter
+@AllArgsConstructor
+public enum RuleStageVO {
+
+    PRE_DRAW("pre_draw", "抽奖前，按策略配置的规则模型执行，可接管抽奖或调整抽奖参数"),
+    POST_DRAW("post_draw", "抽奖后，按抽中奖品配置的规则模型执行，可替换抽中的奖品"),
+    ;
+
+    private final String code;
+    private final String info;
+}
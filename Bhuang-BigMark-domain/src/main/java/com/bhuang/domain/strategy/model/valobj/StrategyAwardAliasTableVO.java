@@ -0,0 +1,98 @@
+package com.bhuang.domain.strategy.model.valobj;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author bhuang
+ * @description 策略奖品别名表（Vose Alias Method）
+ * 每个奖品占一列，抽奖时随机选列，再用一次均匀随机数在该列奖品与其别名奖品之间二选一，O(1) 完成抽奖
+ * @create 2025-06-13
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrategyAwardAliasTableVO {
+
+    /** 每列对应的奖品ID */
+    private int[] awardIds;
+    /** 每列保留本列奖品的概率 */
+    private double[] probabilities;
+    /** 每列的别名列下标 */
+    private int[] aliases;
+
+    /**
+     * 构建别名表
+     * @param awardIds 奖品ID
+     * @param weights 奖品权重，无需归一化
+     * @return 别名表
+     */
+    public static StrategyAwardAliasTableVO create(int[] awardIds, double[] weights) {
+        int n = awardIds.length;
+        double totalWeight = 0;
+        for (double weight : weights) {
+            totalWeight += weight;
+        }
+
+        // 按列数缩放，平均值为1；小于1的列需要借用别名列补齐
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / totalWeight;
+            if (scaled[i] < 1.0) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+
+        double[] probabilities = new double[n];
+        int[] aliases = new int[n];
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // 剩余列（含浮点误差导致的残留）概率视为1
+        while (largeSize > 0) {
+            int more = large[--largeSize];
+            probabilities[more] = 1.0;
+            aliases[more] = more;
+        }
+        while (smallSize > 0) {
+            int less = small[--smallSize];
+            probabilities[less] = 1.0;
+            aliases[less] = less;
+        }
+
+        return new StrategyAwardAliasTableVO(awardIds, probabilities, aliases);
+    }
+
+    /**
+     * 抽奖
+     * @param column 随机列，范围 [0, 列数)
+     * @param coin 均匀随机数，范围 [0, 1)
+     * @return 奖品ID
+     */
+    public int sample(int column, double coin) {
+        return coin < probabilities[column] ? awardIds[column] : awardIds[aliases[column]];
+    }
+
+    /**
+     * @return 列数，即奖品数量
+     */
+    public int columns() {
+        return awardIds.length;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bhuang.domain.strategy.model.valobj;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author bhuang
+ * @description 奖品库存扣减记录，抽奖时在 Redis 中扣减并入队，由定时任务合并后批量回写数据库
+ * @create 2025-06-14
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrategyAwardStockDeductionVO {
+
+    /** 策略ID */
+    private Long strategyId;
+    /** 奖品ID */
+    private Integer awardId;
+    /** 扣减数量，队列中每条记录为1，合并后为同一策略奖品的扣减次数 */
+    private int quantity;
+    /** 扣减时间（毫秒时间戳），合并后为最早一次扣减的时间 */
+    private long deductTime;
+
+}
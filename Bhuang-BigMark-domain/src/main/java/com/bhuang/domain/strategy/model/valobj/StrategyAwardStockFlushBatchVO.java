@@ -0,0 +1,26 @@
+package com.bhuang.domain.strategy.model.valobj;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * @author bhuang
+ * @description 一批待回写的奖品库存扣减记录，批次未确认前重复领取得到相同的批次ID，回写数据库时据此去重
+ * @create 2025-06-14
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrategyAwardStockFlushBatchVO {
+
+    /** 回写批次ID，没有待回写记录时为null */
+    private String flushId;
+    /** 扣减记录，没有待回写记录时为空列表 */
+    private List<StrategyAwardStockDeductionVO> deductions;
+
+}
@@ -0,0 +1,27 @@
+package com.bhuang.domain.strategy.model.valobj;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author bhuang
+ * @description 策略黑名单快照：规则中的奖品ID与当前生效的黑名单版本
+ * 黑名单在装配时切换版本，随后才递增装配版本号，规则链按装配版本号编译时读取一次快照，抽奖时直接按快照中的版本检查
+ * @create 2025-06-14
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrategyBlacklistSnapshotVO {
+
+    /** 策略ID */
+    private Long strategyId;
+    /** 命中黑名单时发放的奖品ID */
+    private Integer awardId;
+    /** 黑名单版本号 */
+    private long version;
+
+}
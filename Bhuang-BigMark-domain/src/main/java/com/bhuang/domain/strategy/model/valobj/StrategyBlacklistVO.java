@@ -0,0 +1,70 @@
+package com.bhuang.domain.strategy.model.valobj;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author bhuang
+ * @description 黑名单规则，规则值格式 {awardId}，如 1；黑名单用户维护在 strategy_blacklist 表中，装配时分页读取
+ * 兼容旧格式 {awardId}:{userId},{userId}，如 101:user001,user002，其中的用户与表中的用户合并生效；规则值长度有限，大名单只应放在表中
+ * 命中黑名单的用户直接发放规则中的奖品，不再进入抽奖
+ * @create 2025-06-14
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrategyBlacklistVO {
+
+    /** 命中黑名单时发放的奖品ID */
+    private Integer awardId;
+    /** 规则值中配置的黑名单用户ID，只配置奖品ID时为空 */
+    private List<String> userIds;
+
+    /**
+     * 解析黑名单规则值
+     * @param ruleValue 规则值
+     * @return 黑名单规则，规则值为空时返回null
+     */
+    public static StrategyBlacklistVO parse(String ruleValue) {
+        Integer awardId = parseAwardId(ruleValue);
+        if (awardId == null) {
+            return null;
+        }
+        int separator = ruleValue.indexOf(':');
+        if (separator < 0) {
+            return new StrategyBlacklistVO(awardId, Collections.emptyList());
+        }
+        List<String> userIds = new ArrayList<>();
+        for (String userId : ruleValue.substring(separator + 1).split(",")) {
+            String trimmed = userId.trim();
+            if (!trimmed.isEmpty()) {
+                userIds.add(trimmed);
+            }
+        }
+        return new StrategyBlacklistVO(awardId, userIds);
+    }
+
+    /**
+     * 只解析规则值中的奖品ID，不拆分用户列表，供抽奖路径使用
+     * @param ruleValue 规则值
+     * @return 奖品ID，规则值为空或格式不正确时返回null
+     */
+    public static Integer parseAwardId(String ruleValue) {
+        if (ruleValue == null) {
+            return null;
+        }
+        int separator = ruleValue.indexOf(':');
+        String awardId = (separator < 0 ? ruleValue : ruleValue.substring(0, separator)).trim();
+        try {
+            return awardId.isEmpty() ? null : Integer.valueOf(awardId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
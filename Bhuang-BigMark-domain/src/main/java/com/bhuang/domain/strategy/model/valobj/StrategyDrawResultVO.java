@@ -0,0 +1,24 @@
+package com.bhuang.domain.strategy.model.valobj;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author bhuang
+ * @description 抽奖结果与用户抽奖次数，由同一次往返返回，用于次数解锁类规则（rule_lock）判断
+ * @create 2025-06-14
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrategyDrawResultVO {
+
+    /** 奖品ID，未装配时为null */
+    private Integer awardId;
+    /** 用户在该策略下的抽奖次数，包含本次；未抽中时不计数 */
+    private long raffleCount;
+
+}
@@ -0,0 +1,32 @@
+package com.bhuang.domain.strategy.model.valobj;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author bhuang
+ * @description 策略概率查找表快照，即当前生效版本的指针
+ * 重新装配时新表写入新版本，完成后原子切换指针；抽奖先读取快照，再按快照中的版本读取槽位，概率范围与槽位始终属于同一版本
+ * @create 2025-06-14
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StrategyRateTableSnapshotVO {
+
+    /** 旧版本号，按版本装配之前写入的查找表 */
+    public static final long LEGACY_VERSION = 0L;
+
+    /** 策略ID */
+    private Long strategyId;
+    /** 权重规则值，普通策略为null */
+    private String ruleWeightValue;
+    /** 查找表版本号 */
+    private long version;
+    /** 概率范围 */
+    private int rateRange;
+
+}
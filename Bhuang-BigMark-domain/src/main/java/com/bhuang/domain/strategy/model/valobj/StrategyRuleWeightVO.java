@@ -0,0 +1,156 @@
+package com.bhuang.domain.strategy.model.valobj;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * @author bhuang
+ * @description 预编译的权重规则，按规则值解析一次，之后只读共享
+ * 档位按积分阈值存入有序索引，O(log n) 定位积分对应的最高档位；每档奖品ID为有序 int[]，O(log m) 判断奖品是否在档位内
+ * 例如：4000:102,103,104,105 5000:102,103,104,105,106,107 -> {4000: [102..105], 5000: [102..107]}
+ * @create 2025-06-14
+ */
+public final class StrategyRuleWeightVO {
+
+    private static final StrategyRuleWeightVO EMPTY = new StrategyRuleWeightVO(null, Collections.emptyNavigableMap());
+
+    /** 解析来源的规则值，用于判断规则是否变更 */
+    private final String ruleValue;
+    /** key-积分阈值，value-档位 */
+    private final NavigableMap<Integer, Tier> tiers;
+
+    private StrategyRuleWeightVO(String ruleValue, NavigableMap<Integer, Tier> tiers) {
+        this.ruleValue = ruleValue;
+        this.tiers = tiers;
+    }
+
+    /**
+     * 解析权重规则值，格式不正确的档位跳过
+     * @param ruleValue 规则值，档位以空格分隔，如 4000:102,103 6000:102,103,104
+     * @return 权重规则，规则值为空时返回不含档位的规则
+     */
+    public static StrategyRuleWeightVO parse(String ruleValue) {
+        if (ruleValue == null || ruleValue.trim().isEmpty()) {
+            return EMPTY;
+        }
+
+        NavigableMap<Integer, Tier> tiers = new TreeMap<>();
+        for (String group : ruleValue.trim().split("\\s+")) {
+            int separator = group.indexOf(':');
+            if (separator <= 0 || separator == group.length() - 1) {
+                continue;
+            }
+            String threshold = group.substring(0, separator).trim();
+            try {
+                int[] awardIds = Arrays.stream(group.substring(separator + 1).split(","))
+                        .map(String::trim)
+                        .filter(awardId -> !awardId.isEmpty())
+                        .mapToInt(Integer::parseInt)
+                        .sorted()
+                        .distinct()
+                        .toArray();
+                tiers.put(Integer.valueOf(threshold), new Tier(Integer.parseInt(threshold), threshold, awardIds));
+            } catch (NumberFormatException e) {
+                // 阈值或奖品ID不是整数，跳过该档位
+            }
+        }
+        return new StrategyRuleWeightVO(ruleValue, Collections.unmodifiableNavigableMap(tiers));
+    }
+
+    /**
+     * 按累计积分定位可参与的最高档位
+     * @param score 累计积分
+     * @return 阈值不超过积分的最高档位，积分未达到最低档位时返回null
+     */
+    public Tier resolve(long score) {
+        if (score < Integer.MIN_VALUE) {
+            return null;
+        }
+        Map.Entry<Integer, Tier> entry = tiers.floorEntry((int) Math.min(score, Integer.MAX_VALUE));
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * 按规则值查找档位
+     * @param ruleWeightValue 档位的规则值，如 4000
+     * @return 档位，不存在时返回null
+     */
+    public Tier tierOf(String ruleWeightValue) {
+        try {
+            return tiers.get(Integer.valueOf(ruleWeightValue.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return 全部档位，按阈值升序
+     */
+    public Collection<Tier> tiers() {
+        return tiers.values();
+    }
+
+    public boolean isEmpty() {
+        return tiers.isEmpty();
+    }
+
+    /**
+     * @param ruleValue 规则值
+     * @return 是否由该规则值解析而来
+     */
+    public boolean isParsedFrom(String ruleValue) {
+        return this.ruleValue == null ? ruleValue == null || ruleValue.trim().isEmpty() : this.ruleValue.equals(ruleValue);
+    }
+
+    /**
+     * 权重档位
+     */
+    public static final class Tier {
+
+        /** 积分阈值，累计积分达到该值可参与本档位 */
+        private final int threshold;
+        /** 档位的规则值，即配置中的阈值原文，装配与抽奖按此值定位查找表 */
+        private final String ruleWeightValue;
+        /** 档位内的奖品ID，升序且不重复 */
+        private final int[] awardIds;
+
+        private Tier(int threshold, String ruleWeightValue, int[] awardIds) {
+            this.threshold = threshold;
+            this.ruleWeightValue = ruleWeightValue;
+            this.awardIds = awardIds;
+        }
+
+        public int getThreshold() {
+            return threshold;
+        }
+
+        public String getRuleWeightValue() {
+            return ruleWeightValue;
+        }
+
+        /**
+         * @return 档位内奖品ID的副本
+         */
+        public int[] getAwardIds() {
+            return awardIds.clone();
+        }
+
+        /**
+         * @param awardId 奖品ID
+         * @return 奖品是否在档位内
+         */
+        public boolean contains(Integer awardId) {
+            return awardId != null && Arrays.binarySearch(awardIds, awardId) >= 0;
+        }
+
+        @Override
+        public String toString() {
+            return ruleWeightValue + ":" + Arrays.toString(awardIds);
+        }
+    }
+
+}
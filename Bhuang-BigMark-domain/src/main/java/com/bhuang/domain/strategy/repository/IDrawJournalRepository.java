@@ -0,0 +1,43 @@
+package com.bhuang.domain.strategy.repository;
+
+/**
+ * @author bhuang
+ * @description 抽奖流水仓储接口 - 每次抽中与每次库存扣减追加一条定长流水，用于审计与对账
+ * 追加在抽奖路径上执行，实现方不得阻塞或抛出异常，缓冲区已满时丢弃并计数
+ * @create 2025-06-14
+ */
+public interface IDrawJournalRepository {
+
+    /** 抽奖位置未知（如在 Redis 脚本内抽奖） */
+    int UNKNOWN_SLOT = -1;
+
+    /** 不记录流水，供无需流水的单元测试与基准测试显式传入 */
+    IDrawJournalRepository NONE = new IDrawJournalRepository() {
+        @Override
+        public void appendDraw(Long strategyId, String ruleWeightValue, int slot, Integer awardId, String userId) {
+        }
+
+        @Override
+        public void appendStockDeduction(Long strategyId, Integer awardId, boolean deducted) {
+        }
+    };
+
+    /**
+     * 追加抽奖流水
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @param slot 抽中的位置：查找表下标或别名表列号，在 Redis 脚本内抽奖时为 UNKNOWN_SLOT
+     * @param awardId 抽中的奖品ID
+     * @param userId 用户ID，调用方未提供时为null
+     */
+    void appendDraw(Long strategyId, String ruleWeightValue, int slot, Integer awardId, String userId);
+
+    /**
+     * 追加库存扣减流水
+     * @param strategyId 策略ID
+     * @param awardId 抽中的奖品ID
+     * @param deducted 是否扣减成功，false 表示已售罄
+     */
+    void appendStockDeduction(Long strategyId, Integer awardId, boolean deducted);
+
+}
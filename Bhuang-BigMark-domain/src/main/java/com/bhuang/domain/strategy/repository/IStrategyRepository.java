@@ -1,10 +1,21 @@
 package com.bhuang.domain.strategy.repository;
 
 import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyBlacklistStatEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyAwardStockFlushLagEntity;
 import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardAliasTableVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardStockDeductionVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardStockFlushBatchVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyDrawResultVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyRateTableSnapshotVO;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author bhuang
@@ -13,30 +24,62 @@ import java.util.Map;
  */
 public interface IStrategyRepository {
 
+    /**
+     * 查询策略奖品列表，结果可能来自进程内缓存，每次返回实体副本
+     * @param strategyId 策略ID
+     * @return 只读的策略奖品列表
+     */
     List<StrategyAwardEntity> queryStrategyAwardList(Long strategyId);
 
-    void storeStrategyAwardSearchRateTable(Long strategyId, Integer rateRange, Map<Integer, Integer> strategyAwardSearchRateTable);
+    /**
+     * 清除策略奖品列表的 Redis 缓存与本节点近端缓存，并通知其它节点清除近端缓存，装配前调用以读取数据库中的最新配置
+     * @param strategyId 策略ID
+     */
+    void evictStrategyCache(Long strategyId);
+
+    /**
+     * 一次查询全部策略及其奖品，用于启动时批量装配
+     * @return 策略ID到奖品列表的映射，按策略ID排序；没有配置奖品的策略对应空列表
+     */
+    Map<Long, List<StrategyAwardEntity>> queryAllStrategyAwardList();
+
+    /**
+     * 存储策略概率查找表，实现方应分块写入新版本，写入完成后原子切换到新版本，旧版本异步回收
+     * @param strategyId 策略ID
+     * @param strategyAwardSearchRateTable 已乱序的查找表，下标 i 对应概率值 i + 1，长度即概率范围
+     */
+    void storeStrategyAwardSearchRateTable(Long strategyId, int[] strategyAwardSearchRateTable);
 
+    /**
+     * 按当前生效版本查询概率值对应的奖品ID
+     * 与 getRateRange 分两次读取，期间可能发生版本切换，抽奖应使用 queryStrategyRateTableSnapshot
+     */
     Integer getStrategyAwardAssemble(Long strategyId, Integer rateKey);
 
     int getRateRange(Long strategyId);
 
+    /**
+     * 查询策略
+     * @param strategyId 策略ID
+     * @return 策略实体，不存在时返回null
+     */
+    StrategyEntity queryStrategyEntity(Long strategyId);
+
     /**
      * 查询策略规则
      * @param strategyId 策略ID
      * @param ruleModel 规则模型
-     * @return 策略规则实体
+     * @return 策略规则实体，可能来自进程内缓存，每次返回副本
      */
     StrategyRuleEntity queryStrategyRule(Long strategyId, String ruleModel);
 
     /**
-     * 存储策略权重概率查找表
+     * 存储策略权重概率查找表，版本切换方式与普通策略相同
      * @param strategyId 策略ID
      * @param ruleWeightValue 权重规则值
-     * @param rateRange 概率范围
-     * @param strategyAwardSearchRateTable 权重概率查找表
+     * @param strategyAwardSearchRateTable 已乱序的权重概率查找表，下标 i 对应概率值 i + 1，长度即概率范围
      */
-    void storeStrategyAwardSearchRateTableByWeight(Long strategyId, String ruleWeightValue, Integer rateRange, Map<Integer, Integer> strategyAwardSearchRateTable);
+    void storeStrategyAwardSearchRateTableByWeight(Long strategyId, String ruleWeightValue, int[] strategyAwardSearchRateTable);
 
     /**
      * 获取权重概率范围
@@ -55,4 +98,277 @@ public interface IStrategyRepository {
      */
     Integer getStrategyAwardAssembleByWeight(Long strategyId, String ruleWeightValue, Integer rateKey);
 
+    /**
+     * 查询当前生效的查找表快照，抽奖时先读快照，再按快照读取槽位
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @return 查找表快照，未装配时返回null
+     */
+    StrategyRateTableSnapshotVO queryStrategyRateTableSnapshot(Long strategyId, String ruleWeightValue);
+
+    /**
+     * 按快照版本查询概率值对应的奖品ID，重新装配期间仍读取快照所属版本
+     * @param snapshot 查找表快照
+     * @param rateKey 概率值
+     * @return 奖品ID
+     */
+    Integer getStrategyAwardAssemble(StrategyRateTableSnapshotVO snapshot, Integer rateKey);
+
+    /**
+     * 按快照版本批量查询概率值对应的奖品ID，一次 Redis 往返
+     * @param snapshot 查找表快照
+     * @param rateKeys 概率值
+     * @return 概率值到奖品ID的映射，未命中的概率值不包含在结果中
+     */
+    Map<Integer, Integer> getStrategyAwardAssembleBatch(StrategyRateTableSnapshotVO snapshot, Set<Integer> rateKeys);
+
+    /**
+     * 在 Redis 服务端一次往返完成抽奖：读取快照、定位槽位并读取奖品ID，权重档位未装配时回退到普通策略
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @param random 随机数，范围 [0, 1)，映射为槽位 floor(random * rateRange) + 1
+     * @return 奖品ID，未装配时返回null
+     */
+    Integer drawStrategyAward(Long strategyId, String ruleWeightValue, double random);
+
+    /**
+     * 异步执行 drawStrategyAward，调用线程不等待Redis响应
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @param random 随机数，范围 [0, 1)
+     * @return 奖品ID，未装配时以null完成
+     */
+    CompletableFuture<Integer> drawStrategyAwardAsync(Long strategyId, String ruleWeightValue, double random);
+
+    /**
+     * 与 drawStrategyAward 相同的一次往返抽奖，抽中后在同一脚本内累加用户抽奖次数
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @param random 随机数，范围 [0, 1)
+     * @param userId 用户ID
+     * @return 奖品ID与含本次的抽奖次数，未装配时奖品ID为null且不计数
+     */
+    StrategyDrawResultVO drawStrategyAwardAndCount(Long strategyId, String ruleWeightValue, double random, String userId);
+
+    /**
+     * 异步执行 drawStrategyAwardAndCount，调用线程不等待Redis响应
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @param random 随机数，范围 [0, 1)
+     * @param userId 用户ID
+     * @return 奖品ID与含本次的抽奖次数，未装配时奖品ID为null且不计数
+     */
+    CompletableFuture<StrategyDrawResultVO> drawStrategyAwardAndCountAsync(Long strategyId, String ruleWeightValue, double random, String userId);
+
+    /**
+     * 查询完整的策略奖品概率查找表，用于装载本地查找表
+     * @param strategyId 策略ID
+     * @return 查找表，下标 i 对应概率值 i + 1；未装配时返回null
+     */
+    int[] queryStrategyAwardSearchRateTable(Long strategyId);
+
+    /**
+     * 查询完整的权重策略奖品概率查找表，用于装载本地查找表
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值
+     * @return 查找表，下标 i 对应概率值 i + 1；未装配时返回null
+     */
+    int[] queryStrategyAwardSearchRateTableByWeight(Long strategyId, String ruleWeightValue);
+
+    /**
+     * 查询策略装配版本号
+     * @param strategyId 策略ID
+     * @return 版本号，从未记录版本时为0
+     */
+    long queryStrategyArmoryVersion(Long strategyId);
+
+    /**
+     * 策略装配完成后自增版本号，通知各节点重新装载本地查找表
+     * @param strategyId 策略ID
+     * @return 新版本号
+     */
+    long increaseStrategyArmoryVersion(Long strategyId);
+
+    /**
+     * 存储策略奖品别名表
+     * @param strategyId 策略ID
+     * @param aliasTable 别名表
+     */
+    void storeStrategyAwardAliasTable(Long strategyId, StrategyAwardAliasTableVO aliasTable);
+
+    /**
+     * 存储权重策略奖品别名表
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值
+     * @param aliasTable 别名表
+     */
+    void storeStrategyAwardAliasTableByWeight(Long strategyId, String ruleWeightValue, StrategyAwardAliasTableVO aliasTable);
+
+    /**
+     * 查询策略奖品别名表
+     * @param strategyId 策略ID
+     * @return 别名表，未装配时返回null
+     */
+    StrategyAwardAliasTableVO queryStrategyAwardAliasTable(Long strategyId);
+
+    /**
+     * 查询权重策略奖品别名表
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值
+     * @return 别名表，未装配时返回null
+     */
+    StrategyAwardAliasTableVO queryStrategyAwardAliasTableByWeight(Long strategyId, String ruleWeightValue);
+
+    /**
+     * 查询奖品规则，如 rule_luck_award
+     * @param strategyId 策略ID
+     * @param awardId 奖品ID
+     * @param ruleModel 规则模型
+     * @return 奖品规则，不存在时返回null
+     */
+    StrategyRuleEntity queryStrategyAwardRule(Long strategyId, Integer awardId, String ruleModel);
+
+    /**
+     * 按剩余库存预热奖品库存计数，计数已存在时保留，重新装配不会重置已扣减的库存
+     * @param strategyId 策略ID
+     * @param strategyAwardEntities 策略奖品列表
+     */
+    void storeStrategyAwardStock(Long strategyId, List<StrategyAwardEntity> strategyAwardEntities);
+
+    /**
+     * 在 Redis 中原子扣减一个奖品库存，不访问数据库
+     * 扣减成功时同一脚本内追加扣减记录到回写队列，由定时任务批量回写数据库
+     * @param strategyId 策略ID
+     * @param awardId 奖品ID
+     * @return 扣减后的剩余库存；已售罄、计数不存在或回写队列已满时返回-1，且未发生扣减
+     */
+    long subtractStrategyAwardStock(Long strategyId, Integer awardId);
+
+    /**
+     * 异步执行 subtractStrategyAwardStock，调用线程不等待Redis响应
+     * @param strategyId 策略ID
+     * @param awardId 奖品ID
+     * @return 扣减后的剩余库存；已售罄、计数不存在或回写队列已满时以-1完成
+     */
+    CompletableFuture<Long> subtractStrategyAwardStockAsync(Long strategyId, Integer awardId);
+
+    /**
+     * 查询奖品剩余库存
+     * @param strategyId 策略ID
+     * @param awardId 奖品ID
+     * @return 剩余库存，计数不存在时返回-1
+     */
+    long queryStrategyAwardStock(Long strategyId, Integer awardId);
+
+    /**
+     * 尝试获取库存回写锁，不等待，多节点同一时刻只有一个节点回写；持锁期间自动续期，回写耗时不受租期限制
+     * @return 是否获取成功
+     */
+    boolean tryLockStrategyAwardStockFlush();
+
+    /**
+     * 释放库存回写锁
+     */
+    void unlockStrategyAwardStockFlush();
+
+    /**
+     * 领取一批待回写的扣减记录；上一批未确认时返回上一批及其批次ID，保证进程中断后扣减记录不丢失
+     * @param maxCount 单批最大条数
+     * @return 回写批次，没有待回写记录时扣减记录为空列表
+     */
+    StrategyAwardStockFlushBatchVO takeStrategyAwardStockDeductions(int maxCount);
+
+    /**
+     * 按合并后的扣减数量批量扣减数据库中的奖品剩余库存，批次ID与扣减在同一事务内记录，同一批次只扣减一次
+     * @param flushId 回写批次ID
+     * @param deductions 按 (strategyId, awardId) 合并后的扣减记录
+     * @return 是否本次扣减，false 表示该批次已回写过
+     */
+    boolean updateStrategyAwardStockSurplus(String flushId, List<StrategyAwardStockDeductionVO> deductions);
+
+    /**
+     * 确认已领取的一批扣减记录回写成功
+     */
+    void ackStrategyAwardStockDeductions();
+
+    /**
+     * 查询库存回写队列的积压情况
+     * @return 回写延迟，只包含队列长度与最早未回写记录的扣减时间
+     */
+    StrategyAwardStockFlushLagEntity queryStrategyAwardStockFlushLag();
+
+    /**
+     * 批量重建黑名单：新版本的布隆过滤器与用户集合分块写入，写完后原子切换版本，旧版本延迟回收
+     * 除传入的用户外，同时写入黑名单用户表中该策略的用户
+     * @param strategyId 策略ID
+     * @param userIds 规则值中配置的黑名单用户ID
+     * @return 写入的用户数，传入的用户与表中的用户合计
+     */
+    long storeStrategyBlacklist(Long strategyId, Collection<String> userIds);
+
+    /**
+     * 判断用户是否在黑名单中：布隆过滤器快速排除，命中后再精确确认
+     * @param strategyId 策略ID
+     * @param userId 用户ID
+     * @return 是否在黑名单中，黑名单未装配时返回false
+     */
+    boolean isStrategyBlacklisted(Long strategyId, String userId);
+
+    /**
+     * 查询当前生效的黑名单版本
+     * @param strategyId 策略ID
+     * @return 黑名单版本号，黑名单未装配时返回null
+     */
+    Long queryStrategyBlacklistVersion(Long strategyId);
+
+    /**
+     * 按指定版本判断用户是否在黑名单中，不再读取版本号，只访问该版本的布隆过滤器与集合
+     * @param strategyId 策略ID
+     * @param version 黑名单版本号
+     * @param userId 用户ID
+     * @return 是否在黑名单中
+     */
+    boolean isStrategyBlacklisted(Long strategyId, long version, String userId);
+
+    /**
+     * 查询黑名单过滤统计，包括布隆过滤器参数与本节点实测的误判率、检查耗时
+     * @param strategyId 策略ID
+     * @return 统计
+     */
+    StrategyBlacklistStatEntity queryStrategyBlacklistStat(Long strategyId);
+
+    /**
+     * 累加用户抽奖次数
+     * @param strategyId 策略ID
+     * @param userId 用户ID
+     * @param delta 累加次数
+     * @return 累加后的抽奖次数
+     */
+    long increaseUserRaffleCount(Long strategyId, String userId, long delta);
+
+    /**
+     * 批量累加用户抽奖次数，一次管道往返
+     * @param strategyId 策略ID
+     * @param deltas 用户ID到累加次数的映射
+     * @return 用户ID到累加后抽奖次数的映射
+     */
+    Map<String, Long> increaseUserRaffleCounts(Long strategyId, Map<String, Long> deltas);
+
+    /**
+     * 批量查询用户抽奖次数，一次管道往返
+     * @param strategyId 策略ID
+     * @param userIds 用户ID
+     * @return 用户ID到抽奖次数的映射，未抽过奖为0
+     */
+    Map<String, Long> queryUserRaffleCounts(Long strategyId, List<String> userIds);
+
+    /**
+     * 把本节点的请求数累加到集群滑动窗口，并返回窗口内全部节点的请求总数，两次管道往返完成全部限流对象
+     * @param deltas 限流对象到本节点新增请求数的映射，传0时只读取窗口总数
+     * @param windowMillis 窗口时长（毫秒）
+     * @param windowSlots 窗口分片数，窗口每经过一个分片时长滑动一次
+     * @return 限流对象到窗口内请求总数的映射
+     */
+    Map<String, Long> increaseRateLimitWindow(Map<String, Long> deltas, long windowMillis, int windowSlots);
+
 }
@@ -1,5 +1,7 @@
 package com.bhuang.domain.strategy.service.armory;
 
+import java.util.List;
+
 /**
  * 策略装配库接口
  * @author bhuang
@@ -31,6 +33,25 @@ public interface IStrategyArmory {
      */
     Integer getRandomAwardId(Long strategyId, String ruleWeightValue);
 
+    /**
+     * 批量抽奖
+     *
+     * @param strategyId 策略ID
+     * @param count 抽奖次数
+     * @return 抽奖结果
+     */
+    List<Integer> getRandomAwardIds(Long strategyId, int count);
+
+    /**
+     * 批量抽奖 - 带权重规则
+     *
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值
+     * @param count 抽奖次数
+     * @return 抽奖结果
+     */
+    List<Integer> getRandomAwardIds(Long strategyId, String ruleWeightValue, int count);
+
     /**
      * 根据活动ID装配抽奖策略
      *
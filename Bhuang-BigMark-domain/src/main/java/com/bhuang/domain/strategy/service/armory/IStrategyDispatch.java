@@ -1,5 +1,10 @@
 package com.bhuang.domain.strategy.service.armory;
 
+import com.bhuang.domain.strategy.model.valobj.StrategyDrawResultVO;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 策略调度接口
  * 负责执行抽奖逻辑，从已装配的策略中获取随机奖品
@@ -24,4 +29,72 @@ public interface IStrategyDispatch {
      * @return 抽奖结果 奖品ID
      */
     Integer getRandomAwardId(Long strategyId, String ruleWeightValue);
+
+    /**
+     * 获取抽奖策略装配的随机结果 - 按用户累计积分定位权重档位
+     * 
+     * @param strategyId 策略ID
+     * @param score 用户累计积分，使用阈值不超过积分的最高档位；未达到最低档位或未配置权重规则时按普通策略抽奖
+     * @return 抽奖结果 奖品ID
+     */
+    Integer getRandomAwardIdByScore(Long strategyId, long score);
+
+    /**
+     * 批量抽奖，一次请求完成多连抽，Redis 往返次数与抽奖次数无关
+     * 
+     * @param strategyId 策略ID
+     * @param count 抽奖次数
+     * @return 抽奖结果 奖品ID列表，顺序与抽奖顺序一致；策略未装配时返回空列表
+     */
+    List<Integer> getRandomAwardIds(Long strategyId, int count);
+
+    /**
+     * 批量抽奖 - 带权重规则
+     * 
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值（如：4000、5000、6000）
+     * @param count 抽奖次数
+     * @return 抽奖结果 奖品ID列表，顺序与抽奖顺序一致；策略未装配时返回空列表
+     */
+    List<Integer> getRandomAwardIds(Long strategyId, String ruleWeightValue, int count);
+
+    /**
+     * 抽奖并累加用户抽奖次数，脚本引擎未命中本地查找表时抽奖与计数在同一次 Redis 往返内完成
+     * 
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @param userId 用户ID
+     * @return 奖品ID与含本次的抽奖次数，策略未装配时奖品ID为null且不计数
+     */
+    StrategyDrawResultVO getRandomAwardIdAndCount(Long strategyId, String ruleWeightValue, String userId);
+
+    /**
+     * 异步抽奖并累加用户抽奖次数，脚本引擎未命中本地查找表时使用非阻塞的脚本调用，其余引擎在抽奖线程池中执行
+     * 
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @param userId 用户ID
+     * @return 奖品ID与含本次的抽奖次数，策略未装配时奖品ID为null且不计数
+     */
+    CompletableFuture<StrategyDrawResultVO> getRandomAwardIdAndCountAsync(Long strategyId, String ruleWeightValue, String userId);
+
+    /**
+     * 异步抽奖，调用线程不等待 Redis 响应：本地查找表/别名表直接返回已完成的结果，脚本引擎使用非阻塞的脚本调用，
+     * 其余需要多次读取 Redis 的引擎在抽奖线程池中执行
+     * 
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @return 抽奖结果 奖品ID，策略未装配时以null完成
+     */
+    CompletableFuture<Integer> getRandomAwardIdAsync(Long strategyId, String ruleWeightValue);
+
+    /**
+     * 异步批量抽奖，本地查找表/别名表直接返回已完成的结果，其余在抽奖线程池中执行
+     * 
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @param count 抽奖次数
+     * @return 抽奖结果 奖品ID列表；策略未装配时以空列表完成
+     */
+    CompletableFuture<List<Integer>> getRandomAwardIdsAsync(Long strategyId, String ruleWeightValue, int count);
 } 
\ No newline at end of file
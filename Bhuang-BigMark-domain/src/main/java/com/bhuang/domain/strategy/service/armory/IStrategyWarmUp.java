@@ -0,0 +1,28 @@
+package com.bhuang.domain.strategy.service.armory;
+
+import com.bhuang.domain.strategy.model.entity.StrategyWarmUpProgressEntity;
+
+/**
+ * 策略预热接口
+ * 负责在应用启动后批量装配全部策略，使节点尽快具备抽奖能力
+ *
+ * @author bhuang
+ */
+public interface IStrategyWarmUp {
+
+    /**
+     * 并行装配全部策略，阻塞直到全部完成或超时
+     * 同一时间只允许一次预热，重复调用直接返回当前进度
+     *
+     * @return 预热结果
+     */
+    StrategyWarmUpProgressEntity warmUp();
+
+    /**
+     * 查询预热进度
+     *
+     * @return 预热进度快照
+     */
+    StrategyWarmUpProgressEntity queryProgress();
+
+}
@@ -2,20 +2,42 @@ package com.bhuang.domain.strategy.service.armory;
 
 import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
 import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.DispatchEngineVO;
+import com.bhuang.domain.strategy.model.valobj.RandomSourceVO;
+import com.bhuang.domain.strategy.model.valobj.RuleModelVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardAliasTableVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyDrawResultVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyRateTableSnapshotVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyRuleWeightVO;
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
 import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.armory.random.IRandomSource;
+import com.bhuang.domain.strategy.service.armory.random.SecureRandomSource;
+import com.bhuang.domain.strategy.service.armory.random.SplittableRandomSource;
+import com.bhuang.domain.strategy.service.armory.random.ThreadLocalRandomSource;
+import com.bhuang.domain.strategy.service.rule.IStrategyBlacklist;
+import com.bhuang.domain.strategy.service.rule.IStrategyRuleWeight;
+import com.bhuang.types.enums.ResponseCode;
+import com.bhuang.types.exception.AppException;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -30,28 +52,91 @@ public class StrategyArmory implements IStrategyArmory, IStrategyAssemble, IStra
     @Resource
     private IStrategyRepository strategyRepository;
 
-    private final SecureRandom secureRandom = new SecureRandom();
+    @Resource
+    private StrategyArmoryProperties armoryProperties;
+
+    @Resource
+    private IStrategyRuleWeight strategyRuleWeight;
+
+    @Resource
+    private IStrategyBlacklist strategyBlacklist;
+
+    /** 异步抽奖中需要多次读取 Redis 的引擎在该线程池中执行 */
+    @Resource
+    private ThreadPoolExecutor threadPoolExecutor;
+
+    /** 每次抽中追加一条抽奖流水，记录抽中的位置与奖品 */
+    @Resource
+    private IDrawJournalRepository drawJournalRepository;
+
+    /** 装配各阶段耗时 strategy.armory.assemble，标签 phase 区分阶段 */
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 随机源，按策略配置选择
+     */
+    private final Map<RandomSourceVO, IRandomSource> randomSources = new EnumMap<>(RandomSourceVO.class);
+
+    {
+        randomSources.put(RandomSourceVO.THREAD_LOCAL, new ThreadLocalRandomSource());
+        randomSources.put(RandomSourceVO.SPLITTABLE, new SplittableRandomSource());
+        randomSources.put(RandomSourceVO.SECURE, new SecureRandomSource());
+    }
+
+    /**
+     * 本地概率查找表，抽奖在内存中完成，Redis 只用于装载和版本比对
+     */
+    private final StrategyLocalTableCache<int[]> searchRateTableCache = new StrategyLocalTableCache<>();
+
+    /**
+     * 本地别名表
+     */
+    private final StrategyLocalTableCache<StrategyAwardAliasTableVO> aliasTableCache = new StrategyLocalTableCache<>();
     
     /**
      * 概率计算常量
      */
     private static final BigDecimal TEN_THOUSANDTH = new BigDecimal("0.0001");
 
+    /**
+     * 启动时校验调度引擎与 Redis 部署方式一致，配置不一致时启动失败
+     */
+    @PostConstruct
+    public void init() {
+        armoryProperties.checkDispatchEngines();
+    }
+
     // ==================== 装配接口实现 ====================
     
     @Override
     public boolean assembleLotteryStrategy(Long strategyId) {
-        // 1. 查询策略配置
+        // 1. 清除各节点缓存后查询策略配置，重新装配时读取数据库中的最新配置
+        strategyRepository.evictStrategyCache(strategyId);
         List<StrategyAwardEntity> strategyAwardEntityList = strategyRepository.queryStrategyAwardList(strategyId);
+        return assembleLotteryStrategy(strategyId, strategyAwardEntityList);
+    }
+
+    /**
+     * 使用已查询的奖品列表装配抽奖策略，供批量装配时复用一次性查询的结果
+     * @param strategyId 策略ID
+     * @param strategyAwardEntityList 策略奖品列表
+     * @return 装配结果
+     */
+    public boolean assembleLotteryStrategy(Long strategyId, List<StrategyAwardEntity> strategyAwardEntityList) {
         if (strategyAwardEntityList == null || strategyAwardEntityList.isEmpty()) {
             log.warn("策略配置为空，策略ID：{}", strategyId);
             return false;
         }
 
-        log.info("开始装配抽奖策略，策略ID：{}", strategyId);
+        DispatchEngineVO dispatchEngine = armoryProperties.dispatchEngineOf(strategyId);
+        log.info("开始装配抽奖策略，策略ID：{}，调度引擎：{}", strategyId, dispatchEngine.getCode());
+        long startTime = System.currentTimeMillis();
 
         // 2. 装配正常策略（无权重）- 这是必需的
-        boolean normalResult = assembleNormalLotteryStrategy(strategyId, strategyAwardEntityList);
+        boolean normalResult = DispatchEngineVO.ALIAS == dispatchEngine
+                ? assembleNormalAliasStrategy(strategyId, strategyAwardEntityList)
+                : assembleNormalLotteryStrategy(strategyId, strategyAwardEntityList);
         if (!normalResult) {
             log.error("正常策略装配失败，策略ID：{}", strategyId);
             return false;
@@ -62,10 +147,10 @@ public class StrategyArmory implements IStrategyArmory, IStrategyAssemble, IStra
         boolean hasWeightRule = (strategyRuleEntity != null);
 
         // 4. 装配权重策略
-        boolean weightResult = assembleWeightLotteryStrategy(strategyId, strategyAwardEntityList, strategyRuleEntity);
+        boolean weightResult = assembleWeightLotteryStrategy(strategyId, strategyAwardEntityList, strategyRuleEntity, dispatchEngine);
 
-        log.info("抽奖策略装配完成，策略ID：{}，正常策略：{}，权重策略：{}，存在权重规则：{}", 
-                strategyId, normalResult, weightResult, hasWeightRule);
+        log.info("抽奖策略装配完成，策略ID：{}，正常策略：{}，权重策略：{}，存在权重规则：{}，耗时：{}ms",
+                strategyId, normalResult, weightResult, hasWeightRule, System.currentTimeMillis() - startTime);
         
         // 5. 确定最终结果
         // - 正常策略必须成功
@@ -77,6 +162,15 @@ public class StrategyArmory implements IStrategyArmory, IStrategyAssemble, IStra
             if (hasWeightRule && !weightResult) {
                 log.error("策略装配失败：存在权重规则但权重策略装配失败，策略ID：{}", strategyId);
             }
+        } else {
+            // 6. 预热奖品库存计数，抽奖时在 Redis 中扣减
+            strategyRepository.storeStrategyAwardStock(strategyId, strategyAwardEntityList);
+            // 7. 按黑名单规则重建布隆过滤器
+            strategyBlacklist.assembleBlacklist(strategyId);
+            // 8. 校验兜底奖品规则，配置错误时抽奖使用默认兜底奖品
+            validateLuckAwardRules(strategyId, strategyAwardEntityList);
+            // 9. 全部查找表写入后再更新版本号，各节点据此重新装载本地查找表
+            strategyRepository.increaseStrategyArmoryVersion(strategyId);
         }
         
         return finalResult;
@@ -95,46 +189,424 @@ public class StrategyArmory implements IStrategyArmory, IStrategyAssemble, IStra
     
     @Override
     public Integer getRandomAwardId(Long strategyId) {
-        // 查询策略对应的概率范围
-        int rateRange = strategyRepository.getRateRange(strategyId);
-        if (rateRange == 0) {
+        return drawAward(strategyId, null);
+    }
+
+    /**
+     * 普通策略单次抽奖
+     * @param userId 用户ID，只用于抽奖流水，调用方未提供时为null
+     */
+    private Integer drawAward(Long strategyId, String userId) {
+        IRandomSource random = randomSourceOf(strategyId);
+
+        // 别名表引擎
+        if (DispatchEngineVO.ALIAS == armoryProperties.dispatchEngineOf(strategyId)) {
+            StrategyAwardAliasTableVO aliasTable = getAliasTable(strategyId, null);
+            if (aliasTable != null) {
+                int column = random.nextInt(aliasTable.columns());
+                return journal(strategyId, null, column, aliasTable.sample(column, random.nextDouble()), userId);
+            }
+        }
+
+        // 优先使用本地查找表
+        int[] localTable = getLocalSearchRateTable(strategyId, null);
+        if (localTable != null) {
+            int slot = random.nextInt(localTable.length);
+            return journal(strategyId, null, slot, localTable[slot], userId);
+        }
+
+        // 脚本引擎：一次 EVALSHA 在 Redis 服务端完成抽奖
+        if (DispatchEngineVO.SCRIPT == armoryProperties.dispatchEngineOf(strategyId)) {
+            Integer awardId = strategyRepository.drawStrategyAward(strategyId, null, random.nextDouble());
+            log.debug("随机抽奖结果（脚本），策略ID：{}，奖品ID：{}", strategyId, awardId);
+            return journal(strategyId, null, IDrawJournalRepository.UNKNOWN_SLOT, awardId, userId);
+        }
+
+        // 读取当前版本的查找表快照，概率范围与槽位按同一版本读取
+        StrategyRateTableSnapshotVO snapshot = strategyRepository.queryStrategyRateTableSnapshot(strategyId, null);
+        if (snapshot == null || snapshot.getRateRange() == 0) {
             log.warn("策略未装配或概率范围为0，策略ID：{}", strategyId);
             return null;
         }
         
         // 生成随机数，范围为 [1, rateRange]
-        int randomRate = secureRandom.nextInt(rateRange) + 1;
+        int randomRate = random.nextInt(snapshot.getRateRange()) + 1;
         
         // 根据随机数查询对应的奖品ID
-        Integer awardId = strategyRepository.getStrategyAwardAssemble(strategyId, randomRate);
+        Integer awardId = strategyRepository.getStrategyAwardAssemble(snapshot, randomRate);
         
         log.debug("随机抽奖结果，策略ID：{}，随机数：{}，奖品ID：{}", strategyId, randomRate, awardId);
-        return awardId;
+        return journal(strategyId, null, randomRate - 1, awardId, userId);
+    }
+
+    @Override
+    public Integer getRandomAwardIdByScore(Long strategyId, long score) {
+        StrategyRuleWeightVO.Tier tier = strategyRuleWeight.resolveRuleWeight(strategyId, score);
+        return tier == null ? getRandomAwardId(strategyId) : getRandomAwardId(strategyId, tier.getRuleWeightValue());
     }
 
     @Override
     public Integer getRandomAwardId(Long strategyId, String ruleWeightValue) {
-        log.info("执行权重抽奖，策略ID：{}，权重规则值：{}", strategyId, ruleWeightValue);
+        return drawAward(strategyId, ruleWeightValue, null);
+    }
+
+    /**
+     * 权重策略单次抽奖，抽中结果记入抽奖流水，日志只在 debug 级别输出
+     * @param userId 用户ID，只用于抽奖流水，调用方未提供时为null
+     */
+    private Integer drawAward(Long strategyId, String ruleWeightValue, String userId) {
+        log.debug("执行权重抽奖，策略ID：{}，权重规则值：{}", strategyId, ruleWeightValue);
+        IRandomSource random = randomSourceOf(strategyId);
+
+        // 别名表引擎
+        if (DispatchEngineVO.ALIAS == armoryProperties.dispatchEngineOf(strategyId)) {
+            StrategyAwardAliasTableVO aliasTable = getAliasTable(strategyId, ruleWeightValue);
+            if (aliasTable != null) {
+                int column = random.nextInt(aliasTable.columns());
+                Integer awardId = aliasTable.sample(column, random.nextDouble());
+                log.debug("权重抽奖结果（别名表），策略ID：{}，权重值：{}，奖品ID：{}", strategyId, ruleWeightValue, awardId);
+                return journal(strategyId, ruleWeightValue, column, awardId, userId);
+            }
+        }
 
-        // 查询权重策略对应的概率范围
-        int rateRange = strategyRepository.getRateRangeByWeight(strategyId, ruleWeightValue);
-        if (rateRange == 0) {
+        // 优先使用本地查找表
+        int[] localTable = getLocalSearchRateTable(strategyId, ruleWeightValue);
+        if (localTable != null) {
+            int slot = random.nextInt(localTable.length);
+            Integer awardId = localTable[slot];
+            log.debug("权重抽奖结果（本地查找表），策略ID：{}，权重值：{}，奖品ID：{}", strategyId, ruleWeightValue, awardId);
+            return journal(strategyId, ruleWeightValue, slot, awardId, userId);
+        }
+
+        // 脚本引擎：权重档位未装配时在脚本内回退到普通策略，仍为一次往返
+        if (DispatchEngineVO.SCRIPT == armoryProperties.dispatchEngineOf(strategyId)) {
+            Integer awardId = strategyRepository.drawStrategyAward(strategyId, ruleWeightValue, random.nextDouble());
+            log.debug("权重抽奖结果（脚本），策略ID：{}，权重值：{}，奖品ID：{}", strategyId, ruleWeightValue, awardId);
+            return journal(strategyId, ruleWeightValue, IDrawJournalRepository.UNKNOWN_SLOT, awardId, userId);
+        }
+
+        // 读取权重策略当前版本的查找表快照
+        StrategyRateTableSnapshotVO snapshot = strategyRepository.queryStrategyRateTableSnapshot(strategyId, ruleWeightValue);
+        if (snapshot == null || snapshot.getRateRange() == 0) {
             log.warn("权重策略未装配或概率范围为0，策略ID：{}，权重值：{}，使用普通策略", strategyId, ruleWeightValue);
-            return getRandomAwardId(strategyId);
+            return drawAward(strategyId, userId);
         }
         
         // 生成随机数，范围为 [1, rateRange]
-        int randomRate = secureRandom.nextInt(rateRange) + 1;
+        int randomRate = random.nextInt(snapshot.getRateRange()) + 1;
         
         // 根据随机数查询对应的奖品ID
-        Integer awardId = strategyRepository.getStrategyAwardAssembleByWeight(strategyId, ruleWeightValue, randomRate);
+        Integer awardId = strategyRepository.getStrategyAwardAssemble(snapshot, randomRate);
         
-        log.info("权重抽奖结果，策略ID：{}，权重值：{}，随机数：{}，奖品ID：{}", strategyId, ruleWeightValue, randomRate, awardId);
-        return awardId;
+        log.debug("权重抽奖结果，策略ID：{}，权重值：{}，随机数：{}，奖品ID：{}", strategyId, ruleWeightValue, randomRate, awardId);
+        return journal(strategyId, ruleWeightValue, randomRate - 1, awardId, userId);
+    }
+
+    @Override
+    public StrategyDrawResultVO getRandomAwardIdAndCount(Long strategyId, String ruleWeightValue, String userId) {
+        // 脚本引擎且未命中本地查找表：抽奖与计数由同一个脚本完成，一次往返
+        if (DispatchEngineVO.SCRIPT == armoryProperties.dispatchEngineOf(strategyId)
+                && getLocalSearchRateTable(strategyId, ruleWeightValue) == null) {
+            StrategyDrawResultVO result = strategyRepository.drawStrategyAwardAndCount(strategyId, ruleWeightValue,
+                    randomSourceOf(strategyId).nextDouble(), userId);
+            log.debug("抽奖并计数结果（脚本），策略ID：{}，用户ID：{}，奖品ID：{}，抽奖次数：{}",
+                    strategyId, userId, result.getAwardId(), result.getRaffleCount());
+            journal(strategyId, ruleWeightValue, IDrawJournalRepository.UNKNOWN_SLOT, result.getAwardId(), userId);
+            return result;
+        }
+
+        // 其他引擎本地或经 Redis 抽奖后单独计数，未抽中不计数
+        Integer awardId = ruleWeightValue == null
+                ? drawAward(strategyId, userId)
+                : drawAward(strategyId, ruleWeightValue, userId);
+        if (awardId == null) {
+            return StrategyDrawResultVO.builder().build();
+        }
+        return StrategyDrawResultVO.builder()
+                .awardId(awardId)
+                .raffleCount(strategyRepository.increaseUserRaffleCount(strategyId, userId, 1))
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<StrategyDrawResultVO> getRandomAwardIdAndCountAsync(Long strategyId, String ruleWeightValue, String userId) {
+        if (DispatchEngineVO.SCRIPT == armoryProperties.dispatchEngineOf(strategyId)
+                && getLocalSearchRateTable(strategyId, ruleWeightValue) == null) {
+            return strategyRepository.drawStrategyAwardAndCountAsync(strategyId, ruleWeightValue, randomSourceOf(strategyId).nextDouble(), userId)
+                    .thenApply(result -> {
+                        journal(strategyId, ruleWeightValue, IDrawJournalRepository.UNKNOWN_SLOT, result.getAwardId(), userId);
+                        return result;
+                    });
+        }
+        // 其他引擎的计数是单独一次 Redis 往返，在抽奖线程池中执行
+        return CompletableFuture.supplyAsync(() -> getRandomAwardIdAndCount(strategyId, ruleWeightValue, userId), threadPoolExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Integer> getRandomAwardIdAsync(Long strategyId, String ruleWeightValue) {
+        if (isLocalDraw(strategyId, ruleWeightValue)) {
+            return CompletableFuture.completedFuture(null == ruleWeightValue
+                    ? getRandomAwardId(strategyId)
+                    : getRandomAwardId(strategyId, ruleWeightValue));
+        }
+        // 脚本引擎：一次非阻塞的 EVALSHA，结果在 Redis 客户端的 I/O 线程上完成
+        if (DispatchEngineVO.SCRIPT == armoryProperties.dispatchEngineOf(strategyId)) {
+            return strategyRepository.drawStrategyAwardAsync(strategyId, ruleWeightValue, randomSourceOf(strategyId).nextDouble())
+                    .thenApply(awardId -> journal(strategyId, ruleWeightValue, IDrawJournalRepository.UNKNOWN_SLOT, awardId, null));
+        }
+        return CompletableFuture.supplyAsync(() -> null == ruleWeightValue
+                ? getRandomAwardId(strategyId)
+                : getRandomAwardId(strategyId, ruleWeightValue), threadPoolExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<Integer>> getRandomAwardIdsAsync(Long strategyId, String ruleWeightValue, int count) {
+        checkDrawCount(strategyId, count);
+        if (isLocalDraw(strategyId, ruleWeightValue)) {
+            return CompletableFuture.completedFuture(null == ruleWeightValue
+                    ? getRandomAwardIds(strategyId, count)
+                    : getRandomAwardIds(strategyId, ruleWeightValue, count));
+        }
+        return CompletableFuture.supplyAsync(() -> null == ruleWeightValue
+                ? getRandomAwardIds(strategyId, count)
+                : getRandomAwardIds(strategyId, ruleWeightValue, count), threadPoolExecutor);
     }
 
     // ==================== 私有方法 ====================
 
+    /**
+     * 校验配置了 rule_luck_award 的奖品的兜底奖品ID，只告警不阻止装配
+     */
+    private void validateLuckAwardRules(Long strategyId, List<StrategyAwardEntity> strategyAwardEntityList) {
+        for (StrategyAwardEntity strategyAward : strategyAwardEntityList) {
+            String ruleModels = strategyAward.getRuleModels();
+            if (ruleModels == null || !Arrays.asList(ruleModels.split(",")).contains(RuleModelVO.RULE_LUCK_AWARD.getCode())) {
+                continue;
+            }
+            StrategyRuleEntity luckAwardRule = strategyRepository.queryStrategyAwardRule(strategyId, strategyAward.getAwardId(), RuleModelVO.RULE_LUCK_AWARD.getCode());
+            if (luckAwardRule == null || luckAwardRule.getRuleValue() == null) {
+                continue;
+            }
+            try {
+                luckAwardRule.parseLuckAwardId();
+            } catch (NumberFormatException e) {
+                log.error("兜底奖品规则值的奖品ID无法解析，抽奖时将使用默认兜底奖品，策略ID：{}，奖品ID：{}，规则值：{}",
+                        strategyId, strategyAward.getAwardId(), luckAwardRule.getRuleValue());
+            }
+        }
+    }
+
+    /**
+     * @return 是否可以直接使用本节点的别名表或查找表抽奖，不访问 Redis
+     */
+    private boolean isLocalDraw(Long strategyId, String ruleWeightValue) {
+        if (DispatchEngineVO.ALIAS == armoryProperties.dispatchEngineOf(strategyId) && getAliasTable(strategyId, ruleWeightValue) != null) {
+            return true;
+        }
+        return getLocalSearchRateTable(strategyId, ruleWeightValue) != null;
+    }
+
+    @Override
+    public List<Integer> getRandomAwardIds(Long strategyId, int count) {
+        checkDrawCount(strategyId, count);
+        IRandomSource random = randomSourceOf(strategyId);
+
+        // 别名表引擎
+        if (DispatchEngineVO.ALIAS == armoryProperties.dispatchEngineOf(strategyId)) {
+            StrategyAwardAliasTableVO aliasTable = getAliasTable(strategyId, null);
+            if (aliasTable != null) {
+                return sampleAliasTable(strategyId, null, aliasTable, random, count);
+            }
+        }
+
+        // 优先使用本地查找表
+        int[] localTable = getLocalSearchRateTable(strategyId, null);
+        if (localTable != null) {
+            return sampleLocalTable(strategyId, null, localTable, random, count);
+        }
+
+        // 快照只查询一次，全部槽位按同一版本一次批量查询
+        StrategyRateTableSnapshotVO snapshot = strategyRepository.queryStrategyRateTableSnapshot(strategyId, null);
+        if (snapshot == null || snapshot.getRateRange() == 0) {
+            log.warn("策略未装配或概率范围为0，策略ID：{}", strategyId);
+            return Collections.emptyList();
+        }
+        int[] rateKeys = randomRateKeys(random, snapshot.getRateRange(), count);
+        Map<Integer, Integer> awardIds = strategyRepository.getStrategyAwardAssembleBatch(snapshot, toRateKeySet(rateKeys));
+        return resolveAwardIds(strategyId, null, rateKeys, awardIds);
+    }
+
+    @Override
+    public List<Integer> getRandomAwardIds(Long strategyId, String ruleWeightValue, int count) {
+        checkDrawCount(strategyId, count);
+        log.debug("执行权重批量抽奖，策略ID：{}，权重规则值：{}，抽奖次数：{}", strategyId, ruleWeightValue, count);
+        IRandomSource random = randomSourceOf(strategyId);
+
+        // 别名表引擎
+        if (DispatchEngineVO.ALIAS == armoryProperties.dispatchEngineOf(strategyId)) {
+            StrategyAwardAliasTableVO aliasTable = getAliasTable(strategyId, ruleWeightValue);
+            if (aliasTable != null) {
+                return sampleAliasTable(strategyId, ruleWeightValue, aliasTable, random, count);
+            }
+        }
+
+        // 优先使用本地查找表
+        int[] localTable = getLocalSearchRateTable(strategyId, ruleWeightValue);
+        if (localTable != null) {
+            return sampleLocalTable(strategyId, ruleWeightValue, localTable, random, count);
+        }
+
+        StrategyRateTableSnapshotVO snapshot = strategyRepository.queryStrategyRateTableSnapshot(strategyId, ruleWeightValue);
+        if (snapshot == null || snapshot.getRateRange() == 0) {
+            log.warn("权重策略未装配或概率范围为0，策略ID：{}，权重值：{}，使用普通策略", strategyId, ruleWeightValue);
+            return getRandomAwardIds(strategyId, count);
+        }
+        int[] rateKeys = randomRateKeys(random, snapshot.getRateRange(), count);
+        Map<Integer, Integer> awardIds = strategyRepository.getStrategyAwardAssembleBatch(snapshot, toRateKeySet(rateKeys));
+        return resolveAwardIds(strategyId, ruleWeightValue, rateKeys, awardIds);
+    }
+
+    /**
+     * 校验批量抽奖次数
+     * @param strategyId 策略ID
+     * @param count 抽奖次数
+     */
+    private void checkDrawCount(Long strategyId, int count) {
+        if (count <= 0 || count > armoryProperties.getBatchDrawMaxCount()) {
+            log.warn("批量抽奖次数非法，策略ID：{}，抽奖次数：{}，上限：{}", strategyId, count, armoryProperties.getBatchDrawMaxCount());
+            throw new AppException(ResponseCode.ILLEGAL_PARAMETER.getCode(), "批量抽奖次数须在1到" + armoryProperties.getBatchDrawMaxCount() + "之间");
+        }
+    }
+
+    private List<Integer> sampleAliasTable(Long strategyId, String ruleWeightValue, StrategyAwardAliasTableVO aliasTable, IRandomSource random, int count) {
+        List<Integer> awardIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int column = random.nextInt(aliasTable.columns());
+            awardIds.add(journal(strategyId, ruleWeightValue, column, aliasTable.sample(column, random.nextDouble()), null));
+        }
+        return awardIds;
+    }
+
+    private List<Integer> sampleLocalTable(Long strategyId, String ruleWeightValue, int[] localTable, IRandomSource random, int count) {
+        List<Integer> awardIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int slot = random.nextInt(localTable.length);
+            awardIds.add(journal(strategyId, ruleWeightValue, slot, localTable[slot], null));
+        }
+        return awardIds;
+    }
+
+    /**
+     * 生成随机概率值，范围为 [1, rateRange]
+     */
+    private int[] randomRateKeys(IRandomSource random, int rateRange, int count) {
+        int[] rateKeys = new int[count];
+        for (int i = 0; i < count; i++) {
+            rateKeys[i] = random.nextInt(rateRange) + 1;
+        }
+        return rateKeys;
+    }
+
+    private Set<Integer> toRateKeySet(int[] rateKeys) {
+        Set<Integer> rateKeySet = new HashSet<>(rateKeys.length * 4 / 3 + 1);
+        for (int rateKey : rateKeys) {
+            rateKeySet.add(rateKey);
+        }
+        return rateKeySet;
+    }
+
+    /**
+     * 按抽奖顺序还原奖品ID，重复的概率值对应同一奖品
+     */
+    private List<Integer> resolveAwardIds(Long strategyId, String ruleWeightValue, int[] rateKeys, Map<Integer, Integer> awardIdMap) {
+        List<Integer> awardIds = new ArrayList<>(rateKeys.length);
+        for (int rateKey : rateKeys) {
+            awardIds.add(journal(strategyId, ruleWeightValue, rateKey - 1, awardIdMap.get(rateKey), null));
+        }
+        return awardIds;
+    }
+
+    /**
+     * 抽中奖品时追加抽奖流水，未抽中（策略未装配）不记录
+     * @param slot 查找表下标或别名表列号，在 Redis 脚本内抽奖时为 UNKNOWN_SLOT
+     * @return 抽中的奖品ID
+     */
+    private Integer journal(Long strategyId, String ruleWeightValue, int slot, Integer awardId, String userId) {
+        if (awardId != null) {
+            drawJournalRepository.appendDraw(strategyId, ruleWeightValue, slot, awardId, userId);
+        }
+        return awardId;
+    }
+
+    /**
+     * 获取策略使用的随机源
+     * @param strategyId 策略ID
+     * @return 随机源
+     */
+    private IRandomSource randomSourceOf(Long strategyId) {
+        return randomSources.get(armoryProperties.randomSourceOf(strategyId));
+    }
+
+    /**
+     * 获取本地查找表
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @return 查找表；未启用、未装配或 Redis 数据不完整时返回null，由调用方回退到 Redis 查询
+     */
+    private int[] getLocalSearchRateTable(Long strategyId, String ruleWeightValue) {
+        if (!armoryProperties.isLocalTableEnabled()) {
+            return null;
+        }
+        return getLocalTable(searchRateTableCache, strategyId, ruleWeightValue, () -> {
+            int[] table = null == ruleWeightValue
+                    ? strategyRepository.queryStrategyAwardSearchRateTable(strategyId)
+                    : strategyRepository.queryStrategyAwardSearchRateTableByWeight(strategyId, ruleWeightValue);
+            return table == null || table.length == 0 ? null : table;
+        });
+    }
+
+    /**
+     * 获取别名表，启用本地表时从本地获取，否则每次读取 Redis
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @return 别名表，未装配时返回null
+     */
+    private StrategyAwardAliasTableVO getAliasTable(Long strategyId, String ruleWeightValue) {
+        Supplier<StrategyAwardAliasTableVO> loader = () -> null == ruleWeightValue
+                ? strategyRepository.queryStrategyAwardAliasTable(strategyId)
+                : strategyRepository.queryStrategyAwardAliasTableByWeight(strategyId, ruleWeightValue);
+        if (!armoryProperties.isLocalTableEnabled()) {
+            return loader.get();
+        }
+        return getLocalTable(aliasTableCache, strategyId, ruleWeightValue, loader);
+    }
+
+    /**
+     * 获取本地装配表，首次访问或超过校验间隔时比对 Redis 中的装配版本号
+     * @param cache 本地装配表
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @param loader 从 Redis 装载装配表
+     * @return 装配表，未装配时返回null
+     */
+    private <T> T getLocalTable(StrategyLocalTableCache<T> cache, Long strategyId, String ruleWeightValue, Supplier<T> loader) {
+        long now = System.currentTimeMillis();
+        StrategyLocalTableCache.Entry<T> entry = cache.get(strategyId, ruleWeightValue);
+        if (entry != null && !entry.tryAcquireCheck(now, armoryProperties.getLocalTableCheckInterval())) {
+            return entry.getTable();
+        }
+
+        // 先读版本号再读装配表：装载期间若发生重新装配，下次校验时版本号不一致会再次装载
+        long version = strategyRepository.queryStrategyArmoryVersion(strategyId);
+        if (entry != null && entry.getVersion() == version) {
+            return entry.getTable();
+        }
+
+        T table = loader.get();
+        log.info("装载本地装配表，策略ID：{}，权重值：{}，版本号：{}，已装配：{}", strategyId, ruleWeightValue, version, table != null);
+        return cache.put(strategyId, ruleWeightValue, version, table, now).getTable();
+    }
+
     /**
      * 装配正常策略（无权重）
      * @param strategyId 策略ID
@@ -145,11 +617,11 @@ public class StrategyArmory implements IStrategyArmory, IStrategyAssemble, IStra
         log.info("开始装配正常抽奖策略，策略ID：{}", strategyId);
 
         // 获取最小概率值
-        BigDecimal minAwardRate = getMinAwardRate(strategyAwardEntityList);
+        BigDecimal minAwardRate = timeAssemblePhase("min_rate", () -> getMinAwardRate(strategyAwardEntityList));
         log.info("最小概率值：{}", minAwardRate);
 
         // 获取概率值总和
-        BigDecimal totalAwardRate = getTotalAwardRate(strategyAwardEntityList);
+        BigDecimal totalAwardRate = timeAssemblePhase("total_rate", () -> getTotalAwardRate(strategyAwardEntityList));
         log.info("概率值总和：{}", totalAwardRate);
 
         // 用总概率/最小概率获得概率范围
@@ -158,31 +630,58 @@ public class StrategyArmory implements IStrategyArmory, IStrategyAssemble, IStra
 
         // 生成策略奖品概率查找表
         log.info("开始生成抽奖策略奖品概率查找表");
-        List<Integer> strategyAwardSearchRateTable = generateAwardSearchTable(strategyAwardEntityList, rateRange, totalAwardRate);
+        int[] strategyAwardSearchRateTable = timeAssemblePhase("table",
+                () -> generateAwardSearchTable(strategyAwardEntityList, rateRange, totalAwardRate));
 
-        // 对存储的奖品进行乱序操作
+        // 对存储的奖品进行原地乱序操作
         log.info("开始打乱抽奖策略奖品查找表");
-        shuffleAwardTable(strategyAwardSearchRateTable);
-
-        // 生成出Map集合，key值，对应的就是后续的概率值
-        Map<Integer, Integer> shuffleStrategyAwardSearchRateTable = generateAwardRateTableMap(strategyAwardSearchRateTable);
+        timeAssemblePhase("shuffle", () -> shuffleAwardTable(strategyId, strategyAwardSearchRateTable));
 
-        // 存放到 Redis
+        // 存放到 Redis，下标 i 对应概率值 i + 1，由仓储分块写入
         log.info("开始存储抽奖策略数据到Redis");
-        strategyRepository.storeStrategyAwardSearchRateTable(strategyId, shuffleStrategyAwardSearchRateTable.size(), shuffleStrategyAwardSearchRateTable);
+        timeAssemblePhase("store", () -> strategyRepository.storeStrategyAwardSearchRateTable(strategyId, strategyAwardSearchRateTable));
 
         log.info("正常抽奖策略装配完成，策略ID：{}", strategyId);
         return true;
     }
 
+    /**
+     * 装配正常策略的别名表
+     * @param strategyId 策略ID
+     * @param strategyAwardEntityList 策略奖品列表
+     * @return 装配结果
+     */
+    private boolean assembleNormalAliasStrategy(Long strategyId, List<StrategyAwardEntity> strategyAwardEntityList) {
+        StrategyAwardAliasTableVO aliasTable = timeAssemblePhase("alias_table", () -> createAliasTable(strategyAwardEntityList));
+        timeAssemblePhase("store", () -> strategyRepository.storeStrategyAwardAliasTable(strategyId, aliasTable));
+        log.info("正常策略别名表装配完成，策略ID：{}，列数：{}", strategyId, aliasTable.columns());
+        return true;
+    }
+
+    /**
+     * 构建别名表，大小与奖品数量一致
+     * @param strategyAwardList 策略奖品列表
+     * @return 别名表
+     */
+    private StrategyAwardAliasTableVO createAliasTable(List<StrategyAwardEntity> strategyAwardList) {
+        int[] awardIds = new int[strategyAwardList.size()];
+        double[] weights = new double[strategyAwardList.size()];
+        for (int i = 0; i < strategyAwardList.size(); i++) {
+            awardIds[i] = strategyAwardList.get(i).getAwardId();
+            weights[i] = strategyAwardList.get(i).getAwardRate().doubleValue();
+        }
+        return StrategyAwardAliasTableVO.create(awardIds, weights);
+    }
+
     /**
      * 装配权重策略
      * @param strategyId 策略ID
      * @param strategyAwardEntityList 策略奖品列表
      * @param strategyRuleEntity 权重规则
+     * @param dispatchEngine 调度引擎
      * @return 装配结果
      */
-    private boolean assembleWeightLotteryStrategy(Long strategyId, List<StrategyAwardEntity> strategyAwardEntityList, StrategyRuleEntity strategyRuleEntity) {
+    private boolean assembleWeightLotteryStrategy(Long strategyId, List<StrategyAwardEntity> strategyAwardEntityList, StrategyRuleEntity strategyRuleEntity, DispatchEngineVO dispatchEngine) {
         log.info("开始装配权重抽奖策略，策略ID：{}", strategyId);
 
         if (strategyRuleEntity == null) {
@@ -192,22 +691,17 @@ public class StrategyArmory implements IStrategyArmory, IStrategyAssemble, IStra
 
         log.info("查询到权重规则，策略ID：{}，规则值：{}", strategyId, strategyRuleEntity.getRuleValue());
 
-        // 解析权重规则值
-        Map<String, String[]> ruleWeightValues = strategyRuleEntity.getRuleWeightValues();
-        
-        for (Map.Entry<String, String[]> entry : ruleWeightValues.entrySet()) {
-            String ruleWeightValue = entry.getKey();
-            String[] awardIds = entry.getValue();
-            
-            log.info("装配权重策略，权重值：{}，奖品ID：{}", ruleWeightValue, Arrays.toString(awardIds));
+        // 解析权重规则值，每档奖品ID为有序数组，二分判断奖品是否在档位内
+        StrategyRuleWeightVO ruleWeight = StrategyRuleWeightVO.parse(strategyRuleEntity.getRuleValue());
 
-            // 过滤出权重范围内的奖品
-            List<Integer> awardIdList = Arrays.stream(awardIds)
-                    .map(Integer::parseInt)
-                    .collect(Collectors.toList());
+        for (StrategyRuleWeightVO.Tier tier : ruleWeight.tiers()) {
+            String ruleWeightValue = tier.getRuleWeightValue();
+
+            log.info("装配权重策略，权重值：{}，奖品ID：{}", ruleWeightValue, Arrays.toString(tier.getAwardIds()));
 
+            // 过滤出权重范围内的奖品
             List<StrategyAwardEntity> weightStrategyAwardList = strategyAwardEntityList.stream()
-                    .filter(strategyAward -> awardIdList.contains(strategyAward.getAwardId()))
+                    .filter(strategyAward -> tier.contains(strategyAward.getAwardId()))
                     .collect(Collectors.toList());
 
             if (weightStrategyAwardList.isEmpty()) {
@@ -215,11 +709,19 @@ public class StrategyArmory implements IStrategyArmory, IStrategyAssemble, IStra
                 continue;
             }
 
+            if (DispatchEngineVO.ALIAS == dispatchEngine) {
+                // 别名表按相对权重构建，无需重新归一化概率
+                StrategyAwardAliasTableVO aliasTable = timeAssemblePhase("alias_table", () -> createAliasTable(weightStrategyAwardList));
+                timeAssemblePhase("store", () -> strategyRepository.storeStrategyAwardAliasTableByWeight(strategyId, ruleWeightValue, aliasTable));
+                log.info("权重策略别名表装配完成，策略ID：{}，权重值：{}，列数：{}", strategyId, ruleWeightValue, aliasTable.columns());
+                continue;
+            }
+
             // 重新计算权重范围内奖品的概率
-            adjustAwardRatesForWeight(weightStrategyAwardList);
+            List<StrategyAwardEntity> adjustedStrategyAwardList = adjustAwardRatesForWeight(weightStrategyAwardList);
 
             // 装配权重策略
-            assembleWeightStrategy(strategyId, ruleWeightValue, weightStrategyAwardList);
+            assembleWeightStrategy(strategyId, ruleWeightValue, adjustedStrategyAwardList);
         }
 
         log.info("权重抽奖策略装配完成，策略ID：{}", strategyId);
@@ -228,21 +730,25 @@ public class StrategyArmory implements IStrategyArmory, IStrategyAssemble, IStra
 
     /**
      * 调整权重范围内奖品的概率
+     * 同一奖品实体会出现在多个权重范围及正常策略中，这里生成副本而不是原地修改
      * @param weightStrategyAwardList 权重范围内的奖品列表
+     * @return 概率已按权重范围归一化的奖品副本
      */
-    private void adjustAwardRatesForWeight(List<StrategyAwardEntity> weightStrategyAwardList) {
+    private List<StrategyAwardEntity> adjustAwardRatesForWeight(List<StrategyAwardEntity> weightStrategyAwardList) {
         BigDecimal totalRate = weightStrategyAwardList.stream()
                 .map(StrategyAwardEntity::getAwardRate)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         // 按原比例重新分配概率，使总概率为100%
         BigDecimal hundred = new BigDecimal("100");
+        List<StrategyAwardEntity> adjustedStrategyAwardList = new ArrayList<>(weightStrategyAwardList.size());
         for (StrategyAwardEntity strategyAward : weightStrategyAwardList) {
             BigDecimal adjustedRate = strategyAward.getAwardRate()
                     .multiply(hundred)
                     .divide(totalRate, 4, RoundingMode.HALF_UP);
-            strategyAward.setAwardRate(adjustedRate);
+            adjustedStrategyAwardList.add(strategyAward.toBuilder().awardRate(adjustedRate).build());
         }
+        return adjustedStrategyAwardList;
     }
 
     /**
@@ -253,23 +759,21 @@ public class StrategyArmory implements IStrategyArmory, IStrategyAssemble, IStra
      */
     private void assembleWeightStrategy(Long strategyId, String ruleWeightValue, List<StrategyAwardEntity> weightStrategyAwardList) {
         // 获取最小概率值
-        BigDecimal minAwardRate = getMinAwardRate(weightStrategyAwardList);
+        BigDecimal minAwardRate = timeAssemblePhase("min_rate", () -> getMinAwardRate(weightStrategyAwardList));
         // 获取概率值总和
-        BigDecimal totalAwardRate = getTotalAwardRate(weightStrategyAwardList);
+        BigDecimal totalAwardRate = timeAssemblePhase("total_rate", () -> getTotalAwardRate(weightStrategyAwardList));
         // 计算概率范围
         BigDecimal rateRange = calculateRateRange(minAwardRate, totalAwardRate);
 
         // 生成策略奖品概率查找表
-        List<Integer> strategyAwardSearchRateTable = generateAwardSearchTable(weightStrategyAwardList, rateRange, totalAwardRate);
-        
-        // 打乱查找表
-        shuffleAwardTable(strategyAwardSearchRateTable);
+        int[] strategyAwardSearchRateTable = timeAssemblePhase("table",
+                () -> generateAwardSearchTable(weightStrategyAwardList, rateRange, totalAwardRate));
         
-        // 生成映射表
-        Map<Integer, Integer> shuffleStrategyAwardSearchRateTable = generateAwardRateTableMap(strategyAwardSearchRateTable);
+        // 原地打乱查找表
+        timeAssemblePhase("shuffle", () -> shuffleAwardTable(strategyId, strategyAwardSearchRateTable));
 
         // 存储权重策略数据
-        strategyRepository.storeStrategyAwardSearchRateTableByWeight(strategyId, ruleWeightValue, shuffleStrategyAwardSearchRateTable.size(), shuffleStrategyAwardSearchRateTable);
+        timeAssemblePhase("store", () -> strategyRepository.storeStrategyAwardSearchRateTableByWeight(strategyId, ruleWeightValue, strategyAwardSearchRateTable));
         
         log.info("权重策略装配完成，策略ID：{}，权重值：{}，概率范围：{}", strategyId, ruleWeightValue, rateRange);
     }
@@ -310,54 +814,61 @@ public class StrategyArmory implements IStrategyArmory, IStrategyAssemble, IStra
     
     /**
      * 生成策略奖品概率查找表
+     * 先计算每个奖品的占位数量，再一次性分配 int[] 顺序填充，装配期间不产生装箱对象
      * @param strategyAwardList 策略奖品列表
      * @param rateRange 概率范围
      * @param totalAwardRate 概率总和
      * @return 奖品概率查找表
      */
-    private List<Integer> generateAwardSearchTable(List<StrategyAwardEntity> strategyAwardList, BigDecimal rateRange, BigDecimal totalAwardRate) {
-        List<Integer> strategyAwardSearchRateTable = new ArrayList<>();
-        
-        for (StrategyAwardEntity strategyAward : strategyAwardList) {
-            Integer awardId = strategyAward.getAwardId();
-            BigDecimal awardRate = strategyAward.getAwardRate();
-            
-            // 计算该奖品在查找表中的占位数量
-            BigDecimal rateCount = awardRate
+    private int[] generateAwardSearchTable(List<StrategyAwardEntity> strategyAwardList, BigDecimal rateRange, BigDecimal totalAwardRate) {
+        // 1. 计算每个奖品在查找表中的占位数量
+        int[] rateCounts = new int[strategyAwardList.size()];
+        long tableSize = 0;
+        for (int i = 0; i < strategyAwardList.size(); i++) {
+            StrategyAwardEntity strategyAward = strategyAwardList.get(i);
+            rateCounts[i] = strategyAward.getAwardRate()
                     .multiply(rateRange)
-                    .divide(totalAwardRate, 0, RoundingMode.CEILING);
-            
-            // 在查找表中添加对应数量的奖品ID
-            for (int i = 0; i < rateCount.intValue(); i++) {
-                strategyAwardSearchRateTable.add(awardId);
-            }
-            
-            log.debug("奖品ID：{}，概率：{}%，占位数量：{}", awardId, awardRate, rateCount.intValue());
+                    .divide(totalAwardRate, 0, RoundingMode.CEILING)
+                    .intValueExact();
+            tableSize += rateCounts[i];
+            log.debug("奖品ID：{}，概率：{}%，占位数量：{}", strategyAward.getAwardId(), strategyAward.getAwardRate(), rateCounts[i]);
         }
-        
+        if (tableSize > Integer.MAX_VALUE) {
+            throw new AppException(ResponseCode.ILLEGAL_PARAMETER.getCode(), "策略奖品查找表过大：" + tableSize);
+        }
+
+        // 2. 按占位数量顺序填充奖品ID
+        int[] strategyAwardSearchRateTable = new int[(int) tableSize];
+        int from = 0;
+        for (int i = 0; i < strategyAwardList.size(); i++) {
+            int to = from + rateCounts[i];
+            Arrays.fill(strategyAwardSearchRateTable, from, to, strategyAwardList.get(i).getAwardId());
+            from = to;
+        }
+
         return strategyAwardSearchRateTable;
     }
     
     /**
-     * 对奖品查找表进行乱序操作
-     * @param strategyAwardSearchRateTable 奖品查找表
+     * 记录装配阶段耗时
+     * @param phase 阶段：min_rate、total_rate、table、shuffle、alias_table、store
+     * @param step 阶段执行
+     * @return 阶段结果
      */
-    private void shuffleAwardTable(List<Integer> strategyAwardSearchRateTable) {
-        Collections.shuffle(strategyAwardSearchRateTable, secureRandom);
+    private <T> T timeAssemblePhase(String phase, Supplier<T> step) {
+        return meterRegistry.timer("strategy.armory.assemble", "phase", phase).record(step);
     }
-    
+
+    private void timeAssemblePhase(String phase, Runnable step) {
+        meterRegistry.timer("strategy.armory.assemble", "phase", phase).record(step);
+    }
+
     /**
-     * 生成概率空间索引到奖品ID的映射表
-     * @param strategyAwardSearchRateTable 已乱序的奖品查找表
-     * @return 概率空间索引到奖品ID的映射
+     * 对奖品查找表进行原地乱序操作，使用策略配置的随机源
+     * @param strategyId 策略ID
+     * @param strategyAwardSearchRateTable 奖品查找表
      */
-    private Map<Integer, Integer> generateAwardRateTableMap(List<Integer> strategyAwardSearchRateTable) {
-        Map<Integer, Integer> shuffleStrategyAwardSearchRateTable = new HashMap<>();
-        
-        for (int i = 0; i < strategyAwardSearchRateTable.size(); i++) {
-            shuffleStrategyAwardSearchRateTable.put(i + 1, strategyAwardSearchRateTable.get(i));
-        }
-        
-        return shuffleStrategyAwardSearchRateTable;
+    private void shuffleAwardTable(Long strategyId, int[] strategyAwardSearchRateTable) {
+        randomSourceOf(strategyId).shuffle(strategyAwardSearchRateTable);
     }
 }
@@ -0,0 +1,84 @@
+package com.bhuang.domain.strategy.service.armory;
+
+import com.bhuang.domain.strategy.model.valobj.DispatchEngineVO;
+import com.bhuang.domain.strategy.model.valobj.RandomSourceVO;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author bhuang
+ * @description 策略装配配置
+ * @create 2025-06-13
+ */
+@Data
+@ConfigurationProperties(prefix = "strategy.armory", ignoreInvalidFields = true)
+public class StrategyArmoryProperties {
+
+    /** 是否启用本地查找表，内存受限的节点可关闭，回退为每次抽奖读取 Redis */
+    private boolean localTableEnabled = true;
+    /** 本地查找表版本校验间隔（毫秒），间隔内不访问 Redis */
+    private long localTableCheckInterval = 1000L;
+    /** 默认调度引擎：table-概率查找表、alias-Vose别名表、script-概率查找表 + Redis Lua脚本 */
+    private String dispatchEngine = DispatchEngineVO.TABLE.getCode();
+    /** 按策略指定调度引擎，key-策略ID，value-调度引擎 */
+    private Map<Long, String> dispatchEngines = new HashMap<>();
+    /**
+     * Redis 是否为单节点部署（含主从、哨兵）
+     * script 引擎在脚本内按版本指针拼接查找表Key，这些Key未在 KEYS 中声明，在 Redis Cluster 或按 KEYS 路由的代理下不可用，
+     * 置为 false 时不允许任何策略使用 script 引擎
+     */
+    private boolean redisSingleNode = true;
+    /** 默认随机源：thread-local、splittable、secure */
+    private String randomSource = RandomSourceVO.THREAD_LOCAL.getCode();
+    /** 按策略指定随机源，key-策略ID，value-随机源 */
+    private Map<Long, String> randomSources = new HashMap<>();
+    /** 单次批量抽奖的最大次数 */
+    private int batchDrawMaxCount = 1000;
+    /** 是否在应用启动时预热装配全部策略 */
+    private boolean warmUpEnabled = false;
+    /** 预热装配的最大并发策略数 */
+    private int warmUpConcurrency = 8;
+    /** 预热装配等待超时（毫秒） */
+    private long warmUpTimeout = 300_000L;
+    /** 奖品售罄时 rule_luck_award 规则值未指定奖品ID所使用的兜底奖品；置空时售罄不发放奖品 */
+    private Integer defaultLuckAwardId = 101;
+
+    /**
+     * 获取策略使用的调度引擎
+     * @param strategyId 策略ID
+     * @return 调度引擎
+     */
+    public DispatchEngineVO dispatchEngineOf(Long strategyId) {
+        return DispatchEngineVO.of(dispatchEngines.getOrDefault(strategyId, dispatchEngine));
+    }
+
+    /**
+     * 校验调度引擎与 Redis 部署方式一致：非单节点部署时默认引擎与按策略指定的引擎都不能为 script
+     * @throws IllegalStateException 配置不一致
+     */
+    public void checkDispatchEngines() {
+        if (redisSingleNode) {
+            return;
+        }
+        if (DispatchEngineVO.SCRIPT == DispatchEngineVO.of(dispatchEngine)) {
+            throw new IllegalStateException("script 调度引擎要求 Redis 单节点部署，strategy.armory.redis-single-node=false 时不能作为默认调度引擎");
+        }
+        dispatchEngines.forEach((strategyId, engine) -> {
+            if (DispatchEngineVO.SCRIPT == DispatchEngineVO.of(engine)) {
+                throw new IllegalStateException("script 调度引擎要求 Redis 单节点部署，strategy.armory.redis-single-node=false 时策略 " + strategyId + " 不能使用");
+            }
+        });
+    }
+
+    /**
+     * 获取策略使用的随机源
+     * @param strategyId 策略ID
+     * @return 随机源
+     */
+    public RandomSourceVO randomSourceOf(Long strategyId) {
+        return RandomSourceVO.of(randomSources.getOrDefault(strategyId, randomSource));
+    }
+}
@@ -1,29 +1,125 @@
 package com.bhuang.domain.strategy.service.armory;
 
+import com.bhuang.domain.strategy.model.valobj.StrategyDrawResultVO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * @author bhuang
  * @description 策略调度服务 - 专门负责抽奖逻辑的执行
+ * 每个调度接口的耗时记录到 strategy.draw 指标，标签 method 区分接口，带 P50/P95/P99 与固定分桶的直方图
+ * StrategyArmory 同样实现 IStrategyDispatch，按接口注入时以本服务为准，抽奖均经过耗时统计
  * @create 2025-06-13
  */
 @Slf4j
+@Primary
 @Service
 public class StrategyDispatchService implements IStrategyDispatch {
 
+    public static final String DRAW_METER_NAME = "strategy.draw";
+
+    /**
+     * 抽奖耗时直方图分桶：本地抽奖在百微秒内，一次 Redis 往返在毫秒级
+     * 默认注册表不生成百分位直方图的分桶，这里固定分桶，各注册表导出一致
+     */
+    public static final Duration[] DRAW_LATENCY_BUCKETS = {
+            Duration.ofNanos(100_000), Duration.ofNanos(250_000), Duration.ofNanos(500_000),
+            Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(5), Duration.ofMillis(10),
+            Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1)};
+
     @Resource
     private StrategyArmory strategyArmory;
 
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /** key-调度接口 */
+    private final Map<String, Timer> drawTimers = new ConcurrentHashMap<>();
+
     @Override
     public Integer getRandomAwardId(Long strategyId) {
-        return strategyArmory.getRandomAwardId(strategyId);
+        return timeDraw("single", () -> strategyArmory.getRandomAwardId(strategyId));
     }
 
     @Override
     public Integer getRandomAwardId(Long strategyId, String ruleWeightValue) {
-        return strategyArmory.getRandomAwardId(strategyId, ruleWeightValue);
+        return timeDraw("weight", () -> strategyArmory.getRandomAwardId(strategyId, ruleWeightValue));
+    }
+
+    @Override
+    public Integer getRandomAwardIdByScore(Long strategyId, long score) {
+        return timeDraw("score", () -> strategyArmory.getRandomAwardIdByScore(strategyId, score));
+    }
+
+    @Override
+    public List<Integer> getRandomAwardIds(Long strategyId, int count) {
+        return timeDraw("batch", () -> strategyArmory.getRandomAwardIds(strategyId, count));
+    }
+
+    @Override
+    public List<Integer> getRandomAwardIds(Long strategyId, String ruleWeightValue, int count) {
+        return timeDraw("batch_weight", () -> strategyArmory.getRandomAwardIds(strategyId, ruleWeightValue, count));
+    }
+
+    @Override
+    public StrategyDrawResultVO getRandomAwardIdAndCount(Long strategyId, String ruleWeightValue, String userId) {
+        return timeDraw("count", () -> strategyArmory.getRandomAwardIdAndCount(strategyId, ruleWeightValue, userId));
     }
-} 
\ No newline at end of file
+
+    @Override
+    public CompletableFuture<StrategyDrawResultVO> getRandomAwardIdAndCountAsync(Long strategyId, String ruleWeightValue, String userId) {
+        return timeDrawAsync("async_count", () -> strategyArmory.getRandomAwardIdAndCountAsync(strategyId, ruleWeightValue, userId));
+    }
+
+    @Override
+    public CompletableFuture<Integer> getRandomAwardIdAsync(Long strategyId, String ruleWeightValue) {
+        return timeDrawAsync("async", () -> strategyArmory.getRandomAwardIdAsync(strategyId, ruleWeightValue));
+    }
+
+    @Override
+    public CompletableFuture<List<Integer>> getRandomAwardIdsAsync(Long strategyId, String ruleWeightValue, int count) {
+        return timeDrawAsync("async_batch", () -> strategyArmory.getRandomAwardIdsAsync(strategyId, ruleWeightValue, count));
+    }
+
+    private <T> T timeDraw(String method, Supplier<T> draw) {
+        long startNanos = System.nanoTime();
+        try {
+            return draw.get();
+        } finally {
+            drawTimer(method).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 异步接口记录到结果完成为止，method_submit 记录调用线程上的耗时（提交后即返回，应远小于完成耗时）
+     */
+    private <T> CompletableFuture<T> timeDrawAsync(String method, Supplier<CompletableFuture<T>> draw) {
+        long startNanos = System.nanoTime();
+        return timeDraw(method + "_submit", draw)
+                .whenComplete((result, throwable) -> drawTimer(method).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS));
+    }
+
+    private Timer drawTimer(String method) {
+        return drawTimers.computeIfAbsent(method, key -> Timer.builder(DRAW_METER_NAME)
+                .description("抽奖调度耗时")
+                .tag("method", key)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(DRAW_LATENCY_BUCKETS)
+                .register(meterRegistry));
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.bhuang.domain.strategy.service.armory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author bhuang
+ * @description 本地策略装配表 - 在进程内保存已装配的查找表（int[] 概率查找表、别名表等），抽奖时无需访问 Redis
+ * 装配表装配后不可变，Redis 仅用于装载以及跨节点的版本号比对；版本号变化说明策略已重新装配，需要重新装载
+ * @create 2025-06-13
+ */
+public class StrategyLocalTableCache<T> {
+
+    private final ConcurrentMap<String, Entry<T>> tables = new ConcurrentHashMap<>();
+
+    /**
+     * 查询本地装配表条目
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @return 条目，未装载时返回null
+     */
+    public Entry<T> get(Long strategyId, String ruleWeightValue) {
+        return tables.get(cacheKey(strategyId, ruleWeightValue));
+    }
+
+    /**
+     * 装载装配表
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @param version 装载时读取到的版本号，须在读取装配表之前读取
+     * @param table 装配表，null表示该档位未装配，同样缓存以避免每次抽奖都回源
+     * @param now 当前时间
+     * @return 新条目
+     */
+    public Entry<T> put(Long strategyId, String ruleWeightValue, long version, T table, long now) {
+        Entry<T> entry = new Entry<>(version, table, now);
+        tables.put(cacheKey(strategyId, ruleWeightValue), entry);
+        return entry;
+    }
+
+    private String cacheKey(Long strategyId, String ruleWeightValue) {
+        return ruleWeightValue == null ? String.valueOf(strategyId) : strategyId + "_" + ruleWeightValue;
+    }
+
+    /**
+     * 本地装配表条目
+     */
+    public static final class Entry<T> {
+
+        /** 装载时的策略装配版本号 */
+        private final long version;
+        /** 装配表，null表示该档位未装配 */
+        private final T table;
+        /** 最近一次版本校验时间 */
+        private final AtomicLong checkedAt;
+
+        private Entry(long version, T table, long checkedAt) {
+            this.version = version;
+            this.table = table;
+            this.checkedAt = new AtomicLong(checkedAt);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public T getTable() {
+            return table;
+        }
+
+        /**
+         * 是否需要由当前线程校验版本号
+         * 超过校验间隔后只有一个线程会拿到校验权，其余线程继续使用当前装配表
+         * @param now 当前时间
+         * @param checkInterval 校验间隔（毫秒）
+         * @return true-当前线程负责校验
+         */
+        public boolean tryAcquireCheck(long now, long checkInterval) {
+            long last = checkedAt.get();
+            return now - last >= checkInterval && checkedAt.compareAndSet(last, now);
+        }
+    }
+}
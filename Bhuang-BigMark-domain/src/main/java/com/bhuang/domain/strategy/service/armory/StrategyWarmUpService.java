@@ -0,0 +1,163 @@
+package com.bhuang.domain.strategy.service.armory;
+
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyWarmUpProgressEntity;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author bhuang
+ * @description 策略预热服务 - 一次查询全部策略奖品，在公共线程池上有界并发装配
+ * @create 2025-06-14
+ */
+@Slf4j
+@Service
+public class StrategyWarmUpService implements IStrategyWarmUp {
+
+    @Resource
+    private StrategyArmory strategyArmory;
+
+    @Resource
+    private IStrategyRepository strategyRepository;
+
+    @Resource
+    private StrategyArmoryProperties armoryProperties;
+
+    @Resource
+    private ThreadPoolExecutor threadPoolExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // 当前或最近一次预热的进度
+    private volatile int total;
+    private volatile long startTime;
+    private volatile long endTime;
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final Map<Long, Long> strategyCostMillis = new ConcurrentHashMap<>();
+    private final Set<Long> failedStrategyIds = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public StrategyWarmUpProgressEntity warmUp() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("策略预热正在进行，忽略本次请求");
+            return queryProgress();
+        }
+
+        try {
+            reset();
+            Map<Long, List<StrategyAwardEntity>> strategyAwardMap = strategyRepository.queryAllStrategyAwardList();
+            total = strategyAwardMap.size();
+            int concurrency = Math.max(1, armoryProperties.getWarmUpConcurrency());
+            log.info("开始预热装配策略，策略数：{}，并发数：{}", total, concurrency);
+
+            // 信号量限制同时装配的策略数，避免占满公共线程池
+            Semaphore permits = new Semaphore(concurrency);
+            CountDownLatch latch = new CountDownLatch(total);
+            for (Map.Entry<Long, List<StrategyAwardEntity>> entry : strategyAwardMap.entrySet()) {
+                permits.acquire();
+                try {
+                    threadPoolExecutor.execute(() -> {
+                        try {
+                            assemble(entry.getKey(), entry.getValue());
+                        } finally {
+                            permits.release();
+                            latch.countDown();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    log.error("策略预热任务被拒绝，策略ID：{}", entry.getKey(), e);
+                    complete(entry.getKey(), false, 0);
+                    permits.release();
+                    latch.countDown();
+                }
+            }
+
+            if (!latch.await(armoryProperties.getWarmUpTimeout(), TimeUnit.MILLISECONDS)) {
+                log.warn("策略预热等待超时，已完成：{}/{}", completed.get(), total);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("策略预热被中断，已完成：{}/{}", completed.get(), total);
+        } catch (Exception e) {
+            log.error("策略预热失败", e);
+        } finally {
+            endTime = System.currentTimeMillis();
+            running.set(false);
+        }
+
+        StrategyWarmUpProgressEntity progress = queryProgress();
+        log.info("策略预热完成，策略数：{}，成功：{}，失败：{}，耗时：{}ms，失败策略：{}",
+                progress.getTotal(), progress.getSucceeded(), progress.getFailed(), progress.getCostMillis(), progress.getFailedStrategyIds());
+        return progress;
+    }
+
+    @Override
+    public StrategyWarmUpProgressEntity queryProgress() {
+        return StrategyWarmUpProgressEntity.builder()
+                .running(running.get())
+                .total(total)
+                .completed(completed.get())
+                .succeeded(succeeded.get())
+                .failed(failedStrategyIds.size())
+                .startTime(startTime)
+                .endTime(running.get() ? 0 : endTime)
+                .strategyCostMillis(new HashMap<>(strategyCostMillis))
+                .failedStrategyIds(new ArrayList<>(failedStrategyIds))
+                .build();
+    }
+
+    private void reset() {
+        total = 0;
+        startTime = System.currentTimeMillis();
+        endTime = 0;
+        completed.set(0);
+        succeeded.set(0);
+        strategyCostMillis.clear();
+        failedStrategyIds.clear();
+    }
+
+    private void assemble(Long strategyId, List<StrategyAwardEntity> strategyAwardList) {
+        long assembleStartTime = System.currentTimeMillis();
+        boolean success = false;
+        try {
+            success = strategyArmory.assembleLotteryStrategy(strategyId, strategyAwardList);
+        } catch (Exception e) {
+            log.error("策略预热装配异常，策略ID：{}", strategyId, e);
+        }
+        complete(strategyId, success, System.currentTimeMillis() - assembleStartTime);
+    }
+
+    private void complete(Long strategyId, boolean success, long costMillis) {
+        strategyCostMillis.put(strategyId, costMillis);
+        if (success) {
+            succeeded.incrementAndGet();
+        } else {
+            failedStrategyIds.add(strategyId);
+        }
+
+        // 每完成10%输出一次进度
+        int done = completed.incrementAndGet();
+        int step = Math.max(1, total / 10);
+        if (done % step == 0 || done == total) {
+            log.info("策略预热进度：{}/{}，成功：{}，失败：{}", done, total, succeeded.get(), failedStrategyIds.size());
+        }
+    }
+
+}
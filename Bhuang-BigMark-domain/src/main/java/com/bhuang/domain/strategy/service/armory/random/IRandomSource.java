@@ -0,0 +1,47 @@
+package com.bhuang.domain.strategy.service.armory.random;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author bhuang
+ * @description 抽奖随机源，实现需保证多线程并发调用时无锁竞争
+ * @create 2025-06-14
+ */
+public interface IRandomSource {
+
+    /**
+     * @param bound 上界（不包含），必须为正数
+     * @return [0, bound) 范围内的均匀随机整数
+     */
+    int nextInt(int bound);
+
+    /**
+     * @return [0, 1) 范围内的均匀随机小数
+     */
+    double nextDouble();
+
+    /**
+     * Fisher–Yates 乱序
+     * @param list 待乱序列表
+     */
+    default void shuffle(List<?> list) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            Collections.swap(list, i, nextInt(i + 1));
+        }
+    }
+
+    /**
+     * 原地 Fisher–Yates 乱序
+     * @param array 待乱序数组
+     */
+    default void shuffle(int[] array) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.bhuang.domain.strategy.service.armory.random;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * @author bhuang
+ * @description SecureRandom 随机源，供需要审计的活动使用
+ * 每个线程持有独立实例避免共享实例的同步开销，并按固定次数补充种子。
+ * 线程私有实例使用 SHA1PRNG/DRBG，默认的 NativePRNG 各实例共享全局锁，拆分到线程也无法消除竞争
+ * @create 2025-06-14
+ */
+public class SecureRandomSource implements IRandomSource {
+
+    /** 每个线程生成该次数的随机数后补充一次种子 */
+    static final int RESEED_INTERVAL = 1 << 16;
+
+    /** 线程私有实例的算法，按顺序选择第一个可用的 */
+    private static final String[] ALGORITHMS = {"SHA1PRNG", "DRBG"};
+
+    /** 种子字节数 */
+    private static final int SEED_BYTES = 32;
+
+    /** 种子来源，仅在线程初始化和补充种子时访问 */
+    private final SecureRandom seedSource = new SecureRandom();
+
+    private final ThreadLocal<ReseedingRandom> random = ThreadLocal.withInitial(() -> new ReseedingRandom(nextSeed()));
+
+    private byte[] nextSeed() {
+        byte[] seed = new byte[SEED_BYTES];
+        seedSource.nextBytes(seed);
+        return seed;
+    }
+
+    private static SecureRandom newInstance() {
+        for (String algorithm : ALGORITHMS) {
+            try {
+                return SecureRandom.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException ignored) {
+                // 尝试下一个算法
+            }
+        }
+        return new SecureRandom();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.get().next().nextInt(bound);
+    }
+
+    @Override
+    public double nextDouble() {
+        return random.get().next().nextDouble();
+    }
+
+    /**
+     * 线程私有的 SecureRandom，记录使用次数
+     */
+    private class ReseedingRandom {
+
+        private final SecureRandom secureRandom;
+        private int count;
+
+        private ReseedingRandom(byte[] seed) {
+            this.secureRandom = newInstance();
+            this.secureRandom.setSeed(seed);
+        }
+
+        private SecureRandom next() {
+            if (++count >= RESEED_INTERVAL) {
+                count = 0;
+                secureRandom.setSeed(nextSeed());
+            }
+            return secureRandom;
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.bhuang.domain.strategy.service.armory.random;
+
+import java.util.SplittableRandom;
+
+/**
+ * @author bhuang
+ * @description SplittableRandom 随机源，各线程持有从同一根实例拆分出的独立实例，统计质量优于 ThreadLocalRandom
+ * @create 2025-06-14
+ */
+public class SplittableRandomSource implements IRandomSource {
+
+    /** 根实例，split 非线程安全，仅在线程首次使用时加锁拆分 */
+    private final SplittableRandom root = new SplittableRandom();
+
+    private final ThreadLocal<SplittableRandom> random = ThreadLocal.withInitial(this::split);
+
+    private SplittableRandom split() {
+        synchronized (root) {
+            return root.split();
+        }
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.get().nextInt(bound);
+    }
+
+    @Override
+    public double nextDouble() {
+        return random.get().nextDouble();
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.bhuang.domain.strategy.service.armory.random;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author bhuang
+ * @description ThreadLocalRandom 随机源，每个线程独立状态，无竞争、开销最低
+ * @create 2025-06-14
+ */
+public class ThreadLocalRandomSource implements IRandomSource {
+
+    @Override
+    public int nextInt(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    @Override
+    public double nextDouble() {
+        return ThreadLocalRandom.current().nextDouble();
+    }
+
+}
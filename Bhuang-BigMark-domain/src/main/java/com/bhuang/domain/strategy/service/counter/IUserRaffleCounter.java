@@ -0,0 +1,61 @@
+package com.bhuang.domain.strategy.service.counter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author bhuang
+ * @description 用户抽奖次数计数接口，次数用于 rule_lock 等按抽奖次数解锁的规则
+ * 次数在 Redis 中原子累加；抽奖时通常与抽奖在同一次往返内累加，见 IStrategyDispatch#getRandomAwardIdAndCount
+ * @create 2025-06-14
+ */
+public interface IUserRaffleCounter {
+
+    /**
+     * 累加用户抽奖次数，热点用户在本节点累加，其余用户在 Redis 中累加
+     * @param strategyId 策略ID
+     * @param userId 用户ID
+     * @param delta 累加次数
+     * @return 累加后的抽奖次数
+     */
+    long increase(Long strategyId, String userId, long delta);
+
+    /**
+     * 热点用户在本节点累加一次，由定时任务批量回写 Redis
+     * @param strategyId 策略ID
+     * @param userId 用户ID
+     * @return 累加后的抽奖次数；未开启本地累加或用户不是热点用户时返回null，由调用方在 Redis 中累加
+     */
+    Long tryIncreaseLocally(Long strategyId, String userId);
+
+    /**
+     * 记录在 Redis 中累加后的次数，用于热点用户判定
+     * @param strategyId 策略ID
+     * @param userId 用户ID
+     * @param raffleCount 累加后的抽奖次数
+     */
+    void recordRemoteCount(Long strategyId, String userId, long raffleCount);
+
+    /**
+     * 查询用户抽奖次数，包含本节点尚未回写的次数
+     * @param strategyId 策略ID
+     * @param userId 用户ID
+     * @return 抽奖次数，未抽过奖为0
+     */
+    long queryRaffleCount(Long strategyId, String userId);
+
+    /**
+     * 批量查询用户抽奖次数，一次 Redis 往返，用于多连抽等一次请求涉及多个用户的场景
+     * @param strategyId 策略ID
+     * @param userIds 用户ID
+     * @return 用户ID到抽奖次数的映射，包含本节点尚未回写的次数
+     */
+    Map<String, Long> queryRaffleCounts(Long strategyId, List<String> userIds);
+
+    /**
+     * 把本节点累加的次数批量回写 Redis，并按本周期的抽奖次数重新判定热点用户
+     * @return 回写的用户数
+     */
+    int flush();
+
+}
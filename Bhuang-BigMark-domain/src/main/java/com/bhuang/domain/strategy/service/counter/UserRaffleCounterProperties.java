@@ -0,0 +1,23 @@
+package com.bhuang.domain.strategy.service.counter;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author bhuang
+ * @description 用户抽奖次数计数配置
+ * @create 2025-06-14
+ */
+@Data
+@ConfigurationProperties(prefix = "strategy.user-counter", ignoreInvalidFields = true)
+public class UserRaffleCounterProperties {
+
+    /** 是否开启热点用户本地累加，开启后热点用户的次数在本节点累加、定时批量回写 Redis */
+    private boolean localAccumulateEnabled = false;
+    /** 一个回写周期内在本节点抽奖达到该次数的用户判定为热点用户 */
+    private int hotThreshold = 100;
+    /** 本节点最多跟踪的用户数，超出后新用户不再参与热点判定 */
+    private int hotMaxUsers = 10000;
+    /** 回写间隔（毫秒），也是热点判定的统计周期 */
+    private long flushInterval = 200L;
+}
@@ -0,0 +1,221 @@
+package com.bhuang.domain.strategy.service.counter;
+
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author bhuang
+ * @description 用户抽奖次数计数服务 - 次数以 Redis 为准，热点用户可在本节点累加后定时批量回写
+ * 本地累加时其他节点看到的次数最多落后一个回写周期，rule_lock 的解锁判断相应地可能提前或推迟一个周期内的抽奖
+ * 热点用户的次数只取本地计数，不与 Redis 的返回值相加：回写取走的次数在写入 Redis 前后都不在待回写次数中，相加会漏计或重复计数
+ * @create 2025-06-14
+ */
+@Slf4j
+@Service
+public class UserRaffleCounterService implements IUserRaffleCounter {
+
+    @Resource
+    private IStrategyRepository strategyRepository;
+
+    @Resource
+    private UserRaffleCounterProperties counterProperties;
+
+    /** key-策略ID#用户ID，本周期内抽过奖的候选用户与热点用户，数量不超过 hotMaxUsers */
+    private final Map<String, UserCounter> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public long increase(Long strategyId, String userId, long delta) {
+        Long localCount = increaseLocally(strategyId, userId, delta);
+        return localCount != null ? localCount : strategyRepository.increaseUserRaffleCount(strategyId, userId, delta);
+    }
+
+    @Override
+    public Long tryIncreaseLocally(Long strategyId, String userId) {
+        return increaseLocally(strategyId, userId, 1);
+    }
+
+    private Long increaseLocally(Long strategyId, String userId, long delta) {
+        if (!counterProperties.isLocalAccumulateEnabled()) {
+            return null;
+        }
+        UserCounter counter = counters.get(key(strategyId, userId));
+        if (counter == null) {
+            return null;
+        }
+        synchronized (counter) {
+            if (!counter.hot || counter.removed) {
+                return null;
+            }
+            counter.pending += delta;
+            counter.windowCount++;
+            counter.raffleCount += delta;
+            return counter.raffleCount;
+        }
+    }
+
+    @Override
+    public void recordRemoteCount(Long strategyId, String userId, long raffleCount) {
+        if (!counterProperties.isLocalAccumulateEnabled()) {
+            return;
+        }
+        String key = key(strategyId, userId);
+        UserCounter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= counterProperties.getHotMaxUsers()) {
+                return;
+            }
+            counter = counters.computeIfAbsent(key, k -> new UserCounter(strategyId, userId));
+        }
+        synchronized (counter) {
+            if (counter.removed) {
+                return;
+            }
+            counter.windowCount++;
+            if (counter.hot) {
+                return;
+            }
+            counter.raffleCount = raffleCount;
+            if (counter.windowCount >= counterProperties.getHotThreshold()) {
+                counter.hot = true;
+                log.info("用户抽奖次数切换为本地累加，策略ID：{}，用户ID：{}，抽奖次数：{}", strategyId, userId, raffleCount);
+            }
+        }
+    }
+
+    @Override
+    public long queryRaffleCount(Long strategyId, String userId) {
+        Long localCount = localCountOf(strategyId, userId);
+        if (localCount != null) {
+            return localCount;
+        }
+        return strategyRepository.queryUserRaffleCounts(strategyId, Collections.singletonList(userId)).get(userId);
+    }
+
+    @Override
+    public Map<String, Long> queryRaffleCounts(Long strategyId, List<String> userIds) {
+        // 只有热点用户存在待回写次数，其次数取本地计数，其余用户以 Redis 为准
+        Map<String, Long> raffleCounts = strategyRepository.queryUserRaffleCounts(strategyId, userIds);
+        for (String userId : userIds) {
+            Long localCount = localCountOf(strategyId, userId);
+            if (localCount != null) {
+                raffleCounts.put(userId, localCount);
+            }
+        }
+        return raffleCounts;
+    }
+
+    @Override
+    public int flush() {
+        // 1. 取出各用户待回写的次数，按策略分组
+        Map<Long, Map<String, Long>> deltas = new HashMap<>();
+        Map<Long, List<UserCounter>> flushing = new HashMap<>();
+        for (UserCounter counter : counters.values()) {
+            synchronized (counter) {
+                if (counter.pending == 0) {
+                    continue;
+                }
+                deltas.computeIfAbsent(counter.strategyId, id -> new HashMap<>()).put(counter.userId, counter.pending);
+                flushing.computeIfAbsent(counter.strategyId, id -> new ArrayList<>()).add(counter);
+                counter.pending = 0;
+            }
+        }
+
+        // 2. 每个策略一次管道往返回写，回写后以 Redis 中的次数（含其他节点）加上回写期间新增的次数为准
+        int flushed = 0;
+        for (Map.Entry<Long, Map<String, Long>> entry : deltas.entrySet()) {
+            Long strategyId = entry.getKey();
+            Map<String, Long> strategyDeltas = entry.getValue();
+            try {
+                Map<String, Long> raffleCounts = strategyRepository.increaseUserRaffleCounts(strategyId, strategyDeltas);
+                for (UserCounter counter : flushing.get(strategyId)) {
+                    synchronized (counter) {
+                        counter.raffleCount = raffleCounts.get(counter.userId) + counter.pending;
+                    }
+                }
+                flushed += strategyDeltas.size();
+            } catch (Exception e) {
+                // 回写失败的次数放回本地，下次回写重试
+                for (UserCounter counter : flushing.get(strategyId)) {
+                    synchronized (counter) {
+                        counter.pending += strategyDeltas.get(counter.userId);
+                    }
+                }
+                log.error("用户抽奖次数回写失败，下次回写重试，策略ID：{}，用户数：{}", strategyId, strategyDeltas.size(), e);
+            }
+        }
+
+        // 3. 本周期抽奖次数未达到阈值且已全部回写的用户移出，之后回到 Redis 累加
+        for (Map.Entry<String, UserCounter> entry : counters.entrySet()) {
+            UserCounter counter = entry.getValue();
+            synchronized (counter) {
+                if (counter.windowCount < counterProperties.getHotThreshold() && counter.pending == 0) {
+                    counter.removed = true;
+                    counters.remove(entry.getKey(), counter);
+                    if (counter.hot) {
+                        log.info("用户抽奖次数恢复为Redis累加，策略ID：{}，用户ID：{}", counter.strategyId, counter.userId);
+                    }
+                } else {
+                    counter.windowCount = 0;
+                }
+            }
+        }
+        return flushed;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        int flushed = flush();
+        log.info("用户抽奖次数计数已关闭，回写用户数：{}", flushed);
+    }
+
+    /**
+     * @return 热点用户的本地次数，包含尚未回写与正在回写的次数；不是热点用户时返回null
+     */
+    private Long localCountOf(Long strategyId, String userId) {
+        UserCounter counter = counters.get(key(strategyId, userId));
+        if (counter == null) {
+            return null;
+        }
+        synchronized (counter) {
+            return counter.hot && !counter.removed ? counter.raffleCount : null;
+        }
+    }
+
+    private static String key(Long strategyId, String userId) {
+        return strategyId + "#" + userId;
+    }
+
+    /**
+     * 单个用户的本地计数，字段均在持有该对象锁时读写
+     */
+    private static final class UserCounter {
+
+        private final Long strategyId;
+        private final String userId;
+        /** 已知的抽奖次数，热点用户包含尚未回写的次数 */
+        private long raffleCount;
+        /** 本地累加、尚未回写的次数 */
+        private long pending;
+        /** 本周期内在本节点的抽奖次数 */
+        private int windowCount;
+        private boolean hot;
+        /** 已移出跟踪，持有旧引用的调用方回到 Redis 累加 */
+        private boolean removed;
+
+        private UserCounter(Long strategyId, String userId) {
+            this.strategyId = strategyId;
+            this.userId = userId;
+        }
+    }
+
+}
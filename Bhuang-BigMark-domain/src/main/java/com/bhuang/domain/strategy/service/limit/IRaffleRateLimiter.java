@@ -0,0 +1,34 @@
+package com.bhuang.domain.strategy.service.limit;
+
+import com.bhuang.domain.strategy.model.entity.RaffleRateLimitStatEntity;
+
+/**
+ * @author bhuang
+ * @description 抽奖限流接口，位于抽奖调度之前
+ * 判断只读取本节点内存：集群窗口超限标记、用户令牌桶、策略令牌桶；本节点请求数由定时任务批量同步到集群窗口
+ * @create 2025-06-14
+ */
+public interface IRaffleRateLimiter {
+
+    /**
+     * 尝试放行一次抽奖请求
+     * @param strategyId 策略ID
+     * @param userId 用户ID，为null时只按策略限流；对外接口须要求调用方提供，否则可绕过用户限流
+     * @return 是否放行
+     */
+    boolean tryAcquire(Long strategyId, String userId);
+
+    /**
+     * 把本节点自上次同步以来的请求数累加到集群窗口，并按窗口总数标记或解除超限
+     * @return 同步的限流对象数
+     */
+    int sync();
+
+    /**
+     * 查询本节点的限流统计
+     * @param strategyId 策略ID
+     * @return 统计
+     */
+    RaffleRateLimitStatEntity queryRateLimitStat(Long strategyId);
+
+}
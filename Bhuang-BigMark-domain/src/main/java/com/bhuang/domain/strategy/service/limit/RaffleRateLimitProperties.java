@@ -0,0 +1,43 @@
+package com.bhuang.domain.strategy.service.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author bhuang
+ * @description 抽奖限流配置：本节点令牌桶限制瞬时速率，集群滑动窗口限制全部节点的请求总数
+ * @create 2025-06-14
+ */
+@Data
+@ConfigurationProperties(prefix = "strategy.rate-limit", ignoreInvalidFields = true)
+public class RaffleRateLimitProperties {
+
+    /** 是否开启抽奖限流 */
+    private boolean enabled = true;
+    /** 本节点每个策略每秒允许的请求数与突发请求数 */
+    private double strategyPermitsPerSecond = 10000D;
+    private double strategyBurst = 2000D;
+    /** 本节点每个用户每秒允许的请求数与突发请求数 */
+    private double userPermitsPerSecond = 5D;
+    private double userBurst = 10D;
+    /** 集群内每个策略、每个用户在一个窗口内允许的请求总数 */
+    private long strategyWindowLimit = 50000L;
+    private long userWindowLimit = 20L;
+    /** 集群窗口时长（毫秒）与分片数 */
+    private long windowMillis = 1000L;
+    private int windowSlots = 10;
+    /** 本节点请求数同步到集群窗口的间隔（毫秒），窗口超限后最多延迟该时间开始拒绝 */
+    private long syncInterval = 100L;
+    /** 策略令牌桶分段数 */
+    private int stripes = 8;
+    /** 本节点最多跟踪的用户数与用户空闲淘汰时间（毫秒） */
+    private long userMaxTracked = 100000L;
+    private long userIdleTimeout = 60000L;
+
+    /**
+     * @return 窗口分片时长（毫秒）
+     */
+    public long slotMillis() {
+        return Math.max(1L, windowMillis / windowSlots);
+    }
+}
@@ -0,0 +1,192 @@
+package com.bhuang.domain.strategy.service.limit;
+
+import com.bhuang.domain.strategy.model.entity.RaffleRateLimitStatEntity;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author bhuang
+ * @description 两级抽奖限流服务
+ * 一级：本节点令牌桶，策略令牌桶分段以避免锁争用，用户令牌桶按用户ID缓存并在空闲后淘汰，判断不访问网络；策略令牌桶拒绝时归还已取得的用户令牌
+ * 二级：集群滑动窗口，定时把本节点的请求数批量累加到 Redis 并读回窗口总数，超限的策略或用户在本节点标记为拒绝直到下次同步
+ * 同步失败时超限标记到期自动解除，限流退化为只按本节点令牌桶判断
+ * @create 2025-06-14
+ */
+@Slf4j
+@Service
+public class RaffleRateLimiterService implements IRaffleRateLimiter {
+
+    private static final String STRATEGY_PREFIX = "strategy#";
+    private static final String USER_PREFIX = "user#";
+
+    @Resource
+    private IStrategyRepository strategyRepository;
+
+    @Resource
+    private RaffleRateLimitProperties rateLimitProperties;
+
+    private final Map<Long, StripedTokenBucket> strategyBuckets = new ConcurrentHashMap<>();
+
+    private Cache<String, TokenBucket> userBuckets;
+
+    /** key-限流对象，value-本节点自上次同步以来放行的请求数 */
+    private final Map<String, LongAdder> pendingCounts = new ConcurrentHashMap<>();
+
+    /** key-限流对象，value-集群窗口超限标记的到期时间（毫秒） */
+    private final Map<String, Long> windowBlocked = new ConcurrentHashMap<>();
+
+    private final Map<Long, RateLimitCounter> counters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        userBuckets = CacheBuilder.newBuilder()
+                .maximumSize(rateLimitProperties.getUserMaxTracked())
+                .expireAfterAccess(rateLimitProperties.getUserIdleTimeout(), TimeUnit.MILLISECONDS)
+                .build();
+        log.info("抽奖限流初始化完成，启用：{}，策略：{}/s，用户：{}/s，集群窗口：{}ms，策略窗口上限：{}，用户窗口上限：{}",
+                rateLimitProperties.isEnabled(), rateLimitProperties.getStrategyPermitsPerSecond(), rateLimitProperties.getUserPermitsPerSecond(),
+                rateLimitProperties.getWindowMillis(), rateLimitProperties.getStrategyWindowLimit(), rateLimitProperties.getUserWindowLimit());
+    }
+
+    @Override
+    public boolean tryAcquire(Long strategyId, String userId) {
+        if (!rateLimitProperties.isEnabled()) {
+            return true;
+        }
+        RateLimitCounter counter = counterOf(strategyId);
+        String strategyKey = STRATEGY_PREFIX + strategyId;
+        String userKey = null == userId ? null : USER_PREFIX + strategyId + "#" + userId;
+
+        // 1. 集群窗口超限标记，持续超限时在这里以一次 Map 读取拒绝
+        long nowMillis = System.currentTimeMillis();
+        if (isWindowBlocked(strategyKey, nowMillis) || (null != userKey && isWindowBlocked(userKey, nowMillis))) {
+            counter.rejectedByWindow.increment();
+            return false;
+        }
+
+        // 2. 本节点令牌桶：先用户后策略，单个用户刷请求不消耗策略的令牌；策略拒绝的请求不计入用户的配额
+        long nowNanos = System.nanoTime();
+        TokenBucket userBucket = null == userKey ? null : userBucketOf(userKey, nowNanos);
+        if (null != userBucket && !userBucket.tryAcquire(nowNanos)) {
+            counter.rejectedByUser.increment();
+            return false;
+        }
+        if (!strategyBucketOf(strategyId, nowNanos).tryAcquire(nowNanos)) {
+            if (null != userBucket) {
+                userBucket.release();
+            }
+            counter.rejectedByStrategy.increment();
+            return false;
+        }
+
+        // 3. 放行的请求计入待同步数
+        pendingCounts.computeIfAbsent(strategyKey, key -> new LongAdder()).increment();
+        if (null != userKey) {
+            pendingCounts.computeIfAbsent(userKey, key -> new LongAdder()).increment();
+        }
+        counter.allowed.increment();
+        return true;
+    }
+
+    @Override
+    public int sync() {
+        // 1. 取出待同步数；本周期没有新请求的对象移出，仍处于超限标记的对象以0参与同步，读回窗口总数以便解除
+        Map<String, Long> deltas = new HashMap<>();
+        Iterator<Map.Entry<String, LongAdder>> iterator = pendingCounts.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, LongAdder> entry = iterator.next();
+            long delta = entry.getValue().sumThenReset();
+            if (delta > 0) {
+                deltas.put(entry.getKey(), delta);
+            } else {
+                iterator.remove();
+            }
+        }
+        for (String limiterKey : windowBlocked.keySet()) {
+            deltas.putIfAbsent(limiterKey, 0L);
+        }
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        // 2. 批量累加到集群窗口，按窗口总数标记或解除超限
+        Map<String, Long> windowCounts = strategyRepository.increaseRateLimitWindow(deltas,
+                rateLimitProperties.getWindowMillis(), rateLimitProperties.getWindowSlots());
+        long blockedUntil = System.currentTimeMillis() + rateLimitProperties.slotMillis() + rateLimitProperties.getSyncInterval();
+        for (Map.Entry<String, Long> entry : windowCounts.entrySet()) {
+            String limiterKey = entry.getKey();
+            if (entry.getValue() > windowLimitOf(limiterKey)) {
+                if (null == windowBlocked.put(limiterKey, blockedUntil)) {
+                    log.info("集群限流窗口超限，限流对象：{}，窗口请求数：{}", limiterKey, entry.getValue());
+                }
+            } else if (null != windowBlocked.remove(limiterKey)) {
+                log.info("集群限流窗口恢复，限流对象：{}，窗口请求数：{}", limiterKey, entry.getValue());
+            }
+        }
+        return deltas.size();
+    }
+
+    @Override
+    public RaffleRateLimitStatEntity queryRateLimitStat(Long strategyId) {
+        RateLimitCounter counter = counterOf(strategyId);
+        return RaffleRateLimitStatEntity.builder()
+                .strategyId(strategyId)
+                .allowed(counter.allowed.sum())
+                .rejectedByUser(counter.rejectedByUser.sum())
+                .rejectedByStrategy(counter.rejectedByStrategy.sum())
+                .rejectedByWindow(counter.rejectedByWindow.sum())
+                .build();
+    }
+
+    private boolean isWindowBlocked(String limiterKey, long nowMillis) {
+        Long blockedUntil = windowBlocked.get(limiterKey);
+        return null != blockedUntil && blockedUntil > nowMillis;
+    }
+
+    private long windowLimitOf(String limiterKey) {
+        return limiterKey.startsWith(USER_PREFIX) ? rateLimitProperties.getUserWindowLimit() : rateLimitProperties.getStrategyWindowLimit();
+    }
+
+    private StripedTokenBucket strategyBucketOf(Long strategyId, long nowNanos) {
+        return strategyBuckets.computeIfAbsent(strategyId, id -> new StripedTokenBucket(rateLimitProperties.getStrategyPermitsPerSecond(),
+                rateLimitProperties.getStrategyBurst(), rateLimitProperties.getStripes(), nowNanos));
+    }
+
+    private TokenBucket userBucketOf(String userKey, long nowNanos) {
+        TokenBucket bucket = userBuckets.getIfPresent(userKey);
+        if (null != bucket) {
+            return bucket;
+        }
+        try {
+            return userBuckets.get(userKey, () -> new TokenBucket(rateLimitProperties.getUserPermitsPerSecond(),
+                    rateLimitProperties.getUserBurst(), nowNanos));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private RateLimitCounter counterOf(Long strategyId) {
+        return counters.computeIfAbsent(strategyId, id -> new RateLimitCounter());
+    }
+
+    private static final class RateLimitCounter {
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder rejectedByUser = new LongAdder();
+        private final LongAdder rejectedByStrategy = new LongAdder();
+        private final LongAdder rejectedByWindow = new LongAdder();
+    }
+
+}
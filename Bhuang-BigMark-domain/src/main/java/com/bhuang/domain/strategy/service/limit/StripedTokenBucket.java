@@ -0,0 +1,51 @@
+package com.bhuang.domain.strategy.service.limit;
+
+/**
+ * @author bhuang
+ * @description 分段令牌桶：速率与容量平均分到若干分段，线程按线程ID落到不同分段，热点策略的限流判断不争用同一把锁
+ * 所在分段没有令牌时依次尝试其余分段，总速率与容量与单个令牌桶一致
+ * @create 2025-06-14
+ */
+public final class StripedTokenBucket {
+
+    private final TokenBucket[] stripes;
+    private final int mask;
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param capacity 桶容量
+     * @param stripeCount 分段数，向上取整为2的幂
+     * @param nowNanos 当前时间 System.nanoTime()
+     */
+    public StripedTokenBucket(double permitsPerSecond, double capacity, int stripeCount, long nowNanos) {
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new TokenBucket[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new TokenBucket(permitsPerSecond / size, Math.max(1D, capacity / size), nowNanos);
+        }
+    }
+
+    /**
+     * 尝试取得一个令牌
+     * @param nowNanos 当前时间 System.nanoTime()
+     * @return 是否取得
+     */
+    public boolean tryAcquire(long nowNanos) {
+        int start = (int) Thread.currentThread().getId() & mask;
+        for (int i = 0; i < stripes.length; i++) {
+            if (stripes[(start + i) & mask].tryAcquire(nowNanos)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int stripes() {
+        return stripes.length;
+    }
+
+}
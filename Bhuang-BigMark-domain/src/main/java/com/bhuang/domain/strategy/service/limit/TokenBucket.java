@@ -0,0 +1,52 @@
+package com.bhuang.domain.strategy.service.limit;
+
+/**
+ * @author bhuang
+ * @description 令牌桶：按速率补充令牌，容量即允许的突发请求数；只在本节点内存中计算，不访问网络
+ * @create 2025-06-14
+ */
+public final class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param capacity 桶容量，初始为满
+     * @param nowNanos 当前时间 System.nanoTime()
+     */
+    public TokenBucket(double permitsPerSecond, double capacity, long nowNanos) {
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000D;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * 尝试取得一个令牌
+     * @param nowNanos 当前时间 System.nanoTime()
+     * @return 是否取得
+     */
+    public synchronized boolean tryAcquire(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * permitsPerNano);
+            lastRefillNanos = nowNanos;
+        }
+        if (tokens < 1D) {
+            return false;
+        }
+        tokens -= 1D;
+        return true;
+    }
+
+    /**
+     * 归还一个已取得的令牌，用于后续判断拒绝了本次请求的场景，不超过桶容量
+     */
+    public synchronized void release() {
+        tokens = Math.min(capacity, tokens + 1D);
+    }
+
+}
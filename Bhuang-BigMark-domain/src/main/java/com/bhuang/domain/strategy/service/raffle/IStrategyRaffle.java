@@ -0,0 +1,57 @@
+package com.bhuang.domain.strategy.service.raffle;
+
+import com.bhuang.domain.strategy.model.entity.RaffleAwardEntity;
+import com.bhuang.domain.strategy.model.entity.RaffleFactorEntity;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 策略抽奖接口
+ * 负责完整的抽奖流程：规则过滤、抽取奖品并扣减库存
+ *
+ * @author bhuang
+ */
+public interface IStrategyRaffle {
+
+    /**
+     * 执行抽奖
+     *
+     * @param strategyId 策略ID
+     * @return 抽奖结果，策略未装配时返回null
+     */
+    RaffleAwardEntity performRaffle(Long strategyId);
+
+    /**
+     * 执行抽奖 - 带权重规则
+     *
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值（如：4000、5000、6000）
+     * @return 抽奖结果，策略未装配时返回null
+     */
+    RaffleAwardEntity performRaffle(Long strategyId, String ruleWeightValue);
+
+    /**
+     * 执行抽奖 - 按用户累计积分定位权重档位
+     *
+     * @param strategyId 策略ID
+     * @param score 用户累计积分
+     * @return 抽奖结果，策略未装配时返回null
+     */
+    RaffleAwardEntity performRaffleByScore(Long strategyId, long score);
+
+    /**
+     * 执行抽奖 - 按抽奖因子，依次执行策略配置的抽奖前规则、抽奖、抽中奖品配置的抽奖后规则
+     *
+     * @param raffleFactor 抽奖因子
+     * @return 抽奖结果，规则接管时为规则给出的奖品；策略未装配时返回null
+     */
+    RaffleAwardEntity performRaffle(RaffleFactorEntity raffleFactor);
+
+    /**
+     * 异步执行抽奖 - 按抽奖因子，调用线程不等待 Redis 响应
+     *
+     * @param raffleFactor 抽奖因子
+     * @return 抽奖结果，规则接管时为规则给出的奖品；策略未装配时以null完成
+     */
+    CompletableFuture<RaffleAwardEntity> performRaffleAsync(RaffleFactorEntity raffleFactor);
+}
@@ -0,0 +1,95 @@
+package com.bhuang.domain.strategy.service.raffle;
+
+import com.bhuang.domain.strategy.model.entity.RaffleAwardEntity;
+import com.bhuang.domain.strategy.model.entity.RaffleFactorEntity;
+import com.bhuang.domain.strategy.service.armory.IStrategyDispatch;
+import com.bhuang.domain.strategy.service.armory.StrategyDispatchService;
+import com.bhuang.domain.strategy.service.rule.chain.IStrategyRuleChain;
+import com.bhuang.domain.strategy.service.stock.IStrategyStock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * @author bhuang
+ * @description 策略抽奖服务 - 按概率抽取奖品，再扣减该奖品库存，售罄时发放兜底奖品
+ * 按抽奖因子抽奖时由规则链编排黑名单、权重、解锁与兜底规则
+ * 包含规则与库存扣减的完整抽奖耗时记录到 strategy.raffle 指标，带 P50/P95/P99 与固定分桶的直方图
+ * @create 2025-06-14
+ */
+@Slf4j
+@Service
+public class StrategyRaffleService implements IStrategyRaffle {
+
+    @Resource
+    private IStrategyDispatch strategyDispatch;
+
+    @Resource
+    private IStrategyStock strategyStock;
+
+    @Resource
+    private IStrategyRuleChain strategyRuleChain;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /** key-抽奖方式 */
+    private final Map<String, Timer> raffleTimers = new ConcurrentHashMap<>();
+
+    @Override
+    public RaffleAwardEntity performRaffle(Long strategyId) {
+        return timeRaffle("single", () -> deductAwardStock(strategyId, strategyDispatch.getRandomAwardId(strategyId)));
+    }
+
+    @Override
+    public RaffleAwardEntity performRaffle(Long strategyId, String ruleWeightValue) {
+        return timeRaffle("weight", () -> deductAwardStock(strategyId, strategyDispatch.getRandomAwardId(strategyId, ruleWeightValue)));
+    }
+
+    @Override
+    public RaffleAwardEntity performRaffleByScore(Long strategyId, long score) {
+        return timeRaffle("score", () -> deductAwardStock(strategyId, strategyDispatch.getRandomAwardIdByScore(strategyId, score)));
+    }
+
+    @Override
+    public RaffleAwardEntity performRaffle(RaffleFactorEntity raffleFactor) {
+        return timeRaffle("rule_chain", () -> strategyRuleChain.performRaffle(raffleFactor));
+    }
+
+    @Override
+    public CompletableFuture<RaffleAwardEntity> performRaffleAsync(RaffleFactorEntity raffleFactor) {
+        long startNanos = System.nanoTime();
+        return strategyRuleChain.performRaffleAsync(raffleFactor)
+                .whenComplete((raffleAward, throwable) -> raffleTimer("rule_chain_async").record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS));
+    }
+
+    private RaffleAwardEntity timeRaffle(String method, Supplier<RaffleAwardEntity> raffle) {
+        return raffleTimer(method).record(raffle);
+    }
+
+    private Timer raffleTimer(String method) {
+        return raffleTimers.computeIfAbsent(method, key -> Timer.builder("strategy.raffle")
+                .description("抽奖耗时，包含规则与库存扣减")
+                .tag("method", key)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(StrategyDispatchService.DRAW_LATENCY_BUCKETS)
+                .register(meterRegistry));
+    }
+
+    private RaffleAwardEntity deductAwardStock(Long strategyId, Integer awardId) {
+        if (awardId == null) {
+            log.warn("抽奖失败，策略未装配，策略ID：{}", strategyId);
+            return null;
+        }
+        return strategyStock.deductAwardStock(strategyId, awardId);
+    }
+}
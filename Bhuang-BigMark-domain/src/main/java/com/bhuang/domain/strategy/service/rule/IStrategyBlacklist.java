@@ -0,0 +1,55 @@
+package com.bhuang.domain.strategy.service.rule;
+
+import com.bhuang.domain.strategy.model.entity.StrategyBlacklistStatEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyBlacklistSnapshotVO;
+
+/**
+ * 策略黑名单接口
+ * 负责按规则重建黑名单过滤器，以及抽奖前判断用户是否在黑名单中
+ *
+ * @author bhuang
+ */
+public interface IStrategyBlacklist {
+
+    /**
+     * 按 rule_blacklist 规则重建策略黑名单
+     *
+     * @param strategyId 策略ID
+     * @return 是否配置了黑名单规则
+     */
+    boolean assembleBlacklist(Long strategyId);
+
+    /**
+     * 黑名单过滤
+     *
+     * @param strategyId 策略ID
+     * @param userId 用户ID
+     * @return 用户在黑名单中时返回规则配置的奖品ID，否则返回null
+     */
+    Integer filterBlacklist(Long strategyId, String userId);
+
+    /**
+     * 查询黑名单快照，供规则链编译时解析一次
+     *
+     * @param strategyId 策略ID
+     * @return 规则中的奖品ID与生效版本，未配置黑名单规则或黑名单未装配时返回null
+     */
+    StrategyBlacklistSnapshotVO queryBlacklistSnapshot(Long strategyId);
+
+    /**
+     * 按快照过滤黑名单，不再查询规则与版本号
+     *
+     * @param snapshot 黑名单快照
+     * @param userId 用户ID
+     * @return 用户在黑名单中时返回快照中的奖品ID，否则返回null
+     */
+    Integer filterBlacklist(StrategyBlacklistSnapshotVO snapshot, String userId);
+
+    /**
+     * 查询黑名单过滤统计
+     *
+     * @param strategyId 策略ID
+     * @return 布隆过滤器参数与本节点实测的误判率、检查耗时
+     */
+    StrategyBlacklistStatEntity queryBlacklistStat(Long strategyId);
+}
@@ -0,0 +1,29 @@
+package com.bhuang.domain.strategy.service.rule;
+
+import com.bhuang.domain.strategy.model.valobj.StrategyRuleWeightVO;
+
+/**
+ * 策略权重规则接口
+ * 提供预编译的权重规则，以及按用户累计积分定位权重档位
+ *
+ * @author bhuang
+ */
+public interface IStrategyRuleWeight {
+
+    /**
+     * 查询策略的权重规则，规则值未变化时复用已解析的结果
+     *
+     * @param strategyId 策略ID
+     * @return 权重规则，策略未配置权重规则时返回不含档位的规则
+     */
+    StrategyRuleWeightVO queryStrategyRuleWeight(Long strategyId);
+
+    /**
+     * 按用户累计积分定位可参与的最高权重档位
+     *
+     * @param strategyId 策略ID
+     * @param score 用户累计积分
+     * @return 权重档位，未配置权重规则或积分未达到最低档位时返回null
+     */
+    StrategyRuleWeightVO.Tier resolveRuleWeight(Long strategyId, long score);
+}
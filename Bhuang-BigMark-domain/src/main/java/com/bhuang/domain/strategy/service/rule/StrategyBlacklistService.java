@@ -0,0 +1,92 @@
+package com.bhuang.domain.strategy.service.rule;
+
+import com.bhuang.domain.strategy.model.entity.StrategyBlacklistStatEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyBlacklistSnapshotVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyBlacklistVO;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+
+/**
+ * @author bhuang
+ * @description 策略黑名单服务 - 布隆过滤器快速排除不在黑名单的用户，只有命中时才到精确集合确认
+ * 抽奖路径上只解析规则值中的奖品ID，用户列表仅在装配时拆分；规则链编译时读取快照，抽奖时只剩布隆过滤器检查
+ * 黑名单用户维护在 strategy_blacklist 表中，规则值只配置奖品ID；旧格式规则值中的用户继续生效
+ * @create 2025-06-14
+ */
+@Slf4j
+@Service
+public class StrategyBlacklistService implements IStrategyBlacklist {
+
+    /** 黑名单规则模型 */
+    public static final String RULE_BLACKLIST = "rule_blacklist";
+
+    @Resource
+    private IStrategyRepository strategyRepository;
+
+    @Override
+    public boolean assembleBlacklist(Long strategyId) {
+        StrategyRuleEntity strategyRule = strategyRepository.queryStrategyRule(strategyId, RULE_BLACKLIST);
+        StrategyBlacklistVO blacklist = strategyRule == null ? null : StrategyBlacklistVO.parse(strategyRule.getRuleValue());
+        if (blacklist == null) {
+            return false;
+        }
+        long stored = strategyRepository.storeStrategyBlacklist(strategyId, blacklist.getUserIds());
+        if (stored == 0) {
+            log.warn("黑名单规则已配置但没有黑名单用户，规则值与 strategy_blacklist 表中均未配置，策略ID：{}", strategyId);
+        }
+        return true;
+    }
+
+    @Override
+    public Integer filterBlacklist(Long strategyId, String userId) {
+        if (userId == null) {
+            return null;
+        }
+        StrategyRuleEntity strategyRule = strategyRepository.queryStrategyRule(strategyId, RULE_BLACKLIST);
+        Integer awardId = strategyRule == null ? null : StrategyBlacklistVO.parseAwardId(strategyRule.getRuleValue());
+        if (awardId == null || !strategyRepository.isStrategyBlacklisted(strategyId, userId)) {
+            return null;
+        }
+        log.info("用户命中黑名单，策略ID：{}，用户ID：{}，发放奖品ID：{}", strategyId, userId, awardId);
+        return awardId;
+    }
+
+    @Override
+    public StrategyBlacklistSnapshotVO queryBlacklistSnapshot(Long strategyId) {
+        StrategyRuleEntity strategyRule = strategyRepository.queryStrategyRule(strategyId, RULE_BLACKLIST);
+        Integer awardId = strategyRule == null ? null : StrategyBlacklistVO.parseAwardId(strategyRule.getRuleValue());
+        if (awardId == null) {
+            return null;
+        }
+        Long version = strategyRepository.queryStrategyBlacklistVersion(strategyId);
+        if (version == null) {
+            log.warn("黑名单规则已配置但黑名单未装配，策略ID：{}", strategyId);
+            return null;
+        }
+        return StrategyBlacklistSnapshotVO.builder()
+                .strategyId(strategyId)
+                .awardId(awardId)
+                .version(version)
+                .build();
+    }
+
+    @Override
+    public Integer filterBlacklist(StrategyBlacklistSnapshotVO snapshot, String userId) {
+        if (snapshot == null || userId == null
+                || !strategyRepository.isStrategyBlacklisted(snapshot.getStrategyId(), snapshot.getVersion(), userId)) {
+            return null;
+        }
+        log.info("用户命中黑名单，策略ID：{}，用户ID：{}，发放奖品ID：{}", snapshot.getStrategyId(), userId, snapshot.getAwardId());
+        return snapshot.getAwardId();
+    }
+
+    @Override
+    public StrategyBlacklistStatEntity queryBlacklistStat(Long strategyId) {
+        return strategyRepository.queryStrategyBlacklistStat(strategyId);
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.bhuang.domain.strategy.service.rule;
+
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyRuleWeightVO;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author bhuang
+ * @description 策略权重规则服务 - 每个策略的权重规则按规则值解析一次并缓存，规则值变更后重新解析
+ * 规则实体由仓储近端缓存提供，命中时只比较规则值，不再重复拆分字符串
+ * @create 2025-06-14
+ */
+@Slf4j
+@Service
+public class StrategyRuleWeightService implements IStrategyRuleWeight {
+
+    /** 权重规则模型 */
+    private static final String RULE_WEIGHT = "rule_weight";
+
+    @Resource
+    private IStrategyRepository strategyRepository;
+
+    /** key-策略ID，value-最近一次解析的权重规则 */
+    private final Map<Long, StrategyRuleWeightVO> ruleWeights = new ConcurrentHashMap<>();
+
+    @Override
+    public StrategyRuleWeightVO queryStrategyRuleWeight(Long strategyId) {
+        StrategyRuleEntity strategyRule = strategyRepository.queryStrategyRule(strategyId, RULE_WEIGHT);
+        String ruleValue = strategyRule == null ? null : strategyRule.getRuleValue();
+
+        StrategyRuleWeightVO ruleWeight = ruleWeights.get(strategyId);
+        if (ruleWeight != null && ruleWeight.isParsedFrom(ruleValue)) {
+            return ruleWeight;
+        }
+        ruleWeight = StrategyRuleWeightVO.parse(ruleValue);
+        ruleWeights.put(strategyId, ruleWeight);
+        log.info("权重规则已解析，策略ID：{}，档位：{}", strategyId, ruleWeight.tiers());
+        return ruleWeight;
+    }
+
+    @Override
+    public StrategyRuleWeightVO.Tier resolveRuleWeight(Long strategyId, long score) {
+        return queryStrategyRuleWeight(strategyId).resolve(score);
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.bhuang.domain.strategy.service.rule.chain;
+
+import com.bhuang.domain.strategy.model.entity.RuleActionEntity;
+import com.bhuang.domain.strategy.model.entity.RuleMatterEntity;
+import com.bhuang.domain.strategy.model.valobj.RuleModelVO;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 规则过滤器
+ * 每个规则模型一个实现，由规则链引擎按策略配置编排；同一实例被所有策略共享，不得保存单次抽奖的状态
+ *
+ * @author bhuang
+ */
+public interface ILogicFilter {
+
+    /**
+     * @return 过滤器处理的规则模型
+     */
+    RuleModelVO ruleModel();
+
+    /**
+     * 编译规则链时绑定到策略与奖品，需要的规则值在此查询并解析，抽奖时不再读取
+     * 绑定结果随规则链按装配版本号缓存，策略重新装配后重新绑定
+     *
+     * @param strategyId 策略ID
+     * @param awardId 奖品ID，抽奖前规则为null
+     * @return 绑定后的过滤器，规则模型与自身相同；无需预先解析时返回自身
+     */
+    default ILogicFilter bind(Long strategyId, Integer awardId) {
+        return this;
+    }
+
+    /**
+     * 执行过滤
+     *
+     * @param matter 规则过滤物料，前置规则可调整其中的抽奖参数
+     * @return 放行，或接管并给出抽奖结果
+     */
+    RuleActionEntity filter(RuleMatterEntity matter);
+
+    /**
+     * 异步执行过滤，调用线程不等待 Redis 响应
+     * 默认在调用线程上同步执行，只读本地数据的过滤器无需覆盖；需要访问 Redis 的过滤器覆盖为非阻塞调用
+     *
+     * @param matter 规则过滤物料，前置规则可调整其中的抽奖参数
+     * @return 放行，或接管并给出抽奖结果
+     */
+    default CompletableFuture<RuleActionEntity> filterAsync(RuleMatterEntity matter) {
+        return CompletableFuture.completedFuture(filter(matter));
+    }
+}
@@ -0,0 +1,49 @@
+package com.bhuang.domain.strategy.service.rule.chain;
+
+import com.bhuang.domain.strategy.model.entity.RaffleAwardEntity;
+import com.bhuang.domain.strategy.model.entity.RaffleFactorEntity;
+import com.bhuang.domain.strategy.model.entity.RuleStageStatEntity;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 策略规则链接口
+ * 把策略与奖品配置的规则模型编译为有序的过滤链，按 抽奖前规则 -> 抽奖 -> 抽奖后规则 -> 扣减库存 执行
+ *
+ * @author bhuang
+ */
+public interface IStrategyRuleChain {
+
+    /**
+     * 查询策略已编译的规则链，首次访问或策略重新装配后编译
+     *
+     * @param strategyId 策略ID
+     * @return 规则链
+     */
+    StrategyRuleChain queryRuleChain(Long strategyId);
+
+    /**
+     * 按规则链执行抽奖
+     *
+     * @param raffleFactor 抽奖因子
+     * @return 抽奖结果，规则接管时为规则给出的奖品；策略未装配时返回null
+     */
+    RaffleAwardEntity performRaffle(RaffleFactorEntity raffleFactor);
+
+    /**
+     * 按规则链异步执行抽奖，抽奖、计数与库存扣减使用非阻塞的 Redis 调用，调用线程不等待 Redis 响应
+     *
+     * @param raffleFactor 抽奖因子
+     * @return 抽奖结果，规则接管时为规则给出的奖品；策略未装配时以null完成
+     */
+    CompletableFuture<RaffleAwardEntity> performRaffleAsync(RaffleFactorEntity raffleFactor);
+
+    /**
+     * 查询本节点各规则阶段的执行次数、接管次数与耗时
+     *
+     * @param strategyId 策略ID
+     * @return 按执行顺序排列的阶段统计
+     */
+    List<RuleStageStatEntity> queryRuleChainStat(Long strategyId);
+}
@@ -0,0 +1,36 @@
+package com.bhuang.domain.strategy.service.rule.chain;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author bhuang
+ * @description 单个策略单个规则阶段的执行计数与累计耗时，编译规则链时绑定到阶段上，抽奖路径不再按名称查找
+ * @create 2025-06-14
+ */
+public class RuleStageCounter {
+
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder takeOvers = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public void record(long nanos, boolean takeOver) {
+        invocations.increment();
+        totalNanos.add(nanos);
+        if (takeOver) {
+            takeOvers.increment();
+        }
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    public long getTakeOvers() {
+        return takeOvers.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+}
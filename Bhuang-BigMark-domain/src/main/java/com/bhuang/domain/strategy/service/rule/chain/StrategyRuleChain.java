@@ -0,0 +1,122 @@
+package com.bhuang.domain.strategy.service.rule.chain;
+
+import com.bhuang.domain.strategy.model.entity.RuleActionEntity;
+import com.bhuang.domain.strategy.model.entity.RuleMatterEntity;
+import com.bhuang.domain.strategy.model.valobj.RuleModelVO;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author bhuang
+ * @description 编译后的策略规则链：抽奖前阶段按策略的规则模型编排，抽奖后阶段按每个奖品的规则模型编排
+ * 只包含引擎能处理的规则，未配置规则的策略或奖品对应空数组，抽奖时不做任何规则判断
+ * 编译后不可变，重新装配策略后整体替换
+ * @create 2025-06-14
+ */
+public final class StrategyRuleChain {
+
+    private static final Stage[] NO_STAGES = new Stage[0];
+
+    private final Long strategyId;
+    private final Stage[] preDrawStages;
+    /** key-奖品ID，value-该奖品的抽奖后阶段；未配置规则的奖品不在其中 */
+    private final Map<Integer, Stage[]> postDrawStages;
+    private final RuleStageCounter drawCounter;
+    private final RuleStageCounter stockCounter;
+    /** 是否有奖品配置了 rule_lock，没有时抽奖不累加用户抽奖次数 */
+    private final boolean countsUserRaffle;
+
+    public StrategyRuleChain(Long strategyId, Stage[] preDrawStages, Map<Integer, Stage[]> postDrawStages,
+                             RuleStageCounter drawCounter, RuleStageCounter stockCounter) {
+        this.strategyId = strategyId;
+        this.preDrawStages = preDrawStages;
+        this.postDrawStages = Collections.unmodifiableMap(postDrawStages);
+        this.drawCounter = drawCounter;
+        this.stockCounter = stockCounter;
+        this.countsUserRaffle = postDrawStages.values().stream()
+                .flatMap(Arrays::stream)
+                .anyMatch(stage -> RuleModelVO.RULE_LOCK == stage.getFilter().ruleModel());
+    }
+
+    public Long getStrategyId() {
+        return strategyId;
+    }
+
+    public Stage[] preDrawStages() {
+        return preDrawStages;
+    }
+
+    /**
+     * @param awardId 抽中的奖品ID
+     * @return 该奖品的抽奖后阶段，未配置规则时返回空数组
+     */
+    public Stage[] postDrawStages(Integer awardId) {
+        Stage[] stages = postDrawStages.get(awardId);
+        return stages == null ? NO_STAGES : stages;
+    }
+
+    public Map<Integer, Stage[]> postDrawStages() {
+        return postDrawStages;
+    }
+
+    public boolean countsUserRaffle() {
+        return countsUserRaffle;
+    }
+
+    public RuleStageCounter drawCounter() {
+        return drawCounter;
+    }
+
+    public RuleStageCounter stockCounter() {
+        return stockCounter;
+    }
+
+    /**
+     * 规则链中的一个阶段：过滤器与其耗时计数
+     */
+    public static final class Stage {
+
+        private final ILogicFilter filter;
+        private final RuleStageCounter counter;
+
+        public Stage(ILogicFilter filter, RuleStageCounter counter) {
+            this.filter = filter;
+            this.counter = counter;
+        }
+
+        /**
+         * 执行过滤并记录耗时
+         * @param matter 规则过滤物料
+         * @return 过滤结果
+         */
+        public RuleActionEntity apply(RuleMatterEntity matter) {
+            long startTime = System.nanoTime();
+            RuleActionEntity action = filter.filter(matter);
+            counter.record(System.nanoTime() - startTime, action.isTakeOver());
+            return action;
+        }
+
+        /**
+         * 异步执行过滤，耗时记录到结果完成为止
+         * @param matter 规则过滤物料
+         * @return 过滤结果
+         */
+        public CompletableFuture<RuleActionEntity> applyAsync(RuleMatterEntity matter) {
+            long startTime = System.nanoTime();
+            return filter.filterAsync(matter).whenComplete((action, throwable) ->
+                    counter.record(System.nanoTime() - startTime, action != null && action.isTakeOver()));
+        }
+
+        public ILogicFilter getFilter() {
+            return filter;
+        }
+
+        @Override
+        public String toString() {
+            return filter.ruleModel().getCode();
+        }
+    }
+}
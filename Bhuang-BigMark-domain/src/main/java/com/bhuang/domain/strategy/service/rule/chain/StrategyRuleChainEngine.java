@@ -0,0 +1,345 @@
+package com.bhuang.domain.strategy.service.rule.chain;
+
+import com.bhuang.domain.strategy.model.entity.RaffleAwardEntity;
+import com.bhuang.domain.strategy.model.entity.RaffleFactorEntity;
+import com.bhuang.domain.strategy.model.entity.RuleActionEntity;
+import com.bhuang.domain.strategy.model.entity.RuleMatterEntity;
+import com.bhuang.domain.strategy.model.entity.RuleStageStatEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyEntity;
+import com.bhuang.domain.strategy.model.valobj.RuleModelVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyDrawResultVO;
+import com.bhuang.domain.strategy.model.valobj.RuleStageVO;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.armory.IStrategyDispatch;
+import com.bhuang.domain.strategy.service.armory.StrategyArmoryProperties;
+import com.bhuang.domain.strategy.service.armory.StrategyLocalTableCache;
+import com.bhuang.domain.strategy.service.counter.IUserRaffleCounter;
+import com.bhuang.domain.strategy.service.stock.IStrategyStock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author bhuang
+ * @description 策略规则链引擎 - 每个策略的规则模型只编译一次，抽奖时按数组顺序执行，不再逐次解析规则模型字符串
+ * 编译结果与本地查找表一样按装配版本号校验，策略重新装配后各节点重新编译；过滤器在编译时绑定规则值，抽奖时不再查询规则
+ * @create 2025-06-14
+ */
+@Slf4j
+@Service
+public class StrategyRuleChainEngine implements IStrategyRuleChain {
+
+    /** 抽奖阶段名称 */
+    public static final String STAGE_DRAW = "draw";
+    /** 未配置 rule_luck_award 的奖品直接扣减库存的阶段名称 */
+    public static final String STAGE_STOCK = "stock";
+
+    @Resource
+    private IStrategyRepository strategyRepository;
+
+    @Resource
+    private IStrategyDispatch strategyDispatch;
+
+    @Resource
+    private IStrategyStock strategyStock;
+
+    @Resource
+    private StrategyArmoryProperties armoryProperties;
+
+    @Resource
+    private IUserRaffleCounter userRaffleCounter;
+
+    @Resource
+    private List<ILogicFilter> logicFilters;
+
+    private final Map<RuleModelVO, ILogicFilter> filters = new EnumMap<>(RuleModelVO.class);
+
+    private final StrategyLocalTableCache<StrategyRuleChain> ruleChainCache = new StrategyLocalTableCache<>();
+
+    /** key-策略ID，value-阶段名称到计数的映射；重新编译后沿用同一计数 */
+    private final Map<Long, Map<String, RuleStageCounter>> stageCounters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (ILogicFilter logicFilter : logicFilters) {
+            filters.put(logicFilter.ruleModel(), logicFilter);
+        }
+        log.info("规则链引擎初始化完成，规则过滤器：{}", filters.keySet());
+    }
+
+    @Override
+    public StrategyRuleChain queryRuleChain(Long strategyId) {
+        long now = System.currentTimeMillis();
+        StrategyLocalTableCache.Entry<StrategyRuleChain> entry = ruleChainCache.get(strategyId, null);
+        if (entry != null && !entry.tryAcquireCheck(now, armoryProperties.getLocalTableCheckInterval())) {
+            return entry.getTable();
+        }
+
+        // 先读版本号再编译：编译期间若发生重新装配，下次校验时版本号不一致会再次编译
+        long version = strategyRepository.queryStrategyArmoryVersion(strategyId);
+        if (entry != null && entry.getVersion() == version) {
+            return entry.getTable();
+        }
+        return ruleChainCache.put(strategyId, null, version, compile(strategyId), now).getTable();
+    }
+
+    /**
+     * 编译策略规则链
+     * @param strategyId 策略ID
+     * @return 规则链
+     */
+    StrategyRuleChain compile(Long strategyId) {
+        StrategyEntity strategy = strategyRepository.queryStrategyEntity(strategyId);
+        StrategyRuleChain.Stage[] preDrawStages = compileStages(strategyId, null, RuleStageVO.PRE_DRAW,
+                strategy == null ? null : strategy.getRuleModels());
+
+        Map<Integer, StrategyRuleChain.Stage[]> postDrawStages = new HashMap<>();
+        List<StrategyAwardEntity> strategyAwards = strategyRepository.queryStrategyAwardList(strategyId);
+        if (strategyAwards != null) {
+            for (StrategyAwardEntity strategyAward : strategyAwards) {
+                StrategyRuleChain.Stage[] stages = compileStages(strategyId, strategyAward.getAwardId(), RuleStageVO.POST_DRAW, strategyAward.getRuleModels());
+                if (stages.length > 0) {
+                    postDrawStages.put(strategyAward.getAwardId(), stages);
+                }
+            }
+        }
+
+        StrategyRuleChain ruleChain = new StrategyRuleChain(strategyId, preDrawStages, postDrawStages,
+                counterOf(strategyId, STAGE_DRAW), counterOf(strategyId, STAGE_STOCK));
+        log.info("策略规则链已编译，策略ID：{}，抽奖前：{}，抽奖后：{}", strategyId, Arrays.toString(preDrawStages), describe(postDrawStages));
+        return ruleChain;
+    }
+
+    /**
+     * 按枚举顺序编排一个阶段的规则，忽略其他阶段的规则与没有过滤器的规则（如 rule_random）
+     * 抽奖前规则绑定到策略，awardId 为null；抽奖后规则绑定到奖品
+     */
+    private StrategyRuleChain.Stage[] compileStages(Long strategyId, Integer awardId, RuleStageVO stage, String ruleModels) {
+        EnumSet<RuleModelVO> applicable = EnumSet.noneOf(RuleModelVO.class);
+        for (String code : StrategyEntity.splitRuleModels(ruleModels)) {
+            RuleModelVO ruleModel = RuleModelVO.of(code);
+            if (ruleModel != null && ruleModel.getStage() == stage && filters.containsKey(ruleModel)) {
+                applicable.add(ruleModel);
+            }
+        }
+        StrategyRuleChain.Stage[] stages = new StrategyRuleChain.Stage[applicable.size()];
+        int i = 0;
+        for (RuleModelVO ruleModel : applicable) {
+            stages[i++] = new StrategyRuleChain.Stage(filters.get(ruleModel).bind(strategyId, awardId), counterOf(strategyId, ruleModel.getCode()));
+        }
+        return stages;
+    }
+
+    @Override
+    public RaffleAwardEntity performRaffle(RaffleFactorEntity raffleFactor) {
+        Long strategyId = raffleFactor.getStrategyId();
+        StrategyRuleChain ruleChain = queryRuleChain(strategyId);
+        RuleMatterEntity matter = matterOf(raffleFactor);
+
+        // 1. 抽奖前规则
+        for (StrategyRuleChain.Stage stage : ruleChain.preDrawStages()) {
+            RuleActionEntity action = stage.apply(matter);
+            if (action.isTakeOver()) {
+                return action.getRaffleAward();
+            }
+        }
+
+        // 2. 抽奖，前置规则定位到权重档位时在档位内抽奖；配置了 rule_lock 且调用方未提供抽奖次数时同时累加用户抽奖次数
+        long startTime = System.nanoTime();
+        Integer awardId = ruleChain.countsUserRaffle() && raffleFactor.getUserId() != null && raffleFactor.getRaffleCount() == null
+                ? drawAndCount(strategyId, matter)
+                : draw(strategyId, matter.getRuleWeightValue());
+        ruleChain.drawCounter().record(System.nanoTime() - startTime, false);
+        if (awardId == null) {
+            log.warn("抽奖失败，策略未装配，策略ID：{}", strategyId);
+            return null;
+        }
+        matter.setAwardId(awardId);
+
+        // 3. 抽奖后规则，rule_luck_award 会扣减库存并接管
+        for (StrategyRuleChain.Stage stage : ruleChain.postDrawStages(awardId)) {
+            RuleActionEntity action = stage.apply(matter);
+            if (action.isTakeOver()) {
+                return action.getRaffleAward();
+            }
+        }
+
+        // 4. 奖品未配置 rule_luck_award 时直接扣减库存
+        startTime = System.nanoTime();
+        RaffleAwardEntity raffleAward = strategyStock.deductAwardStock(strategyId, awardId);
+        ruleChain.stockCounter().record(System.nanoTime() - startTime, false);
+        return raffleAward;
+    }
+
+    @Override
+    public CompletableFuture<RaffleAwardEntity> performRaffleAsync(RaffleFactorEntity raffleFactor) {
+        Long strategyId = raffleFactor.getStrategyId();
+        StrategyRuleChain ruleChain = queryRuleChain(strategyId);
+        RuleMatterEntity matter = matterOf(raffleFactor);
+
+        // 1. 抽奖前规则
+        return applyAsync(ruleChain.preDrawStages(), 0, matter).thenCompose(preAction -> {
+            if (preAction != null) {
+                return CompletableFuture.completedFuture(preAction.getRaffleAward());
+            }
+
+            // 2. 抽奖
+            long drawStartTime = System.nanoTime();
+            CompletableFuture<Integer> draw = ruleChain.countsUserRaffle() && raffleFactor.getUserId() != null && raffleFactor.getRaffleCount() == null
+                    ? drawAndCountAsync(strategyId, matter)
+                    : strategyDispatch.getRandomAwardIdAsync(strategyId, matter.getRuleWeightValue());
+            return draw.thenCompose(awardId -> {
+                ruleChain.drawCounter().record(System.nanoTime() - drawStartTime, false);
+                if (awardId == null) {
+                    log.warn("抽奖失败，策略未装配，策略ID：{}", strategyId);
+                    return CompletableFuture.completedFuture(null);
+                }
+                matter.setAwardId(awardId);
+
+                // 3. 抽奖后规则；4. 未接管时扣减库存
+                return applyAsync(ruleChain.postDrawStages(awardId), 0, matter).thenCompose(postAction -> {
+                    if (postAction != null) {
+                        return CompletableFuture.completedFuture(postAction.getRaffleAward());
+                    }
+                    long stockStartTime = System.nanoTime();
+                    return strategyStock.deductAwardStockAsync(strategyId, awardId).whenComplete((raffleAward, throwable) ->
+                            ruleChain.stockCounter().record(System.nanoTime() - stockStartTime, false));
+                });
+            });
+        });
+    }
+
+    /**
+     * 从第 index 个阶段起依次异步执行，前一阶段完成后再执行下一阶段
+     * @return 接管的过滤结果，全部放行时以null完成
+     */
+    private CompletableFuture<RuleActionEntity> applyAsync(StrategyRuleChain.Stage[] stages, int index, RuleMatterEntity matter) {
+        if (index == stages.length) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return stages[index].applyAsync(matter).thenCompose(action -> action.isTakeOver()
+                ? CompletableFuture.completedFuture(action)
+                : applyAsync(stages, index + 1, matter));
+    }
+
+    private static RuleMatterEntity matterOf(RaffleFactorEntity raffleFactor) {
+        return RuleMatterEntity.builder()
+                .userId(raffleFactor.getUserId())
+                .strategyId(raffleFactor.getStrategyId())
+                .score(raffleFactor.getScore())
+                .raffleCount(raffleFactor.getRaffleCount() == null ? 0 : raffleFactor.getRaffleCount())
+                .build();
+    }
+
+    private Integer draw(Long strategyId, String ruleWeightValue) {
+        return ruleWeightValue == null
+                ? strategyDispatch.getRandomAwardId(strategyId)
+                : strategyDispatch.getRandomAwardId(strategyId, ruleWeightValue);
+    }
+
+    /**
+     * 抽奖并累加用户抽奖次数，物料中的抽奖次数为本次之前已完成的次数
+     * 热点用户在本节点累加，其余用户在抽奖的同一次往返内于 Redis 累加
+     */
+    private Integer drawAndCount(Long strategyId, RuleMatterEntity matter) {
+        String userId = matter.getUserId();
+        Long localCount = userRaffleCounter.tryIncreaseLocally(strategyId, userId);
+        if (localCount != null) {
+            matter.setRaffleCount(localCount - 1);
+            return draw(strategyId, matter.getRuleWeightValue());
+        }
+
+        StrategyDrawResultVO drawResult = strategyDispatch.getRandomAwardIdAndCount(strategyId, matter.getRuleWeightValue(), userId);
+        if (drawResult.getAwardId() != null) {
+            userRaffleCounter.recordRemoteCount(strategyId, userId, drawResult.getRaffleCount());
+            matter.setRaffleCount(drawResult.getRaffleCount() - 1);
+        }
+        return drawResult.getAwardId();
+    }
+
+    /**
+     * 异步抽奖并累加用户抽奖次数，与 drawAndCount 相同
+     */
+    private CompletableFuture<Integer> drawAndCountAsync(Long strategyId, RuleMatterEntity matter) {
+        String userId = matter.getUserId();
+        Long localCount = userRaffleCounter.tryIncreaseLocally(strategyId, userId);
+        if (localCount != null) {
+            matter.setRaffleCount(localCount - 1);
+            return strategyDispatch.getRandomAwardIdAsync(strategyId, matter.getRuleWeightValue());
+        }
+
+        return strategyDispatch.getRandomAwardIdAndCountAsync(strategyId, matter.getRuleWeightValue(), userId).thenApply(drawResult -> {
+            if (drawResult.getAwardId() != null) {
+                userRaffleCounter.recordRemoteCount(strategyId, userId, drawResult.getRaffleCount());
+                matter.setRaffleCount(drawResult.getRaffleCount() - 1);
+            }
+            return drawResult.getAwardId();
+        });
+    }
+
+    @Override
+    public List<RuleStageStatEntity> queryRuleChainStat(Long strategyId) {
+        Map<String, RuleStageCounter> counters = stageCounters.get(strategyId);
+        List<RuleStageStatEntity> stats = new ArrayList<>();
+        if (counters == null) {
+            return stats;
+        }
+        for (String stage : statOrder()) {
+            RuleStageCounter counter = counters.get(stage);
+            if (counter != null) {
+                stats.add(RuleStageStatEntity.builder()
+                        .strategyId(strategyId)
+                        .stage(stage)
+                        .invocations(counter.getInvocations())
+                        .takeOvers(counter.getTakeOvers())
+                        .totalNanos(counter.getTotalNanos())
+                        .build());
+            }
+        }
+        return stats;
+    }
+
+    private RuleStageCounter counterOf(Long strategyId, String stage) {
+        return stageCounters.computeIfAbsent(strategyId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(stage, name -> new RuleStageCounter());
+    }
+
+    /**
+     * @return 阶段的执行顺序：抽奖前规则、抽奖、抽奖后规则、扣减库存
+     */
+    private static List<String> statOrder() {
+        List<String> order = new ArrayList<>();
+        for (RuleModelVO ruleModel : RuleModelVO.values()) {
+            if (ruleModel.getStage() == RuleStageVO.PRE_DRAW) {
+                order.add(ruleModel.getCode());
+            }
+        }
+        order.add(STAGE_DRAW);
+        for (RuleModelVO ruleModel : RuleModelVO.values()) {
+            if (ruleModel.getStage() == RuleStageVO.POST_DRAW) {
+                order.add(ruleModel.getCode());
+            }
+        }
+        order.add(STAGE_STOCK);
+        return order;
+    }
+
+    private static Map<Integer, String> describe(Map<Integer, StrategyRuleChain.Stage[]> postDrawStages) {
+        Map<Integer, String> description = new HashMap<>();
+        postDrawStages.forEach((awardId, stages) -> description.put(awardId, Arrays.toString(stages)));
+        return description;
+    }
+
+}
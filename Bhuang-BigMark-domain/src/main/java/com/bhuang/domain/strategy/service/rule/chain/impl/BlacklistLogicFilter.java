@@ -0,0 +1,87 @@
+package com.bhuang.domain.strategy.service.rule.chain.impl;
+
+import com.bhuang.domain.strategy.model.entity.RaffleAwardEntity;
+import com.bhuang.domain.strategy.model.entity.RuleActionEntity;
+import com.bhuang.domain.strategy.model.entity.RuleMatterEntity;
+import com.bhuang.domain.strategy.model.valobj.RuleModelVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyBlacklistSnapshotVO;
+import com.bhuang.domain.strategy.service.rule.IStrategyBlacklist;
+import com.bhuang.domain.strategy.service.rule.chain.ILogicFilter;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * @author bhuang
+ * @description 黑名单过滤 - 黑名单用户直接发放黑名单奖品，不参与抽奖也不扣减库存
+ * 规则链编译时读取黑名单快照，抽奖时只检查快照版本的布隆过滤器；布隆过滤器没有非阻塞接口，异步抽奖时在抽奖线程池中检查
+ * @create 2025-06-14
+ */
+@Component
+public class BlacklistLogicFilter implements ILogicFilter {
+
+    @Resource
+    private IStrategyBlacklist strategyBlacklist;
+
+    @Resource
+    private ThreadPoolExecutor threadPoolExecutor;
+
+    @Override
+    public RuleModelVO ruleModel() {
+        return RuleModelVO.RULE_BLACKLIST;
+    }
+
+    @Override
+    public ILogicFilter bind(Long strategyId, Integer awardId) {
+        return new BoundBlacklistLogicFilter(strategyBlacklist.queryBlacklistSnapshot(strategyId));
+    }
+
+    @Override
+    public RuleActionEntity filter(RuleMatterEntity matter) {
+        return takeOver(matter, strategyBlacklist.filterBlacklist(matter.getStrategyId(), matter.getUserId()));
+    }
+
+    private static RuleActionEntity takeOver(RuleMatterEntity matter, Integer awardId) {
+        if (awardId == null) {
+            return RuleActionEntity.allow();
+        }
+        return RuleActionEntity.takeOver(RaffleAwardEntity.builder()
+                .strategyId(matter.getStrategyId())
+                .awardId(awardId)
+                .ruleModel(RuleModelVO.RULE_BLACKLIST.getCode())
+                .build());
+    }
+
+    /**
+     * 绑定到单个策略的黑名单过滤，快照为null时（未配置规则或未装配）全部放行
+     */
+    private final class BoundBlacklistLogicFilter implements ILogicFilter {
+
+        private final StrategyBlacklistSnapshotVO snapshot;
+
+        private BoundBlacklistLogicFilter(StrategyBlacklistSnapshotVO snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public RuleModelVO ruleModel() {
+            return RuleModelVO.RULE_BLACKLIST;
+        }
+
+        @Override
+        public RuleActionEntity filter(RuleMatterEntity matter) {
+            return takeOver(matter, strategyBlacklist.filterBlacklist(snapshot, matter.getUserId()));
+        }
+
+        @Override
+        public CompletableFuture<RuleActionEntity> filterAsync(RuleMatterEntity matter) {
+            // 未配置黑名单或匿名用户不访问 Redis，直接放行
+            if (snapshot == null || matter.getUserId() == null) {
+                return CompletableFuture.completedFuture(RuleActionEntity.allow());
+            }
+            return CompletableFuture.supplyAsync(() -> filter(matter), threadPoolExecutor);
+        }
+    }
+}
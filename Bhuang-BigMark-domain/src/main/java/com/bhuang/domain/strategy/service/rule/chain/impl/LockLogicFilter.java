@@ -0,0 +1,105 @@
+package com.bhuang.domain.strategy.service.rule.chain.impl;
+
+import com.bhuang.domain.strategy.model.entity.RaffleAwardEntity;
+import com.bhuang.domain.strategy.model.entity.RuleActionEntity;
+import com.bhuang.domain.strategy.model.entity.RuleMatterEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.RuleModelVO;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.armory.StrategyArmoryProperties;
+import com.bhuang.domain.strategy.service.rule.chain.ILogicFilter;
+import com.bhuang.domain.strategy.service.stock.IStrategyStock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * @author bhuang
+ * @description 解锁过滤 - 规则值为解锁所需的抽奖次数，次数不足时抽中的奖品未解锁，改为发放兜底奖品，不扣减该奖品库存
+ * 规则链编译时按奖品解析解锁次数，抽奖时只比较次数
+ * @create 2025-06-14
+ */
+@Slf4j
+@Component
+public class LockLogicFilter implements ILogicFilter {
+
+    @Resource
+    private IStrategyRepository strategyRepository;
+
+    @Resource
+    private IStrategyStock strategyStock;
+
+    @Resource
+    private StrategyArmoryProperties armoryProperties;
+
+    @Override
+    public RuleModelVO ruleModel() {
+        return RuleModelVO.RULE_LOCK;
+    }
+
+    @Override
+    public ILogicFilter bind(Long strategyId, Integer awardId) {
+        return new BoundLockLogicFilter(queryUnlockCount(strategyId, awardId));
+    }
+
+    @Override
+    public RuleActionEntity filter(RuleMatterEntity matter) {
+        return filter(matter, queryUnlockCount(matter.getStrategyId(), matter.getAwardId()));
+    }
+
+    private RuleActionEntity filter(RuleMatterEntity matter, long unlockCount) {
+        if (matter.getRaffleCount() >= unlockCount) {
+            return RuleActionEntity.allow();
+        }
+
+        RaffleAwardEntity luckAward = strategyStock.queryLuckAward(matter.getStrategyId(), matter.getAwardId());
+        if (luckAward == null) {
+            luckAward = RaffleAwardEntity.builder()
+                    .strategyId(matter.getStrategyId())
+                    .awardId(armoryProperties.getDefaultLuckAwardId())
+                    .luckAward(true)
+                    .build();
+        }
+        luckAward.setRuleModel(RuleModelVO.RULE_LOCK.getCode());
+        log.debug("奖品未解锁，发放兜底奖品，策略ID：{}，奖品ID：{}，抽奖次数：{}，解锁次数：{}",
+                matter.getStrategyId(), matter.getAwardId(), matter.getRaffleCount(), unlockCount);
+        return RuleActionEntity.takeOver(luckAward);
+    }
+
+    private long queryUnlockCount(Long strategyId, Integer awardId) {
+        StrategyRuleEntity lockRule = strategyRepository.queryStrategyAwardRule(strategyId, awardId, RuleModelVO.RULE_LOCK.getCode());
+        if (lockRule == null || lockRule.getRuleValue() == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(lockRule.getRuleValue().trim());
+        } catch (NumberFormatException e) {
+            log.warn("解锁规则值格式错误，按已解锁处理，策略ID：{}，奖品ID：{}，规则值：{}",
+                    lockRule.getStrategyId(), lockRule.getAwardId(), lockRule.getRuleValue());
+            return 0;
+        }
+    }
+
+    /**
+     * 绑定到单个奖品的解锁过滤，持有编译时解析的解锁次数
+     */
+    private final class BoundLockLogicFilter implements ILogicFilter {
+
+        private final long unlockCount;
+
+        private BoundLockLogicFilter(long unlockCount) {
+            this.unlockCount = unlockCount;
+        }
+
+        @Override
+        public RuleModelVO ruleModel() {
+            return RuleModelVO.RULE_LOCK;
+        }
+
+        @Override
+        public RuleActionEntity filter(RuleMatterEntity matter) {
+            return LockLogicFilter.this.filter(matter, unlockCount);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.bhuang.domain.strategy.service.rule.chain.impl;
+
+import com.bhuang.domain.strategy.model.entity.RuleActionEntity;
+import com.bhuang.domain.strategy.model.entity.RuleMatterEntity;
+import com.bhuang.domain.strategy.model.valobj.RuleModelVO;
+import com.bhuang.domain.strategy.service.rule.chain.ILogicFilter;
+import com.bhuang.domain.strategy.service.stock.IStrategyStock;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author bhuang
+ * @description 兜底奖品过滤 - 扣减抽中奖品的库存，售罄时发放 rule_luck_award 兜底奖品；作为最后一个阶段总是接管
+ * @create 2025-06-14
+ */
+@Component
+public class LuckAwardLogicFilter implements ILogicFilter {
+
+    @Resource
+    private IStrategyStock strategyStock;
+
+    @Override
+    public RuleModelVO ruleModel() {
+        return RuleModelVO.RULE_LUCK_AWARD;
+    }
+
+    @Override
+    public RuleActionEntity filter(RuleMatterEntity matter) {
+        return RuleActionEntity.takeOver(strategyStock.deductAwardStock(matter.getStrategyId(), matter.getAwardId()));
+    }
+
+    @Override
+    public CompletableFuture<RuleActionEntity> filterAsync(RuleMatterEntity matter) {
+        return strategyStock.deductAwardStockAsync(matter.getStrategyId(), matter.getAwardId()).thenApply(RuleActionEntity::takeOver);
+    }
+}
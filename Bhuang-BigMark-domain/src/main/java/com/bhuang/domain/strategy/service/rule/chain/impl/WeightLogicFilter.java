@@ -0,0 +1,39 @@
+package com.bhuang.domain.strategy.service.rule.chain.impl;
+
+import com.bhuang.domain.strategy.model.entity.RuleActionEntity;
+import com.bhuang.domain.strategy.model.entity.RuleMatterEntity;
+import com.bhuang.domain.strategy.model.valobj.RuleModelVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyRuleWeightVO;
+import com.bhuang.domain.strategy.service.rule.IStrategyRuleWeight;
+import com.bhuang.domain.strategy.service.rule.chain.ILogicFilter;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * @author bhuang
+ * @description 权重过滤 - 按用户累计积分定位权重档位，之后在档位内抽奖；不携带积分或积分未达最低档位时按普通策略抽奖
+ * @create 2025-06-14
+ */
+@Component
+public class WeightLogicFilter implements ILogicFilter {
+
+    @Resource
+    private IStrategyRuleWeight strategyRuleWeight;
+
+    @Override
+    public RuleModelVO ruleModel() {
+        return RuleModelVO.RULE_WEIGHT;
+    }
+
+    @Override
+    public RuleActionEntity filter(RuleMatterEntity matter) {
+        if (matter.getScore() != null) {
+            StrategyRuleWeightVO.Tier tier = strategyRuleWeight.resolveRuleWeight(matter.getStrategyId(), matter.getScore());
+            if (tier != null) {
+                matter.setRuleWeightValue(tier.getRuleWeightValue());
+            }
+        }
+        return RuleActionEntity.allow();
+    }
+}
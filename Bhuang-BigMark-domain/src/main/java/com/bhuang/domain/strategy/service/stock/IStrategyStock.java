@@ -0,0 +1,64 @@
+package com.bhuang.domain.strategy.service.stock;
+
+import com.bhuang.domain.strategy.model.entity.RaffleAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyAwardStockFlushLagEntity;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 策略奖品库存接口
+ * 负责预热奖品库存计数，并在抽奖时扣减库存
+ *
+ * @author bhuang
+ */
+public interface IStrategyStock {
+
+    /**
+     * 按剩余库存预热策略奖品库存计数，计数已存在时保留
+     *
+     * @param strategyId 策略ID
+     * @return 预热结果
+     */
+    boolean assembleAwardStock(Long strategyId);
+
+    /**
+     * 扣减抽中奖品的库存，售罄时按奖品的 rule_luck_award 规则发放兜底奖品，未配置规则时发放默认兜底奖品
+     *
+     * @param strategyId 策略ID
+     * @param awardId 抽中的奖品ID
+     * @return 最终发放的奖品
+     */
+    RaffleAwardEntity deductAwardStock(Long strategyId, Integer awardId);
+
+    /**
+     * 异步扣减抽中奖品的库存，Redis 扣减使用非阻塞的脚本调用，售罄时的兜底奖品与 deductAwardStock 相同
+     *
+     * @param strategyId 策略ID
+     * @param awardId 抽中的奖品ID
+     * @return 最终发放的奖品
+     */
+    CompletableFuture<RaffleAwardEntity> deductAwardStockAsync(Long strategyId, Integer awardId);
+
+    /**
+     * 按奖品的 rule_luck_award 规则查询兜底奖品，不扣减库存
+     *
+     * @param strategyId 策略ID
+     * @param awardId 奖品ID
+     * @return 兜底奖品，奖品未配置兜底规则时返回默认兜底奖品
+     */
+    RaffleAwardEntity queryLuckAward(Long strategyId, Integer awardId);
+
+    /**
+     * 把 Redis 中的库存扣减批量回写数据库：按 (strategyId, awardId) 合并后每批一条 UPDATE
+     *
+     * @return 本次回写的扣减记录数，其他节点正在回写时返回0
+     */
+    int flushAwardStockDeductions();
+
+    /**
+     * 查询库存回写延迟
+     *
+     * @return 回写延迟
+     */
+    StrategyAwardStockFlushLagEntity queryAwardStockFlushLag();
+}
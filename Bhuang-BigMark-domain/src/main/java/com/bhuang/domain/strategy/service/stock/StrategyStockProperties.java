@@ -0,0 +1,25 @@
+package com.bhuang.domain.strategy.service.stock;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author bhuang
+ * @description 奖品库存配置
+ * @create 2025-06-14
+ */
+@Data
+@ConfigurationProperties(prefix = "strategy.stock", ignoreInvalidFields = true)
+public class StrategyStockProperties {
+
+    /** 是否开启库存扣减回写数据库 */
+    private boolean flushEnabled = true;
+    /** 回写间隔（毫秒） */
+    private long flushInterval = 1000L;
+    /** 单批领取的最大扣减记录数，合并后一条 UPDATE 回写 */
+    private int flushBatchSize = 1000;
+    /** 单次回写最多处理的批数，积压时逐批追赶，避免单次回写占用过久 */
+    private int flushMaxBatches = 10;
+    /** 回写延迟告警阈值（毫秒） */
+    private long flushLagWarnThreshold = 60_000L;
+}
@@ -0,0 +1,197 @@
+package com.bhuang.domain.strategy.service.stock;
+
+import com.bhuang.domain.strategy.model.entity.RaffleAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyAwardStockFlushLagEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardStockDeductionVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardStockFlushBatchVO;
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
+import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.armory.StrategyArmoryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author bhuang
+ * @description 策略奖品库存服务 - 抽奖路径只在 Redis 中原子扣减库存，不访问数据库；售罄时回退到 rule_luck_award 兜底奖品
+ * 扣减记录由定时任务合并后批量回写数据库，同一批次重复领取时只扣减一次；每次扣减（含售罄）追加一条库存流水，用于按流水核对库存消耗
+ * @create 2025-06-14
+ */
+@Slf4j
+@Service
+public class StrategyStockService implements IStrategyStock {
+
+    /** 兜底奖品规则模型 */
+    private static final String RULE_LUCK_AWARD = "rule_luck_award";
+
+    @Resource
+    private IStrategyRepository strategyRepository;
+
+    @Resource
+    private StrategyArmoryProperties armoryProperties;
+
+    @Resource
+    private StrategyStockProperties stockProperties;
+
+    @Resource
+    private IDrawJournalRepository drawJournalRepository;
+
+    /** 本节点回写统计 */
+    private volatile long lastFlushTime;
+    private volatile long lastFlushCount;
+    private final AtomicLong totalFlushCount = new AtomicLong();
+
+    @Override
+    public boolean assembleAwardStock(Long strategyId) {
+        List<StrategyAwardEntity> strategyAwardEntityList = strategyRepository.queryStrategyAwardList(strategyId);
+        if (strategyAwardEntityList == null || strategyAwardEntityList.isEmpty()) {
+            log.warn("策略配置为空，跳过库存预热，策略ID：{}", strategyId);
+            return false;
+        }
+        strategyRepository.storeStrategyAwardStock(strategyId, strategyAwardEntityList);
+        return true;
+    }
+
+    @Override
+    public RaffleAwardEntity deductAwardStock(Long strategyId, Integer awardId) {
+        return toRaffleAward(strategyId, awardId, strategyRepository.subtractStrategyAwardStock(strategyId, awardId));
+    }
+
+    @Override
+    public CompletableFuture<RaffleAwardEntity> deductAwardStockAsync(Long strategyId, Integer awardId) {
+        return strategyRepository.subtractStrategyAwardStockAsync(strategyId, awardId)
+                .thenApply(surplus -> toRaffleAward(strategyId, awardId, surplus));
+    }
+
+    /**
+     * 按扣减后的剩余库存给出发放的奖品并追加库存流水，售罄（剩余库存为负）时发放兜底奖品
+     */
+    private RaffleAwardEntity toRaffleAward(Long strategyId, Integer awardId, long surplus) {
+        drawJournalRepository.appendStockDeduction(strategyId, awardId, surplus >= 0);
+        if (surplus >= 0) {
+            log.debug("奖品库存扣减成功，策略ID：{}，奖品ID：{}，剩余库存：{}", strategyId, awardId, surplus);
+            return RaffleAwardEntity.builder()
+                    .strategyId(strategyId)
+                    .awardId(awardId)
+                    .build();
+        }
+
+        // 售罄：按抽中奖品配置的 rule_luck_award 发放兜底奖品，未配置时发放默认兜底奖品
+        RaffleAwardEntity luckAward = queryLuckAward(strategyId, awardId);
+        log.info("奖品已售罄，发放兜底奖品，策略ID：{}，奖品ID：{}，兜底奖品ID：{}，配置：{}",
+                strategyId, awardId, luckAward.getAwardId(), luckAward.getAwardConfig());
+        return luckAward;
+    }
+
+    @Override
+    public RaffleAwardEntity queryLuckAward(Long strategyId, Integer awardId) {
+        StrategyRuleEntity luckAwardRule = strategyRepository.queryStrategyAwardRule(strategyId, awardId, RULE_LUCK_AWARD);
+        if (luckAwardRule == null || luckAwardRule.getRuleValue() == null) {
+            log.warn("奖品未配置兜底奖品规则，使用默认兜底奖品，策略ID：{}，奖品ID：{}", strategyId, awardId);
+            return RaffleAwardEntity.builder()
+                    .strategyId(strategyId)
+                    .awardId(armoryProperties.getDefaultLuckAwardId())
+                    .luckAward(true)
+                    .ruleModel(RULE_LUCK_AWARD)
+                    .build();
+        }
+        return parseLuckAward(strategyId, luckAwardRule);
+    }
+
+    @Override
+    public int flushAwardStockDeductions() {
+        if (!strategyRepository.tryLockStrategyAwardStockFlush()) {
+            return 0;
+        }
+        try {
+            int flushed = 0;
+            for (int batch = 0; batch < stockProperties.getFlushMaxBatches(); batch++) {
+                StrategyAwardStockFlushBatchVO flushBatch = strategyRepository.takeStrategyAwardStockDeductions(stockProperties.getFlushBatchSize());
+                List<StrategyAwardStockDeductionVO> deductions = flushBatch.getDeductions();
+                if (deductions.isEmpty()) {
+                    break;
+                }
+                List<StrategyAwardStockDeductionVO> coalesced = coalesce(deductions);
+                if (!strategyRepository.updateStrategyAwardStockSurplus(flushBatch.getFlushId(), coalesced)) {
+                    log.warn("奖品库存回写批次已回写过，跳过扣减直接确认，批次ID：{}，扣减记录数：{}", flushBatch.getFlushId(), deductions.size());
+                }
+                // 回写成功后才确认；确认前中断时下次回写重新领取同一批，按批次ID去重
+                strategyRepository.ackStrategyAwardStockDeductions();
+                flushed += deductions.size();
+                log.info("奖品库存扣减已回写数据库，扣减记录数：{}，合并后奖品数：{}", deductions.size(), coalesced.size());
+                if (deductions.size() < stockProperties.getFlushBatchSize()) {
+                    break;
+                }
+            }
+            if (flushed > 0) {
+                lastFlushTime = System.currentTimeMillis();
+                lastFlushCount = flushed;
+                totalFlushCount.addAndGet(flushed);
+            }
+            return flushed;
+        } finally {
+            strategyRepository.unlockStrategyAwardStockFlush();
+        }
+    }
+
+    @Override
+    public StrategyAwardStockFlushLagEntity queryAwardStockFlushLag() {
+        StrategyAwardStockFlushLagEntity lag = strategyRepository.queryStrategyAwardStockFlushLag();
+        lag.setLastFlushTime(lastFlushTime);
+        lag.setLastFlushCount(lastFlushCount);
+        lag.setTotalFlushCount(totalFlushCount.get());
+        return lag;
+    }
+
+    /**
+     * 按 (strategyId, awardId) 合并扣减记录，扣减数量累加，扣减时间取最早
+     */
+    private List<StrategyAwardStockDeductionVO> coalesce(List<StrategyAwardStockDeductionVO> deductions) {
+        Map<String, StrategyAwardStockDeductionVO> coalesced = new LinkedHashMap<>();
+        for (StrategyAwardStockDeductionVO deduction : deductions) {
+            coalesced.merge(deduction.getStrategyId() + "#" + deduction.getAwardId(), deduction.toBuilder().build(), (merged, next) -> {
+                merged.setQuantity(merged.getQuantity() + next.getQuantity());
+                merged.setDeductTime(Math.min(merged.getDeductTime(), next.getDeductTime()));
+                return merged;
+            });
+        }
+        return new ArrayList<>(coalesced.values());
+    }
+
+    /**
+     * 解析兜底奖品规则值
+     * 格式：{awardId}:{awardConfig}，如 101:1,100；只有配置（如 1,100）或奖品ID无法解析时使用默认兜底奖品
+     */
+    private RaffleAwardEntity parseLuckAward(Long strategyId, StrategyRuleEntity luckAwardRule) {
+        String ruleValue = luckAwardRule.getRuleValue();
+        Integer luckAwardId = null;
+        try {
+            luckAwardId = luckAwardRule.parseLuckAwardId();
+        } catch (NumberFormatException e) {
+            // 装配时已校验并告警，抽奖路径不因配置错误失败
+            log.error("兜底奖品规则值的奖品ID无法解析，使用默认兜底奖品，策略ID：{}，奖品ID：{}，规则值：{}",
+                    strategyId, luckAwardRule.getAwardId(), ruleValue);
+        }
+        if (luckAwardId == null) {
+            luckAwardId = armoryProperties.getDefaultLuckAwardId();
+        }
+        int separator = ruleValue.indexOf(':');
+        String awardConfig = separator > 0 ? ruleValue.substring(separator + 1) : ruleValue;
+        return RaffleAwardEntity.builder()
+                .strategyId(strategyId)
+                .awardId(luckAwardId)
+                .awardConfig(awardConfig)
+                .luckAward(true)
+                .ruleModel(RULE_LUCK_AWARD)
+                .build();
+    }
+}
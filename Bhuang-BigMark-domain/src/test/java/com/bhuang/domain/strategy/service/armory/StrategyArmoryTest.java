@@ -2,19 +2,26 @@ package com.bhuang.domain.strategy.service.armory;
 
 import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
 import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyRateTableSnapshotVO;
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
 import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.domain.strategy.service.rule.IStrategyBlacklist;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -32,6 +39,18 @@ public class StrategyArmoryTest {
     @Mock
     private IStrategyRepository strategyRepository;
 
+    @Mock
+    private IStrategyBlacklist strategyBlacklist;
+
+    @Spy
+    private StrategyArmoryProperties armoryProperties = new StrategyArmoryProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private IDrawJournalRepository drawJournalRepository = IDrawJournalRepository.NONE;
+
     @InjectMocks
     private StrategyArmory strategyArmory;
 
@@ -134,18 +153,19 @@ public class StrategyArmoryTest {
         // 验证正常策略存储
         verify(strategyRepository, times(1)).storeStrategyAwardSearchRateTable(
             eq(100001L), 
-            anyInt(), 
-            any(Map.class)
+            any(int[].class)
         );
         
         // 验证权重策略存储（应该调用3次，分别对应3个权重配置）
         verify(strategyRepository, times(3)).storeStrategyAwardSearchRateTableByWeight(
             eq(100001L), 
             anyString(), 
-            anyInt(), 
-            any(Map.class)
+            any(int[].class)
         );
 
+        // 验证装配成功后重建黑名单
+        verify(strategyBlacklist, times(1)).assembleBlacklist(100001L);
+
         log.info("策略装配测试完成");
     }
 
@@ -154,8 +174,8 @@ public class StrategyArmoryTest {
         log.info("开始测试普通抽奖功能");
 
         // 模拟数据
-        when(strategyRepository.getRateRange(100001L)).thenReturn(10000);
-        when(strategyRepository.getStrategyAwardAssemble(eq(100001L), anyInt())).thenReturn(106);
+        when(strategyRepository.queryStrategyRateTableSnapshot(100001L, null)).thenReturn(snapshot(100001L, null, 10000));
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(100001L, null), anyInt())).thenReturn(106);
 
         // 执行抽奖
         Integer awardId = strategyArmory.getRandomAwardId(100001L);
@@ -165,8 +185,8 @@ public class StrategyArmoryTest {
         assertEquals("奖品ID应该为106", Integer.valueOf(106), awardId);
 
         // 验证方法调用
-        verify(strategyRepository, times(1)).getRateRange(100001L);
-        verify(strategyRepository, times(1)).getStrategyAwardAssemble(eq(100001L), anyInt());
+        verify(strategyRepository, times(1)).queryStrategyRateTableSnapshot(100001L, null);
+        verify(strategyRepository, times(1)).getStrategyAwardAssemble(snapshotOf(100001L, null), anyInt());
 
         log.info("普通抽奖测试完成，奖品ID：{}", awardId);
     }
@@ -176,8 +196,8 @@ public class StrategyArmoryTest {
         log.info("开始测试权重抽奖功能");
 
         // 模拟数据
-        when(strategyRepository.getRateRangeByWeight(100001L, "6000")).thenReturn(5000);
-        when(strategyRepository.getStrategyAwardAssembleByWeight(eq(100001L), eq("6000"), anyInt())).thenReturn(102);
+        when(strategyRepository.queryStrategyRateTableSnapshot(100001L, "6000")).thenReturn(snapshot(100001L, "6000", 5000));
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(100001L, "6000"), anyInt())).thenReturn(102);
 
         // 执行权重抽奖
         Integer awardId = strategyArmory.getRandomAwardId(100001L, "6000");
@@ -187,8 +207,8 @@ public class StrategyArmoryTest {
         assertEquals("奖品ID应该为102", Integer.valueOf(102), awardId);
 
         // 验证方法调用
-        verify(strategyRepository, times(1)).getRateRangeByWeight(100001L, "6000");
-        verify(strategyRepository, times(1)).getStrategyAwardAssembleByWeight(eq(100001L), eq("6000"), anyInt());
+        verify(strategyRepository, times(1)).queryStrategyRateTableSnapshot(100001L, "6000");
+        verify(strategyRepository, times(1)).getStrategyAwardAssemble(snapshotOf(100001L, "6000"), anyInt());
 
         log.info("权重抽奖测试完成，奖品ID：{}", awardId);
     }
@@ -198,9 +218,9 @@ public class StrategyArmoryTest {
         log.info("开始测试权重抽奖降级功能");
 
         // 模拟权重策略不存在，使用普通策略降级
-        when(strategyRepository.getRateRangeByWeight(100001L, "9000")).thenReturn(0);
-        when(strategyRepository.getRateRange(100001L)).thenReturn(10000);
-        when(strategyRepository.getStrategyAwardAssemble(eq(100001L), anyInt())).thenReturn(106);
+        when(strategyRepository.queryStrategyRateTableSnapshot(100001L, "9000")).thenReturn(null);
+        when(strategyRepository.queryStrategyRateTableSnapshot(100001L, null)).thenReturn(snapshot(100001L, null, 10000));
+        when(strategyRepository.getStrategyAwardAssemble(snapshotOf(100001L, null), anyInt())).thenReturn(106);
 
         // 执行权重抽奖（应该降级到普通抽奖）
         Integer awardId = strategyArmory.getRandomAwardId(100001L, "9000");
@@ -210,9 +230,9 @@ public class StrategyArmoryTest {
         assertEquals("奖品ID应该为106", Integer.valueOf(106), awardId);
 
         // 验证方法调用
-        verify(strategyRepository, times(1)).getRateRangeByWeight(100001L, "9000");
-        verify(strategyRepository, times(1)).getRateRange(100001L);
-        verify(strategyRepository, times(1)).getStrategyAwardAssemble(eq(100001L), anyInt());
+        verify(strategyRepository, times(1)).queryStrategyRateTableSnapshot(100001L, "9000");
+        verify(strategyRepository, times(1)).queryStrategyRateTableSnapshot(100001L, null);
+        verify(strategyRepository, times(1)).getStrategyAwardAssemble(snapshotOf(100001L, null), anyInt());
 
         log.info("权重抽奖降级测试完成，奖品ID：{}", awardId);
     }
@@ -238,15 +258,14 @@ public class StrategyArmoryTest {
         // 验证只调用了正常策略存储，没有调用权重策略存储
         verify(strategyRepository, times(1)).storeStrategyAwardSearchRateTable(
             eq(100001L), 
-            anyInt(), 
-            any(Map.class)
+            any(int[].class)
         );
         verify(strategyRepository, never()).storeStrategyAwardSearchRateTableByWeight(
             anyLong(), 
             anyString(), 
-            anyInt(), 
-            any(Map.class)
+            any(int[].class)
         );
+        verify(strategyBlacklist, times(1)).assembleBlacklist(100001L);
 
         log.info("无权重规则策略装配测试完成");
     }
@@ -267,6 +286,7 @@ public class StrategyArmoryTest {
         // 验证方法调用
         verify(strategyRepository, times(1)).queryStrategyAwardList(100001L);
         verify(strategyRepository, never()).queryStrategyRule(anyLong(), anyString());
+        verify(strategyBlacklist, never()).assembleBlacklist(anyLong());
 
         log.info("空奖品列表策略装配测试完成");
     }
@@ -309,7 +329,7 @@ public class StrategyArmoryTest {
         log.info("开始测试不存在策略的抽奖");
 
         // 模拟策略不存在
-        when(strategyRepository.getRateRange(999999L)).thenReturn(0);
+        when(strategyRepository.queryStrategyRateTableSnapshot(999999L, null)).thenReturn(null);
 
         // 执行抽奖
         Integer awardId = strategyArmory.getRandomAwardId(999999L);
@@ -319,4 +339,26 @@ public class StrategyArmoryTest {
 
         log.info("不存在策略抽奖测试完成");
     }
-} 
\ No newline at end of file
+
+    /**
+     * 构造当前版本的查找表快照
+     */
+    private static StrategyRateTableSnapshotVO snapshot(Long strategyId, String ruleWeightValue, int rateRange) {
+        return StrategyRateTableSnapshotVO.builder()
+                .strategyId(strategyId)
+                .ruleWeightValue(ruleWeightValue)
+                .version(1L)
+                .rateRange(rateRange)
+                .build();
+    }
+
+    /**
+     * 匹配指定策略与权重值的查找表快照
+     */
+    private static StrategyRateTableSnapshotVO snapshotOf(Long strategyId, String ruleWeightValue) {
+        return argThat(snapshot -> snapshot != null
+                && strategyId.equals(snapshot.getStrategyId())
+                && Objects.equals(ruleWeightValue, snapshot.getRuleWeightValue()));
+    }
+
+}
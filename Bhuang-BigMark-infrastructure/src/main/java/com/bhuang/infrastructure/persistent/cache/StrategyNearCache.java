@@ -0,0 +1,178 @@
+package com.bhuang.infrastructure.persistent.cache;
+
+import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * @author bhuang
+ * @description 策略近端缓存，位于 Redis 之前的进程内缓存：命中时直接返回已映射好的领域实体，跳过 Redis 读取、反序列化与映射
+ * 缓存中的实体只在本类内部持有，每次读取返回副本，调用方修改副本不影响缓存与其它线程
+ * 重新装配策略时由仓储清除该策略的缓存，并经 Redis 主题通知其它节点清除
+ * @create 2025-06-14
+ */
+@Slf4j
+@Component
+public class StrategyNearCache {
+
+    public static final String STRATEGY_AWARD_LIST = "strategy_award_list";
+    public static final String STRATEGY_RULE = "strategy_rule";
+
+    @Value("${strategy.near-cache.enabled:true}")
+    private boolean enabled;
+
+    /** 每类缓存的最大条目数，超出后按 LRU 淘汰 */
+    @Value("${strategy.near-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    /** 写入后过期时间（毫秒），多实例间的数据变更最多延迟该时间可见 */
+    @Value("${strategy.near-cache.expire-after-write:60000}")
+    private long expireAfterWrite;
+
+    private Ticker ticker = Ticker.systemTicker();
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Cache<Long, List<StrategyAwardEntity>> strategyAwardListCache;
+
+    /** 规则不存在时缓存 Optional.empty()，避免未配置的规则每次回源 */
+    private Cache<String, Optional<StrategyRuleEntity>> strategyRuleCache;
+
+    @PostConstruct
+    public void init() {
+        strategyAwardListCache = newCache();
+        strategyRuleCache = newCache();
+        // 命中、未命中、淘汰数以 cache.* 指标暴露，标签 cache 取缓存名称
+        GuavaCacheMetrics.monitor(meterRegistry, strategyAwardListCache, STRATEGY_AWARD_LIST);
+        GuavaCacheMetrics.monitor(meterRegistry, strategyRuleCache, STRATEGY_RULE);
+        log.info("策略近端缓存初始化完成，启用：{}，最大条目数：{}，过期时间：{}ms", enabled, maximumSize, expireAfterWrite);
+    }
+
+    /**
+     * 读取策略奖品列表，未命中时由 loader 加载并缓存
+     * @param strategyId 策略ID
+     * @param loader 回源加载，返回 null 时不缓存
+     * @return 只读的策略奖品列表，其中的实体为缓存的副本
+     */
+    public List<StrategyAwardEntity> getStrategyAwardList(Long strategyId, Supplier<List<StrategyAwardEntity>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        List<StrategyAwardEntity> strategyAwardList = strategyAwardListCache.getIfPresent(strategyId);
+        if (null == strategyAwardList) {
+            List<StrategyAwardEntity> loaded = loader.get();
+            if (null == loaded) {
+                return null;
+            }
+            // 缓存持有自己的副本，回源方之后修改其结果不影响缓存
+            strategyAwardList = copyOf(loaded);
+            strategyAwardListCache.put(strategyId, strategyAwardList);
+        }
+        return copyOf(strategyAwardList);
+    }
+
+    /**
+     * 读取策略规则，未命中时由 loader 加载并缓存，规则不存在同样缓存
+     * @param strategyId 策略ID
+     * @param ruleModel 规则模型
+     * @param loader 回源加载
+     * @return 策略规则实体的副本，不存在时返回 null
+     */
+    public StrategyRuleEntity getStrategyRule(Long strategyId, String ruleModel, Supplier<StrategyRuleEntity> loader) {
+        return getStrategyRule(ruleKey(strategyId, ruleModel), loader);
+    }
+
+    private StrategyRuleEntity getStrategyRule(String cacheKey, Supplier<StrategyRuleEntity> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Optional<StrategyRuleEntity> strategyRule = strategyRuleCache.getIfPresent(cacheKey);
+        if (null == strategyRule) {
+            strategyRule = Optional.ofNullable(loader.get()).map(StrategyNearCache::copyOf);
+            strategyRuleCache.put(cacheKey, strategyRule);
+        }
+        return strategyRule.map(StrategyNearCache::copyOf).orElse(null);
+    }
+
+    /**
+     * 读取奖品规则，与策略规则共用同一缓存，规则不存在同样缓存
+     * @param strategyId 策略ID
+     * @param awardId 奖品ID
+     * @param ruleModel 规则模型
+     * @param loader 回源加载
+     * @return 策略规则实体的副本，不存在时返回 null
+     */
+    public StrategyRuleEntity getStrategyAwardRule(Long strategyId, Integer awardId, String ruleModel, Supplier<StrategyRuleEntity> loader) {
+        return getStrategyRule(ruleKey(strategyId, awardId, ruleModel), loader);
+    }
+
+    /**
+     * 清除策略的奖品列表及其全部策略规则、奖品规则
+     * @param strategyId 策略ID
+     */
+    public void invalidateStrategy(Long strategyId) {
+        strategyAwardListCache.invalidate(strategyId);
+        String rulePrefix = strategyId + "#";
+        strategyRuleCache.asMap().keySet().removeIf(cacheKey -> cacheKey.startsWith(rulePrefix));
+    }
+
+    /**
+     * @return 缓存名称到命中/未命中/淘汰统计的映射
+     */
+    public Map<String, CacheStats> stats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put(STRATEGY_AWARD_LIST, strategyAwardListCache.stats());
+        stats.put(STRATEGY_RULE, strategyRuleCache.stats());
+        return stats;
+    }
+
+    private <K, V> Cache<K, V> newCache() {
+        return CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite, TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    private static List<StrategyAwardEntity> copyOf(List<StrategyAwardEntity> strategyAwardList) {
+        List<StrategyAwardEntity> copy = new ArrayList<>(strategyAwardList.size());
+        for (StrategyAwardEntity strategyAward : strategyAwardList) {
+            copy.add(strategyAward.toBuilder().build());
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    private static StrategyRuleEntity copyOf(StrategyRuleEntity strategyRule) {
+        return strategyRule.toBuilder().build();
+    }
+
+    private static String ruleKey(Long strategyId, String ruleModel) {
+        return strategyId + "#" + ruleModel;
+    }
+
+    private static String ruleKey(Long strategyId, Integer awardId, String ruleModel) {
+        return strategyId + "#" + awardId + "#" + ruleModel;
+    }
+
+}
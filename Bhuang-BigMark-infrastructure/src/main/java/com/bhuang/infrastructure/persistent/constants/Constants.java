@@ -43,6 +43,16 @@ public class Constants {
          */
         public static final String STRATEGY_AWARD_ASSEMBLE_WEIGHT_PREFIX = "strategy:award:assemble:weight:";
 
+        /**
+         * 策略奖品查找表存储布局
+         */
+        public enum TableLayout {
+            /** 每个槽位一个独立Key（旧布局，兼容已装配数据） */
+            KEY,
+            /** 每个策略/权重档位一个Hash，槽位作为field */
+            HASH
+        }
+
         /**
          * 缓存过期时间（秒）
          */
@@ -86,6 +96,57 @@ public class Constants {
             return "strategy#" + strategyId + "#assemble#" + rateKey;
         }
 
+        /**
+         * 生成策略奖品查找表Hash Key
+         * 格式: strategy#{strategyId}#assemble#table
+         * @param strategyId 策略ID
+         * @return 缓存Key
+         */
+        public static String getStrategyAwardAssembleTableKey(Long strategyId) {
+            return "strategy#" + strategyId + "#assemble#table";
+        }
+
+        /**
+         * 生成策略奖品别名表Key
+         * 格式: strategy#{strategyId}#alias
+         * @param strategyId 策略ID
+         * @return 缓存Key
+         */
+        public static String getStrategyAwardAliasTableKey(Long strategyId) {
+            return "strategy#" + strategyId + "#alias";
+        }
+
+        /**
+         * 生成权重策略奖品别名表Key
+         * 格式: strategy#{strategyId}#alias#weight#{ruleWeightValue}
+         * @param strategyId 策略ID
+         * @param ruleWeightValue 权重规则值
+         * @return 缓存Key
+         */
+        public static String getStrategyAwardAliasTableKeyByWeight(Long strategyId, String ruleWeightValue) {
+            return "strategy#" + strategyId + "#alias#weight#" + ruleWeightValue;
+        }
+
+        /**
+         * 生成策略装配版本号Key，每次装配完成后自增，供各节点感知策略已重新装配
+         * 格式: strategy#{strategyId}#version
+         * @param strategyId 策略ID
+         * @return 缓存Key
+         */
+        public static String getStrategyArmoryVersionKey(Long strategyId) {
+            return "strategy#" + strategyId + "#version";
+        }
+
+        /**
+         * 生成策略缓存Key
+         * 格式: strategy#{strategyId}
+         * @param strategyId 策略ID
+         * @return 缓存Key
+         */
+        public static String getStrategyKey(Long strategyId) {
+            return "strategy#" + strategyId;
+        }
+
         /**
          * 生成策略规则缓存Key
          * 格式: strategy#{strategyId}#rule#{ruleModel}
@@ -97,6 +158,202 @@ public class Constants {
             return "strategy#" + strategyId + "#rule#" + ruleModel;
         }
 
+        /**
+         * 生成查找表版本指针Key，值为当前生效的查找表快照，重新装配时原子切换
+         * 格式: strategy#{strategyId}#ratetable 或 strategy#{strategyId}#ratetable#weight#{ruleWeightValue}
+         * @param strategyId 策略ID
+         * @param ruleWeightValue 权重值，普通策略传null
+         * @return 缓存Key
+         */
+        public static String getStrategyRateTablePointerKey(Long strategyId, String ruleWeightValue) {
+            return null == ruleWeightValue
+                    ? "strategy#" + strategyId + "#ratetable"
+                    : "strategy#" + strategyId + "#ratetable#weight#" + ruleWeightValue;
+        }
+
+        /**
+         * 生成查找表版本号序列Key，同一策略的普通与权重查找表共用
+         * 格式: strategy#{strategyId}#ratetable#seq
+         * @param strategyId 策略ID
+         * @return 缓存Key
+         */
+        public static String getStrategyRateTableSeqKey(Long strategyId) {
+            return "strategy#" + strategyId + "#ratetable#seq";
+        }
+
+        /**
+         * 生成指定版本的查找表Hash Key，版本0为按版本装配之前的旧Key
+         * 格式: {查找表Hash Key}#v{version}
+         * @param strategyId 策略ID
+         * @param ruleWeightValue 权重值，普通策略传null
+         * @param version 查找表版本号
+         * @return 缓存Key
+         */
+        public static String getStrategyAwardAssembleTableKey(Long strategyId, String ruleWeightValue, long version) {
+            String tableKey = null == ruleWeightValue
+                    ? getStrategyAwardAssembleTableKey(strategyId)
+                    : getStrategyAwardAssembleTableKeyByWeight(strategyId, ruleWeightValue);
+            return version == 0 ? tableKey : tableKey + "#v" + version;
+        }
+
+        /**
+         * 生成指定版本的槽位Key（KEY布局），版本0为按版本装配之前的旧Key
+         * 格式: strategy#{strategyId}#assemble[#weight#{ruleWeightValue}]#v{version}#{rateKey}
+         * @param strategyId 策略ID
+         * @param ruleWeightValue 权重值，普通策略传null
+         * @param version 查找表版本号
+         * @param rateKey 概率key
+         * @return 缓存Key
+         */
+        public static String getStrategyAwardAssembleKey(Long strategyId, String ruleWeightValue, long version, Integer rateKey) {
+            if (version == 0) {
+                return null == ruleWeightValue
+                        ? getStrategyAwardAssembleKey(strategyId, rateKey)
+                        : getStrategyAwardAssembleKeyByWeight(strategyId, ruleWeightValue, rateKey);
+            }
+            return null == ruleWeightValue
+                    ? "strategy#" + strategyId + "#assemble#v" + version + "#" + rateKey
+                    : "strategy#" + strategyId + "#assemble#weight#" + ruleWeightValue + "#v" + version + "#" + rateKey;
+        }
+
+        /**
+         * 生成旧槽位Key的前缀，供Lua脚本在服务端拼接槽位Key，需与 getStrategyAwardAssembleKey 保持一致
+         * 服务端拼接的Key不在 KEYS 中声明，仅适用于单节点 Redis
+         * 格式: strategy#{strategyId}#assemble#[weight#{ruleWeightValue}#]
+         * 旧槽位Key为 前缀 + rateKey，版本化槽位Key为 前缀 + v{version}# + rateKey
+         * @param strategyId 策略ID
+         * @param ruleWeightValue 权重值，普通策略传null
+         * @return 槽位Key前缀
+         */
+        public static String getStrategyAwardAssembleKeyPrefix(Long strategyId, String ruleWeightValue) {
+            return null == ruleWeightValue
+                    ? "strategy#" + strategyId + "#assemble#"
+                    : "strategy#" + strategyId + "#assemble#weight#" + ruleWeightValue + "#";
+        }
+
+        /**
+         * 生成策略奖品库存计数Key，装配时按剩余库存预热，抽奖时在 Redis 中原子扣减
+         * 格式: strategy#{strategyId}#award#{awardId}#stock
+         * @param strategyId 策略ID
+         * @param awardId 奖品ID
+         * @return 缓存Key
+         */
+        public static String getStrategyAwardStockKey(Long strategyId, Integer awardId) {
+            return "strategy#" + strategyId + "#award#" + awardId + "#stock";
+        }
+
+        /**
+         * 奖品库存扣减回写队列Key，扣减成功时在同一脚本内追加一条记录，由定时任务批量回写数据库
+         * 元素格式: {strategyId}#{awardId}#{扣减时间毫秒}
+         */
+        public static final String STRATEGY_AWARD_STOCK_QUEUE_KEY = "strategy#award#stock#queue";
+
+        /**
+         * 奖品库存扣减回写处理中队列Key，回写数据库成功后删除；进程中断时保留，重启后重新回写
+         */
+        public static final String STRATEGY_AWARD_STOCK_PROCESSING_KEY = "strategy#award#stock#processing";
+
+        /**
+         * 处理中队列的回写批次ID Key，与处理中队列同时写入、同时删除；重新领取同一批时沿用该ID，数据库据此去重
+         */
+        public static final String STRATEGY_AWARD_STOCK_FLUSH_ID_KEY = "strategy#award#stock#flush#id";
+
+        /**
+         * 奖品库存扣减回写锁Key，多节点同一时刻只有一个节点回写
+         */
+        public static final String STRATEGY_AWARD_STOCK_FLUSH_LOCK_KEY = "strategy#award#stock#flush#lock";
+
+        /**
+         * 策略近端缓存失效通知主题，消息为策略ID，各节点收到后清除该策略的近端缓存
+         */
+        public static final String STRATEGY_NEAR_CACHE_EVICT_TOPIC = "strategy#near_cache#evict";
+
+        /**
+         * 生成用户抽奖次数计数Key，与 RAtomicLong 存储格式一致，脚本内可直接 INCR
+         * 格式: strategy#{strategyId}#user#{userId}#raffle_count
+         * @param strategyId 策略ID
+         * @param userId 用户ID
+         * @return 缓存Key
+         */
+        public static String getUserRaffleCountKey(Long strategyId, String userId) {
+            return "strategy#" + strategyId + "#user#" + userId + "#raffle_count";
+        }
+
+        /**
+         * 生成限流窗口分片计数Key，窗口按时间切分为若干分片，每个分片一个计数并在窗口结束后过期
+         * 格式: rate_limit#{limiterKey}#{slot}
+         * @param limiterKey 限流对象，如 strategy#100001、user#100001#user001
+         * @param slot 分片序号，当前时间除以分片时长
+         * @return 缓存Key
+         */
+        public static String getRateLimitWindowKey(String limiterKey, long slot) {
+            return "rate_limit#" + limiterKey + "#" + slot;
+        }
+
+        /**
+         * 生成黑名单当前版本Key，值为版本号；重建时新版本写完后原子切换
+         * 格式: strategy#{strategyId}#blacklist#version
+         * @param strategyId 策略ID
+         * @return 缓存Key
+         */
+        public static String getStrategyBlacklistVersionKey(Long strategyId) {
+            return "strategy#" + strategyId + "#blacklist#version";
+        }
+
+        /**
+         * 生成黑名单版本序号Key，每次重建自增
+         * 格式: strategy#{strategyId}#blacklist#seq
+         * @param strategyId 策略ID
+         * @return 缓存Key
+         */
+        public static String getStrategyBlacklistSeqKey(Long strategyId) {
+            return "strategy#" + strategyId + "#blacklist#seq";
+        }
+
+        /**
+         * 生成黑名单布隆过滤器Key
+         * 格式: strategy#{strategyId}#blacklist#bloom#v{version}
+         * @param strategyId 策略ID
+         * @param version 版本号
+         * @return 缓存Key
+         */
+        public static String getStrategyBlacklistBloomKey(Long strategyId, long version) {
+            return "strategy#" + strategyId + "#blacklist#bloom#v" + version;
+        }
+
+        /**
+         * 生成黑名单用户集合Key，布隆过滤器命中后在此精确确认
+         * 格式: strategy#{strategyId}#blacklist#v{version}
+         * @param strategyId 策略ID
+         * @param version 版本号
+         * @return 缓存Key
+         */
+        public static String getStrategyBlacklistKey(Long strategyId, long version) {
+            return "strategy#" + strategyId + "#blacklist#v" + version;
+        }
+
+        /**
+         * 生成奖品规则缓存Key
+         * 格式: strategy#{strategyId}#award#{awardId}#rule#{ruleModel}
+         * @param strategyId 策略ID
+         * @param awardId 奖品ID
+         * @param ruleModel 规则模型
+         * @return 缓存Key
+         */
+        public static String getStrategyAwardRuleKey(Long strategyId, Integer awardId, String ruleModel) {
+            return "strategy#" + strategyId + "#award#" + awardId + "#rule#" + ruleModel;
+        }
+
+        /**
+         * 生成缓存回源锁Key，缓存未命中时各节点争用该锁，只有持锁节点查询数据库并回写缓存
+         * 格式: {cacheKey}#lock
+         * @param cacheKey 缓存Key
+         * @return 锁Key
+         */
+        public static String getCacheLoadLockKey(String cacheKey) {
+            return cacheKey + "#lock";
+        }
+
         /**
          * 生成权重策略概率范围缓存Key
          * 格式: strategy#{strategyId}#raterange#weight#{ruleWeightValue}
@@ -119,6 +376,17 @@ public class Constants {
         public static String getStrategyAwardAssembleKeyByWeight(Long strategyId, String ruleWeightValue, Integer rateKey) {
             return "strategy#" + strategyId + "#assemble#weight#" + ruleWeightValue + "#" + rateKey;
         }
+
+        /**
+         * 生成权重策略奖品查找表Hash Key
+         * 格式: strategy#{strategyId}#assemble#table#weight#{ruleWeightValue}
+         * @param strategyId 策略ID
+         * @param ruleWeightValue 权重值
+         * @return 缓存Key
+         */
+        public static String getStrategyAwardAssembleTableKeyByWeight(Long strategyId, String ruleWeightValue) {
+            return "strategy#" + strategyId + "#assemble#table#weight#" + ruleWeightValue;
+        }
     }
 
     /**
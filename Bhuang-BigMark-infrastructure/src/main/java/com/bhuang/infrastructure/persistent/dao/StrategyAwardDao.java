@@ -1,7 +1,9 @@
 package com.bhuang.infrastructure.persistent.dao;
 
 import com.bhuang.infrastructure.persistent.po.StrategyAward;
+import com.bhuang.infrastructure.persistent.po.StrategyAwardStockDeduct;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import java.util.List;
 
 @Mapper
@@ -13,4 +15,6 @@ public interface StrategyAwardDao {
     int deleteById(Long id);
     List<StrategyAward> queryStrategyAwardListByStrategyId(Long strategyId);
     List<StrategyAward> queryStrategyAwardList();
+    /** 批量扣减奖品剩余库存，一条 UPDATE 完成整批 */
+    int updateAwardCountSurplusDeductBatch(@Param("deducts") List<StrategyAwardStockDeduct> deducts);
 }
@@ -0,0 +1,10 @@
+package com.bhuang.infrastructure.persistent.dao;
+
+import com.bhuang.infrastructure.persistent.po.StrategyAwardStockFlush;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface StrategyAwardStockFlushDao {
+    /** 记录回写批次，批次ID已存在时忽略并返回0 */
+    int insertIgnore(StrategyAwardStockFlush strategyAwardStockFlush);
+}
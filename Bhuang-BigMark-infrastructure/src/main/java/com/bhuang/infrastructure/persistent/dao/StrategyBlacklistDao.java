@@ -0,0 +1,29 @@
+package com.bhuang.infrastructure.persistent.dao;
+
+import com.bhuang.infrastructure.persistent.po.StrategyBlacklist;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface StrategyBlacklistDao {
+
+    /**
+     * 查询策略的黑名单用户数，用于确定布隆过滤器的预期元素数
+     * @param strategyId 策略ID
+     * @return 用户数
+     */
+    long countByStrategyId(@Param("strategyId") Long strategyId);
+
+    /**
+     * 按主键分页查询策略的黑名单用户，名单较大时分批读取，不一次载入内存
+     * @param strategyId 策略ID
+     * @param lastId 上一页最后一条记录的ID，首页传0
+     * @param limit 每页条数
+     * @return 按ID升序的黑名单用户
+     */
+    List<StrategyBlacklist> queryPageByStrategyId(@Param("strategyId") Long strategyId,
+                                                  @Param("lastId") Long lastId,
+                                                  @Param("limit") int limit);
+}
@@ -7,6 +7,7 @@ import java.util.List;
 @Mapper
 public interface StrategyDao {
     Strategy selectById(Long id);
+    Strategy selectByStrategyId(Long strategyId);
     List<Strategy> selectAll();
     int insert(Strategy strategy);
     int update(Strategy strategy);
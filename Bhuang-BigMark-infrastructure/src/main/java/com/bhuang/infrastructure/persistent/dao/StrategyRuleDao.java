@@ -21,4 +21,15 @@ public interface StrategyRuleDao {
      */
     StrategyRule selectByStrategyIdAndRuleModel(@Param("strategyId") Long strategyId, 
                                                @Param("ruleModel") String ruleModel);
+
+    /**
+     * 根据策略ID、奖品ID和规则模型查询奖品规则
+     * @param strategyId 策略ID
+     * @param awardId 奖品ID
+     * @param ruleModel 规则模型
+     * @return 策略规则对象
+     */
+    StrategyRule selectByStrategyIdAwardIdAndRuleModel(@Param("strategyId") Long strategyId,
+                                                       @Param("awardId") Integer awardId,
+                                                       @Param("ruleModel") String ruleModel);
 }
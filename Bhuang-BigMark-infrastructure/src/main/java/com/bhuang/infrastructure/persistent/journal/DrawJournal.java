@@ -0,0 +1,261 @@
+package com.bhuang.infrastructure.persistent.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author bhuang
+ * @description 抽奖流水：多生产者无锁环形缓冲区 + 单写线程追加到内存映射的分段文件
+ * 生产者 CAS 领取序号后把记录写入自己的槽位，再以 lazySet 发布；写线程按序号顺序复制到映射文件，不加锁、不分配对象、不做系统调用
+ * 缓冲区已满时丢弃记录并计数，抽奖路径不等待磁盘；映射文件写入即进入页缓存，进程崩溃不丢失，按 forceInterval 刷盘应对机器掉电
+ * 分段文件写满后滚动到下一段，每段以64字节文件头开始，之后为定长记录，未写入的位置全为0
+ * @create 2025-06-14
+ */
+@Slf4j
+public class DrawJournal implements Closeable {
+
+    /** 分段文件名前缀与后缀，序号补零保证按文件名排序即按写入顺序 */
+    static final String SEGMENT_PREFIX = "draw-journal-";
+    static final String SEGMENT_SUFFIX = ".dat";
+
+    /** 文件头：魔数 DRAWJNL1、版本、记录长度、创建时间 */
+    static final long MAGIC = 0x4452_4157_4A4E_4C31L;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = DrawJournalRecord.SIZE;
+
+    /** 写线程空闲时的休眠时间 */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final int maxSegments;
+    private final long forceIntervalNanos;
+
+    /** 环形缓冲区，每条记录占 LONGS 个 long */
+    private final int capacity;
+    private final int mask;
+    private final long[] ring;
+    /** 每个槽位已发布的序号，写线程据此判断记录是否写完 */
+    private final AtomicLongArray published;
+    /** 下一个待领取的序号 */
+    private final AtomicLong tail = new AtomicLong();
+    /** 写线程已复制到文件的序号 */
+    private final AtomicLong head = new AtomicLong();
+
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /** 以下字段只由写线程访问 */
+    private long segmentIndex;
+    private MappedByteBuffer segment;
+    private int segmentPosition;
+    private long lastForceNanos = System.nanoTime();
+
+    /**
+     * @param directory 流水目录
+     * @param segmentSize 分段文件大小（字节），向下取整到记录长度的整数倍
+     * @param bufferSize 环形缓冲区容量（记录数），向上取整到2的幂
+     * @param maxSegments 最多保留的分段数，超出时删除最早的分段；0 表示全部保留
+     * @param forceIntervalMillis 刷盘间隔（毫秒）
+     */
+    public DrawJournal(Path directory, long segmentSize, int bufferSize, int maxSegments, long forceIntervalMillis) {
+        if (segmentSize < HEADER_SIZE + DrawJournalRecord.SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("分段文件大小须在 " + (HEADER_SIZE + DrawJournalRecord.SIZE) + " 到 " + Integer.MAX_VALUE + " 字节之间");
+        }
+        if (bufferSize <= 0 || bufferSize > (1 << 24)) {
+            throw new IllegalArgumentException("缓冲区容量须在1到" + (1 << 24) + "之间");
+        }
+        this.directory = directory;
+        this.segmentRecords = (int) (segmentSize / DrawJournalRecord.SIZE) - 1;
+        this.maxSegments = maxSegments;
+        this.forceIntervalNanos = TimeUnit.MILLISECONDS.toNanos(forceIntervalMillis);
+        this.capacity = Integer.highestOneBit(bufferSize - 1 > 0 ? (bufferSize - 1) << 1 : 1);
+        this.mask = capacity - 1;
+        this.ring = new long[capacity * DrawJournalRecord.LONGS];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1L);
+        }
+
+        try {
+            Files.createDirectories(directory);
+            // 重启后从新的分段开始，不续写上次未写满的分段
+            List<Path> segments = DrawJournalReader.listSegments(directory);
+            segmentIndex = segments.isEmpty() ? 0 : DrawJournalReader.segmentIndexOf(segments.get(segments.size() - 1));
+            roll();
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开抽奖流水目录失败：" + directory, e);
+        }
+
+        writer = new Thread(this::runWriter, "draw-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 追加抽奖记录
+     * @return 是否写入缓冲区，缓冲区已满时返回 false
+     */
+    public boolean appendDraw(long strategyId, int tier, int slot, int awardId, String userId) {
+        return append(DrawJournalRecord.TYPE_DRAW, strategyId, tier, slot, awardId, (byte) 0, userId);
+    }
+
+    /**
+     * 追加库存扣减记录
+     * @return 是否写入缓冲区，缓冲区已满时返回 false
+     */
+    public boolean appendStock(long strategyId, int awardId, boolean deducted) {
+        return append(DrawJournalRecord.TYPE_STOCK, strategyId, 0, -1, awardId, deducted ? DrawJournalRecord.FLAG_DEDUCTED : 0, null);
+    }
+
+    private boolean append(byte type, long strategyId, int tier, int slot, int awardId, byte flags, String userId) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() >= capacity || !running) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) (sequence & mask);
+        DrawJournalRecord.encode(ring, index * DrawJournalRecord.LONGS, System.currentTimeMillis(), type, strategyId,
+                tier, slot, awardId, flags, userId);
+        published.lazySet(index, sequence);
+        return true;
+    }
+
+    /** 缓冲区满被丢弃的记录数 */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /** 已写入映射文件的记录数 */
+    public long written() {
+        return written.get();
+    }
+
+    /** 缓冲区中等待写入文件的记录数 */
+    public long backlog() {
+        return Math.max(tail.get() - head.get(), 0);
+    }
+
+    /**
+     * 停止接收记录，写完缓冲区中已发布的记录并刷盘后返回
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            // 先读取运行状态：停止后生产者不再领取序号，再排空一次即可退出
+            boolean stopping = !running;
+            int drained = drain();
+            long now = System.nanoTime();
+            if (now - lastForceNanos >= forceIntervalNanos || (stopping && drained == 0)) {
+                force();
+                lastForceNanos = now;
+            }
+            if (stopping && drained == 0 && head.get() >= tail.get()) {
+                log.info("抽奖流水已关闭，写入记录数：{}，丢弃记录数：{}", written.get(), dropped.sum());
+                return;
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * 按序号顺序复制已发布的记录，遇到未发布的槽位（生产者仍在写）即停止
+     * @return 本次复制的记录数
+     */
+    private int drain() {
+        long next = head.get();
+        int drained = 0;
+        while (published.get((int) (next & mask)) == next) {
+            try {
+                if (segmentPosition + DrawJournalRecord.SIZE > segment.capacity()) {
+                    roll();
+                }
+                int offset = (int) (next & mask) * DrawJournalRecord.LONGS;
+                // 记录头（含类型）最后写入，读取方据类型判断记录是否完整
+                for (int i = 0; i < DrawJournalRecord.LONGS; i++) {
+                    if (i != 3) {
+                        segment.putLong(segmentPosition + i * Long.BYTES, ring[offset + i]);
+                    }
+                }
+                segment.putLong(segmentPosition + 3 * Long.BYTES, ring[offset + 3]);
+                segmentPosition += DrawJournalRecord.SIZE;
+                written.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                dropped.increment();
+                log.error("抽奖流水写入失败，丢弃记录，序号：{}", next, e);
+            }
+            next++;
+            drained++;
+            head.lazySet(next);
+        }
+        return drained;
+    }
+
+    /**
+     * 刷盘当前分段，映射到下一个分段文件并写入文件头，超出保留数时删除最早的分段
+     */
+    private void roll() throws IOException {
+        force();
+        segmentIndex++;
+        Path path = directory.resolve(DrawJournalReader.segmentFileName(segmentIndex));
+        long size = (long) (segmentRecords + 1) * DrawJournalRecord.SIZE;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 映射在通道关闭后仍然有效，旧映射在不再引用后由 GC 回收
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        segment.putLong(0, MAGIC);
+        segment.putInt(8, VERSION);
+        segment.putInt(12, DrawJournalRecord.SIZE);
+        segment.putLong(16, System.currentTimeMillis());
+        segmentPosition = HEADER_SIZE;
+        log.info("抽奖流水分段已创建：{}，记录容量：{}", path, segmentRecords);
+
+        if (maxSegments > 0) {
+            List<Path> segments = DrawJournalReader.listSegments(directory);
+            for (int i = 0; i < segments.size() - maxSegments; i++) {
+                Files.deleteIfExists(segments.get(i));
+                log.info("抽奖流水分段超出保留数，已删除：{}", segments.get(i));
+            }
+        }
+    }
+
+    private void force() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.bhuang.infrastructure.persistent.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * @author bhuang
+ * @description 抽奖流水读取 - 按分段序号顺序读取全部记录，每个分段读到第一个未写入的位置为止
+ * 可在写入进行中读取，最后一个分段只返回读取时已完整写入的记录
+ * @create 2025-06-14
+ */
+public final class DrawJournalReader {
+
+    private DrawJournalReader() {
+    }
+
+    /**
+     * 读取目录下全部分段的记录
+     * @param directory 流水目录
+     * @param consumer 记录处理
+     * @return 读取的记录数
+     */
+    public static long read(Path directory, Consumer<DrawJournalRecord> consumer) throws IOException {
+        long count = 0;
+        for (Path segment : listSegments(directory)) {
+            count += readSegment(segment, consumer);
+        }
+        return count;
+    }
+
+    /**
+     * 读取一个分段的记录
+     * @param segment 分段文件
+     * @param consumer 记录处理
+     * @return 读取的记录数
+     */
+    public static long readSegment(Path segment, Consumer<DrawJournalRecord> consumer) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < DrawJournal.HEADER_SIZE || buffer.getLong(0) != DrawJournal.MAGIC) {
+            throw new IOException("不是抽奖流水分段文件：" + segment);
+        }
+        int recordSize = buffer.getInt(12);
+        if (buffer.getInt(8) != DrawJournal.VERSION || recordSize != DrawJournalRecord.SIZE) {
+            throw new IOException("抽奖流水版本或记录长度不支持：" + segment + "，版本：" + buffer.getInt(8) + "，记录长度：" + recordSize);
+        }
+
+        long count = 0;
+        for (int position = DrawJournal.HEADER_SIZE; position + recordSize <= buffer.capacity(); position += recordSize) {
+            DrawJournalRecord record = DrawJournalRecord.decode(buffer, position);
+            if (record == null) {
+                break;
+            }
+            consumer.accept(record);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return 目录下的分段文件，按序号排序；目录不存在时返回空列表
+     */
+    public static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> segmentIndexOf(file) > 0).forEach(segments::add);
+        }
+        segments.sort((a, b) -> Long.compare(segmentIndexOf(a), segmentIndexOf(b)));
+        return segments;
+    }
+
+    static String segmentFileName(long segmentIndex) {
+        return String.format("%s%012d%s", DrawJournal.SEGMENT_PREFIX, segmentIndex, DrawJournal.SEGMENT_SUFFIX);
+    }
+
+    /**
+     * @return 分段序号，不是分段文件时返回0
+     */
+    static long segmentIndexOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(DrawJournal.SEGMENT_PREFIX) || !name.endsWith(DrawJournal.SEGMENT_SUFFIX)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(name.substring(DrawJournal.SEGMENT_PREFIX.length(), name.length() - DrawJournal.SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+}
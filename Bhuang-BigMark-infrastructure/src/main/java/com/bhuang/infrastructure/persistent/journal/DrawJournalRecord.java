@@ -0,0 +1,146 @@
+package com.bhuang.infrastructure.persistent.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author bhuang
+ * @description 抽奖流水记录，定长64字节，按8个 long 编码以便在环形缓冲区与映射文件间整块复制
+ * 0 时间戳(ms) | 8 策略ID | 16 奖品ID(int) + 权重档位(int) | 24 位置(int) + 类型(byte) + 标志(byte) + 用户ID长度(byte) + 保留(byte) | 32 用户ID(32字节)
+ * 权重档位取权重规则值中的积分阈值（如 4000:102,103 记为 4000），普通策略为0；用户ID只保留前32个字符，非 ASCII 字符记为 ?
+ * @create 2025-06-14
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DrawJournalRecord {
+
+    /** 记录长度（字节） */
+    public static final int SIZE = 64;
+    /** 记录长度（long） */
+    public static final int LONGS = SIZE / Long.BYTES;
+    /** 用户ID最大字节数 */
+    public static final int USER_ID_BYTES = 32;
+
+    /** 记录类型：抽奖、库存扣减；0 表示文件中尚未写入的位置 */
+    public static final byte TYPE_DRAW = 1;
+    public static final byte TYPE_STOCK = 2;
+
+    /** 库存扣减标志：扣减成功 */
+    public static final byte FLAG_DEDUCTED = 1;
+
+    /** 时间戳（毫秒） */
+    private long timestamp;
+    /** 记录类型 */
+    private byte type;
+    /** 策略ID */
+    private long strategyId;
+    /** 权重档位，普通策略为0 */
+    private int tier;
+    /** 抽中的位置，未知时为-1 */
+    private int slot;
+    /** 奖品ID */
+    private int awardId;
+    /** 标志 */
+    private byte flags;
+    /** 用户ID，未提供时为空字符串 */
+    private String userId;
+
+    public boolean isDraw() {
+        return type == TYPE_DRAW;
+    }
+
+    public boolean isStock() {
+        return type == TYPE_STOCK;
+    }
+
+    public boolean isDeducted() {
+        return (flags & FLAG_DEDUCTED) != 0;
+    }
+
+    /**
+     * 编码到 long 数组，不分配对象
+     * @param target 目标数组
+     * @param offset 起始下标
+     */
+    static void encode(long[] target, int offset, long timestamp, byte type, long strategyId, int tier, int slot,
+                       int awardId, byte flags, String userId) {
+        int userIdLength = null == userId ? 0 : Math.min(userId.length(), USER_ID_BYTES);
+        target[offset] = timestamp;
+        target[offset + 1] = strategyId;
+        target[offset + 2] = ((long) awardId << 32) | (tier & 0xFFFFFFFFL);
+        target[offset + 3] = ((long) slot << 32) | ((type & 0xFFL) << 24) | ((flags & 0xFFL) << 16) | ((long) userIdLength << 8);
+        for (int word = 0; word < USER_ID_BYTES / Long.BYTES; word++) {
+            long packed = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                int index = word * Long.BYTES + i;
+                packed = (packed << 8) | (index < userIdLength ? asciiOf(userId.charAt(index)) : 0);
+            }
+            target[offset + 4 + word] = packed;
+        }
+    }
+
+    /**
+     * 从映射文件解码一条记录
+     * @param buffer 映射文件
+     * @param position 记录起始位置
+     * @return 记录，该位置尚未写入时返回null
+     */
+    static DrawJournalRecord decode(ByteBuffer buffer, int position) {
+        long header = buffer.getLong(position + 24);
+        byte type = (byte) (header >>> 24);
+        if (type == 0) {
+            return null;
+        }
+        long awardAndTier = buffer.getLong(position + 16);
+        int userIdLength = Math.min((int) ((header >>> 8) & 0xFF), USER_ID_BYTES);
+        byte[] userId = new byte[userIdLength];
+        for (int i = 0; i < userIdLength; i++) {
+            userId[i] = buffer.get(position + 32 + i);
+        }
+        return DrawJournalRecord.builder()
+                .timestamp(buffer.getLong(position))
+                .type(type)
+                .strategyId(buffer.getLong(position + 8))
+                .awardId((int) (awardAndTier >>> 32))
+                .tier((int) awardAndTier)
+                .slot((int) (header >>> 32))
+                .flags((byte) (header >>> 16))
+                .userId(new String(userId, StandardCharsets.US_ASCII))
+                .build();
+    }
+
+    /**
+     * 解析权重档位，取权重规则值冒号前的积分阈值
+     * @param ruleWeightValue 权重规则值，如 4000 或 4000:102,103
+     * @return 积分阈值，普通策略或无法解析时为0
+     */
+    public static int tierOf(String ruleWeightValue) {
+        if (null == ruleWeightValue) {
+            return 0;
+        }
+        long tier = 0;
+        for (int i = 0; i < ruleWeightValue.length(); i++) {
+            char c = ruleWeightValue.charAt(i);
+            if (c == ':') {
+                break;
+            }
+            if (c < '0' || c > '9' || tier > Integer.MAX_VALUE) {
+                return 0;
+            }
+            tier = tier * 10 + (c - '0');
+        }
+        return tier > Integer.MAX_VALUE ? 0 : (int) tier;
+    }
+
+    private static long asciiOf(char c) {
+        return c < 0x80 ? c : '?';
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.bhuang.infrastructure.persistent.journal;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author bhuang
+ * @description 抽奖流水回放 - 按流水重新统计各策略、各权重档位的奖品分布与各奖品的库存消耗，用于与数据库库存及配置概率对账
+ * 运行：java -cp Bhuang-BigMark-benchmark/target/benchmarks.jar com.bhuang.infrastructure.persistent.journal.DrawJournalReplay
+ *    [dir=./data/journal] [strategyId=100001]
+ * @create 2025-06-14
+ */
+public class DrawJournalReplay {
+
+    /** 只统计该策略，为null时统计全部策略 */
+    private final Long strategyId;
+
+    /** key-策略ID，value-权重档位到奖品抽中次数的映射 */
+    private final Map<Long, Map<Integer, Map<Integer, Long>>> draws = new TreeMap<>();
+    /** key-策略ID，value-奖品ID到库存扣减统计的映射 */
+    private final Map<Long, Map<Integer, StockUsage>> stocks = new TreeMap<>();
+
+    private long records;
+    private long firstTimestamp = Long.MAX_VALUE;
+    private long lastTimestamp;
+
+    public DrawJournalReplay(Long strategyId) {
+        this.strategyId = strategyId;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(option(args, "dir", "./data/journal"));
+        String strategyId = option(args, "strategyId", null);
+        DrawJournalReplay replay = replay(directory, null == strategyId ? null : Long.valueOf(strategyId));
+        replay.print(System.out);
+    }
+
+    /**
+     * 读取目录下全部流水并统计
+     * @param directory 流水目录
+     * @param strategyId 只统计该策略，为null时统计全部策略
+     */
+    public static DrawJournalReplay replay(Path directory, Long strategyId) throws IOException {
+        DrawJournalReplay replay = new DrawJournalReplay(strategyId);
+        DrawJournalReader.read(directory, replay::accept);
+        return replay;
+    }
+
+    public void accept(DrawJournalRecord record) {
+        if (null != strategyId && strategyId != record.getStrategyId()) {
+            return;
+        }
+        records++;
+        firstTimestamp = Math.min(firstTimestamp, record.getTimestamp());
+        lastTimestamp = Math.max(lastTimestamp, record.getTimestamp());
+        if (record.isDraw()) {
+            draws.computeIfAbsent(record.getStrategyId(), key -> new TreeMap<>())
+                    .computeIfAbsent(record.getTier(), key -> new TreeMap<>())
+                    .merge(record.getAwardId(), 1L, Long::sum);
+        } else if (record.isStock()) {
+            StockUsage usage = stocks.computeIfAbsent(record.getStrategyId(), key -> new TreeMap<>())
+                    .computeIfAbsent(record.getAwardId(), key -> new StockUsage());
+            if (record.isDeducted()) {
+                usage.deducted++;
+            } else {
+                usage.soldOut++;
+            }
+        }
+    }
+
+    /**
+     * @return 抽中次数，未抽中过时为0
+     */
+    public long drawCount(long strategyId, int tier, int awardId) {
+        return draws.getOrDefault(strategyId, new TreeMap<>()).getOrDefault(tier, new TreeMap<>()).getOrDefault(awardId, 0L);
+    }
+
+    /**
+     * @return 库存扣减成功次数，即按流水计算的库存消耗
+     */
+    public long deductedCount(long strategyId, int awardId) {
+        StockUsage usage = stocks.getOrDefault(strategyId, new TreeMap<>()).get(awardId);
+        return null == usage ? 0 : usage.deducted;
+    }
+
+    /**
+     * @return 扣减时已售罄的次数
+     */
+    public long soldOutCount(long strategyId, int awardId) {
+        StockUsage usage = stocks.getOrDefault(strategyId, new TreeMap<>()).get(awardId);
+        return null == usage ? 0 : usage.soldOut;
+    }
+
+    public long records() {
+        return records;
+    }
+
+    public void print(PrintStream out) {
+        if (records == 0) {
+            out.println("没有流水记录");
+            return;
+        }
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        out.println("记录数：" + records + "，时间范围：" + format.format(new Date(firstTimestamp)) + " ~ " + format.format(new Date(lastTimestamp)));
+
+        out.println("奖品分布");
+        out.printf("%12s %8s %10s %12s %10s%n", "strategyId", "tier", "awardId", "draws", "ratio");
+        for (Map.Entry<Long, Map<Integer, Map<Integer, Long>>> strategy : draws.entrySet()) {
+            for (Map.Entry<Integer, Map<Integer, Long>> tier : strategy.getValue().entrySet()) {
+                long total = tier.getValue().values().stream().mapToLong(Long::longValue).sum();
+                for (Map.Entry<Integer, Long> award : tier.getValue().entrySet()) {
+                    out.printf("%12d %8d %10d %12d %9.4f%%%n", strategy.getKey(), tier.getKey(), award.getKey(),
+                            award.getValue(), award.getValue() * 100.0 / total);
+                }
+            }
+        }
+
+        out.println("库存消耗");
+        out.printf("%12s %10s %12s %12s%n", "strategyId", "awardId", "deducted", "soldOut");
+        for (Map.Entry<Long, Map<Integer, StockUsage>> strategy : stocks.entrySet()) {
+            for (Map.Entry<Integer, StockUsage> award : strategy.getValue().entrySet()) {
+                out.printf("%12d %10d %12d %12d%n", strategy.getKey(), award.getKey(), award.getValue().deducted, award.getValue().soldOut);
+            }
+        }
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return defaultValue;
+    }
+
+    private static final class StockUsage {
+        private long deducted;
+        private long soldOut;
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.bhuang.infrastructure.persistent.po;
+
+import lombok.Data;
+
+/**
+ * 奖品库存扣减回写参数，同一策略奖品的多次扣减合并为一条
+ */
+@Data
+public class StrategyAwardStockDeduct {
+    /** 抽奖策略ID */
+    private Long strategyId;
+    /** 抽奖奖品ID */
+    private Integer awardId;
+    /** 扣减数量 */
+    private Integer quantity;
+}
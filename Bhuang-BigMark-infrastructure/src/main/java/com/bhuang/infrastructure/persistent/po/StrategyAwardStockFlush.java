@@ -0,0 +1,20 @@
+package com.bhuang.infrastructure.persistent.po;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 奖品库存回写批次记录，与库存扣减在同一事务内写入，批次重复领取时据此跳过
+ */
+@Data
+public class StrategyAwardStockFlush {
+    /** 自增ID */
+    private Long id;
+    /** 回写批次ID */
+    private String flushId;
+    /** 合并后的回写奖品数 */
+    private Integer deductCount;
+    /** 创建时间 */
+    private Date createTime;
+}
@@ -0,0 +1,22 @@
+package com.bhuang.infrastructure.persistent.po;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 策略黑名单用户表，rule_blacklist 规则命中的用户，规则值只配置奖品ID
+ */
+@Data
+public class StrategyBlacklist {
+    /** 自增ID */
+    private Long id;
+    /** 抽奖策略ID */
+    private Long strategyId;
+    /** 用户ID */
+    private String userId;
+    /** 创建时间 */
+    private Date createTime;
+    /** 更新时间 */
+    private Date updateTime;
+}
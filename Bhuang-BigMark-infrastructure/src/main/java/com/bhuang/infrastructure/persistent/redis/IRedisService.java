@@ -1,8 +1,15 @@
 package com.bhuang.infrastructure.persistent.redis;
 
+import org.redisson.api.RBloomFilter;
+import org.redisson.api.RLock;
+import org.redisson.api.RScript;
+import org.redisson.api.RTopic;
+import org.redisson.client.codec.Codec;
+
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.Set;
 
 /**
@@ -28,6 +35,25 @@ public interface IRedisService {
      */
     void set(String key, Object value, Duration duration);
 
+    /**
+     * 设置缓存，按指定编解码器编码
+     *
+     * @param key   键
+     * @param value 值
+     * @param codec 编解码器，见 RedisCodecs
+     */
+    void set(String key, Object value, Codec codec);
+
+    /**
+     * 设置缓存并指定过期时间，按指定编解码器编码
+     *
+     * @param key      键
+     * @param value    值
+     * @param duration 过期时间
+     * @param codec    编解码器，见 RedisCodecs
+     */
+    void set(String key, Object value, Duration duration, Codec codec);
+
     /**
      * 获取缓存
      *
@@ -36,6 +62,15 @@ public interface IRedisService {
      */
     <T> T get(String key);
 
+    /**
+     * 获取缓存，按指定编解码器解码
+     *
+     * @param key   键
+     * @param codec 编解码器，须与写入时一致
+     * @return 值
+     */
+    <T> T get(String key, Codec codec);
+
     /**
      * 获取缓存，指定类型
      *
@@ -45,6 +80,15 @@ public interface IRedisService {
      */
     <T> T get(String key, Class<T> clazz);
 
+    /**
+     * 键不存在时设置缓存（SET NX）
+     *
+     * @param key 键
+     * @param value 值
+     * @return 是否设置成功，键已存在时返回false
+     */
+    boolean setIfAbsent(String key, Object value);
+
     /**
      * 删除缓存
      *
@@ -53,6 +97,23 @@ public interface IRedisService {
      */
     boolean delete(String key);
 
+    /**
+     * 原子替换缓存值（GETSET）
+     *
+     * @param key   键
+     * @param value 新值
+     * @return 替换前的值，不存在时返回null
+     */
+    <T> T getAndSet(String key, Object value);
+
+    /**
+     * 批量删除缓存，使用 UNLINK 由 Redis 后台线程回收内存，不阻塞其他命令
+     *
+     * @param keys 键
+     * @return 实际删除的键数量
+     */
+    long unlink(String... keys);
+
     /**
      * 检查键是否存在
      *
@@ -112,6 +173,14 @@ public interface IRedisService {
      */
     long decrement(String key, long delta);
 
+    /**
+     * 获取计数器当前值，与 increment/decrement 配套使用
+     *
+     * @param key 键
+     * @return 当前值，不存在时为0
+     */
+    long getAtomicLong(String key);
+
     // ========== Hash操作 ==========
 
     /**
@@ -132,6 +201,16 @@ public interface IRedisService {
      */
     <T> T hGet(String key, String hashKey);
 
+    /**
+     * 获取Hash中的值，field 与 value 按指定编解码器编解码
+     *
+     * @param key     键
+     * @param hashKey Hash键
+     * @param codec   编解码器，须与写入时一致
+     * @return 值
+     */
+    <T> T hGet(String key, String hashKey, Codec codec);
+
     /**
      * Hash获取所有键值对
      *
@@ -140,6 +219,34 @@ public interface IRedisService {
      */
     Map<String, Object> hGetAll(String key);
 
+    /**
+     * 获取Hash中的所有键值对，按指定编解码器解码
+     *
+     * @param key   键
+     * @param codec 编解码器，须与写入时一致
+     * @return 键值对
+     */
+    Map<String, Object> hGetAll(String key, Codec codec);
+
+    /**
+     * Hash批量获取，基于 HMGET 一次读取多个字段
+     *
+     * @param key      键
+     * @param hashKeys Hash键
+     * @return 键值对，不存在的字段不包含在结果中
+     */
+    <T> Map<String, T> hMGet(String key, Set<String> hashKeys);
+
+    /**
+     * 批量获取Hash中的值（HMGET），按指定编解码器编解码
+     *
+     * @param key      键
+     * @param hashKeys Hash键
+     * @param codec    编解码器，须与写入时一致
+     * @return Hash键到值的映射
+     */
+    <T> Map<String, T> hMGet(String key, Set<String> hashKeys, Codec codec);
+
     /**
      * Hash设置多个键值对
      *
@@ -148,6 +255,15 @@ public interface IRedisService {
      */
     void hSetAll(String key, Map<String, Object> map);
 
+    /**
+     * 批量设置Hash，按指定编解码器编码
+     *
+     * @param key   键
+     * @param map   键值对
+     * @param codec 编解码器，见 RedisCodecs
+     */
+    void hSetAll(String key, Map<String, Object> map, Codec codec);
+
     /**
      * Hash删除
      *
@@ -157,6 +273,16 @@ public interface IRedisService {
      */
     long hDelete(String key, String... hashKeys);
 
+    /**
+     * 删除Hash中的值，Hash键按指定编解码器编码
+     *
+     * @param key      键
+     * @param codec    编解码器，须与写入时一致
+     * @param hashKeys Hash键
+     * @return 删除的数量
+     */
+    long hDelete(String key, Codec codec, String... hashKeys);
+
     /**
      * Hash检查键是否存在
      *
@@ -282,4 +408,130 @@ public interface IRedisService {
      */
     long sSize(String key);
 
+    // ========== 批量操作 ==========
+
+    /**
+     * 批量设置缓存，基于 RBatch 管道写入
+     * 按批次大小分段 flush，避免单次管道过大；适用于策略查找表等大批量写入场景
+     *
+     * @param keyValues 键值对，按迭代顺序写入
+     * @return 实际发送的命令数
+     */
+    int setBatch(Map<String, Object> keyValues);
+
+    /**
+     * 批量设置缓存，按指定编解码器编码
+     *
+     * @param keyValues 键值对
+     * @param codec     编解码器，见 RedisCodecs
+     * @return 写入的键数量
+     */
+    int setBatch(Map<String, Object> keyValues, Codec codec);
+
+    /**
+     * 批量获取缓存，基于 MGET 分段读取
+     *
+     * @param keys 键
+     * @return 键值对，不存在的键不包含在结果中
+     */
+    <T> Map<String, T> getBatch(List<String> keys);
+
+    /**
+     * 批量获取缓存（MGET），按指定编解码器解码
+     *
+     * @param keys  键
+     * @param codec 编解码器，须与写入时一致
+     * @return 键到值的映射，不存在的键不包含在结果中
+     */
+    <T> Map<String, T> getBatch(List<String> keys, Codec codec);
+
+    /**
+     * 批量自增计数器，基于 RBatch 管道执行，与 increment 使用相同的存储格式
+     *
+     * @param deltas 键到步长的映射
+     * @return 键到自增后值的映射
+     */
+    Map<String, Long> incrementBatch(Map<String, Long> deltas);
+
+    /**
+     * 批量自增计数器并在同一管道内设置过期时间，用于按时间分片的计数
+     *
+     * @param deltas 键到步长的映射
+     * @param ttl 过期时间
+     * @return 键到自增后值的映射
+     */
+    Map<String, Long> incrementBatch(Map<String, Long> deltas, Duration ttl);
+
+    /**
+     * 批量获取计数器当前值，基于 RBatch 管道读取
+     *
+     * @param keys 键
+     * @return 键到当前值的映射，不存在的键为0
+     */
+    Map<String, Long> getAtomicLongBatch(List<String> keys);
+
+    // ========== 分布式锁 ==========
+
+    /**
+     * 获取可重入分布式锁
+     *
+     * @param key 锁的键
+     * @return 锁对象，由调用方加锁与释放
+     */
+    RLock getLock(String key);
+
+    // ========== 布隆过滤器 ==========
+
+    /**
+     * 获取布隆过滤器
+     *
+     * @param key 过滤器的键
+     * @return 布隆过滤器，由调用方初始化
+     */
+    <T> RBloomFilter<T> getBloomFilter(String key);
+
+    // ========== 发布订阅 ==========
+
+    /**
+     * 获取发布订阅主题，消息按字符串编码
+     *
+     * @param name 主题名称
+     * @return 主题对象，由调用方发布或订阅
+     */
+    RTopic getTopic(String name);
+
+    // ========== Lua脚本 ==========
+
+    /**
+     * 加载Lua脚本到脚本缓存
+     *
+     * @param script 脚本内容
+     * @return 脚本SHA1，用于 EVALSHA
+     */
+    String scriptLoad(String script);
+
+    /**
+     * 按SHA1执行已加载的Lua脚本，参数与返回值按字符串编码，脚本内不依赖客户端序列化格式
+     * 脚本未加载（如Redis重启）时抛出 NOSCRIPT 异常，由调用方重新加载
+     *
+     * @param shaDigest 脚本SHA1
+     * @param returnType 返回值类型
+     * @param keys 脚本访问的键
+     * @param values 脚本参数
+     * @return 脚本返回值
+     */
+    <T> T evalSha(String shaDigest, RScript.ReturnType returnType, List<Object> keys, Object... values);
+
+    /**
+     * 异步执行已加载的Lua脚本，调用线程不等待Redis响应，结果在Redisson的I/O线程上完成
+     * 编码与 evalSha 相同；脚本未加载时返回的 future 以 NOSCRIPT 异常完成
+     *
+     * @param shaDigest 脚本SHA1
+     * @param returnType 返回值类型
+     * @param keys 脚本访问的键
+     * @param values 脚本参数
+     * @return 脚本返回值
+     */
+    <T> CompletableFuture<T> evalShaAsync(String shaDigest, RScript.ReturnType returnType, List<Object> keys, Object... values);
+
 } 
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.bhuang.infrastructure.persistent.redis;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author bhuang
+ * @description Redis 命令耗时指标 redis.command，按操作类型与 Key 归类打标签，同时计入按操作类型的耗时直方图与慢命令日志
+ * 同一操作与归类的 Timer 只注册一次；记录时按操作类型取槽位表，再按 Key 归类哈希查找 Timer，不拆分 Key、不拼接字符串，命中时不创建对象
+ * @create 2025-06-14
+ */
+@Component
+public class RedisCommandMetrics {
+
+    public static final String METER_NAME = "redis.command";
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private RedisLatencyRecorder latencyRecorder;
+
+    /** 每个操作类型的槽位数，Key 归类个数有限，正常运行远不会占满 */
+    private static final int FAMILY_SLOTS = 64;
+
+    /** key-操作类型 */
+    private final Map<String, OperationTimers> timers = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次命令耗时
+     * @param operation 操作类型，取 IRedisService 的方法名
+     * @param key Redis Key，批量操作取第一个 Key
+     * @param startNanos 开始时间 System.nanoTime()
+     */
+    public void record(String operation, String key, long startNanos) {
+        record(operation, key, startNanos, null);
+    }
+
+    /**
+     * 记录一次命令耗时
+     * @param operation 操作类型，取 IRedisService 的方法名
+     * @param key Redis Key，批量操作取第一个 Key
+     * @param startNanos 开始时间 System.nanoTime()
+     * @param payload 请求参数（写入的值、批量的 Key 集合等），只在慢命令日志中统计大小
+     */
+    public void record(String operation, String key, long startNanos, Object payload) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        OperationTimers operationTimers = timers.get(operation);
+        if (null == operationTimers) {
+            operationTimers = timers.computeIfAbsent(operation, OperationTimers::new);
+        }
+        FamilyTimer familyTimer = operationTimers.get(key);
+        familyTimer.timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        latencyRecorder.record(operation, familyTimer.family, elapsedNanos, payload);
+    }
+
+    /**
+     * @return 集合中的第一个 Key，集合为空时返回 null
+     */
+    public static String firstKey(Collection<String> keys) {
+        return null == keys || keys.isEmpty() ? null : keys.iterator().next();
+    }
+
+    /**
+     * 单个操作类型下按 Key 归类哈希开放寻址的 Timer 表，槽位只写一次
+     */
+    private final class OperationTimers {
+
+        private final String operation;
+
+        private final AtomicReferenceArray<FamilyTimer> slots = new AtomicReferenceArray<>(FAMILY_SLOTS);
+
+        private OperationTimers(String operation) {
+            this.operation = operation;
+        }
+
+        private FamilyTimer get(String key) {
+            long shape = RedisKeyFamily.shapeOf(key);
+            int index = (int) (shape ^ (shape >>> 32)) & (FAMILY_SLOTS - 1);
+            for (int probe = 0; probe < FAMILY_SLOTS; probe++) {
+                int slot = (index + probe) & (FAMILY_SLOTS - 1);
+                FamilyTimer familyTimer = slots.get(slot);
+                if (null == familyTimer) {
+                    familyTimer = register(shape, key);
+                    if (slots.compareAndSet(slot, null, familyTimer)) {
+                        return familyTimer;
+                    }
+                    familyTimer = slots.get(slot);
+                }
+                if (familyTimer.shape == shape) {
+                    return familyTimer;
+                }
+            }
+            // 槽位已满时不再缓存，MeterRegistry 对同名同标签的 Timer 返回同一实例
+            return register(shape, key);
+        }
+
+        private FamilyTimer register(long shape, String key) {
+            String family = RedisKeyFamily.of(key);
+            Timer timer = Timer.builder(METER_NAME)
+                    .description("Redis 命令耗时")
+                    .tag("operation", operation)
+                    .tag("family", family)
+                    .register(meterRegistry);
+            return new FamilyTimer(shape, family, timer);
+        }
+
+    }
+
+    private static final class FamilyTimer {
+
+        private final long shape;
+
+        private final String family;
+
+        private final Timer timer;
+
+        private FamilyTimer(long shape, String family, Timer timer) {
+            this.shape = shape;
+            this.family = family;
+            this.timer = timer;
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.bhuang.infrastructure.persistent.redis;
+
+/**
+ * @author bhuang
+ * @description Redis Key 归类：把策略ID、奖品ID、概率值、用户ID、版本号等可变片段替换为 {}，作为指标标签
+ * 只保留固定词表与规则模型（rule_ 开头）中的片段，其余一律替换，如 strategy#100001#assemble#v3#9999 归为 strategy#{}#assemble#{}#{}，
+ * 旧格式 strategy:award:assemble:100001_9999 归为 strategy:award:assemble:{}，标签取值个数不随策略、用户数量增长
+ * @create 2025-06-14
+ */
+public final class RedisKeyFamily {
+
+    /** Key 中的固定片段，与 Constants.Redis 中的 Key 格式保持一致 */
+    private static final String[] LITERALS = {
+            "strategy", "award", "list", "rate", "range", "assemble", "weight", "rule",
+            "awardlist", "raterange", "ratetable", "table", "alias", "version", "seq",
+            "stock", "queue", "processing", "flush", "lock",
+            "user", "raffle_count", "rate_limit", "blacklist", "bloom"};
+
+    private static final String RULE_MODEL_PREFIX = "rule_";
+
+    private static final String VARIABLE = "{}";
+
+    private static final String NONE = "none";
+
+    private static final long SEED = 1125899906842597L;
+
+    /** 超出的片段合并为一个 {}，避免异常长的 Key 产生新的取值 */
+    private static final int MAX_SEGMENTS = 8;
+
+    private RedisKeyFamily() {
+    }
+
+    /**
+     * @param key Redis Key
+     * @return Key 归类
+     */
+    public static String of(String key) {
+        if (null == key || key.isEmpty()) {
+            return NONE;
+        }
+        StringBuilder family = new StringBuilder(key.length());
+        int segments = 0;
+        int start = 0;
+        for (int i = 0; i <= key.length(); i++) {
+            if (i < key.length() && !isSeparator(key.charAt(i))) {
+                continue;
+            }
+            if (++segments > MAX_SEGMENTS) {
+                family.append(VARIABLE);
+                break;
+            }
+            if (i > start) {
+                family.append(isLiteral(key, start, i - start) ? key.substring(start, i) : VARIABLE);
+            }
+            if (i < key.length()) {
+                family.append(key.charAt(i));
+            }
+            start = i + 1;
+        }
+        return family.toString();
+    }
+
+    /**
+     * Key 归类的 64 位哈希，等于 hash(of(key))，逐字符计算，不创建子串与归类字符串，供记录指标时查找已注册的 Timer
+     * @param key Redis Key
+     * @return Key 归类哈希
+     */
+    public static long shapeOf(String key) {
+        if (null == key || key.isEmpty()) {
+            return hash(NONE);
+        }
+        long shape = SEED;
+        int segments = 0;
+        int start = 0;
+        for (int i = 0; i <= key.length(); i++) {
+            if (i < key.length() && !isSeparator(key.charAt(i))) {
+                continue;
+            }
+            if (++segments > MAX_SEGMENTS) {
+                shape = hash(shape, VARIABLE, 0, VARIABLE.length());
+                break;
+            }
+            if (i > start) {
+                shape = isLiteral(key, start, i - start) ? hash(shape, key, start, i) : hash(shape, VARIABLE, 0, VARIABLE.length());
+            }
+            if (i < key.length()) {
+                shape = 31 * shape + key.charAt(i);
+            }
+            start = i + 1;
+        }
+        return shape;
+    }
+
+    /**
+     * @param family Key 归类
+     * @return 归类的 64 位哈希
+     */
+    static long hash(CharSequence family) {
+        return hash(SEED, family, 0, family.length());
+    }
+
+    private static long hash(long shape, CharSequence chars, int start, int end) {
+        for (int i = start; i < end; i++) {
+            shape = 31 * shape + chars.charAt(i);
+        }
+        return shape;
+    }
+
+    private static boolean isLiteral(String key, int start, int length) {
+        if (key.startsWith(RULE_MODEL_PREFIX, start)) {
+            return true;
+        }
+        for (String literal : LITERALS) {
+            if (literal.length() == length && key.regionMatches(start, literal, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '#' || c == ':';
+    }
+
+}
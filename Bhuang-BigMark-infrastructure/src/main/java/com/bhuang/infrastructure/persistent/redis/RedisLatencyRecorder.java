@@ -0,0 +1,143 @@
+package com.bhuang.infrastructure.persistent.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author bhuang
+ * @description Redis 命令耗时记录：每类操作一个 HdrHistogram Recorder，记录无锁、无分配，常开对吞吐无明显影响
+ * 耗时超过阈值时输出慢命令日志（操作类型、Key 归类、载荷大小、耗时）；载荷大小取请求参数：字符串为字符数，集合、Map、数组为元素数，其他对象记为1；批量读取为 Key 数，单 Key 读取不统计
+ * snapshot 返回自上次快照以来的区间分布，由定时任务周期输出；同一时间只应有一个调用方取快照
+ * @create 2025-06-14
+ */
+@Slf4j
+@Component
+public class RedisLatencyRecorder {
+
+    /** 可记录的最大耗时（微秒），超出按最大值记录 */
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    /** 两位有效数字，误差1%，单个直方图约几 KB */
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    /** 慢命令阈值（毫秒），0 表示不输出慢命令日志 */
+    @Value("${redis.latency.slow-threshold:20}")
+    private long slowThresholdMillis = 20L;
+
+    /** 周期输出耗时分布 */
+    @Value("${redis.latency.report-enabled:true}")
+    private boolean reportEnabled = true;
+
+    /** key-操作类型 */
+    private final Map<String, OperationLatency> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次命令耗时
+     * @param operation 操作类型
+     * @param family Key 归类
+     * @param elapsedNanos 耗时（纳秒）
+     * @param payload 请求参数，用于慢命令日志中的载荷大小，可为 null
+     */
+    public void record(String operation, String family, long elapsedNanos, Object payload) {
+        OperationLatency latency = latencies.computeIfAbsent(operation, key -> new OperationLatency());
+        latency.recorder.recordValue(Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), 0L), HIGHEST_TRACKABLE_MICROS));
+
+        if (slowThresholdMillis > 0 && elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis)) {
+            latency.slowCount.increment();
+            long size = payloadSize(payload);
+            log.warn("Redis慢命令，操作：{}，Key归类：{}，载荷大小：{}，耗时：{}ms",
+                    operation, family, size < 0 ? "-" : String.valueOf(size), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+    }
+
+    /**
+     * @return 各操作自上次快照以来的耗时分布，按操作类型排序，区间内没有命令的操作不返回
+     */
+    public synchronized List<RedisLatencySnapshot> snapshot() {
+        Map<String, OperationLatency> sorted = new TreeMap<>(latencies);
+        List<RedisLatencySnapshot> snapshots = new ArrayList<>(sorted.size());
+        for (Map.Entry<String, OperationLatency> entry : sorted.entrySet()) {
+            OperationLatency latency = entry.getValue();
+            // 交换出区间直方图，上一区间的直方图回收复用
+            Histogram histogram = latency.recorder.getIntervalHistogram(latency.interval);
+            latency.interval = histogram;
+            long slowCount = latency.slowCount.sumThenReset();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            snapshots.add(RedisLatencySnapshot.builder()
+                    .operation(entry.getKey())
+                    .startTimeMillis(histogram.getStartTimeStamp())
+                    .endTimeMillis(histogram.getEndTimeStamp())
+                    .count(histogram.getTotalCount())
+                    .slowCount(slowCount)
+                    .p50Micros(histogram.getValueAtPercentile(50))
+                    .p90Micros(histogram.getValueAtPercentile(90))
+                    .p99Micros(histogram.getValueAtPercentile(99))
+                    .p999Micros(histogram.getValueAtPercentile(99.9))
+                    .maxMicros(histogram.getMaxValue())
+                    .meanMicros(histogram.getMean())
+                    .build());
+        }
+        return snapshots;
+    }
+
+    /**
+     * 周期输出各操作的耗时分布
+     */
+    @Scheduled(fixedDelayString = "${redis.latency.report-interval:60000}")
+    public void report() {
+        if (!reportEnabled) {
+            return;
+        }
+        for (RedisLatencySnapshot snapshot : snapshot()) {
+            log.info("Redis命令耗时，操作：{}，命令数：{}，慢命令数：{}，P50：{}us，P90：{}us，P99：{}us，P99.9：{}us，最大：{}us",
+                    snapshot.getOperation(), snapshot.getCount(), snapshot.getSlowCount(), snapshot.getP50Micros(),
+                    snapshot.getP90Micros(), snapshot.getP99Micros(), snapshot.getP999Micros(), snapshot.getMaxMicros());
+        }
+    }
+
+    /**
+     * @return 载荷大小，无法统计时返回 -1
+     */
+    static long payloadSize(Object payload) {
+        if (null == payload) {
+            return -1;
+        }
+        if (payload instanceof CharSequence) {
+            return ((CharSequence) payload).length();
+        }
+        if (payload instanceof Collection) {
+            return ((Collection<?>) payload).size();
+        }
+        if (payload instanceof Map) {
+            return ((Map<?, ?>) payload).size();
+        }
+        if (payload.getClass().isArray()) {
+            return Array.getLength(payload);
+        }
+        return 1;
+    }
+
+    private static final class OperationLatency {
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final LongAdder slowCount = new LongAdder();
+        /** 上一次快照取出的直方图，下次快照时回收复用 */
+        private Histogram interval;
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.bhuang.infrastructure.persistent.redis;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author bhuang
+ * @description 一个统计区间内某类 Redis 操作的耗时分布，耗时单位为微秒
+ * @create 2025-06-14
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RedisLatencySnapshot {
+
+    /** 操作类型 */
+    private String operation;
+    /** 区间起止时间（毫秒时间戳） */
+    private long startTimeMillis;
+    private long endTimeMillis;
+    /** 命令数与慢命令数 */
+    private long count;
+    private long slowCount;
+    /** 耗时分位值与最大值（微秒） */
+    private long p50Micros;
+    private long p90Micros;
+    private long p99Micros;
+    private long p999Micros;
+    private long maxMicros;
+    private double meanMicros;
+
+}
@@ -0,0 +1,114 @@
+package com.bhuang.infrastructure.persistent.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * @author bhuang
+ * @description classpath 中的Lua脚本：启动时加载一次，之后只发送SHA1执行 EVALSHA
+ * Redis重启或执行 SCRIPT FLUSH 后脚本缓存丢失，执行时遇到 NOSCRIPT 自动重新加载并重试一次
+ * @create 2025-06-14
+ */
+@Slf4j
+public class RedisLuaScript {
+
+    private final String location;
+
+    private final String script;
+
+    private volatile String shaDigest;
+
+    private RedisLuaScript(String location, String script) {
+        this.location = location;
+        this.script = script;
+    }
+
+    /**
+     * 读取 classpath 中的脚本
+     * @param location 脚本路径，如 lua/strategy_draw.lua
+     * @return 未加载到Redis的脚本
+     */
+    public static RedisLuaScript classpath(String location) {
+        try (InputStream inputStream = new ClassPathResource(location).getInputStream()) {
+            return new RedisLuaScript(location, StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("Lua脚本读取失败：" + location, e);
+        }
+    }
+
+    /**
+     * 加载脚本到Redis脚本缓存
+     */
+    public void load(IRedisService redisService) {
+        shaDigest = redisService.scriptLoad(script);
+        log.info("Lua脚本已加载，脚本：{}，sha：{}", location, shaDigest);
+    }
+
+    /**
+     * 执行脚本，尚未加载时先加载
+     * @param redisService Redis服务
+     * @param returnType 返回值类型
+     * @param keys 脚本访问的键
+     * @param values 脚本参数
+     * @return 脚本返回值
+     */
+    public <T> T evalSha(IRedisService redisService, RScript.ReturnType returnType, List<Object> keys, Object... values) {
+        if (null == shaDigest) {
+            load(redisService);
+        }
+        try {
+            return redisService.evalSha(shaDigest, returnType, keys, values);
+        } catch (RuntimeException e) {
+            if (null == e.getMessage() || !e.getMessage().contains("NOSCRIPT")) {
+                throw e;
+            }
+            log.warn("Lua脚本不在Redis脚本缓存中，重新加载，脚本：{}", location);
+            load(redisService);
+            return redisService.evalSha(shaDigest, returnType, keys, values);
+        }
+    }
+
+    /**
+     * 异步执行脚本，遇到 NOSCRIPT 时重新加载后再异步执行一次；重新加载为同步调用，只在Redis脚本缓存丢失后发生
+     * @param redisService Redis服务
+     * @param returnType 返回值类型
+     * @param keys 脚本访问的键
+     * @param values 脚本参数
+     * @return 脚本返回值
+     */
+    public <T> CompletableFuture<T> evalShaAsync(IRedisService redisService, RScript.ReturnType returnType, List<Object> keys, Object... values) {
+        if (null == shaDigest) {
+            load(redisService);
+        }
+        CompletableFuture<T> future = redisService.evalShaAsync(shaDigest, returnType, keys, values);
+        return future.handle((result, throwable) -> {
+            if (null == throwable) {
+                return CompletableFuture.completedFuture(result);
+            }
+            Throwable cause = throwable instanceof CompletionException && null != throwable.getCause() ? throwable.getCause() : throwable;
+            if (null == cause.getMessage() || !cause.getMessage().contains("NOSCRIPT")) {
+                CompletableFuture<T> failed = new CompletableFuture<>();
+                failed.completeExceptionally(cause);
+                return failed;
+            }
+            log.warn("Lua脚本不在Redis脚本缓存中，重新加载，脚本：{}", location);
+            load(redisService);
+            return redisService.<T>evalShaAsync(shaDigest, returnType, keys, values);
+        }).thenCompose(Function.identity());
+    }
+
+    public String getShaDigest() {
+        return shaDigest;
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.bhuang.infrastructure.persistent.redis.codec;
+
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.IntegerCodec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.codec.CompositeCodec;
+
+/**
+ * @author bhuang
+ * @description 按 Key 归类选择的编解码器，未列出的 Key 使用 RedissonConfig 中的全局 JSON 编码
+ * 查找表槽位与概率范围存为十进制整数，Hash field 为不带引号的槽位号，Redis 可按整数紧凑存储；
+ * 奖品列表与规则使用带版本号的二进制编码；版本指针仍为 JSON，由抽奖脚本 cjson 解析
+ * @create 2025-06-14
+ */
+public final class RedisCodecs {
+
+    /** 查找表槽位Key（KEY布局）与旧的概率范围Key */
+    public static final Codec RATE_SLOT = IntegerCodec.INSTANCE;
+
+    /** 查找表Hash（HASH布局）：field 为槽位号，value 为奖品ID */
+    public static final Codec RATE_TABLE = new CompositeCodec(StringCodec.INSTANCE, IntegerCodec.INSTANCE, IntegerCodec.INSTANCE);
+
+    /** 策略奖品列表 */
+    public static final Codec STRATEGY_AWARD_LIST = StrategyAwardListCodec.INSTANCE;
+
+    /** 策略规则与奖品规则 */
+    public static final Codec STRATEGY_RULE = StrategyRuleCodec.INSTANCE;
+
+    private RedisCodecs() {
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.bhuang.infrastructure.persistent.redis.codec;
+
+import com.bhuang.infrastructure.persistent.po.StrategyAward;
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author bhuang
+ * @description 策略奖品列表编解码：奖品数 + 每个奖品一条记录，字段序号与 StrategyAward 声明顺序一致
+ * 0 id | 1 strategyId | 2 awardId | 3 awardTitle | 4 awardSubtitle | 5 awardCount | 6 awardCountSurplus | 7 awardRate
+ * | 8 ruleModels | 9 sort | 10 createTime | 11 updateTime
+ * @create 2025-06-14
+ */
+public class StrategyAwardListCodec extends VersionedBinaryCodec<List<StrategyAward>> {
+
+    public static final StrategyAwardListCodec INSTANCE = new StrategyAwardListCodec();
+
+    static final int TYPE = 1;
+
+    static final int VERSION = 1;
+
+    public StrategyAwardListCodec() {
+        super(TYPE, VERSION);
+    }
+
+    @Override
+    protected void write(ByteBuf out, List<StrategyAward> strategyAwards) {
+        writeUnsignedVarInt(out, strategyAwards.size());
+        for (StrategyAward strategyAward : strategyAwards) {
+            int start = beginRecord(out);
+            int mask = writeLong(out, 0, strategyAward.getId());
+            mask |= writeLong(out, 1, strategyAward.getStrategyId());
+            mask |= writeInt(out, 2, strategyAward.getAwardId());
+            mask |= writeString(out, 3, strategyAward.getAwardTitle());
+            mask |= writeString(out, 4, strategyAward.getAwardSubtitle());
+            mask |= writeInt(out, 5, strategyAward.getAwardCount());
+            mask |= writeInt(out, 6, strategyAward.getAwardCountSurplus());
+            mask |= writeDecimal(out, 7, strategyAward.getAwardRate());
+            mask |= writeString(out, 8, strategyAward.getRuleModels());
+            mask |= writeInt(out, 9, strategyAward.getSort());
+            mask |= writeDate(out, 10, strategyAward.getCreateTime());
+            mask |= writeDate(out, 11, strategyAward.getUpdateTime());
+            endRecord(out, start, mask);
+        }
+    }
+
+    @Override
+    protected List<StrategyAward> read(ByteBuf in, int version) {
+        int size = readUnsignedVarInt(in);
+        List<StrategyAward> strategyAwards = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int end = readRecordEnd(in);
+            int mask = in.readInt();
+            StrategyAward strategyAward = new StrategyAward();
+            strategyAward.setId(readLong(in, mask, 0));
+            strategyAward.setStrategyId(readLong(in, mask, 1));
+            strategyAward.setAwardId(readInt(in, mask, 2));
+            strategyAward.setAwardTitle(readString(in, mask, 3));
+            strategyAward.setAwardSubtitle(readString(in, mask, 4));
+            strategyAward.setAwardCount(readInt(in, mask, 5));
+            strategyAward.setAwardCountSurplus(readInt(in, mask, 6));
+            strategyAward.setAwardRate(readDecimal(in, mask, 7));
+            strategyAward.setRuleModels(readString(in, mask, 8));
+            strategyAward.setSort(readInt(in, mask, 9));
+            strategyAward.setCreateTime(readDate(in, mask, 10));
+            strategyAward.setUpdateTime(readDate(in, mask, 11));
+            in.readerIndex(end);
+            strategyAwards.add(strategyAward);
+        }
+        return strategyAwards;
+    }
+
+}
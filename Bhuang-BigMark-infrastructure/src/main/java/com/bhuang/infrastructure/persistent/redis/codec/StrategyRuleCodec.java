@@ -0,0 +1,52 @@
+package com.bhuang.infrastructure.persistent.redis.codec;
+
+import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * @author bhuang
+ * @description 策略规则编解码：一条记录，字段序号与 StrategyRuleEntity 声明顺序一致，不写入由规则值派生的权重映射
+ * 0 strategyId | 1 awardId | 2 ruleType | 3 ruleModel | 4 ruleValue | 5 ruleDesc
+ * @create 2025-06-14
+ */
+public class StrategyRuleCodec extends VersionedBinaryCodec<StrategyRuleEntity> {
+
+    public static final StrategyRuleCodec INSTANCE = new StrategyRuleCodec();
+
+    static final int TYPE = 2;
+
+    static final int VERSION = 1;
+
+    public StrategyRuleCodec() {
+        super(TYPE, VERSION);
+    }
+
+    @Override
+    protected void write(ByteBuf out, StrategyRuleEntity strategyRule) {
+        int start = beginRecord(out);
+        int mask = writeLong(out, 0, strategyRule.getStrategyId());
+        mask |= writeInt(out, 1, strategyRule.getAwardId());
+        mask |= writeInt(out, 2, strategyRule.getRuleType());
+        mask |= writeString(out, 3, strategyRule.getRuleModel());
+        mask |= writeString(out, 4, strategyRule.getRuleValue());
+        mask |= writeString(out, 5, strategyRule.getRuleDesc());
+        endRecord(out, start, mask);
+    }
+
+    @Override
+    protected StrategyRuleEntity read(ByteBuf in, int version) {
+        int end = readRecordEnd(in);
+        int mask = in.readInt();
+        StrategyRuleEntity strategyRule = StrategyRuleEntity.builder()
+                .strategyId(readLong(in, mask, 0))
+                .awardId(readInt(in, mask, 1))
+                .ruleType(readInt(in, mask, 2))
+                .ruleModel(readString(in, mask, 3))
+                .ruleValue(readString(in, mask, 4))
+                .ruleDesc(readString(in, mask, 5))
+                .build();
+        in.readerIndex(end);
+        return strategyRule;
+    }
+
+}
@@ -0,0 +1,254 @@
+package com.bhuang.infrastructure.persistent.redis.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.handler.State;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * @author bhuang
+ * @description 带版本号的紧凑二进制编解码基类，用于结构固定、读多写少的策略缓存数据
+ * 格式：魔数(1) + 类型(1) + 版本(1) + 内容；内容中每条记录为 长度(int) + 字段掩码(int) + 按字段序号依次写入的非空字段，
+ * 字段序号不超过31，整数按 zigzag 变长编码，字符串为变长长度 + UTF-8，小数为标度 + 非标度值，时间为毫秒时间戳
+ * 字段演进：新增字段只追加到末尾并使用新的序号，旧版本读取时按记录长度跳过不认识的字段，新版本读取旧数据时缺失的字段为null；
+ * 只有不兼容的调整才升级版本号。魔数、类型不匹配（如 JSON 编码写入的旧数据）或版本高于当前版本时按未命中返回null，由回源重新写入
+ * @create 2025-06-14
+ */
+@Slf4j
+public abstract class VersionedBinaryCodec<T> extends BaseCodec {
+
+    /** 魔数，不是合法 JSON 的首字节，可与 JsonJacksonCodec 写入的旧数据区分 */
+    static final byte MAGIC = (byte) 0xB5;
+
+    private final byte type;
+
+    private final byte version;
+
+    private final Encoder encoder = this::encode;
+
+    private final Decoder<Object> decoder = this::decode;
+
+    /**
+     * @param type 数据类型，不同类型的数据互不解码
+     * @param version 当前编码版本
+     */
+    protected VersionedBinaryCodec(int type, int version) {
+        this.type = (byte) type;
+        this.version = (byte) version;
+    }
+
+    /**
+     * 写入内容，不含格式头
+     */
+    protected abstract void write(ByteBuf out, T value);
+
+    /**
+     * 读取内容，不含格式头
+     * @param version 数据的编码版本，不高于当前版本
+     */
+    protected abstract T read(ByteBuf in, int version);
+
+    @Override
+    public Decoder<Object> getValueDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public Encoder getValueEncoder() {
+        return encoder;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ByteBuf encode(Object in) {
+        ByteBuf out = ByteBufAllocator.DEFAULT.buffer();
+        try {
+            out.writeByte(MAGIC);
+            out.writeByte(type);
+            out.writeByte(version);
+            write(out, (T) in);
+            return out;
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        }
+    }
+
+    private Object decode(ByteBuf buf, State state) {
+        if (buf.readableBytes() < 3 || buf.getByte(buf.readerIndex()) != MAGIC || buf.getByte(buf.readerIndex() + 1) != type) {
+            log.debug("缓存数据不是当前编码格式，按未命中处理，类型：{}", type);
+            return null;
+        }
+        int dataVersion = buf.getUnsignedByte(buf.readerIndex() + 2);
+        if (dataVersion > version) {
+            log.debug("缓存数据版本高于当前版本，按未命中处理，类型：{}，版本：{}", type, dataVersion);
+            return null;
+        }
+        buf.skipBytes(3);
+        return read(buf, dataVersion);
+    }
+
+    // ========== 记录 ==========
+
+    /**
+     * 开始一条记录，预留长度与字段掩码
+     * @return 记录起始位置，写完字段后传给 endRecord
+     */
+    protected static int beginRecord(ByteBuf out) {
+        int start = out.writerIndex();
+        out.writeInt(0);
+        out.writeInt(0);
+        return start;
+    }
+
+    /**
+     * 结束一条记录，回填长度与字段掩码
+     */
+    protected static void endRecord(ByteBuf out, int start, int mask) {
+        out.setInt(start, out.writerIndex() - start - Integer.BYTES);
+        out.setInt(start + Integer.BYTES, mask);
+    }
+
+    /**
+     * 读取记录长度
+     * @return 记录结束位置，读完已知字段后移动到该位置以跳过新版本追加的字段
+     */
+    protected static int readRecordEnd(ByteBuf in) {
+        int length = in.readInt();
+        return in.readerIndex() + length;
+    }
+
+    // ========== 字段，写入时返回字段在掩码中的位，值为null时不写入 ==========
+
+    protected static int writeLong(ByteBuf out, int field, Long value) {
+        if (null == value) {
+            return 0;
+        }
+        writeVarLong(out, value);
+        return 1 << field;
+    }
+
+    protected static int writeInt(ByteBuf out, int field, Integer value) {
+        if (null == value) {
+            return 0;
+        }
+        writeVarLong(out, value);
+        return 1 << field;
+    }
+
+    protected static int writeString(ByteBuf out, int field, String value) {
+        if (null == value) {
+            return 0;
+        }
+        writeUnsignedVarInt(out, ByteBufUtil.utf8Bytes(value));
+        ByteBufUtil.writeUtf8(out, value);
+        return 1 << field;
+    }
+
+    protected static int writeDecimal(ByteBuf out, int field, BigDecimal value) {
+        if (null == value) {
+            return 0;
+        }
+        writeVarLong(out, value.scale());
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        writeUnsignedVarInt(out, unscaled.length);
+        out.writeBytes(unscaled);
+        return 1 << field;
+    }
+
+    protected static int writeDate(ByteBuf out, int field, Date value) {
+        if (null == value) {
+            return 0;
+        }
+        writeVarLong(out, value.getTime());
+        return 1 << field;
+    }
+
+    protected static Long readLong(ByteBuf in, int mask, int field) {
+        return present(mask, field) ? readVarLong(in) : null;
+    }
+
+    protected static Integer readInt(ByteBuf in, int mask, int field) {
+        return present(mask, field) ? (int) readVarLong(in) : null;
+    }
+
+    protected static String readString(ByteBuf in, int mask, int field) {
+        if (!present(mask, field)) {
+            return null;
+        }
+        int length = readUnsignedVarInt(in);
+        String value = in.toString(in.readerIndex(), length, StandardCharsets.UTF_8);
+        in.skipBytes(length);
+        return value;
+    }
+
+    protected static BigDecimal readDecimal(ByteBuf in, int mask, int field) {
+        if (!present(mask, field)) {
+            return null;
+        }
+        int scale = (int) readVarLong(in);
+        byte[] unscaled = new byte[readUnsignedVarInt(in)];
+        in.readBytes(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    protected static Date readDate(ByteBuf in, int mask, int field) {
+        return present(mask, field) ? new Date(readVarLong(in)) : null;
+    }
+
+    private static boolean present(int mask, int field) {
+        return (mask & (1 << field)) != 0;
+    }
+
+    // ========== 变长整数 ==========
+
+    protected static void writeVarLong(ByteBuf out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    protected static long readVarLong(ByteBuf in) {
+        long zigzag = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = in.readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalArgumentException("变长整数格式错误");
+    }
+
+    protected static void writeUnsignedVarInt(ByteBuf out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    protected static int readUnsignedVarInt(ByteBuf in) {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("变长整数格式错误");
+    }
+
+}
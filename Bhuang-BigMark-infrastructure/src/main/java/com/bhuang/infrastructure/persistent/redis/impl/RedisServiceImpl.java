@@ -1,69 +1,108 @@
 package com.bhuang.infrastructure.persistent.redis.impl;
 
 import com.bhuang.infrastructure.persistent.redis.IRedisService;
+import com.bhuang.infrastructure.persistent.redis.RedisCommandMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.*;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Redis服务实现类
- * 使用Redisson客户端，支持JSON序列化，解决value乱码问题
+ * 使用Redisson客户端，支持JSON序列化，解决value乱码问题；带 Codec 参数的方法按指定编解码器读写，见 RedisCodecs
+ * 每个命令的耗时按操作类型与 Key 归类记录到 redis.command 指标
  * @author bhuang
  */
 @Slf4j
 @Service
 public class RedisServiceImpl implements IRedisService {
 
+    /**
+     * 批量写入时单个管道的最大命令数
+     */
+    private static final int BATCH_FLUSH_SIZE = 5000;
+
     @Resource
     private RedissonClient redissonClient;
 
+    @Resource
+    private RedisCommandMetrics commandMetrics;
+
     @Override
     public void set(String key, Object value) {
+        set(key, value, defaultCodec());
+    }
+
+    @Override
+    public void set(String key, Object value, Codec codec) {
+        long startNanos = System.nanoTime();
         try {
-            RBucket<Object> bucket = redissonClient.getBucket(key);
+            RBucket<Object> bucket = redissonClient.getBucket(key, codec);
             bucket.set(value);
             log.debug("Redis设置成功，key: {}, value类型: {}", key, value != null ? value.getClass().getSimpleName() : "null");
         } catch (Exception e) {
             log.error("Redis设置失败，key: {}, 错误: {}", key, e.getMessage());
             throw e;
+        } finally {
+            commandMetrics.record("set", key, startNanos, value);
         }
     }
 
     @Override
     public void set(String key, Object value, Duration duration) {
+        set(key, value, duration, defaultCodec());
+    }
+
+    @Override
+    public void set(String key, Object value, Duration duration, Codec codec) {
+        long startNanos = System.nanoTime();
         try {
-            RBucket<Object> bucket = redissonClient.getBucket(key);
+            RBucket<Object> bucket = redissonClient.getBucket(key, codec);
             bucket.set(value, duration);
             log.debug("Redis设置成功（带过期时间），key: {}, 过期时间: {}秒", key, duration.getSeconds());
         } catch (Exception e) {
             log.error("Redis设置失败（带过期时间），key: {}, 错误: {}", key, e.getMessage());
             throw e;
+        } finally {
+            commandMetrics.record("set", key, startNanos, value);
         }
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> T get(String key) {
+        return get(key, defaultCodec());
+    }
+
+    @Override
+    public <T> T get(String key, Codec codec) {
+        long startNanos = System.nanoTime();
         try {
-            RBucket<T> bucket = redissonClient.getBucket(key);
+            RBucket<T> bucket = redissonClient.getBucket(key, codec);
             T value = bucket.get();
             log.debug("Redis获取成功，key: {}, value类型: {}", key, value != null ? value.getClass().getSimpleName() : "null");
             return value;
         } catch (Exception e) {
             log.error("Redis获取失败，key: {}, 错误: {}", key, e.getMessage());
             return null;
+        } finally {
+            commandMetrics.record("get", key, startNanos);
         }
     }
 
     @Override
     public <T> T get(String key, Class<T> clazz) {
+        long startNanos = System.nanoTime();
         try {
             RBucket<T> bucket = redissonClient.getBucket(key);
             T value = bucket.get();
@@ -72,11 +111,29 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis获取失败（指定类型），key: {}, 期望类型: {}, 错误: {}", key, clazz.getSimpleName(), e.getMessage());
             return null;
+        } finally {
+            commandMetrics.record("get", key, startNanos);
+        }
+    }
+
+    @Override
+    public boolean setIfAbsent(String key, Object value) {
+        long startNanos = System.nanoTime();
+        try {
+            boolean result = redissonClient.getBucket(key).setIfAbsent(value);
+            log.debug("Redis设置{}，key: {}", result ? "成功" : "跳过（key已存在）", key);
+            return result;
+        } catch (Exception e) {
+            log.error("Redis设置失败（不存在时），key: {}, 错误: {}", key, e.getMessage());
+            throw e;
+        } finally {
+            commandMetrics.record("setIfAbsent", key, startNanos, value);
         }
     }
 
     @Override
     public boolean delete(String key) {
+        long startNanos = System.nanoTime();
         try {
             boolean result = redissonClient.getBucket(key).delete();
             log.debug("Redis删除{}，key: {}", result ? "成功" : "失败（key不存在）", key);
@@ -84,11 +141,49 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis删除失败，key: {}, 错误: {}", key, e.getMessage());
             return false;
+        } finally {
+            commandMetrics.record("delete", key, startNanos);
+        }
+    }
+
+    @Override
+    public <T> T getAndSet(String key, Object value) {
+        long startNanos = System.nanoTime();
+        try {
+            RBucket<T> bucket = redissonClient.getBucket(key);
+            @SuppressWarnings("unchecked")
+            T previous = bucket.getAndSet((T) value);
+            log.debug("Redis原子替换成功，key: {}", key);
+            return previous;
+        } catch (Exception e) {
+            log.error("Redis原子替换失败，key: {}, 错误: {}", key, e.getMessage());
+            throw e;
+        } finally {
+            commandMetrics.record("getAndSet", key, startNanos, value);
+        }
+    }
+
+    @Override
+    public long unlink(String... keys) {
+        if (keys == null || keys.length == 0) {
+            return 0;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            long count = redissonClient.getKeys().unlink(keys);
+            log.debug("Redis批量删除成功，key数量: {}, 删除数量: {}", keys.length, count);
+            return count;
+        } catch (Exception e) {
+            log.error("Redis批量删除失败，key数量: {}, 错误: {}", keys.length, e.getMessage());
+            return 0;
+        } finally {
+            commandMetrics.record("unlink", keys[0], startNanos, keys);
         }
     }
 
     @Override
     public boolean exists(String key) {
+        long startNanos = System.nanoTime();
         try {
             boolean exists = redissonClient.getBucket(key).isExists();
             log.debug("Redis检查key存在性，key: {}, 存在: {}", key, exists);
@@ -96,11 +191,14 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis检查key存在性失败，key: {}, 错误: {}", key, e.getMessage());
             return false;
+        } finally {
+            commandMetrics.record("exists", key, startNanos);
         }
     }
 
     @Override
     public boolean expire(String key, Duration duration) {
+        long startNanos = System.nanoTime();
         try {
             boolean result = redissonClient.getBucket(key).expire(duration);
             log.debug("Redis设置过期时间{}，key: {}, 过期时间: {}秒", result ? "成功" : "失败", key, duration.getSeconds());
@@ -108,11 +206,14 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis设置过期时间失败，key: {}, 错误: {}", key, e.getMessage());
             return false;
+        } finally {
+            commandMetrics.record("expire", key, startNanos);
         }
     }
 
     @Override
     public long getExpire(String key) {
+        long startNanos = System.nanoTime();
         try {
             long remainTime = redissonClient.getBucket(key).remainTimeToLive();
             log.debug("Redis获取剩余过期时间，key: {}, 剩余时间: {}毫秒", key, remainTime);
@@ -120,11 +221,14 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis获取剩余过期时间失败，key: {}, 错误: {}", key, e.getMessage());
             return -2; // -2表示key不存在
+        } finally {
+            commandMetrics.record("getExpire", key, startNanos);
         }
     }
 
     @Override
     public long increment(String key) {
+        long startNanos = System.nanoTime();
         try {
             RAtomicLong atomicLong = redissonClient.getAtomicLong(key);
             long result = atomicLong.incrementAndGet();
@@ -133,11 +237,14 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis自增失败，key: {}, 错误: {}", key, e.getMessage());
             throw e;
+        } finally {
+            commandMetrics.record("increment", key, startNanos);
         }
     }
 
     @Override
     public long increment(String key, long delta) {
+        long startNanos = System.nanoTime();
         try {
             RAtomicLong atomicLong = redissonClient.getAtomicLong(key);
             long result = atomicLong.addAndGet(delta);
@@ -146,11 +253,14 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis自增{}失败，key: {}, 错误: {}", delta, key, e.getMessage());
             throw e;
+        } finally {
+            commandMetrics.record("increment", key, startNanos);
         }
     }
 
     @Override
     public long decrement(String key) {
+        long startNanos = System.nanoTime();
         try {
             RAtomicLong atomicLong = redissonClient.getAtomicLong(key);
             long result = atomicLong.decrementAndGet();
@@ -159,11 +269,14 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis自减失败，key: {}, 错误: {}", key, e.getMessage());
             throw e;
+        } finally {
+            commandMetrics.record("decrement", key, startNanos);
         }
     }
 
     @Override
     public long decrement(String key, long delta) {
+        long startNanos = System.nanoTime();
         try {
             RAtomicLong atomicLong = redissonClient.getAtomicLong(key);
             long result = atomicLong.addAndGet(-delta);
@@ -172,6 +285,23 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis自减{}失败，key: {}, 错误: {}", delta, key, e.getMessage());
             throw e;
+        } finally {
+            commandMetrics.record("decrement", key, startNanos);
+        }
+    }
+
+    @Override
+    public long getAtomicLong(String key) {
+        long startNanos = System.nanoTime();
+        try {
+            long result = redissonClient.getAtomicLong(key).get();
+            log.debug("Redis获取计数器成功，key: {}, 结果: {}", key, result);
+            return result;
+        } catch (Exception e) {
+            log.error("Redis获取计数器失败，key: {}, 错误: {}", key, e.getMessage());
+            return 0;
+        } finally {
+            commandMetrics.record("getAtomicLong", key, startNanos);
         }
     }
 
@@ -179,6 +309,7 @@ public class RedisServiceImpl implements IRedisService {
 
     @Override
     public void hSet(String key, String hashKey, Object value) {
+        long startNanos = System.nanoTime();
         try {
             RMap<String, Object> map = redissonClient.getMap(key);
             map.put(hashKey, value);
@@ -186,63 +317,119 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis Hash设置失败，key: {}, hashKey: {}, 错误: {}", key, hashKey, e.getMessage());
             throw e;
+        } finally {
+            commandMetrics.record("hSet", key, startNanos, value);
         }
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> T hGet(String key, String hashKey) {
+        return hGet(key, hashKey, defaultCodec());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T hGet(String key, String hashKey, Codec codec) {
+        long startNanos = System.nanoTime();
         try {
-            RMap<String, Object> map = redissonClient.getMap(key);
+            RMap<String, Object> map = redissonClient.getMap(key, codec);
             T value = (T) map.get(hashKey);
             log.debug("Redis Hash获取成功，key: {}, hashKey: {}", key, hashKey);
             return value;
         } catch (Exception e) {
             log.error("Redis Hash获取失败，key: {}, hashKey: {}, 错误: {}", key, hashKey, e.getMessage());
             return null;
+        } finally {
+            commandMetrics.record("hGet", key, startNanos);
         }
     }
 
     @Override
     public Map<String, Object> hGetAll(String key) {
+        return hGetAll(key, defaultCodec());
+    }
+
+    @Override
+    public Map<String, Object> hGetAll(String key, Codec codec) {
+        long startNanos = System.nanoTime();
         try {
-            RMap<String, Object> map = redissonClient.getMap(key);
+            RMap<String, Object> map = redissonClient.getMap(key, codec);
             Map<String, Object> result = map.readAllMap();
             log.debug("Redis Hash获取全部成功，key: {}, 条目数: {}", key, result.size());
             return result;
         } catch (Exception e) {
             log.error("Redis Hash获取全部失败，key: {}, 错误: {}", key, e.getMessage());
             return null;
+        } finally {
+            commandMetrics.record("hGetAll", key, startNanos);
+        }
+    }
+
+    @Override
+    public <T> Map<String, T> hMGet(String key, Set<String> hashKeys) {
+        return hMGet(key, hashKeys, defaultCodec());
+    }
+
+    @Override
+    public <T> Map<String, T> hMGet(String key, Set<String> hashKeys, Codec codec) {
+        long startNanos = System.nanoTime();
+        try {
+            RMap<String, T> map = redissonClient.getMap(key, codec);
+            Map<String, T> result = map.getAll(hashKeys);
+            log.debug("Redis Hash批量获取成功，key: {}, 字段数: {}, 命中数: {}", key, hashKeys.size(), result.size());
+            return result;
+        } catch (Exception e) {
+            log.error("Redis Hash批量获取失败，key: {}, 字段数: {}, 错误: {}", key, hashKeys.size(), e.getMessage());
+            return null;
+        } finally {
+            commandMetrics.record("hMGet", key, startNanos, hashKeys);
         }
     }
 
     @Override
     public void hSetAll(String key, Map<String, Object> hashMap) {
+        hSetAll(key, hashMap, defaultCodec());
+    }
+
+    @Override
+    public void hSetAll(String key, Map<String, Object> hashMap, Codec codec) {
+        long startNanos = System.nanoTime();
         try {
-            RMap<String, Object> map = redissonClient.getMap(key);
-            map.putAll(hashMap);
+            RMap<String, Object> map = redissonClient.getMap(key, codec);
+            map.putAll(hashMap, BATCH_FLUSH_SIZE);
             log.debug("Redis Hash批量设置成功，key: {}, 条目数: {}", key, hashMap.size());
         } catch (Exception e) {
             log.error("Redis Hash批量设置失败，key: {}, 错误: {}", key, e.getMessage());
             throw e;
+        } finally {
+            commandMetrics.record("hSetAll", key, startNanos, hashMap);
         }
     }
 
     @Override
     public long hDelete(String key, String... hashKeys) {
+        return hDelete(key, defaultCodec(), hashKeys);
+    }
+
+    @Override
+    public long hDelete(String key, Codec codec, String... hashKeys) {
+        long startNanos = System.nanoTime();
         try {
-            RMap<String, Object> map = redissonClient.getMap(key);
+            RMap<String, Object> map = redissonClient.getMap(key, codec);
             long count = map.fastRemove(hashKeys);
             log.debug("Redis Hash删除成功，key: {}, 删除数量: {}", key, count);
             return count;
         } catch (Exception e) {
             log.error("Redis Hash删除失败，key: {}, 错误: {}", key, e.getMessage());
             return 0;
+        } finally {
+            commandMetrics.record("hDelete", key, startNanos, hashKeys);
         }
     }
 
     @Override
     public boolean hExists(String key, String hashKey) {
+        long startNanos = System.nanoTime();
         try {
             RMap<String, Object> map = redissonClient.getMap(key);
             boolean exists = map.containsKey(hashKey);
@@ -251,6 +438,8 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis Hash检查存在性失败，key: {}, hashKey: {}, 错误: {}", key, hashKey, e.getMessage());
             return false;
+        } finally {
+            commandMetrics.record("hExists", key, startNanos);
         }
     }
 
@@ -258,6 +447,7 @@ public class RedisServiceImpl implements IRedisService {
 
     @Override
     public long lPush(String key, Object value) {
+        long startNanos = System.nanoTime();
         try {
             RList<Object> list = redissonClient.getList(key);
             list.add(0, value);
@@ -267,11 +457,14 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis List左侧推入失败，key: {}, 错误: {}", key, e.getMessage());
             throw e;
+        } finally {
+            commandMetrics.record("lPush", key, startNanos, value);
         }
     }
 
     @Override
     public long rPush(String key, Object value) {
+        long startNanos = System.nanoTime();
         try {
             RList<Object> list = redissonClient.getList(key);
             list.add(value);
@@ -281,12 +474,15 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis List右侧推入失败，key: {}, 错误: {}", key, e.getMessage());
             throw e;
+        } finally {
+            commandMetrics.record("rPush", key, startNanos, value);
         }
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> T lPop(String key) {
+        long startNanos = System.nanoTime();
         try {
             RList<Object> list = redissonClient.getList(key);
             if (list.isEmpty()) {
@@ -298,12 +494,15 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis List左侧弹出失败，key: {}, 错误: {}", key, e.getMessage());
             return null;
+        } finally {
+            commandMetrics.record("lPop", key, startNanos);
         }
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> T rPop(String key) {
+        long startNanos = System.nanoTime();
         try {
             RList<Object> list = redissonClient.getList(key);
             if (list.isEmpty()) {
@@ -315,12 +514,15 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis List右侧弹出失败，key: {}, 错误: {}", key, e.getMessage());
             return null;
+        } finally {
+            commandMetrics.record("rPop", key, startNanos);
         }
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> List<T> lRange(String key, long start, long end) {
+        long startNanos = System.nanoTime();
         try {
             RList<Object> list = redissonClient.getList(key);
             List<T> result = (List<T>) list.range((int) start, (int) end);
@@ -329,11 +531,14 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis List范围获取失败，key: {}, 范围: {}-{}, 错误: {}", key, start, end, e.getMessage());
             return null;
+        } finally {
+            commandMetrics.record("lRange", key, startNanos);
         }
     }
 
     @Override
     public long lSize(String key) {
+        long startNanos = System.nanoTime();
         try {
             RList<Object> list = redissonClient.getList(key);
             long size = list.size();
@@ -342,6 +547,8 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis List大小获取失败，key: {}, 错误: {}", key, e.getMessage());
             return 0;
+        } finally {
+            commandMetrics.record("lSize", key, startNanos);
         }
     }
 
@@ -349,6 +556,7 @@ public class RedisServiceImpl implements IRedisService {
 
     @Override
     public long sAdd(String key, Object... values) {
+        long startNanos = System.nanoTime();
         try {
             RSet<Object> set = redissonClient.getSet(key);
             long count = set.addAll(Arrays.asList(values)) ? values.length : 0;
@@ -357,11 +565,14 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis Set添加失败，key: {}, 错误: {}", key, e.getMessage());
             return 0;
+        } finally {
+            commandMetrics.record("sAdd", key, startNanos, values);
         }
     }
 
     @Override
     public long sRemove(String key, Object... values) {
+        long startNanos = System.nanoTime();
         try {
             RSet<Object> set = redissonClient.getSet(key);
             long count = set.removeAll(Arrays.asList(values)) ? values.length : 0;
@@ -370,12 +581,15 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis Set删除失败，key: {}, 错误: {}", key, e.getMessage());
             return 0;
+        } finally {
+            commandMetrics.record("sRemove", key, startNanos, values);
         }
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> Set<T> sMembers(String key) {
+        long startNanos = System.nanoTime();
         try {
             RSet<Object> set = redissonClient.getSet(key);
             Set<T> result = (Set<T>) set.readAll();
@@ -384,11 +598,14 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis Set获取全部成员失败，key: {}, 错误: {}", key, e.getMessage());
             return null;
+        } finally {
+            commandMetrics.record("sMembers", key, startNanos);
         }
     }
 
     @Override
     public boolean sIsMember(String key, Object value) {
+        long startNanos = System.nanoTime();
         try {
             RSet<Object> set = redissonClient.getSet(key);
             boolean isMember = set.contains(value);
@@ -397,12 +614,15 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis Set成员检查失败，key: {}, 错误: {}", key, e.getMessage());
             return false;
+        } finally {
+            commandMetrics.record("sIsMember", key, startNanos, value);
         }
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> T sRandomMember(String key) {
+        long startNanos = System.nanoTime();
         try {
             RSet<Object> set = redissonClient.getSet(key);
             T randomMember = (T) set.random();
@@ -411,12 +631,15 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis Set随机获取成员失败，key: {}, 错误: {}", key, e.getMessage());
             return null;
+        } finally {
+            commandMetrics.record("sRandomMember", key, startNanos);
         }
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> List<T> sRandomMembers(String key, long count) {
+        long startNanos = System.nanoTime();
         try {
             RSet<Object> set = redissonClient.getSet(key);
             List<T> randomMembers = (List<T>) set.random((int) count);
@@ -425,11 +648,14 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis Set随机获取{}个成员失败，key: {}, 错误: {}", count, key, e.getMessage());
             return null;
+        } finally {
+            commandMetrics.record("sRandomMembers", key, startNanos);
         }
     }
 
     @Override
     public long sSize(String key) {
+        long startNanos = System.nanoTime();
         try {
             RSet<Object> set = redissonClient.getSet(key);
             long size = set.size();
@@ -438,6 +664,197 @@ public class RedisServiceImpl implements IRedisService {
         } catch (Exception e) {
             log.error("Redis Set大小获取失败，key: {}, 错误: {}", key, e.getMessage());
             return 0;
+        } finally {
+            commandMetrics.record("sSize", key, startNanos);
         }
     }
-} 
\ No newline at end of file
+
+    // ========== 批量操作 ==========
+
+    @Override
+    public int setBatch(Map<String, Object> keyValues) {
+        return setBatch(keyValues, defaultCodec());
+    }
+
+    @Override
+    public int setBatch(Map<String, Object> keyValues, Codec codec) {
+        if (keyValues == null || keyValues.isEmpty()) {
+            return 0;
+        }
+        int commands = 0;
+        int flushes = 0;
+        long startNanos = System.nanoTime();
+        try {
+            Iterator<Map.Entry<String, Object>> iterator = keyValues.entrySet().iterator();
+            while (iterator.hasNext()) {
+                RBatch batch = redissonClient.createBatch(BatchOptions.defaults().skipResult());
+                int size = 0;
+                while (iterator.hasNext() && size < BATCH_FLUSH_SIZE) {
+                    Map.Entry<String, Object> entry = iterator.next();
+                    batch.getBucket(entry.getKey(), codec).setAsync(entry.getValue());
+                    size++;
+                }
+                batch.execute();
+                commands += size;
+                flushes++;
+            }
+            log.debug("Redis批量设置成功，命令数: {}, 管道flush次数: {}", commands, flushes);
+            return commands;
+        } catch (Exception e) {
+            log.error("Redis批量设置失败，已发送命令数: {}, 错误: {}", commands, e.getMessage());
+            throw e;
+        } finally {
+            commandMetrics.record("setBatch", RedisCommandMetrics.firstKey(keyValues.keySet()), startNanos, keyValues);
+        }
+    }
+
+    @Override
+    public <T> Map<String, T> getBatch(List<String> keys) {
+        return getBatch(keys, defaultCodec());
+    }
+
+    @Override
+    public <T> Map<String, T> getBatch(List<String> keys, Codec codec) {
+        Map<String, T> result = new HashMap<>(keys.size() * 4 / 3 + 1);
+        long startNanos = System.nanoTime();
+        try {
+            RBuckets buckets = redissonClient.getBuckets(codec);
+            for (int from = 0; from < keys.size(); from += BATCH_FLUSH_SIZE) {
+                List<String> chunk = keys.subList(from, Math.min(from + BATCH_FLUSH_SIZE, keys.size()));
+                Map<String, T> values = buckets.get(chunk.toArray(new String[0]));
+                result.putAll(values);
+            }
+            log.debug("Redis批量获取成功，key数量: {}, 命中数量: {}", keys.size(), result.size());
+            return result;
+        } catch (Exception e) {
+            log.error("Redis批量获取失败，key数量: {}, 错误: {}", keys.size(), e.getMessage());
+            return null;
+        } finally {
+            commandMetrics.record("getBatch", RedisCommandMetrics.firstKey(keys), startNanos, keys);
+        }
+    }
+
+    @Override
+    public Map<String, Long> incrementBatch(Map<String, Long> deltas) {
+        return incrementBatch(deltas, null);
+    }
+
+    @Override
+    public Map<String, Long> incrementBatch(Map<String, Long> deltas, Duration ttl) {
+        Map<String, Long> result = new HashMap<>(deltas.size() * 4 / 3 + 1);
+        long startNanos = System.nanoTime();
+        try {
+            Iterator<Map.Entry<String, Long>> iterator = deltas.entrySet().iterator();
+            while (iterator.hasNext()) {
+                RBatch batch = redissonClient.createBatch();
+                Map<String, RFuture<Long>> futures = new HashMap<>();
+                while (iterator.hasNext() && futures.size() < BATCH_FLUSH_SIZE) {
+                    Map.Entry<String, Long> entry = iterator.next();
+                    RAtomicLongAsync atomicLong = batch.getAtomicLong(entry.getKey());
+                    futures.put(entry.getKey(), atomicLong.addAndGetAsync(entry.getValue()));
+                    if (null != ttl) {
+                        atomicLong.expireAsync(ttl);
+                    }
+                }
+                batch.execute();
+                futures.forEach((key, future) -> result.put(key, future.toCompletableFuture().join()));
+            }
+            log.debug("Redis批量自增成功，key数量: {}", deltas.size());
+            return result;
+        } catch (Exception e) {
+            log.error("Redis批量自增失败，key数量: {}, 已完成: {}, 错误: {}", deltas.size(), result.size(), e.getMessage());
+            throw e;
+        } finally {
+            commandMetrics.record("incrementBatch", RedisCommandMetrics.firstKey(deltas.keySet()), startNanos, deltas);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getAtomicLongBatch(List<String> keys) {
+        Map<String, Long> result = new HashMap<>(keys.size() * 4 / 3 + 1);
+        long startNanos = System.nanoTime();
+        try {
+            for (int from = 0; from < keys.size(); from += BATCH_FLUSH_SIZE) {
+                RBatch batch = redissonClient.createBatch();
+                Map<String, RFuture<Long>> futures = new HashMap<>();
+                for (String key : keys.subList(from, Math.min(from + BATCH_FLUSH_SIZE, keys.size()))) {
+                    futures.put(key, batch.getAtomicLong(key).getAsync());
+                }
+                batch.execute();
+                futures.forEach((key, future) -> result.put(key, future.toCompletableFuture().join()));
+            }
+            log.debug("Redis批量获取计数器成功，key数量: {}", keys.size());
+            return result;
+        } catch (Exception e) {
+            log.error("Redis批量获取计数器失败，key数量: {}, 错误: {}", keys.size(), e.getMessage());
+            throw e;
+        } finally {
+            commandMetrics.record("getAtomicLongBatch", RedisCommandMetrics.firstKey(keys), startNanos, keys);
+        }
+    }
+
+    @Override
+    public RLock getLock(String key) {
+        return redissonClient.getLock(key);
+    }
+
+    @Override
+    public <T> RBloomFilter<T> getBloomFilter(String key) {
+        return redissonClient.getBloomFilter(key);
+    }
+
+    @Override
+    public RTopic getTopic(String name) {
+        return redissonClient.getTopic(name, StringCodec.INSTANCE);
+    }
+
+    @Override
+    public String scriptLoad(String script) {
+        long startNanos = System.nanoTime();
+        try {
+            String shaDigest = redissonClient.getScript(StringCodec.INSTANCE).scriptLoad(script);
+            log.info("Redis脚本加载成功，sha: {}", shaDigest);
+            return shaDigest;
+        } catch (Exception e) {
+            log.error("Redis脚本加载失败，错误: {}", e.getMessage());
+            throw e;
+        } finally {
+            commandMetrics.record("scriptLoad", null, startNanos, script);
+        }
+    }
+
+    @Override
+    public <T> T evalSha(String shaDigest, RScript.ReturnType returnType, List<Object> keys, Object... values) {
+        long startNanos = System.nanoTime();
+        try {
+            RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+            return script.evalSha(RScript.Mode.READ_WRITE, shaDigest, returnType, keys, values);
+        } finally {
+            commandMetrics.record("evalSha", scriptKey(keys), startNanos, values);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> evalShaAsync(String shaDigest, RScript.ReturnType returnType, List<Object> keys, Object... values) {
+        RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+        long startNanos = System.nanoTime();
+        RFuture<T> future = script.evalShaAsync(RScript.Mode.READ_WRITE, shaDigest, returnType, keys, values);
+        // 耗时记录到 Redis 应答为止
+        return future.toCompletableFuture().whenComplete((result, throwable) -> commandMetrics.record("evalShaAsync", scriptKey(keys), startNanos, values));
+    }
+
+    /**
+     * @return 脚本的第一个 KEYS，作为归类依据
+     */
+    private static String scriptKey(List<Object> keys) {
+        return null == keys || keys.isEmpty() ? null : String.valueOf(keys.get(0));
+    }
+
+    /**
+     * RedissonConfig 中配置的全局编解码器，未指定编解码器的操作使用
+     */
+    private Codec defaultCodec() {
+        return redissonClient.getConfig().getCodec();
+    }
+
+}
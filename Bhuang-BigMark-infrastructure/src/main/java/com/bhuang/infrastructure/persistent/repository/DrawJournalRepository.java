@@ -0,0 +1,99 @@
+package com.bhuang.infrastructure.persistent.repository;
+
+import com.bhuang.domain.strategy.repository.IDrawJournalRepository;
+import com.bhuang.infrastructure.persistent.journal.DrawJournal;
+import com.bhuang.infrastructure.persistent.journal.DrawJournalRecord;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.nio.file.Paths;
+
+/**
+ * @author bhuang
+ * @description 抽奖流水仓储实现 - 追加到内存映射的分段文件，未启用时不记录
+ * 写入与丢弃的记录数记录到 strategy.journal.records 指标，缓冲区积压记录到 strategy.journal.backlog
+ * @create 2025-06-14
+ */
+@Slf4j
+@Repository
+public class DrawJournalRepository implements IDrawJournalRepository {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /** 是否记录抽奖流水 */
+    @Value("${strategy.journal.enabled:false}")
+    private boolean enabled;
+
+    /** 流水目录 */
+    @Value("${strategy.journal.directory:./data/journal}")
+    private String directory;
+
+    /** 分段文件大小（字节），默认64MB，约100万条记录 */
+    @Value("${strategy.journal.segment-size:67108864}")
+    private long segmentSize;
+
+    /** 环形缓冲区容量（记录数） */
+    @Value("${strategy.journal.buffer-size:65536}")
+    private int bufferSize;
+
+    /** 最多保留的分段数，0 表示全部保留 */
+    @Value("${strategy.journal.max-segments:0}")
+    private int maxSegments;
+
+    /** 刷盘间隔（毫秒） */
+    @Value("${strategy.journal.force-interval:1000}")
+    private long forceInterval;
+
+    private DrawJournal drawJournal;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("抽奖流水未启用");
+            return;
+        }
+        drawJournal = new DrawJournal(Paths.get(directory), segmentSize, bufferSize, maxSegments, forceInterval);
+        FunctionCounter.builder("strategy.journal.records", drawJournal, DrawJournal::written)
+                .description("抽奖流水记录数")
+                .tag("result", "written")
+                .register(meterRegistry);
+        FunctionCounter.builder("strategy.journal.records", drawJournal, DrawJournal::dropped)
+                .description("抽奖流水记录数")
+                .tag("result", "dropped")
+                .register(meterRegistry);
+        Gauge.builder("strategy.journal.backlog", drawJournal, DrawJournal::backlog)
+                .description("抽奖流水缓冲区中等待写入的记录数")
+                .register(meterRegistry);
+        log.info("抽奖流水已启用，目录：{}，分段大小：{}，缓冲区容量：{}", directory, segmentSize, bufferSize);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (drawJournal != null) {
+            drawJournal.close();
+        }
+    }
+
+    @Override
+    public void appendDraw(Long strategyId, String ruleWeightValue, int slot, Integer awardId, String userId) {
+        if (drawJournal != null) {
+            drawJournal.appendDraw(strategyId, DrawJournalRecord.tierOf(ruleWeightValue), slot, awardId, userId);
+        }
+    }
+
+    @Override
+    public void appendStockDeduction(Long strategyId, Integer awardId, boolean deducted) {
+        if (drawJournal != null) {
+            drawJournal.appendStock(strategyId, awardId, deducted);
+        }
+    }
+
+}
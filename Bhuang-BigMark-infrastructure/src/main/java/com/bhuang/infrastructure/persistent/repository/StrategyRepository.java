@@ -1,23 +1,68 @@
 package com.bhuang.infrastructure.persistent.repository;
 
-import com.alibaba.fastjson.JSON;
 import com.bhuang.domain.strategy.model.entity.StrategyAwardEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyAwardStockFlushLagEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyBlacklistStatEntity;
+import com.bhuang.domain.strategy.model.entity.StrategyEntity;
 import com.bhuang.domain.strategy.model.entity.StrategyRuleEntity;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardAliasTableVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardStockDeductionVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyAwardStockFlushBatchVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyDrawResultVO;
+import com.bhuang.domain.strategy.model.valobj.StrategyRateTableSnapshotVO;
 import com.bhuang.domain.strategy.repository.IStrategyRepository;
+import com.bhuang.infrastructure.persistent.cache.SingleFlight;
+import com.bhuang.infrastructure.persistent.cache.StrategyNearCache;
 import com.bhuang.infrastructure.persistent.constants.Constants;
 import com.bhuang.infrastructure.persistent.dao.StrategyAwardDao;
+import com.bhuang.infrastructure.persistent.dao.StrategyAwardStockFlushDao;
+import com.bhuang.infrastructure.persistent.dao.StrategyBlacklistDao;
+import com.bhuang.infrastructure.persistent.dao.StrategyDao;
 import com.bhuang.infrastructure.persistent.dao.StrategyRuleDao;
+import com.bhuang.infrastructure.persistent.po.Strategy;
 import com.bhuang.infrastructure.persistent.po.StrategyAward;
+import com.bhuang.infrastructure.persistent.po.StrategyAwardStockDeduct;
+import com.bhuang.infrastructure.persistent.po.StrategyAwardStockFlush;
+import com.bhuang.infrastructure.persistent.po.StrategyBlacklist;
 import com.bhuang.infrastructure.persistent.po.StrategyRule;
 import com.bhuang.infrastructure.persistent.redis.IRedisService;
+import com.bhuang.infrastructure.persistent.redis.RedisKeyFamily;
+import com.bhuang.infrastructure.persistent.redis.RedisLuaScript;
+import com.bhuang.infrastructure.persistent.redis.codec.RedisCodecs;
 import com.bhuang.infrastructure.persistent.utils.StrategyAwardMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBloomFilter;
+import org.redisson.api.RLock;
+import org.redisson.api.RScript;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 /**
  * 策略仓储实现
@@ -27,110 +72,1130 @@ import java.util.Map;
 @Repository
 public class StrategyRepository implements IStrategyRepository {
 
+    @Resource
+    private StrategyDao strategyDao;
+
     @Resource
     private StrategyAwardDao strategyAwardDao;
     
     @Resource
     private StrategyRuleDao strategyRuleDao;
+
+    @Resource
+    private StrategyAwardStockFlushDao strategyAwardStockFlushDao;
+
+    @Resource
+    private StrategyBlacklistDao strategyBlacklistDao;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
     
     @Resource
     private IRedisService redisService;
 
+    @Resource
+    private StrategyNearCache strategyNearCache;
+
+    /** 回源结果 strategy.repository.cache、回源耗时 strategy.repository.load、映射耗时 strategy.repository.convert */
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /** 同一JVM内合并同Key的回源请求 */
+    private final SingleFlight<Long, List<StrategyAwardEntity>> strategyAwardListFlight = new SingleFlight<>();
+    private final SingleFlight<String, StrategyRuleEntity> strategyRuleFlight = new SingleFlight<>();
+
+    /** 查找表存储布局，默认沿用旧的每槽位一个Key */
+    @Value("${strategy.armory.table-layout:KEY}")
+    private Constants.Redis.TableLayout tableLayout;
+
+    /** HASH布局下未命中时是否回退读取旧布局，用于迁移期间兼容尚未重新装配的策略 */
+    @Value("${strategy.armory.table-layout-fallback:true}")
+    private boolean tableLayoutFallback;
+
+    /** 查找表分块写入的每块条目数，限制装配时的瞬时内存与单次管道大小 */
+    @Value("${strategy.armory.store-chunk-size:5000}")
+    private int storeChunkSize;
+
+    /** 缓存回源锁等待时间（毫秒），超时后降级直接查询数据库 */
+    @Value("${strategy.near-cache.load-lock-wait:3000}")
+    private long loadLockWait;
+
+    /** 缓存回源锁租期（毫秒），持锁节点异常退出时锁自动释放 */
+    @Value("${strategy.near-cache.load-lock-lease:10000}")
+    private long loadLockLease;
+
+    /** 查找表旧版本的回收延迟（毫秒），需大于抽奖读取快照到读取槽位的最长耗时 */
+    @Value("${strategy.armory.table-gc-delay:60000}")
+    private long tableGcDelay;
+
+    /** 服务端抽奖脚本，一次 EVALSHA 完成读取快照、定位槽位与权重回退 */
+    private final RedisLuaScript strategyDrawScript = RedisLuaScript.classpath("lua/strategy_draw.lua");
+
+    /** 库存回写队列容量，数据库回写落后导致队列已满时拒绝扣减 */
+    @Value("${strategy.stock.queue-capacity:100000}")
+    private long stockQueueCapacity;
+
+    /** 奖品库存扣减脚本，检查余量、扣减与写入回写队列在同一脚本内原子执行，并发扣减不会超卖 */
+    private final RedisLuaScript awardStockDeductScript = RedisLuaScript.classpath("lua/award_stock_deduct.lua");
+
+    /** 领取待回写扣减记录的脚本，回写队列移动到处理中队列 */
+    private final RedisLuaScript awardStockTakeScript = RedisLuaScript.classpath("lua/award_stock_take.lua");
+
+    /** 查询回写积压的脚本 */
+    private final RedisLuaScript awardStockLagScript = RedisLuaScript.classpath("lua/award_stock_lag.lua");
+
+    /** 黑名单布隆过滤器预期误判率 */
+    @Value("${strategy.blacklist.false-probability:0.001}")
+    private double blacklistFalseProbability;
+
+    /** 黑名单布隆过滤器最小预期元素数，名单较小时预留增长空间，避免误判率随新增用户快速上升 */
+    @Value("${strategy.blacklist.expected-insertions-min:10000}")
+    private long blacklistExpectedInsertionsMin;
+
+    /** 黑名单重建时每批写入的用户数 */
+    @Value("${strategy.blacklist.store-chunk-size:10000}")
+    private int blacklistStoreChunkSize;
+
+    /** 布隆过滤器对象缓存参数（位数、哈希次数），缓存后每次检查只需一次往返 */
+    private final Map<String, RBloomFilter<String>> blacklistBloomFilters = new ConcurrentHashMap<>();
+
+    /** 本节点黑名单检查计数，用于统计实测误判率与检查耗时 */
+    private final Map<Long, BlacklistCounter> blacklistCounters = new ConcurrentHashMap<>();
+
+    /** 延迟回收查找表旧版本，单线程执行，避免回收占用 Redis 过多带宽 */
+    private final ScheduledExecutorService rateTableCollector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "strategy-rate-table-gc");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     @Override
     public List<StrategyAwardEntity> queryStrategyAwardList(Long strategyId) {
+        return strategyNearCache.getStrategyAwardList(strategyId,
+                () -> strategyAwardListFlight.execute(strategyId, () -> loadStrategyAwardList(strategyId)));
+    }
+
+    /**
+     * 近端缓存未命中时回源：先读 Redis，再持回源锁读数据库
+     */
+    private List<StrategyAwardEntity> loadStrategyAwardList(Long strategyId) {
         String cacheKey = Constants.Redis.getStrategyAwardListKey(strategyId);
-        
-        // 先尝试从缓存获取
-        String cacheData = redisService.get(cacheKey);
-        if (cacheData != null) {
+        List<StrategyAward> strategyAwardList = loadOnCacheMiss(cacheKey, () -> {
+            List<StrategyAward> cacheData = redisService.get(cacheKey, RedisCodecs.STRATEGY_AWARD_LIST);
+            if (cacheData == null) {
+                return null;
+            }
             log.info("从缓存获取策略奖品列表，策略ID：{}", strategyId);
-            List<StrategyAward> strategyAwardList = JSON.parseArray(cacheData, StrategyAward.class);
-            return StrategyAwardMapper.toEntityList(strategyAwardList);
-        }
-        
-        // 缓存未命中，从数据库查询
-        log.info("从数据库查询策略奖品列表，策略ID：{}", strategyId);
-        List<StrategyAward> strategyAwardList = strategyAwardDao.queryStrategyAwardListByStrategyId(strategyId);
-        
-        // 将查询结果缓存，设置过期时间为1小时
-        redisService.set(cacheKey, JSON.toJSONString(strategyAwardList), Duration.ofSeconds(Constants.Redis.ExpireTime.ONE_HOUR));
-        log.info("策略奖品列表已缓存，策略ID：{}，数量：{}", strategyId, strategyAwardList.size());
-        
+            return cacheData;
+        }, () -> {
+            log.info("从数据库查询策略奖品列表，策略ID：{}", strategyId);
+            List<StrategyAward> strategyAwards = strategyAwardDao.queryStrategyAwardListByStrategyId(strategyId);
+
+            // 将查询结果按二进制编码缓存，设置过期时间为1小时
+            redisService.set(cacheKey, strategyAwards, Duration.ofSeconds(Constants.Redis.ExpireTime.ONE_HOUR), RedisCodecs.STRATEGY_AWARD_LIST);
+            log.info("策略奖品列表已缓存，策略ID：{}，数量：{}", strategyId, strategyAwards.size());
+            return strategyAwards;
+        });
+
         // 转换并返回结果
-        return StrategyAwardMapper.toEntityList(strategyAwardList);
+        return meterRegistry.timer("strategy.repository.convert", "step", "map")
+                .record(() -> StrategyAwardMapper.toEntityList(strategyAwardList));
+    }
+
+    @Override
+    public void evictStrategyCache(Long strategyId) {
+        redisService.delete(Constants.Redis.getStrategyAwardListKey(strategyId));
+        strategyNearCache.invalidateStrategy(strategyId);
+        try {
+            long receivers = redisService.getTopic(Constants.Redis.STRATEGY_NEAR_CACHE_EVICT_TOPIC).publish(String.valueOf(strategyId));
+            log.info("策略缓存已清除，策略ID：{}，通知节点数：{}", strategyId, receivers);
+        } catch (Exception e) {
+            // 通知失败时其它节点的近端缓存在过期后刷新
+            log.warn("策略近端缓存失效通知失败，策略ID：{}，错误：{}", strategyId, e.getMessage());
+        }
     }
 
     @Override
-    public void storeStrategyAwardSearchRateTable(Long strategyId, Integer rateRange, Map<Integer, Integer> strategyAwardSearchRateTable) {
-        String cacheKey = Constants.Redis.getStrategyRateRangeKey(strategyId);
-        log.info("策略奖品概率范围已缓存，策略ID：{}，范围：{}", strategyId, rateRange);
-        redisService.set(cacheKey, rateRange);
-        
-        for (Map.Entry<Integer, Integer> entry : strategyAwardSearchRateTable.entrySet()) {
-            String assembleKey = Constants.Redis.getStrategyAwardAssembleKey(strategyId, entry.getKey());
-            redisService.set(assembleKey, entry.getValue());
+    public Map<Long, List<StrategyAwardEntity>> queryAllStrategyAwardList() {
+        long startTime = System.currentTimeMillis();
+        List<Strategy> strategyList = strategyDao.selectAll();
+        List<StrategyAward> strategyAwardList = strategyAwardDao.queryStrategyAwardList();
+
+        Map<Long, List<StrategyAwardEntity>> strategyAwardMap = new TreeMap<>();
+        for (Strategy strategy : strategyList) {
+            strategyAwardMap.put(strategy.getStrategyId(), new ArrayList<>());
+        }
+        // 奖品已按策略ID、排序值排好序，分组后保持原顺序
+        for (StrategyAward strategyAward : strategyAwardList) {
+            strategyAwardMap.computeIfAbsent(strategyAward.getStrategyId(), strategyId -> new ArrayList<>())
+                    .add(StrategyAwardMapper.toEntity(strategyAward));
         }
+
+        log.info("查询全部策略奖品完成，策略数：{}，奖品数：{}，耗时：{}ms",
+                strategyAwardMap.size(), strategyAwardList.size(), System.currentTimeMillis() - startTime);
+        return strategyAwardMap;
+    }
+
+    @Override
+    public void storeStrategyAwardSearchRateTable(Long strategyId, int[] strategyAwardSearchRateTable) {
+        storeVersionedSearchRateTable(strategyId, null, strategyAwardSearchRateTable);
     }
 
     @Override
     public int getRateRange(Long strategyId) {
-        String cacheKey = Constants.Redis.getStrategyRateRangeKey(strategyId);
-        Integer value = redisService.get(cacheKey);
-        return value != null ? value : 0;
+        StrategyRateTableSnapshotVO snapshot = queryStrategyRateTableSnapshot(strategyId, null);
+        return snapshot != null ? snapshot.getRateRange() : 0;
     }
 
     @Override
     public Integer getStrategyAwardAssemble(Long strategyId, Integer rateKey) {
-        String cacheKey = Constants.Redis.getStrategyAwardAssembleKey(strategyId, rateKey);
-        Integer value = redisService.get(cacheKey);
-        return value;
+        StrategyRateTableSnapshotVO snapshot = queryStrategyRateTableSnapshot(strategyId, null);
+        return snapshot != null ? getStrategyAwardAssemble(snapshot, rateKey) : null;
+    }
+
+    @Override
+    public StrategyEntity queryStrategyEntity(Long strategyId) {
+        String cacheKey = Constants.Redis.getStrategyKey(strategyId);
+        return loadOnCacheMiss(cacheKey, () -> redisService.get(cacheKey, StrategyEntity.class), () -> {
+            Strategy strategy = strategyDao.selectByStrategyId(strategyId);
+            if (null == strategy) {
+                return null;
+            }
+
+            StrategyEntity strategyEntity = StrategyEntity.builder()
+                    .strategyId(strategy.getStrategyId())
+                    .strategyDesc(strategy.getStrategyDesc())
+                    .ruleModels(strategy.getRuleModel())
+                    .build();
+            redisService.set(cacheKey, strategyEntity);
+            return strategyEntity;
+        });
     }
 
     @Override
     public StrategyRuleEntity queryStrategyRule(Long strategyId, String ruleModel) {
+        return strategyNearCache.getStrategyRule(strategyId, ruleModel,
+                () -> strategyRuleFlight.execute(Constants.Redis.getStrategyRuleKey(strategyId, ruleModel), () -> loadStrategyRule(strategyId, ruleModel)));
+    }
+
+    /**
+     * 近端缓存未命中时回源：先读 Redis，再持回源锁读数据库
+     */
+    private StrategyRuleEntity loadStrategyRule(Long strategyId, String ruleModel) {
         String cacheKey = Constants.Redis.getStrategyRuleKey(strategyId, ruleModel);
-        StrategyRuleEntity strategyRuleEntity = redisService.get(cacheKey, StrategyRuleEntity.class);
-        if (null != strategyRuleEntity) {
+        return loadOnCacheMiss(cacheKey, () -> redisService.get(cacheKey, RedisCodecs.STRATEGY_RULE), () -> {
+            StrategyRule strategyRule = strategyRuleDao.selectByStrategyIdAndRuleModel(strategyId, ruleModel);
+            if (null == strategyRule) {
+                return null;
+            }
+
+            StrategyRuleEntity strategyRuleEntity = convertToEntity(strategyRule);
+            redisService.set(cacheKey, strategyRuleEntity, RedisCodecs.STRATEGY_RULE);
             return strategyRuleEntity;
+        });
+    }
+
+    @Override
+    public StrategyRuleEntity queryStrategyAwardRule(Long strategyId, Integer awardId, String ruleModel) {
+        String cacheKey = Constants.Redis.getStrategyAwardRuleKey(strategyId, awardId, ruleModel);
+        return strategyNearCache.getStrategyAwardRule(strategyId, awardId, ruleModel,
+                () -> strategyRuleFlight.execute(cacheKey, () -> loadOnCacheMiss(cacheKey, () -> redisService.get(cacheKey, RedisCodecs.STRATEGY_RULE), () -> {
+                    StrategyRule strategyRule = strategyRuleDao.selectByStrategyIdAwardIdAndRuleModel(strategyId, awardId, ruleModel);
+                    if (null == strategyRule) {
+                        return null;
+                    }
+
+                    StrategyRuleEntity strategyRuleEntity = convertToEntity(strategyRule);
+                    redisService.set(cacheKey, strategyRuleEntity, RedisCodecs.STRATEGY_RULE);
+                    return strategyRuleEntity;
+                })));
+    }
+
+    @Override
+    public void storeStrategyAwardStock(Long strategyId, List<StrategyAwardEntity> strategyAwardEntities) {
+        int preloaded = 0;
+        for (StrategyAwardEntity strategyAward : strategyAwardEntities) {
+            Integer surplus = strategyAward.getAwardCountSurplus();
+            if (null == surplus) {
+                continue;
+            }
+            // 仅在计数不存在时写入：重新装配不会把已扣减的库存重置回数据库中的余量
+            if (redisService.setIfAbsent(Constants.Redis.getStrategyAwardStockKey(strategyId, strategyAward.getAwardId()), Math.max(0, surplus))) {
+                preloaded++;
+            }
         }
-        
-        StrategyRule strategyRule = strategyRuleDao.selectByStrategyIdAndRuleModel(strategyId, ruleModel);
-        if (null == strategyRule) {
-            return null;
+        log.info("策略奖品库存已预热，策略ID：{}，奖品数：{}，新写入：{}", strategyId, strategyAwardEntities.size(), preloaded);
+    }
+
+    @Override
+    public long subtractStrategyAwardStock(Long strategyId, Integer awardId) {
+        List<Object> keys = Arrays.asList(Constants.Redis.getStrategyAwardStockKey(strategyId, awardId), Constants.Redis.STRATEGY_AWARD_STOCK_QUEUE_KEY);
+        String deduction = strategyId + "#" + awardId + "#" + System.currentTimeMillis();
+        Long surplus = awardStockDeductScript.evalSha(redisService, RScript.ReturnType.INTEGER, keys, deduction, String.valueOf(stockQueueCapacity));
+        return toStockSurplus(strategyId, awardId, surplus);
+    }
+
+    @Override
+    public CompletableFuture<Long> subtractStrategyAwardStockAsync(Long strategyId, Integer awardId) {
+        List<Object> keys = Arrays.asList(Constants.Redis.getStrategyAwardStockKey(strategyId, awardId), Constants.Redis.STRATEGY_AWARD_STOCK_QUEUE_KEY);
+        String deduction = strategyId + "#" + awardId + "#" + System.currentTimeMillis();
+        CompletableFuture<Long> future = awardStockDeductScript.evalShaAsync(redisService, RScript.ReturnType.INTEGER, keys, deduction, String.valueOf(stockQueueCapacity));
+        return future.thenApply(surplus -> toStockSurplus(strategyId, awardId, surplus));
+    }
+
+    /**
+     * 转换库存扣减脚本的返回值：-2 计数不存在、-3 回写队列已满，均按售罄返回-1
+     */
+    private long toStockSurplus(Long strategyId, Integer awardId, Long surplus) {
+        if (null == surplus || surplus == -2L) {
+            // 计数缺失时按售罄处理，宁可少发不可超发
+            log.warn("奖品库存计数不存在，按售罄处理，策略ID：{}，奖品ID：{}", strategyId, awardId);
+            return -1L;
         }
-        
-        strategyRuleEntity = convertToEntity(strategyRule);
-        redisService.set(cacheKey, strategyRuleEntity);
-        return strategyRuleEntity;
+        if (surplus == -3L) {
+            log.warn("库存回写队列已满，拒绝扣减，策略ID：{}，奖品ID：{}，队列容量：{}", strategyId, awardId, stockQueueCapacity);
+            return -1L;
+        }
+        return surplus;
     }
 
     @Override
-    public void storeStrategyAwardSearchRateTableByWeight(Long strategyId, String ruleWeightValue, Integer rateRange, Map<Integer, Integer> strategyAwardSearchRateTable) {
-        // 1. 存储权重策略概率范围
-        String rangeKey = Constants.Redis.getStrategyRateRangeKeyByWeight(strategyId, ruleWeightValue);
-        redisService.set(rangeKey, rateRange);
-        log.info("权重策略概率范围已缓存，策略ID：{}，范围：{},rangeKey: {}", strategyId, rateRange, rangeKey);
-        
-        // 2. 存储权重策略奖品查找表
-        strategyAwardSearchRateTable.forEach((rateKey, awardId) -> {
-            String assembleKey = Constants.Redis.getStrategyAwardAssembleKeyByWeight(strategyId, ruleWeightValue, rateKey);
-            redisService.set(assembleKey, awardId);
-        });
+    public long queryStrategyAwardStock(Long strategyId, Integer awardId) {
+        Integer surplus = redisService.get(Constants.Redis.getStrategyAwardStockKey(strategyId, awardId), Integer.class);
+        return null == surplus ? -1L : surplus;
+    }
+
+    @Override
+    public boolean tryLockStrategyAwardStockFlush() {
+        try {
+            // 不指定租期，由看门狗续期；持锁节点异常退出时锁在看门狗超时后自动释放
+            return redisService.getLock(Constants.Redis.STRATEGY_AWARD_STOCK_FLUSH_LOCK_KEY).tryLock(0, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void unlockStrategyAwardStockFlush() {
+        RLock lock = redisService.getLock(Constants.Redis.STRATEGY_AWARD_STOCK_FLUSH_LOCK_KEY);
+        if (lock.isHeldByCurrentThread()) {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public StrategyAwardStockFlushBatchVO takeStrategyAwardStockDeductions(int maxCount) {
+        // 第一个元素为批次ID：新领取的批次使用本次生成的ID，重新领取的批次沿用上次的ID
+        List<Object> records = awardStockTakeScript.evalSha(redisService, RScript.ReturnType.MULTI,
+                Arrays.asList(Constants.Redis.STRATEGY_AWARD_STOCK_QUEUE_KEY, Constants.Redis.STRATEGY_AWARD_STOCK_PROCESSING_KEY,
+                        Constants.Redis.STRATEGY_AWARD_STOCK_FLUSH_ID_KEY),
+                String.valueOf(maxCount), UUID.randomUUID().toString().replace("-", ""));
+        if (null == records || records.isEmpty()) {
+            return StrategyAwardStockFlushBatchVO.builder().deductions(Collections.emptyList()).build();
+        }
+        List<StrategyAwardStockDeductionVO> deductions = new ArrayList<>(records.size() - 1);
+        for (Object record : records.subList(1, records.size())) {
+            deductions.add(parseStockDeduction(String.valueOf(record)));
+        }
+        return StrategyAwardStockFlushBatchVO.builder()
+                .flushId(String.valueOf(records.get(0)))
+                .deductions(deductions)
+                .build();
+    }
+
+    @Override
+    public boolean updateStrategyAwardStockSurplus(String flushId, List<StrategyAwardStockDeductionVO> deductions) {
+        List<StrategyAwardStockDeduct> deducts = new ArrayList<>(deductions.size());
+        for (StrategyAwardStockDeductionVO deduction : deductions) {
+            StrategyAwardStockDeduct deduct = new StrategyAwardStockDeduct();
+            deduct.setStrategyId(deduction.getStrategyId());
+            deduct.setAwardId(deduction.getAwardId());
+            deduct.setQuantity(deduction.getQuantity());
+            deducts.add(deduct);
+        }
+        StrategyAwardStockFlush flush = new StrategyAwardStockFlush();
+        flush.setFlushId(flushId);
+        flush.setDeductCount(deducts.size());
+        // 批次记录与扣减在同一事务内：批次已存在说明上次回写已提交、只是未确认，不再重复扣减
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (strategyAwardStockFlushDao.insertIgnore(flush) == 0) {
+                return false;
+            }
+            int updated = strategyAwardDao.updateAwardCountSurplusDeductBatch(deducts);
+            if (updated != deducts.size()) {
+                log.warn("奖品库存回写数据库时部分奖品不存在，回写奖品数：{}，更新行数：{}", deducts.size(), updated);
+            }
+            return true;
+        }));
+    }
+
+    @Override
+    public void ackStrategyAwardStockDeductions() {
+        redisService.delete(Constants.Redis.STRATEGY_AWARD_STOCK_PROCESSING_KEY);
+        redisService.delete(Constants.Redis.STRATEGY_AWARD_STOCK_FLUSH_ID_KEY);
+    }
+
+    @Override
+    public StrategyAwardStockFlushLagEntity queryStrategyAwardStockFlushLag() {
+        List<Object> lag = awardStockLagScript.evalSha(redisService, RScript.ReturnType.MULTI,
+                Arrays.asList(Constants.Redis.STRATEGY_AWARD_STOCK_QUEUE_KEY, Constants.Redis.STRATEGY_AWARD_STOCK_PROCESSING_KEY));
+        String oldest = String.valueOf(lag.get(2));
+        return StrategyAwardStockFlushLagEntity.builder()
+                .pendingCount(((Number) lag.get(0)).longValue())
+                .inFlightCount(((Number) lag.get(1)).longValue())
+                .oldestDeductTime(oldest.isEmpty() ? 0 : parseStockDeduction(oldest).getDeductTime())
+                .build();
+    }
+
+    /**
+     * 解析回写队列中的扣减记录 {strategyId}#{awardId}#{扣减时间毫秒}
+     */
+    private static StrategyAwardStockDeductionVO parseStockDeduction(String record) {
+        String[] parts = record.split("#");
+        return StrategyAwardStockDeductionVO.builder()
+                .strategyId(Long.valueOf(parts[0]))
+                .awardId(Integer.valueOf(parts[1]))
+                .quantity(1)
+                .deductTime(Long.parseLong(parts[2]))
+                .build();
+    }
+
+    @Override
+    public long storeStrategyBlacklist(Long strategyId, Collection<String> userIds) {
+        long startTime = System.currentTimeMillis();
+        long version = redisService.increment(Constants.Redis.getStrategyBlacklistSeqKey(strategyId));
+        String bloomKey = Constants.Redis.getStrategyBlacklistBloomKey(strategyId, version);
+        String blacklistKey = Constants.Redis.getStrategyBlacklistKey(strategyId, version);
+
+        // 1. 新版本布隆过滤器与精确集合分批写入，此时尚未生效；预期元素数包含黑名单用户表中的用户
+        long tableUsers = strategyBlacklistDao.countByStrategyId(strategyId);
+        RBloomFilter<String> bloomFilter = redisService.getBloomFilter(bloomKey);
+        bloomFilter.tryInit(Math.max(blacklistExpectedInsertionsMin, userIds.size() + tableUsers), blacklistFalseProbability);
+        int chunkSize = Math.max(1, blacklistStoreChunkSize);
+        List<String> chunk = new ArrayList<>(Math.min(chunkSize, userIds.size()));
+        for (String userId : userIds) {
+            chunk.add(userId);
+            if (chunk.size() == chunkSize) {
+                storeBlacklistChunk(bloomFilter, blacklistKey, chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            storeBlacklistChunk(bloomFilter, blacklistKey, chunk);
+        }
+        long stored = userIds.size() + storeTableBlacklist(strategyId, bloomFilter, blacklistKey, chunkSize);
+
+        // 2. 原子切换版本，检查方读取版本后只访问该版本的过滤器与集合
+        Number previous = redisService.getAndSet(Constants.Redis.getStrategyBlacklistVersionKey(strategyId), version);
+
+        // 3. 延迟回收上一版本
+        if (null != previous) {
+            scheduleCollectBlacklist(strategyId, previous.longValue());
+        }
+
+        log.info("策略黑名单已切换版本，策略ID：{}，版本：{} -> {}，用户数：{}，位数：{}，哈希次数：{}，预期误判率：{}，耗时：{}ms",
+                strategyId, previous, version, stored, bloomFilter.getSize(), bloomFilter.getHashIterations(),
+                blacklistFalseProbability, System.currentTimeMillis() - startTime);
+        return stored;
+    }
+
+    /**
+     * 按主键分页读取黑名单用户表，每页作为一批写入，名单较大时不一次载入内存
+     * @return 写入的用户数
+     */
+    private long storeTableBlacklist(Long strategyId, RBloomFilter<String> bloomFilter, String blacklistKey, int chunkSize) {
+        long stored = 0;
+        long lastId = 0;
+        while (true) {
+            List<StrategyBlacklist> page = strategyBlacklistDao.queryPageByStrategyId(strategyId, lastId, chunkSize);
+            if (page.isEmpty()) {
+                return stored;
+            }
+            List<String> chunk = new ArrayList<>(page.size());
+            for (StrategyBlacklist strategyBlacklist : page) {
+                chunk.add(strategyBlacklist.getUserId());
+            }
+            storeBlacklistChunk(bloomFilter, blacklistKey, chunk);
+            stored += chunk.size();
+            if (page.size() < chunkSize) {
+                return stored;
+            }
+            lastId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private void storeBlacklistChunk(RBloomFilter<String> bloomFilter, String blacklistKey, List<String> chunk) {
+        bloomFilter.add(chunk);
+        redisService.sAdd(blacklistKey, chunk.toArray());
+    }
+
+    @Override
+    public boolean isStrategyBlacklisted(Long strategyId, String userId) {
+        Long version = queryStrategyBlacklistVersion(strategyId);
+        return null != version && isStrategyBlacklisted(strategyId, version, userId);
+    }
+
+    @Override
+    public Long queryStrategyBlacklistVersion(Long strategyId) {
+        Number version = redisService.get(Constants.Redis.getStrategyBlacklistVersionKey(strategyId));
+        return null == version ? null : version.longValue();
+    }
+
+    @Override
+    public boolean isStrategyBlacklisted(Long strategyId, long version, String userId) {
+        long startTime = System.nanoTime();
+        BlacklistCounter counter = blacklistCounters.computeIfAbsent(strategyId, id -> new BlacklistCounter());
+        try {
+            // 布隆过滤器不存在误漏，未命中即可确定不在黑名单，绝大多数检查在此返回
+            String bloomKey = Constants.Redis.getStrategyBlacklistBloomKey(strategyId, version);
+            RBloomFilter<String> bloomFilter = blacklistBloomFilters.computeIfAbsent(bloomKey, redisService::getBloomFilter);
+            if (!bloomFilter.contains(userId)) {
+                return false;
+            }
+            counter.bloomPositives.increment();
+
+            // 命中可能是误判，到精确集合中确认
+            boolean blacklisted = redisService.sIsMember(Constants.Redis.getStrategyBlacklistKey(strategyId, version), userId);
+            if (blacklisted) {
+                counter.confirmedPositives.increment();
+            }
+            return blacklisted;
+        } finally {
+            counter.checks.increment();
+            counter.checkNanos.add(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public StrategyBlacklistStatEntity queryStrategyBlacklistStat(Long strategyId) {
+        BlacklistCounter counter = blacklistCounters.getOrDefault(strategyId, new BlacklistCounter());
+        StrategyBlacklistStatEntity stat = StrategyBlacklistStatEntity.builder()
+                .strategyId(strategyId)
+                .checks(counter.checks.sum())
+                .bloomPositives(counter.bloomPositives.sum())
+                .confirmedPositives(counter.confirmedPositives.sum())
+                .checkNanos(counter.checkNanos.sum())
+                .build();
+        Number version = redisService.get(Constants.Redis.getStrategyBlacklistVersionKey(strategyId));
+        if (null == version) {
+            return stat;
+        }
+        RBloomFilter<String> bloomFilter = redisService.getBloomFilter(Constants.Redis.getStrategyBlacklistBloomKey(strategyId, version.longValue()));
+        stat.setVersion(version.longValue());
+        stat.setExpectedInsertions(bloomFilter.getExpectedInsertions());
+        stat.setFalseProbability(bloomFilter.getFalseProbability());
+        stat.setSize(bloomFilter.getSize());
+        stat.setHashIterations(bloomFilter.getHashIterations());
+        return stat;
+    }
+
+    private void scheduleCollectBlacklist(Long strategyId, long version) {
+        try {
+            rateTableCollector.schedule(() -> collectBlacklist(strategyId, version), tableGcDelay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("应用关闭中，跳过回收黑名单，策略ID：{}，版本：{}", strategyId, version);
+        }
+    }
+
+    /**
+     * 回收一个版本的黑名单布隆过滤器与精确集合
+     * @param strategyId 策略ID
+     * @param version 待回收版本
+     */
+    void collectBlacklist(Long strategyId, long version) {
+        String bloomKey = Constants.Redis.getStrategyBlacklistBloomKey(strategyId, version);
+        try {
+            blacklistBloomFilters.remove(bloomKey);
+            redisService.getBloomFilter(bloomKey).delete();
+            redisService.unlink(Constants.Redis.getStrategyBlacklistKey(strategyId, version));
+            log.info("黑名单旧版本已回收，策略ID：{}，版本：{}", strategyId, version);
+        } catch (Exception e) {
+            log.error("黑名单旧版本回收失败，策略ID：{}，版本：{}", strategyId, version, e);
+        }
+    }
+
+    /**
+     * 单个策略的黑名单检查计数
+     */
+    private static class BlacklistCounter {
+        private final LongAdder checks = new LongAdder();
+        private final LongAdder bloomPositives = new LongAdder();
+        private final LongAdder confirmedPositives = new LongAdder();
+        private final LongAdder checkNanos = new LongAdder();
+    }
+
+    @Override
+    public void storeStrategyAwardSearchRateTableByWeight(Long strategyId, String ruleWeightValue, int[] strategyAwardSearchRateTable) {
+        storeVersionedSearchRateTable(strategyId, ruleWeightValue, strategyAwardSearchRateTable);
     }
 
     @Override
     public int getRateRangeByWeight(Long strategyId, String ruleWeightValue) {
-        String cacheKey = Constants.Redis.getStrategyRateRangeKeyByWeight(strategyId, ruleWeightValue);
-        Integer value = redisService.get(cacheKey, Integer.class);
-        return value != null ? value : 0;
+        StrategyRateTableSnapshotVO snapshot = queryStrategyRateTableSnapshot(strategyId, ruleWeightValue);
+        return snapshot != null ? snapshot.getRateRange() : 0;
     }
 
     @Override
     public Integer getStrategyAwardAssembleByWeight(Long strategyId, String ruleWeightValue, Integer rateKey) {
-        String cacheKey = Constants.Redis.getStrategyAwardAssembleKeyByWeight(strategyId, ruleWeightValue, rateKey);
-        return redisService.get(cacheKey, Integer.class);
+        StrategyRateTableSnapshotVO snapshot = queryStrategyRateTableSnapshot(strategyId, ruleWeightValue);
+        return snapshot != null ? getStrategyAwardAssemble(snapshot, rateKey) : null;
+    }
+
+    @Override
+    public StrategyRateTableSnapshotVO queryStrategyRateTableSnapshot(Long strategyId, String ruleWeightValue) {
+        StrategyRateTableSnapshotVO snapshot = redisService.get(Constants.Redis.getStrategyRateTablePointerKey(strategyId, ruleWeightValue));
+        if (null != snapshot) {
+            return snapshot;
+        }
+
+        // 迁移期间，尚未按版本重新装配的策略读取旧的概率范围Key
+        return queryLegacySnapshot(strategyId, ruleWeightValue);
+    }
+
+    @Override
+    public Integer getStrategyAwardAssemble(StrategyRateTableSnapshotVO snapshot, Integer rateKey) {
+        return getSearchRateTableSlot(tableKeyOf(snapshot), slotKeyOf(snapshot, rateKey), rateKey);
+    }
+
+    @Override
+    public Map<Integer, Integer> getStrategyAwardAssembleBatch(StrategyRateTableSnapshotVO snapshot, Set<Integer> rateKeys) {
+        return getSearchRateTableSlots(tableKeyOf(snapshot), rateKeys, rateKey -> slotKeyOf(snapshot, rateKey));
+    }
+
+    @Override
+    public Integer drawStrategyAward(Long strategyId, String ruleWeightValue, double random) {
+        List<Object> keys = new ArrayList<>(4);
+        List<Object> values = new ArrayList<>(7);
+        addDrawScriptArgs(keys, values, strategyId, ruleWeightValue, random);
+
+        Long awardId = strategyDrawScript.evalSha(redisService, RScript.ReturnType.INTEGER, keys, values.toArray());
+        return null == awardId ? null : awardId.intValue();
+    }
+
+    @Override
+    public CompletableFuture<Integer> drawStrategyAwardAsync(Long strategyId, String ruleWeightValue, double random) {
+        List<Object> keys = new ArrayList<>(4);
+        List<Object> values = new ArrayList<>(7);
+        addDrawScriptArgs(keys, values, strategyId, ruleWeightValue, random);
+
+        CompletableFuture<Long> future = strategyDrawScript.evalShaAsync(redisService, RScript.ReturnType.INTEGER, keys, values.toArray());
+        return future.thenApply(awardId -> null == awardId ? null : awardId.intValue());
+    }
+
+    @Override
+    public StrategyDrawResultVO drawStrategyAwardAndCount(Long strategyId, String ruleWeightValue, double random, String userId) {
+        List<Object> keys = new ArrayList<>(5);
+        List<Object> values = new ArrayList<>(7);
+        addDrawScriptArgs(keys, values, strategyId, ruleWeightValue, random);
+        // 奇数个Key：最后一个为用户抽奖次数Key，抽中后脚本内 INCR
+        keys.add(Constants.Redis.getUserRaffleCountKey(strategyId, userId));
+
+        List<Object> result = strategyDrawScript.evalSha(redisService, RScript.ReturnType.MULTI, keys, values.toArray());
+        return toDrawResult(result);
+    }
+
+    @Override
+    public CompletableFuture<StrategyDrawResultVO> drawStrategyAwardAndCountAsync(Long strategyId, String ruleWeightValue, double random, String userId) {
+        List<Object> keys = new ArrayList<>(5);
+        List<Object> values = new ArrayList<>(7);
+        addDrawScriptArgs(keys, values, strategyId, ruleWeightValue, random);
+        keys.add(Constants.Redis.getUserRaffleCountKey(strategyId, userId));
+
+        CompletableFuture<List<Object>> future = strategyDrawScript.evalShaAsync(redisService, RScript.ReturnType.MULTI, keys, values.toArray());
+        return future.thenApply(this::toDrawResult);
+    }
+
+    /**
+     * 转换抽奖并计数脚本的返回值：[奖品ID, 含本次的抽奖次数]，未装配时为空
+     */
+    private StrategyDrawResultVO toDrawResult(List<Object> result) {
+        if (null == result || result.size() < 2) {
+            return StrategyDrawResultVO.builder().build();
+        }
+        return StrategyDrawResultVO.builder()
+                .awardId(((Number) result.get(0)).intValue())
+                .raffleCount(((Number) result.get(1)).longValue())
+                .build();
+    }
+
+    /**
+     * 组装抽奖脚本的Key与参数：权重档位在前、普通策略在后
+     */
+    private void addDrawScriptArgs(List<Object> keys, List<Object> values, Long strategyId, String ruleWeightValue, double random) {
+        values.add(String.valueOf(random));
+        values.add(tableLayout.name());
+        values.add(tableLayoutFallback ? "1" : "0");
+        if (null != ruleWeightValue) {
+            addDrawScriptTier(keys, values, strategyId, ruleWeightValue);
+        }
+        addDrawScriptTier(keys, values, strategyId, null);
+    }
+
+    /**
+     * 追加一个档位的脚本参数：版本指针Key、旧概率范围Key、旧查找表Hash Key、旧槽位Key前缀
+     */
+    private void addDrawScriptTier(List<Object> keys, List<Object> values, Long strategyId, String ruleWeightValue) {
+        keys.add(Constants.Redis.getStrategyRateTablePointerKey(strategyId, ruleWeightValue));
+        keys.add(null == ruleWeightValue
+                ? Constants.Redis.getStrategyRateRangeKey(strategyId)
+                : Constants.Redis.getStrategyRateRangeKeyByWeight(strategyId, ruleWeightValue));
+        values.add(Constants.Redis.getStrategyAwardAssembleTableKey(strategyId, ruleWeightValue, StrategyRateTableSnapshotVO.LEGACY_VERSION));
+        values.add(Constants.Redis.getStrategyAwardAssembleKeyPrefix(strategyId, ruleWeightValue));
+    }
+
+    @Override
+    public int[] queryStrategyAwardSearchRateTable(Long strategyId) {
+        return querySearchRateTable(queryStrategyRateTableSnapshot(strategyId, null));
+    }
+
+    @Override
+    public int[] queryStrategyAwardSearchRateTableByWeight(Long strategyId, String ruleWeightValue) {
+        return querySearchRateTable(queryStrategyRateTableSnapshot(strategyId, ruleWeightValue));
+    }
+
+    @Override
+    public long increaseUserRaffleCount(Long strategyId, String userId, long delta) {
+        return redisService.increment(Constants.Redis.getUserRaffleCountKey(strategyId, userId), delta);
+    }
+
+    @Override
+    public Map<String, Long> increaseUserRaffleCounts(Long strategyId, Map<String, Long> deltas) {
+        Map<String, Long> keyDeltas = new HashMap<>(deltas.size() * 4 / 3 + 1);
+        deltas.forEach((userId, delta) -> keyDeltas.put(Constants.Redis.getUserRaffleCountKey(strategyId, userId), delta));
+        Map<String, Long> keyCounts = redisService.incrementBatch(keyDeltas);
+
+        Map<String, Long> counts = new HashMap<>(deltas.size() * 4 / 3 + 1);
+        for (String userId : deltas.keySet()) {
+            counts.put(userId, keyCounts.get(Constants.Redis.getUserRaffleCountKey(strategyId, userId)));
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> queryUserRaffleCounts(Long strategyId, List<String> userIds) {
+        List<String> keys = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            keys.add(Constants.Redis.getUserRaffleCountKey(strategyId, userId));
+        }
+        Map<String, Long> keyCounts = redisService.getAtomicLongBatch(keys);
+
+        Map<String, Long> counts = new HashMap<>(userIds.size() * 4 / 3 + 1);
+        for (int i = 0; i < userIds.size(); i++) {
+            Long count = keyCounts.get(keys.get(i));
+            counts.put(userIds.get(i), null == count ? 0L : count);
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> increaseRateLimitWindow(Map<String, Long> deltas, long windowMillis, int windowSlots) {
+        long slotMillis = Math.max(1L, windowMillis / windowSlots);
+        long slot = System.currentTimeMillis() / slotMillis;
+
+        // 1. 新增请求数累加到当前分片，分片在窗口滑过后过期
+        Map<String, Long> slotDeltas = new HashMap<>(deltas.size() * 4 / 3 + 1);
+        List<String> previousKeys = new ArrayList<>(deltas.size() * (windowSlots - 1));
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            slotDeltas.put(Constants.Redis.getRateLimitWindowKey(entry.getKey(), slot), entry.getValue());
+            for (int i = 1; i < windowSlots; i++) {
+                previousKeys.add(Constants.Redis.getRateLimitWindowKey(entry.getKey(), slot - i));
+            }
+        }
+        Map<String, Long> currentCounts = redisService.incrementBatch(slotDeltas, Duration.ofMillis(windowMillis + slotMillis));
+
+        // 2. 读取窗口内其余分片，求和得到窗口请求总数
+        Map<String, Long> previousCounts = previousKeys.isEmpty() ? Collections.emptyMap() : redisService.getAtomicLongBatch(previousKeys);
+        Map<String, Long> windowCounts = new HashMap<>(deltas.size() * 4 / 3 + 1);
+        for (String limiterKey : deltas.keySet()) {
+            long count = currentCounts.getOrDefault(Constants.Redis.getRateLimitWindowKey(limiterKey, slot), 0L);
+            for (int i = 1; i < windowSlots; i++) {
+                count += previousCounts.getOrDefault(Constants.Redis.getRateLimitWindowKey(limiterKey, slot - i), 0L);
+            }
+            windowCounts.put(limiterKey, count);
+        }
+        return windowCounts;
+    }
+
+    @Override
+    public long queryStrategyArmoryVersion(Long strategyId) {
+        return redisService.getAtomicLong(Constants.Redis.getStrategyArmoryVersionKey(strategyId));
+    }
+
+    @Override
+    public long increaseStrategyArmoryVersion(Long strategyId) {
+        long version = redisService.increment(Constants.Redis.getStrategyArmoryVersionKey(strategyId));
+        log.info("策略装配版本号已更新，策略ID：{}，版本号：{}", strategyId, version);
+        return version;
+    }
+
+    @Override
+    public void storeStrategyAwardAliasTable(Long strategyId, StrategyAwardAliasTableVO aliasTable) {
+        redisService.set(Constants.Redis.getStrategyAwardAliasTableKey(strategyId), aliasTable);
+    }
+
+    @Override
+    public void storeStrategyAwardAliasTableByWeight(Long strategyId, String ruleWeightValue, StrategyAwardAliasTableVO aliasTable) {
+        redisService.set(Constants.Redis.getStrategyAwardAliasTableKeyByWeight(strategyId, ruleWeightValue), aliasTable);
+    }
+
+    @Override
+    public StrategyAwardAliasTableVO queryStrategyAwardAliasTable(Long strategyId) {
+        return redisService.get(Constants.Redis.getStrategyAwardAliasTableKey(strategyId));
+    }
+
+    @Override
+    public StrategyAwardAliasTableVO queryStrategyAwardAliasTableByWeight(Long strategyId, String ruleWeightValue) {
+        return redisService.get(Constants.Redis.getStrategyAwardAliasTableKeyByWeight(strategyId, ruleWeightValue));
+    }
+
+    /**
+     * 版本化装配：新表写入新版本的Key，写完后用 GETSET 原子切换版本指针，再延迟异步回收上一版本
+     * 切换前抽奖读取旧版本，切换后读取新版本，不会读到新旧混合的数据，装配过程也不修改正在被读取的Key
+     * @param strategyId 策略ID
+     * @param ruleWeightValue 权重规则值，普通策略传null
+     * @param strategyAwardSearchRateTable 查找表，下标 i 对应槽位 i + 1
+     */
+    private void storeVersionedSearchRateTable(Long strategyId, String ruleWeightValue, int[] strategyAwardSearchRateTable) {
+        long startTime = System.currentTimeMillis();
+        StrategyRateTableSnapshotVO snapshot = StrategyRateTableSnapshotVO.builder()
+                .strategyId(strategyId)
+                .ruleWeightValue(ruleWeightValue)
+                .version(redisService.increment(Constants.Redis.getStrategyRateTableSeqKey(strategyId)))
+                .rateRange(strategyAwardSearchRateTable.length)
+                .build();
+
+        // 1. 新版本查找表，此时尚未生效
+        int entries = storeSearchRateTable(tableKeyOf(snapshot), strategyAwardSearchRateTable, rateKey -> slotKeyOf(snapshot, rateKey));
+
+        // 2. 原子切换版本指针；首次按版本装配时，上一版本为旧Key中的查找表
+        StrategyRateTableSnapshotVO previous = redisService.getAndSet(Constants.Redis.getStrategyRateTablePointerKey(strategyId, ruleWeightValue), snapshot);
+        if (null == previous) {
+            previous = queryLegacySnapshot(strategyId, ruleWeightValue);
+        }
+
+        // 3. 延迟回收上一版本，留出时间让已读取旧快照的抽奖完成
+        if (null != previous) {
+            scheduleCollectRateTable(previous);
+        }
+
+        log.info("策略奖品查找表已切换版本，策略ID：{}，权重值：{}，版本：{} -> {}，范围：{}，布局：{}，写入条目数：{}，耗时：{}ms",
+                strategyId, ruleWeightValue, null == previous ? null : previous.getVersion(), snapshot.getVersion(),
+                snapshot.getRateRange(), tableLayout, entries, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 直接读取旧的概率范围Key，不经过版本指针；首次按版本装配切换指针后仍能定位旧Key中的查找表
+     * @return 旧Key中的查找表，不存在时返回null
+     */
+    private StrategyRateTableSnapshotVO queryLegacySnapshot(Long strategyId, String ruleWeightValue) {
+        String rangeKey = null == ruleWeightValue
+                ? Constants.Redis.getStrategyRateRangeKey(strategyId)
+                : Constants.Redis.getStrategyRateRangeKeyByWeight(strategyId, ruleWeightValue);
+        Integer rateRange = redisService.get(rangeKey, RedisCodecs.RATE_SLOT);
+        if (null == rateRange || rateRange <= 0) {
+            return null;
+        }
+        return StrategyRateTableSnapshotVO.builder()
+                .strategyId(strategyId)
+                .ruleWeightValue(ruleWeightValue)
+                .version(StrategyRateTableSnapshotVO.LEGACY_VERSION)
+                .rateRange(rateRange)
+                .build();
+    }
+
+    private void scheduleCollectRateTable(StrategyRateTableSnapshotVO snapshot) {
+        try {
+            rateTableCollector.schedule(() -> collectRateTable(snapshot), tableGcDelay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("应用关闭中，跳过回收查找表，策略ID：{}，权重值：{}，版本：{}", snapshot.getStrategyId(), snapshot.getRuleWeightValue(), snapshot.getVersion());
+        }
+    }
+
+    /**
+     * 分批回收一个版本的查找表：HASH布局分批 HDEL，KEY布局分批 UNLINK，两种布局都检查以兼容布局切换前写入的数据
+     * @param snapshot 待回收版本
+     */
+    void collectRateTable(StrategyRateTableSnapshotVO snapshot) {
+        long startTime = System.currentTimeMillis();
+        String tableKey = tableKeyOf(snapshot);
+        int rateRange = snapshot.getRateRange();
+        int chunkSize = Math.max(1, storeChunkSize);
+        long deleted = 0;
+        try {
+            boolean hashExists = redisService.exists(tableKey);
+            boolean slotExists = redisService.exists(slotKeyOf(snapshot, 1));
+            for (int from = 1; from <= rateRange; from += chunkSize) {
+                int to = Math.min(from + chunkSize - 1, rateRange);
+                if (hashExists) {
+                    String[] fields = new String[to - from + 1];
+                    for (int rateKey = from; rateKey <= to; rateKey++) {
+                        fields[rateKey - from] = String.valueOf(rateKey);
+                    }
+                    long removed = redisService.hDelete(tableKey, RedisCodecs.RATE_TABLE, fields);
+                    if (removed < fields.length) {
+                        // 编码调整前写入的查找表，field 为 JSON 编码的带引号字符串
+                        removed += redisService.hDelete(tableKey, fields);
+                    }
+                    deleted += removed;
+                }
+                if (slotExists) {
+                    String[] slotKeys = new String[to - from + 1];
+                    for (int rateKey = from; rateKey <= to; rateKey++) {
+                        slotKeys[rateKey - from] = slotKeyOf(snapshot, rateKey);
+                    }
+                    deleted += redisService.unlink(slotKeys);
+                }
+            }
+
+            // 旧Key中的查找表回收后，旧的概率范围Key一并删除
+            if (StrategyRateTableSnapshotVO.LEGACY_VERSION == snapshot.getVersion()) {
+                redisService.unlink(null == snapshot.getRuleWeightValue()
+                        ? Constants.Redis.getStrategyRateRangeKey(snapshot.getStrategyId())
+                        : Constants.Redis.getStrategyRateRangeKeyByWeight(snapshot.getStrategyId(), snapshot.getRuleWeightValue()));
+            }
+            log.info("查找表旧版本已回收，策略ID：{}，权重值：{}，版本：{}，回收条目数：{}，耗时：{}ms",
+                    snapshot.getStrategyId(), snapshot.getRuleWeightValue(), snapshot.getVersion(), deleted, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("查找表旧版本回收失败，策略ID：{}，权重值：{}，版本：{}", snapshot.getStrategyId(), snapshot.getRuleWeightValue(), snapshot.getVersion(), e);
+        }
+    }
+
+    private static String tableKeyOf(StrategyRateTableSnapshotVO snapshot) {
+        return Constants.Redis.getStrategyAwardAssembleTableKey(snapshot.getStrategyId(), snapshot.getRuleWeightValue(), snapshot.getVersion());
+    }
+
+    private static String slotKeyOf(StrategyRateTableSnapshotVO snapshot, int rateKey) {
+        return Constants.Redis.getStrategyAwardAssembleKey(snapshot.getStrategyId(), snapshot.getRuleWeightValue(), snapshot.getVersion(), rateKey);
+    }
+
+    /**
+     * 启动时加载抽奖与库存扣减脚本；Redis暂不可用时只记录告警，首次执行时再加载
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            strategyDrawScript.load(redisService);
+            awardStockDeductScript.load(redisService);
+            awardStockTakeScript.load(redisService);
+            awardStockLagScript.load(redisService);
+        } catch (Exception e) {
+            log.warn("Lua脚本加载失败，首次执行时重试：{}", e.getMessage());
+        }
+        try {
+            // 其它节点重新装配策略时清除本节点的近端缓存，本节点发布的通知同样会收到，重复清除无副作用
+            redisService.getTopic(Constants.Redis.STRATEGY_NEAR_CACHE_EVICT_TOPIC).addListener(String.class,
+                    (channel, strategyId) -> strategyNearCache.invalidateStrategy(Long.valueOf(strategyId)));
+        } catch (Exception e) {
+            log.warn("策略近端缓存失效通知订阅失败，近端缓存依赖过期刷新：{}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        rateTableCollector.shutdown();
+    }
+
+    /**
+     * 按当前布局分块写入查找表：每块只构造 storeChunkSize 个条目
+     * @param tableKey HASH布局的表Key
+     * @param strategyAwardSearchRateTable 查找表，下标 i 对应槽位 i + 1
+     * @param slotKeyFunction KEY布局下槽位到Key的映射
+     * @return 写入的条目数
+     */
+    private int storeSearchRateTable(String tableKey, int[] strategyAwardSearchRateTable, IntFunction<String> slotKeyFunction) {
+        boolean hashLayout = Constants.Redis.TableLayout.HASH == tableLayout;
+        int rateRange = strategyAwardSearchRateTable.length;
+        int chunkSize = Math.max(1, Math.min(storeChunkSize, rateRange));
+        Map<String, Object> chunk = new HashMap<>(chunkSize * 4 / 3 + 1);
+
+        int entries = 0;
+        for (int from = 0; from < rateRange; from += chunkSize) {
+            int to = Math.min(from + chunkSize, rateRange);
+            for (int i = from; i < to; i++) {
+                int rateKey = i + 1;
+                chunk.put(hashLayout ? String.valueOf(rateKey) : slotKeyFunction.apply(rateKey), strategyAwardSearchRateTable[i]);
+            }
+            if (hashLayout) {
+                redisService.hSetAll(tableKey, chunk, RedisCodecs.RATE_TABLE);
+                entries += chunk.size();
+            } else {
+                entries += redisService.setBatch(chunk, RedisCodecs.RATE_SLOT);
+            }
+            chunk.clear();
+        }
+        return entries;
+    }
+
+    /**
+     * 按当前布局读取查找表的一个槽位
+     * @param tableKey HASH布局的表Key
+     * @param slotKey KEY布局的槽位Key
+     * @param rateKey 槽位
+     * @return 奖品ID
+     */
+    private Integer getSearchRateTableSlot(String tableKey, String slotKey, Integer rateKey) {
+        if (Constants.Redis.TableLayout.HASH != tableLayout) {
+            return redisService.get(slotKey, RedisCodecs.RATE_SLOT);
+        }
+        String field = String.valueOf(rateKey);
+        Integer awardId = redisService.hGet(tableKey, field, RedisCodecs.RATE_TABLE);
+        if (awardId == null) {
+            // 编码调整前写入的查找表，field 为 JSON 编码的带引号字符串，重新装配后不再走到这里
+            awardId = redisService.hGet(tableKey, field);
+        }
+        if (awardId == null && tableLayoutFallback) {
+            // 迁移期间，尚未按新布局重新装配的策略仍从旧Key读取
+            awardId = redisService.get(slotKey, RedisCodecs.RATE_SLOT);
+        }
+        return awardId;
     }
     
+    /**
+     * 按当前布局批量读取槽位：HASH布局一次 HMGET，KEY布局一次 MGET
+     * @param tableKey HASH布局的表Key
+     * @param rateKeys 槽位
+     * @param slotKeyFunction KEY布局下槽位到Key的映射
+     * @return 槽位到奖品ID的映射，未命中的槽位不包含在结果中
+     */
+    private Map<Integer, Integer> getSearchRateTableSlots(String tableKey, Set<Integer> rateKeys, IntFunction<String> slotKeyFunction) {
+        Map<Integer, Integer> awardIds = new HashMap<>(rateKeys.size() * 4 / 3 + 1);
+        Set<Integer> missingRateKeys = rateKeys;
+        if (Constants.Redis.TableLayout.HASH == tableLayout) {
+            Set<String> fields = new HashSet<>(rateKeys.size() * 4 / 3 + 1);
+            for (Integer rateKey : rateKeys) {
+                fields.add(String.valueOf(rateKey));
+            }
+            Map<String, Integer> values = redisService.hMGet(tableKey, fields, RedisCodecs.RATE_TABLE);
+            if (values != null) {
+                values.forEach((field, awardId) -> awardIds.put(Integer.valueOf(field), awardId));
+            }
+            if (awardIds.isEmpty()) {
+                // 编码调整前写入的查找表，field 为 JSON 编码的带引号字符串
+                Map<String, Integer> legacyValues = redisService.hMGet(tableKey, fields);
+                if (legacyValues != null) {
+                    legacyValues.forEach((field, awardId) -> awardIds.put(Integer.valueOf(field), awardId));
+                }
+            }
+            if (awardIds.size() == rateKeys.size() || !tableLayoutFallback) {
+                return awardIds;
+            }
+            // 迁移期间，尚未按新布局重新装配的策略仍从旧Key读取
+            missingRateKeys = new HashSet<>(rateKeys);
+            missingRateKeys.removeAll(awardIds.keySet());
+        }
+
+        Map<String, Integer> slotKeys = new HashMap<>(missingRateKeys.size() * 4 / 3 + 1);
+        for (Integer rateKey : missingRateKeys) {
+            slotKeys.put(slotKeyFunction.apply(rateKey), rateKey);
+        }
+        Map<String, Integer> values = redisService.getBatch(new ArrayList<>(slotKeys.keySet()), RedisCodecs.RATE_SLOT);
+        if (values != null) {
+            values.forEach((slotKey, awardId) -> awardIds.put(slotKeys.get(slotKey), awardId));
+        }
+        return awardIds;
+    }
+
+    /**
+     * 按当前布局读取快照版本的整张查找表
+     * @param snapshot 查找表快照
+     * @return 查找表，下标 i 对应槽位 i + 1；未装配或数据不完整时返回null
+     */
+    private int[] querySearchRateTable(StrategyRateTableSnapshotVO snapshot) {
+        if (null == snapshot || snapshot.getRateRange() <= 0) {
+            return null;
+        }
+        int rateRange = snapshot.getRateRange();
+        String tableKey = tableKeyOf(snapshot);
+
+        if (Constants.Redis.TableLayout.HASH == tableLayout) {
+            Map<String, Object> fields = redisService.hGetAll(tableKey, RedisCodecs.RATE_TABLE);
+            if (fields != null && !fields.isEmpty() && !fields.containsKey("1")) {
+                // 编码调整前写入的查找表，field 为 JSON 编码的带引号字符串
+                fields = redisService.hGetAll(tableKey);
+            }
+            if (fields != null && !fields.isEmpty()) {
+                int[] table = new int[rateRange];
+                for (int rateKey = 1; rateKey <= rateRange; rateKey++) {
+                    Object awardId = fields.get(String.valueOf(rateKey));
+                    if (awardId == null) {
+                        log.warn("策略奖品查找表不完整，key：{}，缺失槽位：{}", tableKey, rateKey);
+                        return null;
+                    }
+                    table[rateKey - 1] = ((Number) awardId).intValue();
+                }
+                return table;
+            }
+            if (!tableLayoutFallback) {
+                return null;
+            }
+        }
+
+        List<String> slotKeys = new ArrayList<>(rateRange);
+        for (int rateKey = 1; rateKey <= rateRange; rateKey++) {
+            slotKeys.add(slotKeyOf(snapshot, rateKey));
+        }
+        Map<String, Integer> slots = redisService.getBatch(slotKeys, RedisCodecs.RATE_SLOT);
+        if (slots == null || slots.size() < rateRange) {
+            return null;
+        }
+        int[] table = new int[rateRange];
+        for (int i = 0; i < rateRange; i++) {
+            table[i] = slots.get(slotKeys.get(i));
+        }
+        return table;
+    }
+
+    /**
+     * Redis 未命中时，各节点争用短时回源锁：持锁节点再次检查 Redis 后查询数据库并回写，
+     * 其余节点等锁期间由持锁节点回写完成，拿到锁后再次检查 Redis 即可命中
+     * 等锁超时或被中断时降级为直接查询数据库，保证请求可用
+     * 按 Key 归类记录 Redis 首次命中、等锁后命中、查询数据库的次数与回源耗时
+     * @param cacheKey 缓存Key
+     * @param cacheReader 读取 Redis，未命中返回 null
+     * @param sourceLoader 查询数据库并回写 Redis
+     * @return 加载结果
+     */
+    private <T> T loadOnCacheMiss(String cacheKey, Supplier<T> cacheReader, Supplier<T> sourceLoader) {
+        String family = RedisKeyFamily.of(cacheKey);
+        T value = cacheReader.get();
+        if (null != value) {
+            countCacheLoad(family, "redis_hit");
+            return value;
+        }
+
+        RLock lock = redisService.getLock(Constants.Redis.getCacheLoadLockKey(cacheKey));
+        boolean locked = false;
+        try {
+            locked = lock.tryLock(loadLockWait, loadLockLease, TimeUnit.MILLISECONDS);
+            if (!locked) {
+                log.warn("等待缓存回源锁超时，直接查询数据库，key：{}", cacheKey);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("等待缓存回源锁被中断，直接查询数据库，key：{}", cacheKey);
+        }
+
+        try {
+            // 双重检查：等锁期间其他节点可能已回写
+            value = cacheReader.get();
+            if (null != value) {
+                countCacheLoad(family, "redis_hit_after_lock");
+                return value;
+            }
+            countCacheLoad(family, "db");
+            return meterRegistry.timer("strategy.repository.load", "family", family).record(sourceLoader);
+        } finally {
+            if (locked && lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void countCacheLoad(String family, String result) {
+        meterRegistry.counter("strategy.repository.cache", "family", family, "result", result).increment();
+    }
+
     /**
      * 转换PO为Entity
      */
@@ -0,0 +1,21 @@
+-- 奖品库存扣减：检查余量与扣减在同一脚本内执行，Redis 单线程执行脚本，并发扣减不会超卖，也不会扣成负数
+-- 扣减成功时在同一脚本内把扣减记录追加到回写队列，扣减与入队要么都发生要么都不发生，数据库回写不丢不多
+-- KEYS[1] 奖品库存计数Key，装配时按剩余库存预热，值为JSON编码的数字
+-- KEYS[2] 回写队列Key
+-- ARGV[1] 扣减记录 {strategyId}#{awardId}#{扣减时间毫秒}
+-- ARGV[2] 回写队列容量，队列已满时拒绝扣减，避免数据库回写长时间落后时无限堆积
+-- 返回扣减后的剩余库存；已售罄返回-1，计数不存在返回-2，回写队列已满返回-3，均未发生扣减
+
+local stock = redis.call('GET', KEYS[1])
+if not stock then
+    return -2
+end
+if tonumber(stock) <= 0 then
+    return -1
+end
+if redis.call('LLEN', KEYS[2]) >= tonumber(ARGV[2]) then
+    return -3
+end
+local surplus = redis.call('DECR', KEYS[1])
+redis.call('RPUSH', KEYS[2], ARGV[1])
+return surplus
@@ -0,0 +1,9 @@
+-- 查询库存回写积压：一次往返读取两个队列的长度与最早一条未回写记录，结果为同一时刻的快照
+-- KEYS[1] 回写队列Key
+-- KEYS[2] 处理中队列Key
+-- 返回 {回写队列长度, 处理中队列长度, 最早一条未回写记录}，没有未回写记录时第三项为空串
+
+local pending = redis.call('LLEN', KEYS[1])
+local inFlight = redis.call('LLEN', KEYS[2])
+local oldest = redis.call('LINDEX', KEYS[2], 0) or redis.call('LINDEX', KEYS[1], 0) or ''
+return {pending, inFlight, oldest}
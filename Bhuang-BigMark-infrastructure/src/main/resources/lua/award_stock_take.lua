@@ -0,0 +1,29 @@
+-- 领取一批待回写的库存扣减记录：处理中队列为空时，从回写队列头部移动至多 ARGV[1] 条到处理中队列，并记录批次ID
+-- 处理中队列不为空说明上一批未确认（如进程在回写数据库后、确认前中断），直接返回上一批及其批次ID重新回写
+-- KEYS[1] 回写队列Key
+-- KEYS[2] 处理中队列Key
+-- KEYS[3] 处理中批次ID Key
+-- ARGV[1] 单批最大条数
+-- ARGV[2] 新批次ID
+-- 返回批次ID与处理中队列的全部记录，第一个元素为批次ID；没有待回写记录时返回空列表
+
+if redis.call('LLEN', KEYS[2]) == 0 then
+    local records = redis.call('LRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+    if #records == 0 then
+        return records
+    end
+    for _, record in ipairs(records) do
+        redis.call('RPUSH', KEYS[2], record)
+    end
+    redis.call('LTRIM', KEYS[1], #records, -1)
+    redis.call('SET', KEYS[3], ARGV[2])
+end
+local flushId = redis.call('GET', KEYS[3])
+if not flushId then
+    -- 处理中队列由未记录批次ID的旧版本领取
+    flushId = ARGV[2]
+    redis.call('SET', KEYS[3], flushId)
+end
+local records = redis.call('LRANGE', KEYS[2], 0, -1)
+table.insert(records, 1, flushId)
+return records
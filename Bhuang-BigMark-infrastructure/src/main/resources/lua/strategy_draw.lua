@@ -0,0 +1,71 @@
+-- 策略抽奖：一次往返在服务端完成 读取查找表快照 -> 按随机数定位槽位 -> 读取奖品ID，权重档位未装配时回退到普通策略
+-- KEYS 每个档位两个：版本指针Key、旧概率范围Key；权重抽奖时依次为权重档位、普通策略，普通抽奖只有普通策略
+-- KEYS 个数为奇数时最后一个为用户抽奖次数Key，抽中后在同一次往返内 INCR
+-- ARGV[1] 随机数，范围 [0, 1)，由调用方的随机源生成
+-- ARGV[2] 查找表布局 HASH / KEY
+-- ARGV[3] HASH布局未命中时是否回退读取槽位Key 1 / 0
+-- ARGV[4..] 每个档位两个：旧查找表Hash Key、旧槽位Key前缀；版本号大于0时分别追加 #v{version} 与 v{version}#
+-- 查找表Key与槽位Key在脚本内按版本号拼接，未在 KEYS 中声明：只能用于单节点 Redis（含主从、哨兵），
+-- Redis Cluster 或按 KEYS 路由的代理下不可用，strategy.armory.redis-single-node=false 时启动校验拒绝 script 引擎
+-- 返回奖品ID，未装配或槽位缺失时返回nil；带用户抽奖次数Key时返回 {奖品ID, 含本次的抽奖次数}，未抽中时返回空表且不计数
+-- 指针由客户端按JSON编码写入；奖品ID与概率范围为十进制整数，Hash field 为槽位号（编码调整前写入的为带引号的字符串）
+
+local random = tonumber(ARGV[1])
+local layout = ARGV[2]
+local layoutFallback = ARGV[3] == '1'
+
+local function snapshot(pointerKey, rangeKey)
+    local pointer = redis.call('GET', pointerKey)
+    if pointer then
+        local decoded = cjson.decode(pointer)
+        return tonumber(decoded['version']), tonumber(decoded['rateRange'])
+    end
+    -- 按版本装配之前写入的查找表，版本为0
+    local rateRange = redis.call('GET', rangeKey)
+    if rateRange then
+        return 0, tonumber(rateRange)
+    end
+    return 0, 0
+end
+
+local function slot(tableKey, slotKeyPrefix, version, rateKey)
+    if version > 0 then
+        tableKey = tableKey .. '#v' .. version
+        slotKeyPrefix = slotKeyPrefix .. 'v' .. version .. '#'
+    end
+    if layout == 'HASH' then
+        local awardId = redis.call('HGET', tableKey, rateKey)
+        if not awardId then
+            -- 编码调整前写入的查找表，field 为带引号的字符串
+            awardId = redis.call('HGET', tableKey, '"' .. rateKey .. '"')
+        end
+        if awardId or not layoutFallback then
+            return awardId
+        end
+    end
+    return redis.call('GET', slotKeyPrefix .. rateKey)
+end
+
+local function draw()
+    for tier = 1, math.floor(#KEYS / 2) do
+        local version, rateRange = snapshot(KEYS[tier * 2 - 1], KEYS[tier * 2])
+        if rateRange and rateRange > 0 then
+            local rateKey = math.floor(random * rateRange) + 1
+            local awardId = slot(ARGV[tier * 2 + 2], ARGV[tier * 2 + 3], version, rateKey)
+            if not awardId then
+                return nil
+            end
+            return tonumber(awardId)
+        end
+    end
+    return nil
+end
+
+local awardId = draw()
+if #KEYS % 2 == 0 then
+    return awardId
+end
+if not awardId then
+    return {}
+end
+return {awardId, redis.call('INCR', KEYS[#KEYS])}
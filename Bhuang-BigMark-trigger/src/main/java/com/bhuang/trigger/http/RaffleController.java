@@ -0,0 +1,108 @@
+package com.bhuang.trigger.http;
+
+import com.bhuang.domain.strategy.model.entity.RaffleAwardEntity;
+import com.bhuang.domain.strategy.model.entity.RaffleFactorEntity;
+import com.bhuang.domain.strategy.service.limit.IRaffleRateLimiter;
+import com.bhuang.domain.strategy.service.raffle.IStrategyRaffle;
+import com.bhuang.trigger.http.dto.RaffleAwardDTO;
+import com.bhuang.trigger.http.dto.RaffleRequestDTO;
+import com.bhuang.types.enums.ResponseCode;
+import com.bhuang.types.exception.AppException;
+import com.bhuang.types.model.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @author bhuang
+ * @description 抽奖接口 - 异步处理请求，返回 CompletableFuture 后 Servlet 线程立即释放，结果就绪时再写回应答
+ * 抽奖只经过完整规则链（黑名单、权重、rule_lock、库存扣减与用户计数），不对外暴露绕过规则的抽奖调度
+ * 规则链中的抽奖、计数与库存扣减均为非阻塞的 Redis 调用，Servlet 线程与抽奖线程池都不等待 Redis 响应
+ * 进入抽奖前先按策略与用户限流，被拒绝的请求不访问 Redis；用户ID必填，不能通过省略用户ID绕过用户限流
+ * @create 2025-06-14
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/raffle")
+public class RaffleController {
+
+    @Resource
+    private IStrategyRaffle strategyRaffle;
+
+    @Resource
+    private IRaffleRateLimiter raffleRateLimiter;
+
+    /**
+     * 按策略规则链抽奖：黑名单、权重、rule_lock 与库存扣减
+     * curl -X POST -H "Content-Type: application/json" -d '{"strategyId":100001,"userId":"user001","score":4500}' http://localhost:8091/api/v1/raffle/perform
+     */
+    @PostMapping("/perform")
+    public CompletableFuture<Response<RaffleAwardDTO>> perform(@RequestBody RaffleRequestDTO request) {
+        if (null == request.getStrategyId() || StringUtils.isBlank(request.getUserId())) {
+            return CompletableFuture.completedFuture(Response.failure(ResponseCode.ILLEGAL_PARAMETER));
+        }
+        if (!raffleRateLimiter.tryAcquire(request.getStrategyId(), request.getUserId())) {
+            return CompletableFuture.completedFuture(Response.failure(ResponseCode.RATE_LIMITED));
+        }
+        RaffleFactorEntity raffleFactor = RaffleFactorEntity.builder()
+                .strategyId(request.getStrategyId())
+                .userId(request.getUserId())
+                .score(request.getScore())
+                .build();
+        CompletableFuture<RaffleAwardEntity> future;
+        try {
+            future = strategyRaffle.performRaffleAsync(raffleFactor);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(failure(e));
+        }
+        return future.handle((raffleAward, throwable) -> null == throwable ? respond(raffleAward) : failure(throwable));
+    }
+
+    /**
+     * 把抽奖结果转换为应答：结果为null表示策略未装配；奖品ID为null表示奖品售罄且没有可发放的兜底奖品
+     */
+    private static Response<RaffleAwardDTO> respond(RaffleAwardEntity raffleAward) {
+        if (null == raffleAward) {
+            return Response.failure(ResponseCode.STRATEGY_NOT_ASSEMBLED);
+        }
+        if (null == raffleAward.getAwardId()) {
+            return Response.failure(ResponseCode.AWARD_SOLD_OUT);
+        }
+        return Response.success(toDTO(raffleAward));
+    }
+
+    /**
+     * 同步抛出与异步完成的异常统一转换为失败应答
+     */
+    private static <R> Response<R> failure(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && null != throwable.getCause() ? throwable.getCause() : throwable;
+        if (cause instanceof AppException) {
+            AppException e = (AppException) cause;
+            return Response.failure(e.getCode(), e.getInfo());
+        }
+        if (cause instanceof RejectedExecutionException) {
+            log.warn("抽奖线程池已满，拒绝请求");
+            return Response.failure(ResponseCode.UN_ERROR.getCode(), "抽奖繁忙，请稍后重试");
+        }
+        log.error("抽奖失败", cause);
+        return Response.failure(ResponseCode.UN_ERROR);
+    }
+
+    private static RaffleAwardDTO toDTO(RaffleAwardEntity raffleAward) {
+        return RaffleAwardDTO.builder()
+                .awardId(raffleAward.getAwardId())
+                .awardConfig(raffleAward.getAwardConfig())
+                .luckAward(raffleAward.isLuckAward())
+                .ruleModel(raffleAward.getRuleModel())
+                .build();
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.bhuang.trigger.http.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * @author bhuang
+ * @description 抽奖结果
+ * @create 2025-06-14
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RaffleAwardDTO implements Serializable {
+
+    private static final long serialVersionUID = 2385931620734218694L;
+
+    /** 奖品ID */
+    private Integer awardId;
+    /** 奖品配置，兜底奖品为 rule_luck_award 的配置值 */
+    private String awardConfig;
+    /** 是否为兜底奖品 */
+    private boolean luckAward;
+    /** 接管本次抽奖结果的规则模型，正常抽中时为null */
+    private String ruleModel;
+
+}
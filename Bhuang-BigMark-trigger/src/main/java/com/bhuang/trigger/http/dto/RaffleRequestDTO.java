@@ -0,0 +1,24 @@
+package com.bhuang.trigger.http.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author bhuang
+ * @description 抽奖请求
+ * @create 2025-06-14
+ */
+@Data
+public class RaffleRequestDTO implements Serializable {
+
+    private static final long serialVersionUID = -3418516467285717032L;
+
+    /** 策略ID */
+    private Long strategyId;
+    /** 用户ID，必填，用于用户限流以及黑名单与 rule_lock 等按用户判断的规则 */
+    private String userId;
+    /** 用户累计积分，用于定位权重档位；为null时按普通策略抽奖 */
+    private Long score;
+
+}
@@ -0,0 +1,42 @@
+package com.bhuang.trigger.job;
+
+import com.bhuang.domain.strategy.service.limit.IRaffleRateLimiter;
+import com.bhuang.domain.strategy.service.limit.RaffleRateLimitProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * @author bhuang
+ * @description 抽奖限流同步任务 - 定时把本节点放行的请求数累加到 Redis 滑动窗口，并按集群窗口总数标记或解除超限
+ * @create 2025-06-14
+ */
+@Slf4j
+@Component
+public class RaffleRateLimitSyncJob {
+
+    @Resource
+    private IRaffleRateLimiter raffleRateLimiter;
+
+    @Resource
+    private RaffleRateLimitProperties rateLimitProperties;
+
+    @Scheduled(fixedDelayString = "${strategy.rate-limit.sync-interval:100}")
+    public void exec() {
+        if (!rateLimitProperties.isEnabled()) {
+            return;
+        }
+        try {
+            int synced = raffleRateLimiter.sync();
+            if (synced > 0) {
+                log.debug("抽奖限流同步完成，限流对象数：{}", synced);
+            }
+        } catch (Exception e) {
+            // 同步失败时超限标记到期解除，只按本节点令牌桶限流
+            log.error("抽奖限流同步失败，下次任务重试", e);
+        }
+    }
+
+}
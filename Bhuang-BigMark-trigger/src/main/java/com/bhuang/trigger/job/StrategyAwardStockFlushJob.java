@@ -0,0 +1,44 @@
+package com.bhuang.trigger.job;
+
+import com.bhuang.domain.strategy.model.entity.StrategyAwardStockFlushLagEntity;
+import com.bhuang.domain.strategy.service.stock.IStrategyStock;
+import com.bhuang.domain.strategy.service.stock.StrategyStockProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * @author bhuang
+ * @description 奖品库存回写任务 - 定时把 Redis 中的库存扣减合并后批量回写数据库，并检查回写延迟
+ * @create 2025-06-14
+ */
+@Slf4j
+@Component
+public class StrategyAwardStockFlushJob {
+
+    @Resource
+    private IStrategyStock strategyStock;
+
+    @Resource
+    private StrategyStockProperties stockProperties;
+
+    @Scheduled(fixedDelayString = "${strategy.stock.flush-interval:1000}")
+    public void exec() {
+        if (!stockProperties.isFlushEnabled()) {
+            return;
+        }
+        try {
+            strategyStock.flushAwardStockDeductions();
+
+            StrategyAwardStockFlushLagEntity lag = strategyStock.queryAwardStockFlushLag();
+            if (lag.getLagMillis() > stockProperties.getFlushLagWarnThreshold()) {
+                log.warn("奖品库存回写延迟过高，延迟：{}ms，待回写：{}，回写中：{}", lag.getLagMillis(), lag.getPendingCount(), lag.getInFlightCount());
+            }
+        } catch (Exception e) {
+            log.error("奖品库存回写失败，下次任务重试", e);
+        }
+    }
+
+}
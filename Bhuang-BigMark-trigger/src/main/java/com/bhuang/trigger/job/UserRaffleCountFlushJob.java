@@ -0,0 +1,41 @@
+package com.bhuang.trigger.job;
+
+import com.bhuang.domain.strategy.service.counter.IUserRaffleCounter;
+import com.bhuang.domain.strategy.service.counter.UserRaffleCounterProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * @author bhuang
+ * @description 用户抽奖次数回写任务 - 定时把热点用户在本节点累加的抽奖次数批量回写 Redis，并重新判定热点用户
+ * @create 2025-06-14
+ */
+@Slf4j
+@Component
+public class UserRaffleCountFlushJob {
+
+    @Resource
+    private IUserRaffleCounter userRaffleCounter;
+
+    @Resource
+    private UserRaffleCounterProperties counterProperties;
+
+    @Scheduled(fixedDelayString = "${strategy.user-counter.flush-interval:200}")
+    public void exec() {
+        if (!counterProperties.isLocalAccumulateEnabled()) {
+            return;
+        }
+        try {
+            int flushed = userRaffleCounter.flush();
+            if (flushed > 0) {
+                log.debug("用户抽奖次数回写完成，用户数：{}", flushed);
+            }
+        } catch (Exception e) {
+            log.error("用户抽奖次数回写失败，下次任务重试", e);
+        }
+    }
+
+}
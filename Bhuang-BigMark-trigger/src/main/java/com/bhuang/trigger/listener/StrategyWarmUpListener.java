@@ -0,0 +1,36 @@
+package com.bhuang.trigger.listener;
+
+import com.bhuang.domain.strategy.service.armory.IStrategyWarmUp;
+import com.bhuang.domain.strategy.service.armory.StrategyArmoryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * @author bhuang
+ * @description 应用启动后预热装配全部策略，完成后应用才进入就绪状态
+ * @create 2025-06-14
+ */
+@Slf4j
+@Component
+public class StrategyWarmUpListener implements ApplicationListener<ApplicationStartedEvent> {
+
+    @Resource
+    private IStrategyWarmUp strategyWarmUp;
+
+    @Resource
+    private StrategyArmoryProperties armoryProperties;
+
+    @Override
+    public void onApplicationEvent(ApplicationStartedEvent event) {
+        if (!armoryProperties.isWarmUpEnabled()) {
+            log.info("策略预热未开启，跳过");
+            return;
+        }
+        strategyWarmUp.warmUp();
+    }
+
+}
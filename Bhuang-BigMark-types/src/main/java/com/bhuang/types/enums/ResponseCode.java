@@ -12,6 +12,9 @@ public enum ResponseCode {
     SUCCESS("0000", "成功"),
     UN_ERROR("0001", "未知失败"),
     ILLEGAL_PARAMETER("0002", "非法参数"),
+    STRATEGY_NOT_ASSEMBLED("0003", "策略未装配"),
+    RATE_LIMITED("0004", "抽奖过于频繁，请稍后重试"),
+    AWARD_SOLD_OUT("0005", "奖品已售罄，未发放奖品"),
     ;
 
     private String code;
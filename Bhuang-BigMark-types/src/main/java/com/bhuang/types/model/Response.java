@@ -0,0 +1,50 @@
+package com.bhuang.types.model;
+
+import com.bhuang.types.enums.ResponseCode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * @author bhuang
+ * @description HTTP 接口统一应答
+ * @create 2025-06-14
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Response<T> implements Serializable {
+
+    private static final long serialVersionUID = 7000723935764546321L;
+
+    /** 应答码 */
+    private String code;
+    /** 应答信息 */
+    private String info;
+    /** 应答数据 */
+    private T data;
+
+    public static <T> Response<T> success(T data) {
+        return Response.<T>builder()
+                .code(ResponseCode.SUCCESS.getCode())
+                .info(ResponseCode.SUCCESS.getInfo())
+                .data(data)
+                .build();
+    }
+
+    public static <T> Response<T> failure(ResponseCode responseCode) {
+        return failure(responseCode.getCode(), responseCode.getInfo());
+    }
+
+    public static <T> Response<T> failure(String code, String info) {
+        return Response.<T>builder()
+                .code(code)
+                .info(info)
+                .build();
+    }
+
+}
@@ -168,6 +168,51 @@ VALUES
 UNLOCK TABLES;
 
 
+# 转储表 strategy_blacklist
+# ------------------------------------------------------------
+
+DROP TABLE IF EXISTS `strategy_blacklist`;
+
+CREATE TABLE `strategy_blacklist` (
+                                  `id` bigint(11) unsigned NOT NULL AUTO_INCREMENT COMMENT '自增ID',
+                                  `strategy_id` int(8) NOT NULL COMMENT '抽奖策略ID',
+                                  `user_id` varchar(32) NOT NULL COMMENT '用户ID',
+                                  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+                                  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+                                  PRIMARY KEY (`id`),
+                                  UNIQUE KEY `uq_strategy_id_user_id` (`strategy_id`,`user_id`),
+                                  KEY `idx_strategy_id` (`strategy_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='策略黑名单用户；rule_blacklist 规则值只配置奖品ID，用户在此维护，修改后重新装配策略生效。旧格式规则值 {awardId}:{userId},... 中的用户仍与本表合并生效';
+
+LOCK TABLES `strategy_blacklist` WRITE;
+/*!40000 ALTER TABLE `strategy_blacklist` DISABLE KEYS */;
+
+INSERT INTO `strategy_blacklist` (`id`, `strategy_id`, `user_id`, `create_time`, `update_time`)
+VALUES
+    (1,100001,'user001','2023-12-09 12:59:45','2023-12-09 12:59:45'),
+    (2,100001,'user002','2023-12-09 12:59:45','2023-12-09 12:59:45'),
+    (3,100001,'user003','2023-12-09 12:59:45','2023-12-09 12:59:45');
+
+/*!40000 ALTER TABLE `strategy_blacklist` ENABLE KEYS */;
+UNLOCK TABLES;
+
+
+# 转储表 strategy_award_stock_flush
+# ------------------------------------------------------------
+
+DROP TABLE IF EXISTS `strategy_award_stock_flush`;
+
+CREATE TABLE `strategy_award_stock_flush` (
+                                  `id` bigint(11) unsigned NOT NULL AUTO_INCREMENT COMMENT '自增ID',
+                                  `flush_id` varchar(64) NOT NULL COMMENT '库存回写批次ID，与库存扣减在同一事务内写入，重复领取的批次据此跳过',
+                                  `deduct_count` int(8) NOT NULL DEFAULT '0' COMMENT '合并后的回写奖品数',
+                                  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+                                  PRIMARY KEY (`id`),
+                                  UNIQUE KEY `uq_flush_id` (`flush_id`),
+                                  KEY `idx_create_time` (`create_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='奖品库存回写批次；只有未确认的批次会被重复领取，创建较久的记录可定期清理';
+
+
 
 /*!40111 SET SQL_NOTES=@OLD_SQL_NOTES */;
 /*!40101 SET SQL_MODE=@OLD_SQL_MODE */;